@@ -0,0 +1,78 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Lazily created component that is built from configuration values and replaced whenever the configuration generation changes, like the
+ * instances held by {@link io.goobi.viewer.connector.oai.model.formats.FormatRegistry}. Only suitable for components that hold no threads,
+ * since replaced instances are simply dropped.
+ *
+ * @param <T> Component type
+ */
+final class ConfiguredComponent<T> {
+
+    private final Supplier<T> factory;
+    private final AtomicReference<Instance<T>> current = new AtomicReference<>();
+
+    /**
+     * Component instance created for one configuration generation.
+     *
+     * @param <T> Component type
+     */
+    private static final class Instance<T> {
+
+        private final long generation;
+        private final T value;
+
+        private Instance(long generation, T value) {
+            this.generation = generation;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 
+     * @param factory Creates a new instance from the current configuration
+     */
+    ConfiguredComponent(Supplier<T> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * 
+     * @param generation Current configuration generation
+     * @return Instance for the given configuration generation
+     * @should return same instance for same generation
+     * @should create new instance for new generation
+     */
+    T get(long generation) {
+        Instance<T> instance = current.get();
+        if (instance == null || instance.generation != generation) {
+            Instance<T> newInstance = new Instance<>(generation, factory.get());
+            if (current.compareAndSet(instance, newInstance)) {
+                instance = newInstance;
+            } else {
+                // Another thread was faster
+                instance = current.get();
+            }
+        }
+
+        return instance.value;
+    }
+}
@@ -42,11 +42,14 @@ public class ContextListener implements ServletContextListener {
     public void contextInitialized(ServletContextEvent sce) {
         logger.info("{}", Utils.formatVersionString(Utils.getVersion()));
         io.goobi.viewer.controller.DataManager.getInstance().setConnectorVersion(Utils.getVersion());
+        DataManager.getInstance().startDumpSnapshots();
+        DataManager.getInstance().startRecordStoreRefresh();
     }
 
     /** {@inheritDoc} */
     @Override
     public void contextDestroyed(ServletContextEvent sce) {
+        DataManager.getInstance().shutdown();
         // Shut all loggers down to prevent memory leaks when re-deploying the context
         LogManager.shutdown();
     }
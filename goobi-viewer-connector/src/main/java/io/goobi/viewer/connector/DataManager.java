@@ -15,8 +15,29 @@
  */
 package io.goobi.viewer.connector;
 
+import java.nio.file.Paths;
+
+import org.apache.commons.lang3.StringUtils;
+
+import io.goobi.viewer.connector.oai.model.DumpSnapshotScheduler;
+import io.goobi.viewer.connector.oai.model.RecordStoreRefresher;
+import io.goobi.viewer.connector.oai.model.SetRegistry;
+import io.goobi.viewer.connector.oai.model.formats.FormatRegistry;
+import io.goobi.viewer.connector.utils.AdaptivePageSizer;
+import io.goobi.viewer.connector.utils.AdmissionController;
+import io.goobi.viewer.connector.utils.AdmissionController.ClientKeyType;
+import io.goobi.viewer.connector.utils.AnchorTitleCache;
 import io.goobi.viewer.connector.utils.Configuration;
+import io.goobi.viewer.connector.utils.FilterSuffixCache;
+import io.goobi.viewer.connector.utils.FulltextCache;
+import io.goobi.viewer.connector.utils.RecordRenderer;
+import io.goobi.viewer.connector.utils.RecordStore;
+import io.goobi.viewer.connector.utils.RequestCoalescer;
+import io.goobi.viewer.connector.utils.RequestExecutor;
 import io.goobi.viewer.connector.utils.SolrSearchIndex;
+import io.goobi.viewer.connector.utils.SourceDocumentCache;
+import io.goobi.viewer.connector.utils.TocCache;
+import io.goobi.viewer.connector.utils.TranslationCache;
 import io.goobi.viewer.model.translations.language.LanguageHelper;
 
 /**
@@ -31,10 +52,64 @@ public final class DataManager {
 
     private static DataManager instance = null;
 
-    private Configuration configuration;
+    private volatile Configuration configuration;
 
     private SolrSearchIndex searchIndex;
 
+    private final ConfiguredComponent<TocCache> tocCache = new ConfiguredComponent<>(() -> new TocCache(getConfiguration().getTocCacheSize(),
+            getConfiguration().getTocCacheSpillFolder(), getConfiguration().getTocCacheNotFoundTtl() * 1000L));
+
+    /** Holds threads, so it is created only once; its configuration keys require a restart */
+    private volatile FulltextCache fulltextCache;
+
+    /** Holds threads, so it is created only once; its configuration keys require a restart */
+    private volatile SourceDocumentCache sourceDocumentCache;
+
+    private final ConfiguredComponent<AnchorTitleCache> anchorTitleCache =
+            new ConfiguredComponent<>(() -> new AnchorTitleCache(getConfiguration().getAnchorTitleCacheSize(),
+                    getConfiguration().getAnchorTitleCacheTtl() * 1000L, getConfiguration().getAnchorTitleCacheIndexCheckInterval() * 1000L));
+
+    private final ConfiguredComponent<TranslationCache> translationCache = new ConfiguredComponent<>(
+            () -> new TranslationCache(getConfiguration().getTranslationCacheSize(), getConfiguration().getTranslationCacheCheckInterval() * 1000L));
+
+    private final ConfiguredComponent<FilterSuffixCache> filterSuffixCache = new ConfiguredComponent<>(
+            () -> new FilterSuffixCache(getConfiguration().getFilterSuffixCacheSize(), getConfiguration().getFilterSuffixCacheTtl() * 1000L));
+
+    /** Holds threads, so it is created only once; its configuration keys require a restart */
+    private volatile RequestExecutor requestExecutor;
+
+    /** Holds threads, so it is created only once; its configuration keys require a restart */
+    private volatile RecordRenderer recordRenderer;
+
+    /**
+     * Kept across configuration reloads, so that token buckets and permits held by running requests stay valid; only its limits are replaced.
+     * admission.rateLimit.maxClients requires a restart.
+     */
+    private volatile AdmissionController admissionController;
+    /** Configuration generation the admission controller's limits were taken from */
+    private volatile long admissionControllerGeneration;
+
+    private final ConfiguredComponent<RequestCoalescer> requestCoalescer =
+            new ConfiguredComponent<>(() -> new RequestCoalescer(getConfiguration().isRequestCoalescing(),
+                    getConfiguration().getRequestCoalescingTimeout() * 1000L));
+
+    private DumpSnapshotScheduler dumpSnapshotScheduler;
+
+    private final ConfiguredComponent<RecordStore> recordStore = new ConfiguredComponent<>(() -> {
+        Configuration config = getConfiguration();
+        return new RecordStore(config.isRecordStoreEnabled(),
+                StringUtils.isNotEmpty(config.getRecordStoreFolder()) ? Paths.get(config.getRecordStoreFolder()) : null,
+                config.getRecordStoreMetadataPrefixes(), () -> getConfiguration().getContentHash());
+    });
+
+    private final AdaptivePageSizer pageSizer = new AdaptivePageSizer();
+
+    private RecordStoreRefresher recordStoreRefresher;
+
+    private final FormatRegistry formatRegistry = new FormatRegistry();
+
+    private final SetRegistry setRegistry = new SetRegistry();
+
     private LanguageHelper languageHelper = io.goobi.viewer.controller.DataManager.getInstance().getLanguageHelper();
 
     /**
@@ -73,7 +148,9 @@ public final class DataManager {
     public Configuration getConfiguration() {
         if (configuration == null) {
             synchronized (LOCK) {
-                configuration = new Configuration(Configuration.DEFAULT_CONFIG_FILE);
+                if (configuration == null) {
+                    configuration = new Configuration(Configuration.DEFAULT_CONFIG_FILE);
+                }
             }
         }
 
@@ -98,6 +175,253 @@ public final class DataManager {
         return searchIndex;
     }
 
+    /**
+     * <p>
+     * Getter for the field <code>tocCache</code>.
+     * </p>
+     *
+     * @return the tocCache
+     */
+    public TocCache getTocCache() {
+        return tocCache.get(getConfiguration().getGeneration());
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>fulltextCache</code>.
+     * </p>
+     *
+     * @return the fulltextCache
+     */
+    public FulltextCache getFulltextCache() {
+        if (fulltextCache == null) {
+            synchronized (LOCK) {
+                if (fulltextCache == null) {
+                    fulltextCache = new FulltextCache(getConfiguration().getFulltextCacheSize(),
+                            getConfiguration().getFulltextCacheMaxMemory() * 1024L * 1024L, getConfiguration().getFulltextParserThreads());
+                }
+            }
+        }
+
+        return fulltextCache;
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>sourceDocumentCache</code>.
+     * </p>
+     *
+     * @return the sourceDocumentCache
+     */
+    public SourceDocumentCache getSourceDocumentCache() {
+        if (sourceDocumentCache == null) {
+            synchronized (LOCK) {
+                if (sourceDocumentCache == null) {
+                    sourceDocumentCache = new SourceDocumentCache(getConfiguration().getSourceDocumentCacheSize(),
+                            getConfiguration().getSourceDocumentCacheMaxMemory() * 1024L * 1024L,
+                            getConfiguration().getSourceDocumentFetcherThreads());
+                }
+            }
+        }
+
+        return sourceDocumentCache;
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>anchorTitleCache</code>.
+     * </p>
+     *
+     * @return the anchorTitleCache
+     */
+    public AnchorTitleCache getAnchorTitleCache() {
+        return anchorTitleCache.get(getConfiguration().getGeneration());
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>translationCache</code>.
+     * </p>
+     *
+     * @return the translationCache
+     */
+    public TranslationCache getTranslationCache() {
+        return translationCache.get(getConfiguration().getGeneration());
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>filterSuffixCache</code>.
+     * </p>
+     *
+     * @return the filterSuffixCache
+     */
+    public FilterSuffixCache getFilterSuffixCache() {
+        return filterSuffixCache.get(getConfiguration().getGeneration());
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>requestExecutor</code>.
+     * </p>
+     *
+     * @return the requestExecutor
+     */
+    public RequestExecutor getRequestExecutor() {
+        if (requestExecutor == null) {
+            synchronized (LOCK) {
+                if (requestExecutor == null) {
+                    Configuration config = getConfiguration();
+                    requestExecutor = new RequestExecutor(config.isRequestProcessingAsync(), config.getHeavyRequestThreads(),
+                            config.getHeavyRequestQueueSize(), config.getLightRequestThreads(), config.getLightRequestQueueSize(),
+                            config.getRequestRetryAfter(), config.getRequestTimeout() * 1000L);
+                }
+            }
+        }
+
+        return requestExecutor;
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>recordRenderer</code>.
+     * </p>
+     *
+     * @return the recordRenderer
+     */
+    public RecordRenderer getRecordRenderer() {
+        if (recordRenderer == null) {
+            synchronized (LOCK) {
+                if (recordRenderer == null) {
+                    recordRenderer = new RecordRenderer(getConfiguration().isRecordRenderingVirtualThreads(),
+                            getConfiguration().getRecordRenderingMaxConcurrentCalls());
+                }
+            }
+        }
+
+        return recordRenderer;
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>admissionController</code>.
+     * </p>
+     *
+     * @return the admissionController
+     */
+    public AdmissionController getAdmissionController() {
+        long generation = getConfiguration().getGeneration();
+        if (admissionController == null || admissionControllerGeneration != generation) {
+            synchronized (LOCK) {
+                // The configuration may have been reloaded again in the meantime
+                generation = getConfiguration().getGeneration();
+                Configuration config = getConfiguration();
+                if (admissionController == null) {
+                    admissionController = new AdmissionController(config.isAdmissionControlEnabled(),
+                            ClientKeyType.getByName(config.getAdmissionClientKey()), config.getRateLimitCapacity(),
+                            config.getRateLimitRequestsPerMinute(), config.getRateLimitMaxClients(), config.getDefaultConcurrencyLimit(),
+                            config.getConcurrencyLimits(), config.getRequestRetryAfter());
+                } else if (admissionControllerGeneration != generation) {
+                    admissionController.configure(config.isAdmissionControlEnabled(), ClientKeyType.getByName(config.getAdmissionClientKey()),
+                            config.getRateLimitCapacity(), config.getRateLimitRequestsPerMinute(), config.getDefaultConcurrencyLimit(),
+                            config.getConcurrencyLimits(), config.getRequestRetryAfter());
+                }
+                admissionControllerGeneration = generation;
+            }
+        }
+
+        return admissionController;
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>requestCoalescer</code>.
+     * </p>
+     *
+     * @return the requestCoalescer
+     */
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer.get(getConfiguration().getGeneration());
+    }
+
+    /**
+     * Starts writing bulk dump snapshots, if enabled in the configuration and not already started.
+     *
+     * @return the dumpSnapshotScheduler; null if no snapshots are configured
+     */
+    public DumpSnapshotScheduler startDumpSnapshots() {
+        synchronized (LOCK) {
+            if (dumpSnapshotScheduler == null) {
+                Configuration config = getConfiguration();
+                if (config.isDumpEnabled() && config.getDumpSnapshotInterval() > 0 && StringUtils.isNotEmpty(config.getDumpSnapshotFolder())
+                        && !config.getDumpSnapshotMetadataPrefixes().isEmpty()) {
+                    dumpSnapshotScheduler = new DumpSnapshotScheduler(Paths.get(config.getDumpSnapshotFolder()),
+                            config.getDumpSnapshotMetadataPrefixes(), config.getDumpSnapshotInterval(), config.getDumpRows());
+                }
+            }
+            return dumpSnapshotScheduler;
+        }
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>recordStore</code>.
+     * </p>
+     *
+     * @return the recordStore
+     */
+    public RecordStore getRecordStore() {
+        return recordStore.get(getConfiguration().getGeneration());
+    }
+
+    /**
+     * Starts refreshing the stored records in the background, if enabled in the configuration and not already started.
+     *
+     * @return the recordStoreRefresher; null if no refresh is configured
+     */
+    public RecordStoreRefresher startRecordStoreRefresh() {
+        synchronized (LOCK) {
+            if (recordStoreRefresher == null && getRecordStore().isEnabled() && getConfiguration().getRecordStoreRefreshInterval() > 0) {
+                recordStoreRefresher = new RecordStoreRefresher(getRecordStore(), Paths.get(getConfiguration().getRecordStoreFolder()),
+                        getConfiguration().getRecordStoreRefreshInterval(), getConfiguration().getDumpRows());
+            }
+            return recordStoreRefresher;
+        }
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>pageSizer</code>.
+     * </p>
+     *
+     * @return the pageSizer
+     */
+    public AdaptivePageSizer getPageSizer() {
+        return pageSizer;
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>formatRegistry</code>.
+     * </p>
+     *
+     * @return the formatRegistry
+     */
+    public FormatRegistry getFormatRegistry() {
+        return formatRegistry;
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>setRegistry</code>.
+     * </p>
+     *
+     * @return the setRegistry
+     */
+    public SetRegistry getSetRegistry() {
+        return setRegistry;
+    }
+
     /**
      * <p>
      * Getter for the field <code>languageHelper</code>.
@@ -126,6 +450,9 @@ public final class DataManager {
      */
     public void injectConfiguration(Configuration configuration) {
         if (configuration != null) {
+            if (this.configuration != null && this.configuration != configuration) {
+                this.configuration.shutdown();
+            }
             this.configuration = configuration;
         }
     }
@@ -140,4 +467,39 @@ public final class DataManager {
             this.searchIndex = searchIndex;
         }
     }
+
+    /**
+     * Stops background threads held by this instance (called when the application context is destroyed).
+     */
+    public void shutdown() {
+        synchronized (LOCK) {
+            if (configuration != null) {
+                configuration.shutdown();
+            }
+            if (fulltextCache != null) {
+                fulltextCache.shutdown();
+                fulltextCache = null;
+            }
+            if (sourceDocumentCache != null) {
+                sourceDocumentCache.shutdown();
+                sourceDocumentCache = null;
+            }
+            if (requestExecutor != null) {
+                requestExecutor.shutdown();
+                requestExecutor = null;
+            }
+            if (recordRenderer != null) {
+                recordRenderer.shutdown();
+                recordRenderer = null;
+            }
+            if (dumpSnapshotScheduler != null) {
+                dumpSnapshotScheduler.shutdown();
+                dumpSnapshotScheduler = null;
+            }
+            if (recordStoreRefresher != null) {
+                recordStoreRefresher.shutdown();
+                recordStoreRefresher = null;
+            }
+        }
+    }
 }
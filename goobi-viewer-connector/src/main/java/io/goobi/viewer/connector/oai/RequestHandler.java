@@ -52,6 +52,8 @@ public class RequestHandler {
     private String until = null;
     @XStreamAlias("set")
     private String set = null;
+    /** Number of Solr records consumed by the ListRecords page of this request, if it differs from the number of rendered records */
+    private transient Integer consumedRecords = null;
 
     /**
      * Handles the request in servlet.
@@ -280,4 +282,18 @@ public class RequestHandler {
     public void setSet(String set) {
         this.set = set;
     }
+
+    /**
+     * @return Number of Solr records consumed by the ListRecords page of this request; null if equal to the number of rendered records
+     */
+    public Integer getConsumedRecords() {
+        return consumedRecords;
+    }
+
+    /**
+     * @param consumedRecords Number of Solr records consumed by the ListRecords page of this request
+     */
+    public void setConsumedRecords(Integer consumedRecords) {
+        this.consumedRecords = consumedRecords;
+    }
 }
@@ -0,0 +1,101 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrServerException;
+
+import io.goobi.viewer.connector.oai.enums.Metadata;
+
+/**
+ * Periodically writes bulk dump snapshots of the configured metadata formats, one format after another on a single background thread.
+ */
+public class DumpSnapshotScheduler {
+
+    private static final Logger logger = LogManager.getLogger(DumpSnapshotScheduler.class);
+
+    /** Delay before the first snapshot, so that it does not compete with the start up of the application */
+    private static final long INITIAL_DELAY_MINUTES = 5;
+
+    private final Path folder;
+    private final List<String> metadataPrefixes;
+    private final int rows;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * 
+     * @param folder Snapshot folder
+     * @param metadataPrefixes Metadata prefixes for which snapshots are written
+     * @param intervalHours Number of hours between snapshots
+     * @param rows Number of records retrieved from Solr per page
+     */
+    public DumpSnapshotScheduler(Path folder, List<String> metadataPrefixes, int intervalHours, int rows) {
+        this.folder = folder;
+        this.metadataPrefixes = List.copyOf(metadataPrefixes);
+        this.rows = rows;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "dump-snapshot-writer");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::writeSnapshots, INITIAL_DELAY_MINUTES, TimeUnit.HOURS.toMinutes(intervalHours), TimeUnit.MINUTES);
+        logger.info("Bulk dump snapshots of {} are written every {} hours to {}", this.metadataPrefixes, intervalHours, folder);
+    }
+
+    /**
+     * Writes snapshots for all configured metadata formats. Failures are logged, so that one format cannot prevent the snapshots of the others.
+     */
+    void writeSnapshots() {
+        for (String metadataPrefix : metadataPrefixes) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            Metadata md = Metadata.getByMetadataPrefix(metadataPrefix);
+            if (md == null) {
+                logger.warn("Unknown metadata prefix for bulk dump snapshot: {}", metadataPrefix);
+                continue;
+            }
+            try {
+                RecordDump.writeSnapshot(md, folder, rows);
+            } catch (IOException | SolrServerException | RuntimeException e) {
+                logger.error("Could not write bulk dump snapshot of {}: {}", metadataPrefix, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return Snapshot folder
+     */
+    public Path getFolder() {
+        return folder;
+    }
+
+    /**
+     * Stops writing snapshots.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,272 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.model;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.params.CursorMarkParams;
+import org.jdom2.Comment;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.output.XMLOutputter;
+
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.oai.RequestHandler;
+import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.oai.enums.Verb;
+import io.goobi.viewer.connector.oai.model.formats.DumpableFormat;
+import io.goobi.viewer.connector.oai.model.formats.Format;
+import io.goobi.viewer.connector.utils.SolrSearchTools;
+import io.goobi.viewer.connector.utils.SpooledElement;
+import io.goobi.viewer.connector.utils.Utils;
+
+/**
+ * Bulk dump of all records of one metadata format (optionally limited by set and date range) as a single gzip compressed OAI-PMH ListRecords
+ * document without resumption tokens. Records are retrieved from Solr page by page with a cursor and written as soon as they are rendered, so
+ * that memory usage does not depend on the size of the repository.
+ */
+public class RecordDump {
+
+    private static final Logger logger = LogManager.getLogger(RecordDump.class);
+
+    /** Marks the position of the records in the document frame */
+    private static final String RECORDS_MARKER = "records";
+
+    private final DumpableFormat format;
+    private final RequestHandler handler;
+    private final String filterQuerySuffix;
+    /** Number of records per Solr page */
+    private final int rows;
+
+    /**
+     * 
+     * @param format Metadata format; must support bulk dumps
+     * @param handler Request handler with metadata prefix and optional set, from and until values
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @param rows Number of records retrieved from Solr per page
+     */
+    public RecordDump(Format format, RequestHandler handler, String filterQuerySuffix, int rows) {
+        if (!isSupported(format)) {
+            throw new IllegalArgumentException("Bulk dumps are not supported for this format");
+        }
+        this.format = (DumpableFormat) format;
+        this.handler = handler;
+        this.filterQuerySuffix = filterQuerySuffix != null ? filterQuerySuffix : "";
+        this.rows = Math.max(1, rows);
+        handler.setVerb(Verb.LISTRECORDS);
+    }
+
+    /**
+     * 
+     * @param format
+     * @return true if bulk dumps can be created for the given format; false otherwise
+     */
+    public static boolean isSupported(Format format) {
+        return format instanceof DumpableFormat;
+    }
+
+    /**
+     * @param metadataPrefix
+     * @return File name of the snapshot for the given metadata prefix
+     */
+    public static String getSnapshotFileName(String metadataPrefix) {
+        return metadataPrefix + ".xml.gz";
+    }
+
+    /**
+     * Writes a snapshot of all publicly accessible records of the given metadata format into the given folder. The snapshot is written to a
+     * temporary file first, so that clients never download an incomplete snapshot.
+     * 
+     * @param metadataPrefix Metadata format
+     * @param folder Snapshot folder
+     * @param rows Number of records retrieved from Solr per page
+     * @return Path of the snapshot file
+     * @throws IOException
+     * @throws SolrServerException
+     */
+    public static Path writeSnapshot(Metadata metadataPrefix, Path folder, int rows) throws IOException, SolrServerException {
+        Format format = Format.getFormatByMetadataPrefix(metadataPrefix);
+        if (!isSupported(format)) {
+            throw new IllegalArgumentException("Bulk dumps are not supported for " + metadataPrefix.getMetadataPrefix());
+        }
+        RequestHandler handler = new RequestHandler();
+        handler.setMetadataPrefix(metadataPrefix);
+        RecordDump dump = new RecordDump(format, handler, SolrSearchTools.getAllSuffixes(null), rows);
+
+        Files.createDirectories(folder);
+        Path target = folder.resolve(getSnapshotFileName(metadataPrefix.getMetadataPrefix()));
+        Path temp = Files.createTempFile(folder, metadataPrefix.getMetadataPrefix(), ".tmp");
+        try {
+            long count;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                count = dump.write(out);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Bulk dump snapshot written: {} ({} records)", target, count);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        return target;
+    }
+
+    /**
+     * Receives the rendered records of one Solr page.
+     */
+    @FunctionalInterface
+    public interface RecordConsumer {
+
+        /**
+         * @param records Rendered records of the page, without error elements
+         * @throws IOException
+         */
+        void accept(List<Element> records) throws IOException;
+    }
+
+    /**
+     * Writes the dump as a gzip compressed OAI-PMH document to the given stream. Compressed data is flushed after each page, so that clients
+     * receive records while the dump is still being written.
+     * 
+     * @param out Output stream; not closed by this method
+     * @return Number of written records
+     * @throws IOException
+     * @throws SolrServerException
+     * @should write all records as compressed document
+     */
+    public long write(OutputStream out) throws IOException, SolrServerException {
+        String[] frame = getFrame();
+        org.jdom2.output.Format outputFormat = org.jdom2.output.Format.getPrettyFormat();
+        outputFormat.setEncoding("utf-8");
+        XMLOutputter xmlOut = SpooledElement.getOutputter(outputFormat);
+
+        GZIPOutputStream gzip = new GZIPOutputStream(out, 65536, true);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+        writer.write(frame[0]);
+        long count = render(records -> {
+            for (Element eleRecord : records) {
+                writer.write('\n');
+                xmlOut.output(eleRecord, writer);
+            }
+            writer.flush();
+        });
+        writer.write(frame[1]);
+        writer.flush();
+        gzip.finish();
+        logger.debug("Bulk dump of {} finished: {} records", handler.getMetadataPrefix().getMetadataPrefix(), count);
+
+        return count;
+    }
+
+    /**
+     * Renders all records of the dump page by page and passes them to the given consumer.
+     * 
+     * @param consumer Receives the records of each page
+     * @return Number of rendered records
+     * @throws IOException
+     * @throws SolrServerException
+     */
+    public long render(RecordConsumer consumer) throws IOException, SolrServerException {
+        Map<String, String> params = Utils.filterDatestampFromRequest(handler);
+        long count = 0;
+        String cursorMark = CursorMarkParams.CURSOR_MARK_START;
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Bulk dump interrupted");
+            }
+            QueryResponse qr = DataManager.getInstance()
+                    .getSearchIndex()
+                    .getDumpRecords(params, format.getDumpQuery(), filterQuerySuffix, format.getDumpFieldList(), cursorMark, rows);
+            if (!qr.getResults().isEmpty()) {
+                Element eleListRecords = format.createDumpRecords(qr.getResults(), handler, filterQuerySuffix);
+                List<Element> records = new ArrayList<>(eleListRecords.getChildren().size());
+                for (Element eleRecord : eleListRecords.getChildren()) {
+                    // Skip error elements of records that could not be rendered
+                    if ("record".equals(eleRecord.getName())) {
+                        records.add(eleRecord);
+                    }
+                }
+                consumer.accept(records);
+                count += records.size();
+            }
+            String nextCursorMark = qr.getNextCursorMark();
+            if (nextCursorMark == null || nextCursorMark.equals(cursorMark)) {
+                break;
+            }
+            cursorMark = nextCursorMark;
+        }
+
+        return count;
+    }
+
+    /**
+     * Creates the OAI-PMH document around the records.
+     * 
+     * @return Document text before and after the records
+     * @should contain request attributes
+     */
+    String[] getFrame() {
+        Element root = Format.getOaiPmhElement("OAI-PMH");
+        Element responseDate = new Element("responseDate", Format.OAI_NS);
+        responseDate.setText(Utils.getCurrentUTCTime(LocalDateTime.now()));
+        root.addContent(responseDate);
+
+        Element request = new Element("request", Format.OAI_NS);
+        request.setAttribute("verb", Verb.LISTRECORDS.getTitle());
+        request.setAttribute("metadataPrefix", handler.getMetadataPrefix().getMetadataPrefix());
+        if (StringUtils.isNotEmpty(handler.getFrom())) {
+            request.setAttribute("from", handler.getFrom());
+        }
+        if (StringUtils.isNotEmpty(handler.getUntil())) {
+            request.setAttribute("until", handler.getUntil());
+        }
+        if (StringUtils.isNotEmpty(handler.getSet())) {
+            request.setAttribute("set", handler.getSet());
+        }
+        request.setText(DataManager.getInstance().getConfiguration().getBaseURL());
+        root.addContent(request);
+
+        Element listRecords = new Element("ListRecords", Format.OAI_NS);
+        listRecords.addContent(new Comment(RECORDS_MARKER));
+        root.addContent(listRecords);
+
+        org.jdom2.output.Format outputFormat = org.jdom2.output.Format.getPrettyFormat();
+        outputFormat.setEncoding("utf-8");
+        String xml = new XMLOutputter(outputFormat).outputString(new Document(root));
+        String marker = "<!--" + RECORDS_MARKER + "-->";
+        int index = xml.indexOf(marker);
+
+        return new String[] { xml.substring(0, index), xml.substring(index + marker.length()) };
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.params.CursorMarkParams;
+
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.oai.RequestHandler;
+import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.oai.model.formats.Format;
+import io.goobi.viewer.connector.utils.RecordStore;
+import io.goobi.viewer.connector.utils.SolrSearchTools;
+import io.goobi.viewer.connector.utils.Utils;
+import io.goobi.viewer.solr.SolrConstants;
+
+/**
+ * Periodically brings the {@link RecordStore} up to date with the index on a single background thread. Records updated since the last run are
+ * rendered again (the first run renders all records) and records deleted since the last run are removed from the store. The time of the last
+ * run is kept in the store folder, so that a restart does not render all records again.
+ */
+public class RecordStoreRefresher {
+
+    private static final Logger logger = LogManager.getLogger(RecordStoreRefresher.class);
+
+    /** Delay before the first run, so that it does not compete with the start up of the application */
+    private static final long INITIAL_DELAY_MINUTES = 5;
+
+    private static final String LAST_REFRESH_FILE_NAME = "lastrefresh";
+
+    private final RecordStore store;
+    private final Path folder;
+    private final int rows;
+    private final ScheduledExecutorService executor;
+
+    /**
+     * 
+     * @param store Record store
+     * @param folder Store folder
+     * @param intervalMinutes Number of minutes between runs
+     * @param rows Number of records retrieved from Solr per page
+     */
+    public RecordStoreRefresher(RecordStore store, Path folder, int intervalMinutes, int rows) {
+        this.store = store;
+        this.folder = folder;
+        this.rows = rows;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "record-store-refresher");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::refresh, INITIAL_DELAY_MINUTES, intervalMinutes, TimeUnit.MINUTES);
+        logger.info("Stored records of {} are refreshed every {} minutes", store.getMetadataPrefixes(), intervalMinutes);
+    }
+
+    /**
+     * Refreshes the stored records of all metadata formats. Failures are logged, so that one format cannot prevent the refresh of the others.
+     */
+    void refresh() {
+        for (String metadataPrefix : store.getMetadataPrefixes()) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            Metadata md = Metadata.getByMetadataPrefix(metadataPrefix);
+            Format format = md != null ? Format.getFormatByMetadataPrefix(md) : null;
+            if (!RecordDump.isSupported(format)) {
+                logger.warn("Records of metadata prefix {} cannot be refreshed", metadataPrefix);
+                continue;
+            }
+            try {
+                refresh(md, format);
+            } catch (IOException | SolrServerException | RuntimeException e) {
+                logger.error("Could not refresh stored records of {}: {}", metadataPrefix, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 
+     * @param md
+     * @param format
+     * @throws IOException
+     * @throws SolrServerException
+     */
+    private void refresh(Metadata md, Format format) throws IOException, SolrServerException {
+        Path lastRefreshFile = folder.resolve(md.getMetadataPrefix()).resolve(LAST_REFRESH_FILE_NAME);
+        long lastRefresh = readLastRefresh(lastRefreshFile);
+        // Records updated while this run is in progress are picked up again by the next run
+        long start = System.currentTimeMillis();
+
+        int deleted = 0;
+        if (lastRefresh > 0) {
+            deleted = removeDeletedRecords(lastRefresh);
+        }
+
+        RequestHandler handler = new RequestHandler();
+        handler.setMetadataPrefix(md);
+        if (lastRefresh > 0) {
+            handler.setFrom(Utils.getCurrentUTCTime(LocalDateTime.ofEpochSecond(lastRefresh / 1000, 0, ZoneOffset.UTC)));
+        }
+        // Rendering the records via the format writes all outdated records to the store
+        long rendered = new RecordDump(format, handler, SolrSearchTools.getAllSuffixes(null), rows).render(records -> {
+            // The records have already been stored while rendering
+        });
+
+        Files.createDirectories(lastRefreshFile.getParent());
+        Files.writeString(lastRefreshFile, String.valueOf(start), StandardCharsets.UTF_8);
+        logger.debug("Stored records of {} refreshed: {} rendered, {} removed", md.getMetadataPrefix(), rendered, deleted);
+    }
+
+    /**
+     * Removes records deleted since the given time from the store.
+     * 
+     * @param since
+     * @return Number of removed files
+     * @throws IOException
+     * @throws SolrServerException
+     */
+    private int removeDeletedRecords(long since) throws IOException, SolrServerException {
+        String query = " +" + SolrConstants.DATEDELETED + ":[" + since + " TO *]";
+        List<String> fieldList = List.of(SolrConstants.PI, SolrConstants.PI_TOPSTRUCT);
+        int ret = 0;
+        String cursorMark = CursorMarkParams.CURSOR_MARK_START;
+        while (true) {
+            QueryResponse qr = DataManager.getInstance()
+                    .getSearchIndex()
+                    .getDumpRecords(Collections.emptyMap(), query, "", fieldList, cursorMark, rows);
+            for (SolrDocument doc : qr.getResults()) {
+                String pi = (String) doc.getFieldValue(SolrConstants.PI_TOPSTRUCT);
+                ret += store.invalidate(pi != null ? pi : (String) doc.getFieldValue(SolrConstants.PI));
+            }
+            String nextCursorMark = qr.getNextCursorMark();
+            if (nextCursorMark == null || nextCursorMark.equals(cursorMark)) {
+                break;
+            }
+            cursorMark = nextCursorMark;
+        }
+
+        return ret;
+    }
+
+    /**
+     * 
+     * @param lastRefreshFile
+     * @return Time of the last refresh; 0 if unknown
+     */
+    static long readLastRefresh(Path lastRefreshFile) {
+        if (!Files.isRegularFile(lastRefreshFile)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(Files.readString(lastRefreshFile, StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Could not read time of last refresh from {}: {}", lastRefreshFile, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Stops refreshing records.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
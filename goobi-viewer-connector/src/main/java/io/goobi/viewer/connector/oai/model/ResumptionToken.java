@@ -48,6 +48,12 @@ public class ResumptionToken {
     private int virtualCursor;
     @XStreamAlias("rawCursor")
     private int rawCursor;
+    /** Position within the record at <code>rawCursor</code>, for formats that split a single record across several responses. */
+    @XStreamAlias("pageCursor")
+    private int pageCursor;
+    /** Number of records on the next page; 0 for the configured number of hits per token (tokens created before adaptive page sizing). */
+    @XStreamAlias("rows")
+    private int rows;
     @XStreamAlias("expirationDate")
     private long expirationDate;
     @XStreamAlias("handler")
@@ -155,6 +161,42 @@ public class ResumptionToken {
         this.rawCursor = rawCursor;
     }
 
+    /**
+     * <p>Getter for the field <code>pageCursor</code>.</p>
+     *
+     * @return the pageCursor
+     */
+    public int getPageCursor() {
+        return pageCursor;
+    }
+
+    /**
+     * <p>Setter for the field <code>pageCursor</code>.</p>
+     *
+     * @param pageCursor the pageCursor to set
+     */
+    public void setPageCursor(int pageCursor) {
+        this.pageCursor = pageCursor;
+    }
+
+    /**
+     * <p>Getter for the field <code>rows</code>.</p>
+     *
+     * @return the rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * <p>Setter for the field <code>rows</code>.</p>
+     *
+     * @param rows the rows to set
+     */
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+
     /**
      * <p>Setter for the field <code>expirationDate</code>.</p>
      *
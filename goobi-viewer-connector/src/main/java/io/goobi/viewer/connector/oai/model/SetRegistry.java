@@ -0,0 +1,166 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.model;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrServerException;
+
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.utils.BoundedCache;
+import io.goobi.viewer.connector.utils.Configuration;
+import io.goobi.viewer.solr.SolrConstants;
+
+/**
+ * Configured OAI sets, indexed by set name and setSpec, and the values of all-values sets found in the index. The set configuration is read once
+ * per configuration generation; set values are cached for a configurable time and shared by ListSets and set queries.
+ */
+public class SetRegistry {
+
+    private static final Logger logger = LogManager.getLogger(SetRegistry.class);
+
+    private final AtomicReference<Sets> current = new AtomicReference<>();
+
+    /**
+     * Set configuration for one configuration generation.
+     */
+    private static final class Sets {
+
+        private final long generation;
+        /** All-values sets by set name (i.e. index field) */
+        private final Map<String, Set> allValuesSets;
+        /** Additional sets by setSpec */
+        private final Map<String, Set> additionalSets;
+        /** Values found in the index, by all-values set name */
+        private final BoundedCache<String, List<String>> setValues;
+
+        private Sets(long generation, Configuration config) {
+            this.generation = generation;
+            Map<String, Set> map = new LinkedHashMap<>();
+            for (Set set : config.getAllValuesSets()) {
+                map.putIfAbsent(set.getSetName(), set);
+            }
+            this.allValuesSets = Collections.unmodifiableMap(map);
+            map = new LinkedHashMap<>();
+            for (Set set : config.getAdditionalSets()) {
+                if (set.getSetSpec() != null) {
+                    map.putIfAbsent(set.getSetSpec(), set);
+                }
+            }
+            this.additionalSets = Collections.unmodifiableMap(map);
+            this.setValues = new BoundedCache<>(Math.max(1, allValuesSets.size()), config.getSetValuesCacheTtl() * 1000L);
+        }
+    }
+
+    /**
+     * 
+     * @return Configured all-values sets in configuration order
+     */
+    public List<Set> getAllValuesSets() {
+        return List.copyOf(getSets().allValuesSets.values());
+    }
+
+    /**
+     * 
+     * @return Configured additional sets in configuration order
+     */
+    public List<Set> getAdditionalSets() {
+        return List.copyOf(getSets().additionalSets.values());
+    }
+
+    /**
+     * Returns the values of the given all-values set that exist in the index.
+     * 
+     * @param set All-values set
+     * @return Sorted list of values
+     * @throws SolrServerException
+     * @throws IOException
+     * @should cache values
+     */
+    public List<String> getSetValues(Set set) throws SolrServerException, IOException {
+        BoundedCache<String, List<String>> cache = getSets().setValues;
+        List<String> ret = cache.get(set.getSetName());
+        if (ret == null) {
+            ret = Collections.unmodifiableList(DataManager.getInstance().getSearchIndex().getSets(set.getSetName()));
+            cache.put(set.getSetName(), ret);
+            logger.trace("{} values loaded for set '{}'.", ret.size(), set.getSetName());
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns the configured additional set with the given setSpec.
+     * 
+     * @param setSpec Requested setSpec
+     * @return Additional set; null if none configured for setSpec
+     * @should return additional set
+     * @should return null if setSpec not configured
+     */
+    public Set getAdditionalSet(String setSpec) {
+        if (setSpec == null) {
+            return null;
+        }
+
+        return getSets().additionalSets.get(setSpec);
+    }
+
+    /**
+     * Returns the filter query for the given setSpec, unless it belongs to an additional set (which replaces the entire query).
+     * 
+     * @param setSpec Requested setSpec
+     * @return setSpec itself for all-values sets (field:value); DC query otherwise
+     * @should return setSpec for all values sets
+     * @should return dc query for other sets
+     */
+    public String getSetQuery(String setSpec) {
+        int index = setSpec.indexOf(':');
+        if (index > 0 && getSets().allValuesSets.containsKey(setSpec.substring(0, index))) {
+            return setSpec;
+        }
+
+        return SolrConstants.DC + ":" + setSpec;
+    }
+
+    /**
+     * 
+     * @return Sets for the current configuration generation
+     */
+    private Sets getSets() {
+        Configuration config = DataManager.getInstance().getConfiguration();
+        long generation = config.getGeneration();
+        Sets sets = current.get();
+        if (sets == null || sets.generation != generation) {
+            Sets newSets = new Sets(generation, config);
+            if (current.compareAndSet(sets, newSets)) {
+                logger.debug("Set configuration loaded for configuration generation {}.", generation);
+                sets = newSets;
+            } else {
+                // Another thread was faster
+                sets = current.get();
+            }
+        }
+
+        return sets;
+    }
+}
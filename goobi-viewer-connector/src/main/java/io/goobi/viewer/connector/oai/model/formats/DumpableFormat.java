@@ -0,0 +1,60 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.model.formats;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrDocument;
+import org.jdom2.Element;
+
+import io.goobi.viewer.connector.oai.RequestHandler;
+
+/**
+ * Metadata format whose records can be exported in bulk dumps.
+ */
+public interface DumpableFormat {
+
+    /**
+     * Returns the additional query that selects the records of this format in bulk dumps.
+     *
+     * @return Additional query
+     */
+    String getDumpQuery();
+
+    /**
+     * Returns the Solr fields required to render records of this format in bulk dumps.
+     *
+     * @return List of field names; null for all fields
+     */
+    default List<String> getDumpFieldList() {
+        return null;
+    }
+
+    /**
+     * Renders the given records for a bulk dump. The returned element contains one <code>record</code> element for each record that could be
+     * rendered and no resumption token.
+     *
+     * @param records Solr documents of the records
+     * @param handler Request handler with the metadata prefix of the dump
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @return ListRecords element
+     * @throws IOException
+     * @throws SolrServerException
+     */
+    Element createDumpRecords(List<SolrDocument> records, RequestHandler handler, String filterQuerySuffix) throws IOException, SolrServerException;
+}
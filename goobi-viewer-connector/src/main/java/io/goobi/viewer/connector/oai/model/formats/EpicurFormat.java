@@ -20,12 +20,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.FacetField;
+import org.apache.solr.client.solrj.response.FacetField.Count;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
@@ -60,9 +65,12 @@ public class EpicurFormat extends Format {
     private static final String STATUS_URL_UPDATE_GENERAL = "url_update_general";
     private static final String STATUS_URN_NEW = "urn_new";
 
-    private List<String> setSpecFields =
+    private final List<String> setSpecFields =
             DataManager.getInstance().getConfiguration().getSetSpecFieldsForMetadataFormat(Metadata.EPICUR.getMetadataPrefix());
 
+    /** Solr fields to return for records */
+    private final List<String> fieldList = buildFieldList(setSpecFields);
+
     /**
      * {@inheritDoc}
      * 
@@ -72,32 +80,90 @@ public class EpicurFormat extends Format {
     public Element createListRecords(RequestHandler handler, int firstVirtualRow, int firstRawRow, final int numRows,
             String versionDiscriminatorField,
             String filterQuerySuffix) throws SolrServerException, IOException {
+        return createListRecords(handler, firstVirtualRow, firstRawRow, numRows, 0, versionDiscriminatorField, filterQuerySuffix);
+    }
+
+    /**
+     * {@inheritDoc}
+     * 
+     * Each record expands into one page record per page URN, so the number of page records per response is limited to
+     * <code>epicur.maxPageRecords</code>. If a record's pages do not fit, the response ends within that record and the resumption token
+     * carries the number of page records of that record that have already been delivered.
+     */
+    @Override
+    public Element createListRecords(RequestHandler handler, int firstVirtualRow, int firstRawRow, final int numRows, int firstPageRow,
+            String versionDiscriminatorField, String filterQuerySuffix) throws SolrServerException, IOException {
         logger.trace("createListRecords");
 
         String urnPrefixBlacklistSuffix =
                 SolrSearchTools.getUrnPrefixBlacklistSuffix(DataManager.getInstance().getConfiguration().getUrnPrefixBlacklist());
         String additionalQuery = urnPrefixBlacklistSuffix
                 + SolrSearchTools.getAdditionalDocstructsQuerySuffix(DataManager.getInstance().getConfiguration().getAdditionalDocstructTypes());
-        List<String> fieldList = new ArrayList<>(Arrays.asList(FIELDS));
-        fieldList.addAll(setSpecFields);
 
-        int useNumRows = numRows;
         QueryResponse qr =
-                solr.getListRecords(Utils.filterDatestampFromRequest(handler), firstRawRow, useNumRows, true, additionalQuery, filterQuerySuffix,
+                solr.getListRecords(Utils.filterDatestampFromRequest(handler), firstRawRow, numRows, true, additionalQuery, filterQuerySuffix,
                         fieldList, null);
         SolrDocumentList records = qr.getResults();
         if (records.isEmpty()) {
             return new ErrorCode().getNoRecordsMatch();
         }
         Element xmlListRecords = new Element("ListRecords", OAI_NS);
-        if (records.size() < useNumRows) {
-            useNumRows = records.size();
+        int remainingPageRecords = Math.max(1, DataManager.getInstance().getConfiguration().getEpicurMaxPageRecords());
+
+        // Page URNs for all existing records on this page
+        Set<String> pis = new LinkedHashSet<>(records.size());
+        for (SolrDocument doc : records) {
+            if (doc.getFieldValue(SolrConstants.DATEDELETED) == null) {
+                pis.add((String) doc.getFieldValue(SolrConstants.PI_TOPSTRUCT));
+            }
+        }
+        Map<String, List<String>> pageUrns = new HashMap<>(pis.size());
+        Map<String, Long> pageCounts = new HashMap<>(pis.size());
+        if (!pis.isEmpty()) {
+            loadPageUrns(pis, 0, remainingPageRecords, urnPrefixBlacklistSuffix, filterQuerySuffix, pageUrns, pageCounts);
         }
+
         int pagecount = 0;
+        int recordCount = 0;
+        int nextPageRow = 0;
         for (SolrDocument doc : records) {
             long dateUpdated = SolrSearchTools.getLatestValidDateUpdated(doc, RequestHandler.getUntilTimestamp(handler.getUntil()));
             Long dateDeleted = (Long) doc.getFieldValue(SolrConstants.DATEDELETED);
-            if (doc.getFieldValue(SolrConstants.URN) != null) {
+            int pageOffset = recordCount == 0 ? firstPageRow : 0;
+            List<String> imgUrns;
+            long totalPages;
+            if (dateDeleted == null) {
+                // Page URNs for existing record
+                String pi = (String) doc.getFieldValue(SolrConstants.PI_TOPSTRUCT);
+                imgUrns = pageUrns.getOrDefault(pi, Collections.emptyList());
+                totalPages = pageCounts.getOrDefault(pi, 0L);
+                if (recordCount == 0 && (pageOffset > 0 || imgUrns.size() < totalPages)) {
+                    // The first record must always make progress, so load its next pages separately
+                    Map<String, List<String>> firstPageUrns = new HashMap<>(1);
+                    loadPageUrns(Collections.singletonList(pi), pageOffset, remainingPageRecords, urnPrefixBlacklistSuffix, filterQuerySuffix,
+                            firstPageUrns, new HashMap<>(1));
+                    imgUrns = firstPageUrns.getOrDefault(pi, Collections.emptyList());
+                }
+            } else {
+                // Page URNs for deleted record (only deleted record docs will have IMAGEURN_OAI!)
+                Collection<Object> pageUrnValues = doc.getFieldValues(SolrConstants.IMAGEURN_OAI);
+                imgUrns = new ArrayList<>(pageUrnValues != null ? pageUrnValues.size() : 0);
+                if (pageUrnValues != null) {
+                    for (Object obj : pageUrnValues) {
+                        imgUrns.add((String) obj);
+                    }
+                }
+                totalPages = imgUrns.size();
+                imgUrns = imgUrns.subList(Math.min(pageOffset, imgUrns.size()), imgUrns.size());
+            }
+            int emitCount = Math.min(imgUrns.size(), remainingPageRecords);
+            if (recordCount > 0 && emitCount == 0 && totalPages > 0) {
+                // Page record budget exhausted; continue with this record in the next batch
+                logger.debug("Page record budget exhausted, ending batch before {}", doc.getFieldValue(SolrConstants.PI_TOPSTRUCT));
+                break;
+            }
+
+            if (pageOffset == 0 && doc.getFieldValue(SolrConstants.URN) != null) {
                 Element eleRecord = new Element(XmlConstants.ELE_NAME_RECORD, OAI_NS);
                 Element header = generateEpicurHeader(doc, dateUpdated, setSpecFields);
                 eleRecord.addContent(header);
@@ -109,64 +175,84 @@ public class EpicurFormat extends Format {
                 xmlListRecords.addContent(eleRecord);
             }
 
-            if (dateDeleted == null) {
-                // Page elements for existing record
-                StringBuilder sbPageQuery = new StringBuilder(SolrConstants.PI_TOPSTRUCT).append(':')
-                        .append(doc.getFieldValue(SolrConstants.PI_TOPSTRUCT))
-                        .append(" AND ")
-                        .append(SolrConstants.DOCTYPE)
-                        .append(":PAGE")
-                        .append(" AND ")
-                        .append(SolrConstants.IMAGEURN)
-                        .append(":*");
-                sbPageQuery.append(urnPrefixBlacklistSuffix);
-                QueryResponse qrInner = solr.search(sbPageQuery.toString(), 0, SolrSearchIndex.MAX_HITS,
-                        Collections.singletonList(SolrConstants.ORDER), Collections.singletonList(SolrConstants.IMAGEURN), null);
-                if (qrInner != null && !qrInner.getResults().isEmpty()) {
-                    for (SolrDocument pageDoc : qrInner.getResults()) {
-                        String imgUrn = (String) pageDoc.getFieldValue(SolrConstants.IMAGEURN);
-                        Element pagerecord = new Element(XmlConstants.ELE_NAME_RECORD, OAI_NS);
-                        Element pageheader = generateEpicurPageHeader(doc, imgUrn, dateUpdated, setSpecFields);
-                        pagerecord.addContent(pageheader);
-                        Element pagemetadata = new Element(XmlConstants.ELE_NAME_METADATA, OAI_NS);
-                        pagerecord.addContent(pagemetadata);
-                        pagemetadata.addContent(generateEpicurPageElement(imgUrn, (Long) doc.getFieldValue(SolrConstants.DATECREATED), dateUpdated,
-                                (Long) doc.getFieldValue(SolrConstants.DATEDELETED)));
-                        xmlListRecords.addContent(pagerecord);
-                        pagecount++;
-                    }
-                    logger.trace("Found {} page records for {}", qrInner.getResults().size(), doc.getFieldValue(SolrConstants.PI_TOPSTRUCT));
-                }
-            } else {
-                // Page elements for deleted record (only deleted record docs will have IMAGEURN_OAI!)
-                Collection<Object> pageUrnValues = doc.getFieldValues(SolrConstants.IMAGEURN_OAI);
-                if (pageUrnValues != null) {
-                    for (Object obj : pageUrnValues) {
-                        String imgUrn = (String) obj;
-                        Element pagerecord = new Element(XmlConstants.ELE_NAME_RECORD, OAI_NS);
-                        Element pageheader = generateEpicurPageHeader(doc, imgUrn, dateUpdated, setSpecFields);
-                        pagerecord.addContent(pageheader);
-                        Element pagemetadata = new Element(XmlConstants.ELE_NAME_METADATA, OAI_NS);
-                        pagerecord.addContent(pagemetadata);
-                        pagemetadata.addContent(
-                                generateEpicurPageElement(imgUrn, (Long) doc.getFieldValue(SolrConstants.DATECREATED), dateUpdated, dateDeleted));
-                        xmlListRecords.addContent(pagerecord);
-                        pagecount++;
-                    }
-                }
+            for (String imgUrn : imgUrns.subList(0, emitCount)) {
+                Element pagerecord = new Element(XmlConstants.ELE_NAME_RECORD, OAI_NS);
+                Element pageheader = generateEpicurPageHeader(doc, imgUrn, dateUpdated, setSpecFields);
+                pagerecord.addContent(pageheader);
+                Element pagemetadata = new Element(XmlConstants.ELE_NAME_METADATA, OAI_NS);
+                pagerecord.addContent(pagemetadata);
+                pagemetadata.addContent(
+                        generateEpicurPageElement(imgUrn, (Long) doc.getFieldValue(SolrConstants.DATECREATED), dateUpdated, dateDeleted));
+                xmlListRecords.addContent(pagerecord);
+                pagecount++;
+            }
+            remainingPageRecords -= emitCount;
+            if (emitCount > 0) {
+                logger.trace("Found {} page records for {}", emitCount, doc.getFieldValue(SolrConstants.PI_TOPSTRUCT));
             }
+            if (pageOffset + emitCount < totalPages) {
+                // Remaining pages of this record will be delivered in the next batch
+                nextPageRow = pageOffset + emitCount;
+                logger.debug("Page record budget exhausted, continuing {} at page record {}", doc.getFieldValue(SolrConstants.PI_TOPSTRUCT),
+                        nextPageRow);
+                break;
+            }
+            recordCount++;
         }
         logger.debug("Found {} page records total", pagecount);
+        // Page records outnumber the Solr records, so page sizing is based on the advance of the raw cursor
+        handler.setConsumedRecords(recordCount);
 
         // Create resumption token
-        if (records.getNumFound() > firstRawRow + useNumRows) {
-            Element resumption = createResumptionTokenAndElement(records.getNumFound(), firstRawRow + useNumRows, firstRawRow, handler);
+        if (nextPageRow > 0 || records.getNumFound() > firstRawRow + recordCount) {
+            Element resumption = createResumptionTokenAndElement(records.getNumFound(), records.getNumFound(), firstRawRow + recordCount,
+                    firstRawRow + recordCount, nextPageRow, firstRawRow, handler);
             xmlListRecords.addContent(resumption);
         }
 
         return xmlListRecords;
     }
 
+    /**
+     * 
+     * @param setSpecFields
+     * @return Unmodifiable list of {@link #FIELDS} and the given set spec fields
+     */
+    private static List<String> buildFieldList(List<String> setSpecFields) {
+        List<String> ret = new ArrayList<>(Arrays.asList(FIELDS));
+        ret.addAll(setSpecFields);
+        return Collections.unmodifiableList(ret);
+    }
+
+    /**
+     * Loads the page URNs of the given records with a single query and groups them by record identifier.
+     *
+     * @param pis Record identifiers
+     * @param first Index of the first page URN to load
+     * @param maxPageRecords Maximum number of page URNs to load
+     * @param urnPrefixBlacklistSuffix Query suffix excluding blacklisted URN prefixes
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @param pageUrns Map to which the loaded page URNs of each record are added, in page order
+     * @param pageCounts Map to which the total number of page URNs of each record is added
+     * @throws SolrServerException
+     * @throws IOException
+     */
+    private void loadPageUrns(Collection<String> pis, int first, int maxPageRecords, String urnPrefixBlacklistSuffix, String filterQuerySuffix,
+            Map<String, List<String>> pageUrns, Map<String, Long> pageCounts) throws SolrServerException, IOException {
+        QueryResponse qr = solr.getPageUrnsForPis(pis, first, maxPageRecords, urnPrefixBlacklistSuffix, filterQuerySuffix);
+        for (SolrDocument pageDoc : qr.getResults()) {
+            pageUrns.computeIfAbsent((String) pageDoc.getFieldValue(SolrConstants.PI_TOPSTRUCT), k -> new ArrayList<>())
+                    .add((String) pageDoc.getFieldValue(SolrConstants.IMAGEURN));
+        }
+        FacetField facetField = qr.getFacetField(SolrConstants.PI_TOPSTRUCT);
+        if (facetField != null && facetField.getValues() != null) {
+            for (Count count : facetField.getValues()) {
+                pageCounts.put(count.getName(), count.getCount());
+            }
+        }
+        logger.trace("Loaded {} of {} page records for {} records", qr.getResults().size(), qr.getResults().getNumFound(), pis.size());
+    }
+
     /** {@inheritDoc} */
     @Override
     public Element createGetRecord(RequestHandler handler, String filterQuerySuffix) {
@@ -174,8 +260,6 @@ public class EpicurFormat extends Format {
         if (handler.getIdentifier() == null) {
             return new ErrorCode().getBadArgument();
         }
-        List<String> fieldList = new ArrayList<>(Arrays.asList(FIELDS));
-        fieldList.addAll(setSpecFields);
         try {
             SolrDocument doc = solr.getListRecord(handler.getIdentifier(), fieldList, filterQuerySuffix);
             if (doc == null) {
@@ -48,7 +48,7 @@ public class EuropeanaFormat extends OAIDCFormat {
 
     private static final Logger logger = LogManager.getLogger(EuropeanaFormat.class);
 
-    private List<String> setSpecFields =
+    private final List<String> setSpecFields =
             DataManager.getInstance().getConfiguration().getSetSpecFieldsForMetadataFormat(Metadata.ESE.name().toLowerCase());
 
     /** {@inheritDoc} */
@@ -179,13 +179,9 @@ public class EuropeanaFormat extends OAIDCFormat {
             if (isWork && doc.getFieldValue(SolrConstants.IDDOC_PARENT) != null) {
                 // If this is a volume, add anchor title in front
                 String iddocParent = (String) doc.getFieldValue(SolrConstants.IDDOC_PARENT);
-                String anchorTitle = anchorTitles.get(iddocParent);
-                if (anchorTitle == null) {
-                    anchorTitle = getAnchorTitle(iddocParent, filterQuerySuffix);
-                    if (anchorTitle != null) {
-                        title = anchorTitle + "; " + title;
-                        anchorTitles.put(iddocParent, anchorTitle);
-                    }
+                String anchorTitle = getAnchorTitle(iddocParent, filterQuerySuffix);
+                if (anchorTitle != null) {
+                    title = anchorTitle + "; " + title;
                 }
             }
             Element eleDcTitle = new Element("title", nsDc);
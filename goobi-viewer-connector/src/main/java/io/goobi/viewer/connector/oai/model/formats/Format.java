@@ -25,10 +25,13 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 
 import org.apache.commons.io.FileUtils;
@@ -53,12 +56,13 @@ import io.goobi.viewer.connector.oai.enums.Verb;
 import io.goobi.viewer.connector.oai.model.ErrorCode;
 import io.goobi.viewer.connector.oai.model.ResumptionToken;
 import io.goobi.viewer.connector.oai.model.Set;
+import io.goobi.viewer.connector.oai.model.SetRegistry;
+import io.goobi.viewer.connector.oai.model.metadata.MetadataTemplate;
 import io.goobi.viewer.connector.utils.SolrSearchIndex;
 import io.goobi.viewer.connector.utils.SolrSearchTools;
 import io.goobi.viewer.connector.utils.Utils;
 import io.goobi.viewer.connector.utils.XmlConstants;
 import io.goobi.viewer.exceptions.IndexUnreachableException;
-import io.goobi.viewer.messages.ViewerResourceBundle;
 import io.goobi.viewer.model.translations.language.Language;
 import io.goobi.viewer.solr.SolrConstants;
 
@@ -93,7 +97,39 @@ public abstract class Format {
     /** Constant <code>expiration=259200000L</code> */
     protected static long expiration = 259200000L; // 3 days
 
-    protected SolrSearchIndex solr = DataManager.getInstance().getSearchIndex();
+    protected final SolrSearchIndex solr = DataManager.getInstance().getSearchIndex();
+
+    /** Compiled metadata templates for this format, keyed by docstruct type. */
+    private final Map<String, List<MetadataTemplate>> metadataTemplates = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the compiled metadata configuration for the given format and docstruct type. Templates are compiled on first use and kept for the
+     * lifetime of this format instance, which is replaced when the configuration is reloaded.
+     * 
+     * @param metadataPrefix Metadata prefix of the format configuration
+     * @param docstruct Docstruct type of the record
+     * @return Unmodifiable list of templates; empty list if none configured
+     * @should return same templates for same docstruct
+     */
+    protected List<MetadataTemplate> getMetadataTemplates(String metadataPrefix, String docstruct) {
+        String key = docstruct != null ? docstruct : "";
+        return metadataTemplates.computeIfAbsent(key,
+                k -> MetadataTemplate.compile(DataManager.getInstance().getConfiguration().getMetadataConfiguration(metadataPrefix, docstruct)));
+    }
+
+    /**
+     * 
+     * @param setSpecFields
+     * @return Unmodifiable list of identifier fields, date fields, ISANCHOR and the given set spec fields
+     */
+    protected static List<String> getFieldList(List<String> setSpecFields) {
+        List<String> ret = new ArrayList<>(Arrays.asList(IDENTIFIER_FIELDS));
+        ret.addAll(Arrays.asList(DATE_FIELDS));
+        // Required for the datestamp of anchors and to keep anchors out of the record store
+        ret.add(SolrConstants.ISANCHOR);
+        ret.addAll(setSpecFields);
+        return Collections.unmodifiableList(ret);
+    }
 
     /**
      * <p>
@@ -113,6 +149,26 @@ public abstract class Format {
     public abstract Element createListRecords(RequestHandler handler, int firstVirtualRow, int firstRawRow, int numRows,
             String versionDiscriminatorField, String filterQuerySuffix) throws IOException, SolrServerException;
 
+    /**
+     * Creates ListRecords, continuing at the given position within the first record. Only formats that split single records across several
+     * responses need to override this; all others ignore <code>firstPageRow</code>.
+     *
+     * @param handler a {@link io.goobi.viewer.connector.oai.RequestHandler} object.
+     * @param firstVirtualRow a int.
+     * @param firstRawRow a int.
+     * @param numRows a int.
+     * @param firstPageRow Position within the record at <code>firstRawRow</code> at which to continue
+     * @param versionDiscriminatorField a {@link java.lang.String} object.
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @return a {@link org.jdom2.Element} object.
+     * @throws java.io.IOException if any.
+     * @throws org.apache.solr.client.solrj.SolrServerException
+     */
+    public Element createListRecords(RequestHandler handler, int firstVirtualRow, int firstRawRow, int numRows, int firstPageRow,
+            String versionDiscriminatorField, String filterQuerySuffix) throws IOException, SolrServerException {
+        return createListRecords(handler, firstVirtualRow, firstRawRow, numRows, versionDiscriminatorField, filterQuerySuffix);
+    }
+
     /**
      * <p>
      * createGetRecord.
@@ -230,28 +286,19 @@ public abstract class Format {
      * @should construct element correctly
      */
     public static Element createListSets(Locale locale) throws SolrServerException, IOException {
-        // Add all values sets (a set for each existing field value)
-        List<Set> allValuesSetConfigurations = DataManager.getInstance().getConfiguration().getAllValuesSets();
-        if (allValuesSetConfigurations != null && !allValuesSetConfigurations.isEmpty()) {
-            for (Set set : allValuesSetConfigurations) {
-                set.getValues().addAll(DataManager.getInstance().getSearchIndex().getSets(set.getSetName()));
-            }
-        }
-
+        SetRegistry setRegistry = DataManager.getInstance().getSetRegistry();
         boolean empty = true;
         Element listSets = new Element("ListSets", OAI_NS);
-        for (Set set : allValuesSetConfigurations) {
-            if (set.getValues().isEmpty()) {
-                continue;
-            }
-            for (String value : set.getValues()) {
+        // Add all values sets (a set for each existing field value)
+        for (Set set : setRegistry.getAllValuesSets()) {
+            for (String value : setRegistry.getSetValues(set)) {
                 Element eleSet = new Element("set", OAI_NS);
                 Element eleSetSpec = new Element(XmlConstants.ELE_NAME_SETSPEC, OAI_NS);
                 eleSetSpec.setText(set.getSetName() + ":" + value);
                 eleSet.addContent(eleSetSpec);
                 Element name = new Element("setName", OAI_NS);
                 if (set.isTranslate()) {
-                    name.setText(ViewerResourceBundle.getTranslation(value, locale));
+                    name.setText(DataManager.getInstance().getTranslationCache().getTranslation(value, locale));
                 } else {
                     name.setText(value);
                 }
@@ -260,19 +307,16 @@ public abstract class Format {
                 empty = false;
             }
         }
-        List<Set> additionalSets = DataManager.getInstance().getConfiguration().getAdditionalSets();
-        if (additionalSets != null && !additionalSets.isEmpty()) {
-            for (Set additionalSet : additionalSets) {
-                Element set = new Element("set", OAI_NS);
-                Element setSpec = new Element(XmlConstants.ELE_NAME_SETSPEC, OAI_NS);
-                setSpec.setText(additionalSet.getSetSpec());
-                set.addContent(setSpec);
-                Element name = new Element("setName", OAI_NS);
-                name.setText(additionalSet.getSetName());
-                set.addContent(name);
-                listSets.addContent(set);
-                empty = false;
-            }
+        for (Set additionalSet : setRegistry.getAdditionalSets()) {
+            Element set = new Element("set", OAI_NS);
+            Element setSpec = new Element(XmlConstants.ELE_NAME_SETSPEC, OAI_NS);
+            setSpec.setText(additionalSet.getSetSpec());
+            set.addContent(setSpec);
+            Element name = new Element("setName", OAI_NS);
+            name.setText(additionalSet.getSetName());
+            set.addContent(name);
+            listSets.addContent(set);
+            empty = false;
         }
         if (empty) {
             return new ErrorCode().getNoSetHierarchy();
@@ -485,10 +529,35 @@ public abstract class Format {
      */
     protected static Element createResumptionTokenAndElement(long virtualHits, long rawHits, int virtualCursor, int rawCursor, int outputCursor,
             RequestHandler handler) {
+        return createResumptionTokenAndElement(virtualHits, rawHits, virtualCursor, rawCursor, 0, outputCursor, handler);
+    }
+
+    /**
+     * <p>
+     * createResumptionTokenAndElement.
+     * </p>
+     *
+     * @param virtualHits a long.
+     * @param rawHits a long.
+     * @param virtualCursor Internal virtual count cursor (first value of the next batch)
+     * @param rawCursor Internal raw count cursor (first value of the next batch)
+     * @param pageCursor Position within the record at <code>rawCursor</code> at which the next batch continues
+     * @param outputCursor Cursor value to output in the OAI dataset (first value of the current batch)
+     * @param handler a {@link io.goobi.viewer.connector.oai.RequestHandler} object.
+     * @return a {@link org.jdom2.Element} object.
+     * @should store page cursor in token
+     * @should store rows of next page in token
+     */
+    protected static Element createResumptionTokenAndElement(long virtualHits, long rawHits, int virtualCursor, int rawCursor, int pageCursor,
+            int outputCursor, RequestHandler handler) {
         long now = System.currentTimeMillis();
         long time = now + expiration;
         ResumptionToken token = new ResumptionToken(ResumptionToken.TOKEN_NAME_PREFIX + System.currentTimeMillis(), virtualHits, rawHits,
                 virtualCursor, rawCursor, time, handler);
+        token.setPageCursor(pageCursor);
+        if (Verb.LISTRECORDS.equals(handler.getVerb()) && handler.getMetadataPrefix() != null) {
+            token.setRows(DataManager.getInstance().getPageSizer().getRows(handler.getMetadataPrefix().getMetadataPrefix()));
+        }
         try {
             saveToken(token);
 
@@ -529,6 +598,18 @@ public abstract class Format {
      * @should return error if resumption token name illegal
      */
     public static Element handleToken(String resumptionToken, String filterQuerySuffix) {
+        return handleToken(resumptionToken, filterQuerySuffix, null);
+    }
+
+    /**
+     * handle token.
+     *
+     * @param resumptionToken a {@link java.lang.String} object.
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @param handler Optional handler of the current request; receives the metadata prefix of the token and the number of consumed records
+     * @return a {@link org.jdom2.Element} object.
+     */
+    public static Element handleToken(String resumptionToken, String filterQuerySuffix, RequestHandler handler) {
         if (resumptionToken == null) {
             throw new IllegalArgumentException("resumptionToken may not be null");
         }
@@ -564,8 +645,12 @@ public abstract class Format {
                 logger.warn("Hits size in the token ({}) does not equal the reported total hits number ({}).", token.getHits(), totalHits);
                 return new ErrorCode().getBadResumptionToken();
             }
-            int hitsPerToken =
-                    DataManager.getInstance()
+            if (handler != null) {
+                handler.setMetadataPrefix(token.getHandler().getMetadataPrefix());
+            }
+            // The number of records may have been adapted to the cost of previous pages
+            int hitsPerToken = token.getRows() > 0 ? token.getRows()
+                    : DataManager.getInstance()
                             .getConfiguration()
                             .getHitsPerTokenForMetadataFormat(token.getHandler().getMetadataPrefix().getMetadataPrefix());
 
@@ -573,8 +658,12 @@ public abstract class Format {
                 return format.createListIdentifiers(token.getHandler(), token.getVirtualCursor(), token.getRawCursor(), hitsPerToken,
                         versionDiscriminatorField, filterQuerySuffix);
             } else if (token.getHandler().getVerb().equals(Verb.LISTRECORDS)) {
-                return format.createListRecords(token.getHandler(), token.getVirtualCursor(), token.getRawCursor(), hitsPerToken,
-                        versionDiscriminatorField, filterQuerySuffix);
+                Element ret = format.createListRecords(token.getHandler(), token.getVirtualCursor(), token.getRawCursor(), hitsPerToken,
+                        token.getPageCursor(), versionDiscriminatorField, filterQuerySuffix);
+                if (handler != null) {
+                    handler.setConsumedRecords(token.getHandler().getConsumedRecords());
+                }
+                return ret;
             }
         } catch (StreamException | ConversionException e) {
             // File cannot be de-serialized, so just delete it
@@ -644,12 +733,22 @@ public abstract class Format {
     }
 
     /**
-     * Returns an instance of a format matching the given metadata prefix.
+     * Returns the shared instance of the format matching the given metadata prefix.
      *
      * @param metadataPrefix a {@link io.goobi.viewer.connector.oai.enums.Metadata} object.
      * @return Format instance; null if prefix not recognized
      */
     public static Format getFormatByMetadataPrefix(Metadata metadataPrefix) {
+        return DataManager.getInstance().getFormatRegistry().getFormat(metadataPrefix);
+    }
+
+    /**
+     * Creates a new instance of the format matching the given metadata prefix.
+     *
+     * @param metadataPrefix a {@link io.goobi.viewer.connector.oai.enums.Metadata} object.
+     * @return Format instance; null if prefix not recognized
+     */
+    static Format createFormat(Metadata metadataPrefix) {
         if (metadataPrefix == null) {
             return null;
         }
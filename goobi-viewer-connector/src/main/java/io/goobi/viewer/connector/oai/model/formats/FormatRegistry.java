@@ -0,0 +1,96 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.model.formats;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.oai.enums.Metadata;
+
+/**
+ * Holds one shared {@link Format} instance per metadata prefix. Formats precompute their configuration-dependent state (set spec fields,
+ * field lists, etc.) on construction, so all instances are replaced at once whenever the configuration has been reloaded.
+ */
+public class FormatRegistry {
+
+    private static final Logger logger = LogManager.getLogger(FormatRegistry.class);
+
+    private final AtomicReference<Formats> current = new AtomicReference<>();
+
+    /**
+     * Format instances created for one configuration generation.
+     */
+    private static final class Formats {
+
+        private final long generation;
+        private final Map<Metadata, Format> instances;
+
+        private Formats(long generation) {
+            this.generation = generation;
+            Map<Metadata, Format> map = new EnumMap<>(Metadata.class);
+            for (Metadata md : Metadata.values()) {
+                Format format = Format.createFormat(md);
+                if (format != null) {
+                    map.put(md, format);
+                }
+            }
+            this.instances = Collections.unmodifiableMap(map);
+        }
+    }
+
+    /**
+     * Returns the shared instance of the format matching the given metadata prefix.
+     * 
+     * @param metadataPrefix Metadata prefix
+     * @return Format instance; null if prefix not recognized
+     * @should return same instance for same prefix
+     * @should return null if prefix null
+     */
+    public Format getFormat(Metadata metadataPrefix) {
+        if (metadataPrefix == null) {
+            return null;
+        }
+
+        return getFormats().instances.get(metadataPrefix);
+    }
+
+    /**
+     * 
+     * @return Format instances for the current configuration generation
+     */
+    private Formats getFormats() {
+        long generation = DataManager.getInstance().getConfiguration().getGeneration();
+        Formats formats = current.get();
+        if (formats == null || formats.generation != generation) {
+            Formats newFormats = new Formats(generation);
+            if (current.compareAndSet(formats, newFormats)) {
+                logger.debug("Format instances created for configuration generation {}.", generation);
+                formats = newFormats;
+            } else {
+                // Another thread was faster
+                formats = current.get();
+            }
+        }
+
+        return formats;
+    }
+}
@@ -16,14 +16,15 @@
 package io.goobi.viewer.connector.oai.model.formats;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.solr.client.solrj.SolrServerException;
-import org.apache.solr.common.SolrDocument;
 import org.jdom2.Element;
 import org.jdom2.JDOMException;
 import org.jdom2.Namespace;
@@ -39,7 +40,6 @@ import io.goobi.viewer.connector.oai.model.ErrorCode;
 import io.goobi.viewer.connector.utils.Utils;
 import io.goobi.viewer.controller.NetTools;
 import io.goobi.viewer.exceptions.HTTPException;
-import io.goobi.viewer.solr.SolrConstants;
 
 /**
  * Crowdsourcing and overview page data.
@@ -48,6 +48,8 @@ public class GoobiViewerUpdateFormat extends Format {
 
     private static final Logger logger = LogManager.getLogger(GoobiViewerUpdateFormat.class);
 
+    private static final String FIELD_PROCESSID = "MD_PROCESSID";
+
     /** {@inheritDoc} */
     @Override
     public Element createListRecords(RequestHandler handler, int firstVirtualRow, int firstRawRow, int numRows, String versionDiscriminatorField,
@@ -179,6 +181,19 @@ public class GoobiViewerUpdateFormat extends Format {
         }
         sbUrlRoot.append("&identifier=");
         String urlRoot = sbUrlRoot.toString();
+
+        // Resolve process IDs for all identifiers on this page in one query
+        List<String> identifiers = new ArrayList<>(jsonArray.length());
+        for (int i = 0; i < jsonArray.length(); ++i) {
+            identifiers.add((String) ((JSONObject) jsonArray.get(i)).get("id"));
+        }
+        Map<String, String> processIds = Collections.emptyMap();
+        try {
+            processIds = solr.getFirstFieldValuesForPis(identifiers, FIELD_PROCESSID);
+        } catch (SolrServerException e) {
+            logger.error(e.getMessage(), e);
+        }
+
         for (int i = 0; i < jsonArray.length(); ++i) {
             JSONObject jsonObj = (JSONObject) jsonArray.get(i);
             String identifier = (String) jsonObj.get("id");
@@ -213,17 +228,7 @@ public class GoobiViewerUpdateFormat extends Format {
             Element metadata = new Element("metadata", OAI_NS);
             try {
                 // Add process ID, if available
-                String processId = null;
-                StringBuilder sb = new StringBuilder();
-                sb.append(SolrConstants.PI).append(':').append(identifier);
-                try {
-                    SolrDocument doc = solr.getFirstDoc(sb.toString(), Collections.singletonList("MD_PROCESSID"));
-                    if (doc != null) {
-                        processId = (String) doc.getFirstValue("MD_PROCESSID");
-                    }
-                } catch (SolrServerException e) {
-                    logger.error(e.getMessage(), e);
-                }
+                String processId = processIds.get(identifier);
                 if (processId != null) {
                     Element eleId = new Element("processId", nsOverviewPage);
                     eleId.setText(processId);
@@ -15,6 +15,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -34,16 +35,12 @@ import io.goobi.viewer.connector.oai.RequestHandler;
 import io.goobi.viewer.connector.oai.enums.Metadata;
 import io.goobi.viewer.connector.oai.enums.Verb;
 import io.goobi.viewer.connector.oai.model.ErrorCode;
-import io.goobi.viewer.connector.oai.model.metadata.MetadataParameter;
-import io.goobi.viewer.connector.oai.model.metadata.MetadataParameter.MetadataParameterType;
+import io.goobi.viewer.connector.oai.model.metadata.MetadataTemplate;
 import io.goobi.viewer.connector.utils.SolrSearchTools;
+import io.goobi.viewer.connector.utils.TocCache;
 import io.goobi.viewer.connector.utils.Utils;
-import io.goobi.viewer.controller.ALTOTools;
 import io.goobi.viewer.controller.FileTools;
-import io.goobi.viewer.controller.NetTools;
-import io.goobi.viewer.controller.StringTools;
 import io.goobi.viewer.exceptions.HTTPException;
-import io.goobi.viewer.messages.ViewerResourceBundle;
 import io.goobi.viewer.model.translations.language.Language;
 import io.goobi.viewer.solr.SolrConstants;
 
@@ -54,9 +51,17 @@ public class ISEBELFormat extends Format {
 	
 	private static final Logger logger = LogManager.getLogger(ISEBELFormat.class);
 	
-	protected static Map<String, String> anchorTitles = new HashMap<>();
 	
-	private List<String> setSpecFields = DataManager.getInstance().getConfiguration().getSetSpecFieldsForMetadataFormat(Metadata.ISEBEL.getMetadataPrefix());
+	/** LABEL values of the metadata groups used for stories */
+	private static final List<String> OWNED_DOC_LABELS = List.of(
+		"MD_CatalogClassification_display",
+		"MD_Place_display",
+		"MD_Subject_display",
+		"MD_Collector",
+		"MD_Informant"
+	);
+	
+	private final List<String> setSpecFields = DataManager.getInstance().getConfiguration().getSetSpecFieldsForMetadataFormat(Metadata.ISEBEL.getMetadataPrefix());
 	
 	/** {@inheritDoc} */
 	@Override
@@ -430,6 +435,13 @@ public class ISEBELFormat extends Format {
         	filterQuerySuffix
         );
         
+        // Load metadata groups and pages of all stories with a single query
+        List<String> storyIds = new ArrayList<>(folkloreRecords.size());
+        for (SolrDocument rec : folkloreRecords) {
+        	storyIds.addAll(SolrSearchTools.getMetadataValues(rec, "IDDOC"));
+        }
+        OwnedDocs ownedDocs = loadOwnedDocs(idDoc, storyIds, filterQuerySuffix);
+        
         for (int i = 0; i < folkloreRecords.size(); i++) {
         	SolrDocument rec = folkloreRecords.get(i);
         	String idRec = SolrSearchTools.getMetadataValues(rec, "IDDOC").get(0);
@@ -483,17 +495,13 @@ public class ISEBELFormat extends Format {
         	
         	List<String> genres = SolrSearchTools.getMetadataValues(rec, "MD_Genre");
         	for (String genre : genres) {
-        		String genreVal = ViewerResourceBundle.getTranslation(genre, Locale.ENGLISH);
+        		String genreVal = DataManager.getInstance().getTranslationCache().getTranslation(genre, Locale.ENGLISH);
         		Element eleGenre = new Element("type", nsDc);
         		eleGenre.setText(genreVal);
         		eleRec.addContent(eleGenre);
         	}
         	
-        	SolrDocumentList taleTypes = getGroupMetadata(
-        		"MD_CatalogClassification_display",
-        		List.of(idRec, idDoc),
-        		filterQuerySuffix
-        	);
+        	SolrDocumentList taleTypes = ownedDocs.getGroupMetadata(List.of(idRec, idDoc), "MD_CatalogClassification_display");
         	if (taleTypes.size() > 0) {
         		Element eleTaleTypes = new Element("taleTypes", nsIsebel);
         		for (SolrDocument taleType : taleTypes) {
@@ -512,7 +520,7 @@ public class ISEBELFormat extends Format {
         		eleRec.addContent(eleTaleTypes);
         	}
 	        
-	        String fulltext = getFulltext(idRec, filterQuerySuffix);
+	        String fulltext = getFulltext(ownedDocs.getPages(idRec));
 	        if (fulltext.length() > 0) {
 		        Element contents = new Element("contents", nsIsebel);
 		        Element content = new Element("content", nsIsebel);
@@ -522,11 +530,7 @@ public class ISEBELFormat extends Format {
 		        eleRec.addContent(contents);
 	        }
 	        
-	        SolrDocumentList places = getGroupMetadata(
-	        	"MD_Place_display", 
-	        	List.of(idRec, idDoc),
-	        	filterQuerySuffix
-	        );
+	        SolrDocumentList places = ownedDocs.getGroupMetadata(List.of(idRec, idDoc), "MD_Place_display");
 	        if (places.size() > 0) {
 	        	Element elePlaces = new Element("places", nsIsebel);
 	        	for (SolrDocument place : places) {
@@ -575,19 +579,19 @@ public class ISEBELFormat extends Format {
         	
 	        List<Element> people = new ArrayList<>();
 	        people.addAll(getPeopleElements(
-	        	"collector", 
-	        	"MD_Collector", 
-	        	idRec, 
-	       		idDoc, 
-	        	filterQuerySuffix, 
+	        	ownedDocs,
+	        	"collector",
+	        	"MD_Collector",
+	        	idRec,
+	        	idDoc,
 	        	nsIsebel
 	        ));
 	        people.addAll(getPeopleElements(
+	        	ownedDocs,
 	        	"informant",
 	        	"MD_Informant",
 	        	idRec,
 	        	idDoc,
-	        	filterQuerySuffix,
 	        	nsIsebel
 	        ));
         	
@@ -618,11 +622,7 @@ public class ISEBELFormat extends Format {
 	        	eleRec.addContent(eleEvents);
 	        }
 	        
-	        SolrDocumentList subjects = getGroupMetadata(
-	        	"MD_Subject_display", 
-	        	List.of(idRec, idDoc),
-	        	filterQuerySuffix
-	        );
+	        SolrDocumentList subjects = ownedDocs.getGroupMetadata(List.of(idRec, idDoc), "MD_Subject_display");
 	        if (subjects.size() > 0) {
 	        	Element eleKeywords = new Element("keywords", nsIsebel);
 	        	for (SolrDocument subject : subjects) {
@@ -648,13 +648,9 @@ public class ISEBELFormat extends Format {
         }
 
         // Configured fields
-        List<io.goobi.viewer.connector.oai.model.metadata.Metadata> metadataList = DataManager
-        	.getInstance()
-        	.getConfiguration()
-        	.getMetadataConfiguration(Metadata.ISEBEL.getMetadataPrefix(), docstruct);
-        if (metadataList != null && !metadataList.isEmpty()) {
-            for (io.goobi.viewer.connector.oai.model.metadata.Metadata md : metadataList) {
-                boolean restrictedContent = false;
+        List<MetadataTemplate> templates = getMetadataTemplates(Metadata.ISEBEL.getMetadataPrefix(), docstruct);
+        if (!templates.isEmpty()) {
+            for (MetadataTemplate md : templates) {
                 List<String> finishedValues = new ArrayList<>();
 
                 // Alternative 1: get value from source
@@ -725,97 +721,31 @@ public class ISEBELFormat extends Format {
                     }
                 } else if ("#TOC#".equals(md.getMasterValue())) {
                     // Generated TOC as plain text
-                    String url = DataManager.getInstance().getConfiguration().getRestApiUrl() 
-                    	+ "records/"
-                        + (String) doc.getFieldValue(SolrConstants.PI) 
-                        + "/toc/";
+                    String pi = (String) doc.getFieldValue(SolrConstants.PI);
                     try {
-                        String val = null;
-                        try {
-                            val = NetTools.getWebContentGET(url);
-                        } catch (HTTPException e) {
-                            /* If the API end point was not found, 
-                             * try the fallback, 
-                             * otherwise re-throw the exception
-                             */
-                            if (e.getCode() != 404) {
-                                throw e;
-                            }
-                        }
-                        if (StringUtils.isEmpty(val)) {
-                            // Old API fallback
-                            url = DataManager.getInstance().getConfiguration().getRestApiUrl() 
-                            	+ "records/toc/"
-                                + (String) doc.getFieldValue(SolrConstants.PI) 
-                                + "/";
-                            val = NetTools.getWebContentGET(url);
-                        }
-
-                        if (StringUtils.isNotEmpty(val)) {
-                            finishedValues.add(url);
+                        TocCache.Toc toc = DataManager.getInstance()
+                        	.getTocCache()
+                        	.getToc(pi, SolrSearchTools.getLatestValidDateUpdated(doc, Long.MAX_VALUE));
+                        if (toc != null) {
+                            finishedValues.add(toc.getUrl());
                         }
                     } catch (IOException e) {
                         logger.error(
                         	"Could not retrieve TOC for '{}': {}", 
-                        	doc.getFieldValue(SolrConstants.PI), 
+                        	pi, 
                         	e.getMessage()
                         );
                     } catch (HTTPException e) {
                         logger.error(
                         	"Could not retrieve TOC for '{}' (code {}) {}", 
-                        	doc.getFieldValue(SolrConstants.PI), 
+                        	pi, 
                         	e.getCode(), 
-                        	url
+                        	e.getMessage()
                         );
                     }
-                } else if (!md.getParams().isEmpty()) {
+                } else if (md.isHasParams()) {
                     // Parameter configuration
-                	// Her skjer konfigurasjon for ikke #AUTO# eller #TOC#
-                    String firstField = md.getParams().get(0).getKey();
-                    int numValues = SolrSearchTools.getMetadataValues(doc, firstField).size();
-                    // for each instance of the first field value
-                    for (int i = 0; i < numValues; ++i) {
-                        String val = md.getMasterValue();
-                        int paramIndex = 0;
-                        // for each parameter
-                        for (MetadataParameter param : md.getParams()) {
-                            if (SolrConstants.THUMBNAIL.equals(param.getKey())) {
-                                restrictedContent = true;
-                            }
-                            String paramVal = "";
-                            List<String> values = SolrSearchTools.getMetadataValues(doc, param.getKey());
-                            if (values.isEmpty() && !param.isDontUseTopstructValue()) {
-                                values = SolrSearchTools.getMetadataValues(topstructDoc, param.getKey());
-                            }
-                            if (!values.isEmpty()) {
-                                paramVal = values.size() > i ? values.get(i) : "";
-                                if (StringUtils.isNotEmpty(paramVal)) {
-                                    if (MetadataParameterType.TRANSLATEDFIELD.equals(param.getType())) {
-                                        paramVal = ViewerResourceBundle.getTranslation(paramVal, null);
-                                    }
-                                    if (StringUtils.isNotEmpty(param.getPrefix())) {
-                                        String prefix = ViewerResourceBundle.getTranslation(
-                                        	param.getPrefix(), 
-                                        	null
-                                        );
-                                        paramVal = prefix + paramVal;
-                                    }
-                                    if (StringUtils.isNotEmpty(param.getSuffix())) {
-                                        String suffix = ViewerResourceBundle.getTranslation(
-                                        	param.getSuffix(), 
-                                        	null
-                                        );
-                                        paramVal += suffix;
-                                    }
-                                }
-                            }
-                            val = val.replace("{" + paramIndex + '}', paramVal);
-                            paramIndex++;
-                        }
-                        if (openAccess || !restrictedContent) {
-                            finishedValues.add(val);
-                        }
-                    }
+                    finishedValues.addAll(md.renderParameterValues(doc, topstructDoc, openAccess));
                 } else if (StringUtils.isNotEmpty(md.getMasterValue())) {
                     // Default value
                     String val = md.getMasterValue();
@@ -824,13 +754,9 @@ public class ISEBELFormat extends Format {
                     	&& doc.getFieldValue(SolrConstants.IDDOC_PARENT) != null) {
                         // If this is a volume, add anchor title in front
                         String iddocParent = (String) doc.getFieldValue(SolrConstants.IDDOC_PARENT);
-                        String anchorTitle = anchorTitles.get(iddocParent);
-                        if (anchorTitle == null) {
-                            anchorTitle = getAnchorTitle(iddocParent, filterQuerySuffix);
-                            if (anchorTitle != null) {
-                                val = anchorTitle + "; " + val;
-                                anchorTitles.put(iddocParent, anchorTitle);
-                            }
+                        String anchorTitle = getAnchorTitle(iddocParent, filterQuerySuffix);
+                        if (anchorTitle != null) {
+                            val = anchorTitle + "; " + val;
                         }
                     }
                     finishedValues.add(val);
@@ -852,25 +778,16 @@ public class ISEBELFormat extends Format {
 
     }
     
-    private List<Element> getPeopleElements(
+    private static List<Element> getPeopleElements(
+    	OwnedDocs ownedDocs,
     	String role, 
     	String label, 
     	String recID, 
     	String docID,
-    	String filterQuerySuffix,
     	Namespace ns
-    ) throws IOException, SolrServerException {
+    ) {
     	List<Element> result = new ArrayList<>();
-    	SolrDocumentList people = solr.search(
-            "+IDDOC_OWNER:\"" + recID + "\" +LABEL:\"" + label + "\"", 
-            filterQuerySuffix
-        );
-    	if (people.size() < 1) {
-    		people = solr.search(
-    			"+IDDOC_OWNER:\"" + docID + "\" +LABEL:\"" + label + "\"", 
-    			filterQuerySuffix
-    		);
-    	}
+    	SolrDocumentList people = ownedDocs.getGroupMetadata(List.of(recID, docID), label);
     	for (SolrDocument person : people) {
     		Element elePerson = new Element("person", ns);
     		
@@ -901,14 +818,7 @@ public class ISEBELFormat extends Format {
      */
     protected String getAnchorTitle(String iddocParent, String filterQuerySuffix) {
         try {
-            logger.trace("anchor title query: {}:{}", SolrConstants.IDDOC, iddocParent);
-            SolrDocumentList hits = solr.search(
-            	"+" + SolrConstants.IDDOC + ":" + iddocParent, 
-            	filterQuerySuffix
-            );
-            if (hits != null && !hits.isEmpty()) {
-                return (String) hits.get(0).getFirstValue(SolrConstants.TITLE);
-            }
+            return DataManager.getInstance().getAnchorTitleCache().getTitle(iddocParent, SolrConstants.TITLE, filterQuerySuffix);
         } catch (IOException | SolrServerException e) {
             logger.error(e.getMessage(), e);
         }
@@ -1148,44 +1058,97 @@ public class ISEBELFormat extends Format {
         return solr.getTotalHitNumber(params, false, additionalQuery, null, filterQuerySuffix);
     }
 
-    private String getFulltext(
-    	String idRec, 
-    	String filterQuerySuffix
-    ) throws IOException, SolrServerException {
-    	String text = "";
-    	
-    	SolrDocumentList pages = solr.search(
-        	"+IDDOC_OWNER:\"" + idRec + "\" +DOCTYPE:\"PAGE\"", 
-            filterQuerySuffix
-        );
-    	
+    private static String getFulltext(List<SolrDocument> pages) throws IOException {
+    	List<Path> paths = new ArrayList<>(pages.size());
     	for (SolrDocument page : pages) {
     		List<String> filePaths = SolrSearchTools.getMetadataValues(page, "FILENAME_ALTO");
-    		if (filePaths.size() < 1) {
-    			continue;
-    		} else {
-        		Path path = Paths.get("/opt/digiverso/viewer/" + filePaths.get(0));
-        		text += "\n" + ALTOTools.getFulltext(path, StringTools.DEFAULT_ENCODING) + "\n";
+    		if (!filePaths.isEmpty()) {
+    			paths.add(Paths.get("/opt/digiverso/viewer/" + filePaths.get(0)));
     		}
     	}
     	
-    	return text;
+    	StringBuilder sbText = new StringBuilder();
+    	for (String pageText : DataManager.getInstance().getFulltextCache().getFulltexts(paths)) {
+    		sbText.append('\n').append(pageText).append('\n');
+    	}
+    	
+    	return sbText.toString();
     }
     
-    private SolrDocumentList getGroupMetadata(
-    	String label, 
-    	List<String> docIDs, 
+    /**
+     * Loads the story metadata groups owned by the record or its stories and the pages owned by the stories with a single query.
+     * 
+     * @param idDoc IDDOC of the record
+     * @param storyIds IDDOC values of the stories
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @return {@link OwnedDocs}
+     * @throws SolrServerException
+     * @throws IOException
+     */
+    private OwnedDocs loadOwnedDocs(
+    	String idDoc,
+    	List<String> storyIds, 
     	String filterQuerySuffix
     ) throws SolrServerException, IOException {
-    	SolrDocumentList result = new SolrDocumentList();
-    	for (String docID : docIDs) {
-    		result = solr.search(
-    			"+IDDOC_OWNER:\"" + docID + "\" +LABEL:\"" + label + "\"", 
-    			filterQuerySuffix
-    		);
-    		if (result.size() > 0) return result;
+    	String storyIdList = storyIds.stream().map(id -> '"' + id + '"').collect(Collectors.joining(" "));
+    	String labelList = OWNED_DOC_LABELS.stream().map(label -> '"' + label + '"').collect(Collectors.joining(" "));
+    	StringBuilder sbQuery = new StringBuilder();
+    	sbQuery.append("+IDDOC_OWNER:(\"").append(idDoc).append("\" ").append(storyIdList).append(')')
+    		.append(" +(LABEL:(").append(labelList).append(')');
+    	if (!storyIds.isEmpty()) {
+    		sbQuery.append(" (+DOCTYPE:\"PAGE\" +IDDOC_OWNER:(").append(storyIdList).append("))");
+    	}
+    	sbQuery.append(')');
+    	
+    	return new OwnedDocs(solr.search(sbQuery.toString(), filterQuerySuffix));
+    }
+    
+    /**
+     * Metadata group and page documents of a record, grouped by owner IDDOC and LABEL.
+     */
+    static final class OwnedDocs {
+    	
+    	private final Map<String, Map<String, SolrDocumentList>> groupsByOwner = new HashMap<>();
+    	private final Map<String, List<SolrDocument>> pagesByOwner = new HashMap<>();
+    	
+    	OwnedDocs(List<SolrDocument> docs) {
+    		for (SolrDocument doc : docs) {
+    			String owner = String.valueOf(doc.getFieldValue("IDDOC_OWNER"));
+    			if ("PAGE".equals(doc.getFieldValue("DOCTYPE"))) {
+    				pagesByOwner.computeIfAbsent(owner, k -> new ArrayList<>()).add(doc);
+    			} else {
+    				groupsByOwner
+    					.computeIfAbsent(owner, k -> new HashMap<>())
+    					.computeIfAbsent((String) doc.getFieldValue("LABEL"), k -> new SolrDocumentList())
+    					.add(doc);
+    			}
+    		}
+    	}
+    	
+    	/**
+    	 * 
+    	 * @param ownerIds Owner IDDOCs in order of preference
+    	 * @param label
+    	 * @return Group documents with the given label of the first owner that has any; empty list if none found
+    	 */
+    	SolrDocumentList getGroupMetadata(List<String> ownerIds, String label) {
+    		for (String ownerId : ownerIds) {
+    			SolrDocumentList result = groupsByOwner.getOrDefault(ownerId, Collections.emptyMap()).get(label);
+    			if (result != null && !result.isEmpty()) {
+    				return result;
+    			}
+    		}
+    		return new SolrDocumentList();
+    	}
+    	
+    	/**
+    	 * 
+    	 * @param ownerId
+    	 * @return Page documents owned by ownerId
+    	 */
+    	List<SolrDocument> getPages(String ownerId) {
+    		return pagesByOwner.getOrDefault(ownerId, Collections.emptyList());
     	}
-    	return result;
     }
     
     private String getTranslatedName(SolrDocument doc, String lang) {
@@ -17,10 +17,11 @@ package io.goobi.viewer.connector.oai.model.formats;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
@@ -39,6 +40,8 @@ import io.goobi.viewer.connector.DataManager;
 import io.goobi.viewer.connector.oai.RequestHandler;
 import io.goobi.viewer.connector.oai.enums.Metadata;
 import io.goobi.viewer.connector.oai.model.ErrorCode;
+import io.goobi.viewer.connector.utils.SolrSearchTools;
+import io.goobi.viewer.connector.utils.SourceDocumentCache.DocumentRequest;
 import io.goobi.viewer.connector.utils.Utils;
 import io.goobi.viewer.controller.NetTools;
 import io.goobi.viewer.controller.XmlTools;
@@ -48,25 +51,28 @@ import io.goobi.viewer.solr.SolrConstants;
 /**
  * LIDO
  */
-public class LIDOFormat extends Format {
+public class LIDOFormat extends Format implements DumpableFormat {
 
     private static final Logger logger = LogManager.getLogger(LIDOFormat.class);
 
     static final Namespace LIDO_NS =
             Namespace.getNamespace(Metadata.LIDO.getMetadataNamespacePrefix(), Metadata.LIDO.getMetadataNamespaceUri());
 
+    /** Prefix for keys in the source document cache */
+    private static final String CACHE_KEY_PREFIX = "lido:";
+
     private static final String LIDO_FILTER_QUERY = " +(+" + SolrConstants.SOURCEDOCFORMAT + ":LIDO " + "-" + SolrConstants.DATEDELETED + ":*)";
 
-    private List<String> setSpecFields =
+    private final List<String> setSpecFields =
             DataManager.getInstance().getConfiguration().getSetSpecFieldsForMetadataFormat(Metadata.LIDO.getMetadataPrefix());
 
+    /** Solr fields to return for records */
+    private final List<String> fieldList = getFieldList(setSpecFields);
+
     /** {@inheritDoc} */
     @Override
     public Element createListRecords(RequestHandler handler, int firstVirtualRow, int firstRawRow, int numRows, String versionDiscriminatorField,
             String filterQuerySuffix) throws IOException, SolrServerException {
-        List<String> fieldList = new ArrayList<>(Arrays.asList(IDENTIFIER_FIELDS));
-        fieldList.addAll(Arrays.asList(DATE_FIELDS));
-        fieldList.addAll(setSpecFields);
         QueryResponse qr =
                 solr.getListRecords(Utils.filterDatestampFromRequest(handler), firstRawRow, numRows, false, LIDO_FILTER_QUERY, filterQuerySuffix,
                         fieldList, null);
@@ -78,15 +84,30 @@ public class LIDOFormat extends Format {
                 filterQuerySuffix);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public String getDumpQuery() {
+        return LIDO_FILTER_QUERY;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<String> getDumpFieldList() {
+        return fieldList;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Element createDumpRecords(List<SolrDocument> records, RequestHandler handler, String filterQuerySuffix) throws SolrServerException {
+        return generateLidoRecords(records, records.size(), 0, records.size(), handler, "ListRecords", setSpecFields, filterQuerySuffix);
+    }
+
     /** {@inheritDoc} */
     @Override
     public Element createGetRecord(RequestHandler handler, String filterQuerySuffix) {
         if (handler.getIdentifier() == null) {
             return new ErrorCode().getBadArgument();
         }
-        List<String> fieldList = new ArrayList<>(Arrays.asList(IDENTIFIER_FIELDS));
-        fieldList.addAll(Arrays.asList(DATE_FIELDS));
-        fieldList.addAll(setSpecFields);
         try {
             SolrDocument doc = solr.getListRecord(handler.getIdentifier(), fieldList, filterQuerySuffix);
             if (doc == null) {
@@ -119,31 +140,43 @@ public class LIDOFormat extends Format {
             String recordType, List<String> setSpecFields, String filterQuerySuffix) throws SolrServerException {
         Element xmlListRecords = new Element(recordType, OAI_NS);
 
+        // Retrieve the LIDO documents of all records in parallel (or from the cache)
+        List<DocumentRequest> requests = new ArrayList<>(records.size());
         for (SolrDocument doc : records) {
             String pi = (String) doc.getFieldValue(SolrConstants.PI_TOPSTRUCT);
             if (pi == null) {
                 pi = (String) doc.getFieldValue(SolrConstants.PI);
             }
             if (pi == null) {
-                xmlListRecords.addContent(new ErrorCode().getIdDoesNotExist());
+                requests.add(null);
                 continue;
             }
             String url = new StringBuilder(DataManager.getInstance().getConfiguration().getDocumentResolverUrl()).append(pi).toString();
-            String xml = null;
-            try {
-                xml = NetTools.getWebContentGET(url);
-            } catch (HTTPException | IOException e) {
-                logger.error("Could not retriee LIDO: {}", url);
-                xmlListRecords.addContent(new ErrorCode().getIdDoesNotExist());
-                continue;
+            requests.add(new DocumentRequest(CACHE_KEY_PREFIX + pi, SolrSearchTools.getLatestValidDateUpdated(doc, Long.MAX_VALUE),
+                    () -> NetTools.getWebContentGET(url)));
+        }
+        List<String> xmls;
+        try {
+            List<DocumentRequest> validRequests = new ArrayList<>(requests);
+            validRequests.removeIf(Objects::isNull);
+            Iterator<String> iterator = DataManager.getInstance().getSourceDocumentCache().getDocuments(validRequests).iterator();
+            xmls = new ArrayList<>(requests.size());
+            for (DocumentRequest request : requests) {
+                xmls.add(request != null ? iterator.next() : null);
             }
+        } catch (IOException e) {
+            logger.error("Could not retrieve LIDO: {}", e.getMessage());
+            return new ErrorCode().getIdDoesNotExist();
+        }
 
+        for (int i = 0; i < records.size(); ++i) {
+            String xml = xmls.get(i);
             if (StringUtils.isEmpty(xml)) {
                 xmlListRecords.addContent(new ErrorCode().getIdDoesNotExist());
                 continue;
             }
 
-            Element eleRecord = generateLidoRecord(xml, doc, handler, setSpecFields, filterQuerySuffix);
+            Element eleRecord = generateLidoRecord(xml, records.get(i), handler, setSpecFields, filterQuerySuffix);
             if (eleRecord != null) {
                 xmlListRecords.addContent(eleRecord);
             } else {
@@ -18,22 +18,38 @@ package io.goobi.viewer.connector.oai.model.formats;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.Arrays;
+import java.io.InputStream;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
 import org.jdom2.Element;
+import org.jdom2.JDOMException;
 import org.jdom2.Namespace;
+import org.jdom2.filter.Filters;
+import org.jdom2.input.StAXStreamBuilder;
 import org.jdom2.transform.XSLTransformException;
 import org.jdom2.transform.XSLTransformer;
+import org.jdom2.xpath.XPathExpression;
+import org.jdom2.xpath.XPathFactory;
 
 import io.goobi.viewer.connector.DataManager;
 import io.goobi.viewer.connector.oai.RequestHandler;
 import io.goobi.viewer.connector.oai.model.ErrorCode;
+import io.goobi.viewer.connector.utils.Utils;
 import io.goobi.viewer.connector.utils.XmlConstants;
-import io.goobi.viewer.controller.XmlTools;
+import io.goobi.viewer.solr.SolrConstants;
 
 /**
  * MARCXML
@@ -47,122 +63,332 @@ public class MARCXMLFormat extends METSFormat {
     static final Namespace NAMESPACE_MARC = Namespace.getNamespace("marc", "http://www.loc.gov/MARC21/slim");
     static final Namespace NAMESPACE_MODS = Namespace.getNamespace("mods", "http://www.loc.gov/mods/v3");
 
+    private static final String VAR_IDENTIFIER = "identifier";
+    private static final String VAR_DMDID = "dmdid";
+
+    private static final CompiledXPath XPATH_LOGICAL_DIV_BY_CONTENTIDS =
+            new CompiledXPath("mets:structMap[@TYPE='LOGICAL']/mets:div/mets:div[@CONTENTIDS=$" + VAR_IDENTIFIER + "]", VAR_IDENTIFIER,
+                    NAMESPACE_METS);
+    private static final CompiledXPath XPATH_MODS_BY_DMDID =
+            new CompiledXPath("mets:dmdSec[@ID=$" + VAR_DMDID + "]/mets:mdWrap[@MDTYPE='MODS']/mets:xmlData/mods:mods", VAR_DMDID, NAMESPACE_METS,
+                    NAMESPACE_MODS);
+    private static final CompiledXPath XPATH_MARC =
+            new CompiledXPath("mets:dmdSec/mets:mdWrap[@MDTYPE='MARC']/mets:xmlData/marc:marc", null, NAMESPACE_METS, NAMESPACE_MARC);
+    private static final CompiledXPath XPATH_MARC_BIB_RECORD =
+            new CompiledXPath("mets:dmdSec/mets:mdWrap[@MDTYPE='MARC']/mets:xmlData/bib/record", null, NAMESPACE_METS);
+    private static final CompiledXPath XPATH_MODS =
+            new CompiledXPath("mets:dmdSec/mets:mdWrap[@MDTYPE='MODS']/mets:xmlData/mods:mods", null, NAMESPACE_METS, NAMESPACE_MODS);
+
     /** {@inheritDoc} */
     @Override
     public Element createListRecords(RequestHandler handler, int firstVirtualRow, int firstRawRow, int numRows, String versionDiscriminatorField,
             String filterQuerySuffix) throws IOException, SolrServerException {
-        Element mets = super.createListRecords(handler, firstVirtualRow, firstRawRow, numRows, versionDiscriminatorField, filterQuerySuffix);
-        if (mets.getName().equals(XmlConstants.ELE_NAME_ERROR)) {
-            return mets;
+        QueryResponse qr =
+                solr.getListRecords(Utils.filterDatestampFromRequest(handler), firstRawRow, numRows, false, METS_FILTER_QUERY, filterQuerySuffix,
+                        fieldList, null);
+        if (qr.getResults().isEmpty()) {
+            return new ErrorCode().getNoRecordsMatch();
         }
-        return generateMarc(mets, null, "ListRecords");
+
+        return generateMarcRecords(qr.getResults(), qr.getResults().getNumFound(), firstRawRow, numRows, handler, "ListRecords", null,
+                setSpecFields, filterQuerySuffix);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Element createDumpRecords(List<SolrDocument> records, RequestHandler handler, String filterQuerySuffix) throws SolrServerException {
+        return generateMarcRecords(records, records.size(), 0, records.size(), handler, "ListRecords", null, setSpecFields, filterQuerySuffix);
     }
 
     /** {@inheritDoc} */
     @Override
     public Element createGetRecord(RequestHandler handler, String filterQuerySuffix) {
         logger.trace("createGetRecord");
-        Element mets = super.createGetRecord(handler, filterQuerySuffix);
-        if (mets.getName().equals(XmlConstants.ELE_NAME_ERROR)) {
-            return mets;
+        if (handler.getIdentifier() == null) {
+            return new ErrorCode().getBadArgument();
+        }
+        try {
+            SolrDocument doc = solr.getListRecord(handler.getIdentifier(), fieldList, filterQuerySuffix);
+            if (doc == null) {
+                logger.debug("Record not found in index: {}", handler.getIdentifier());
+                return new ErrorCode().getIdDoesNotExist();
+            }
+            return generateMarcRecords(Collections.singletonList(doc), 1L, 0, 1, handler, "GetRecord", handler.getIdentifier(), setSpecFields,
+                    filterQuerySuffix);
+        } catch (IOException | SolrServerException e) {
+            logger.error(e.getMessage());
+            return new ErrorCode().getIdDoesNotExist();
         }
-
-        return generateMarc(mets, handler.getIdentifier(), "GetRecord");
     }
 
     /**
-     * 
-     * @param mets
-     * @param identifier
-     * @param recordType
+     * Creates MARCXML records for the given Solr document list. The METS source of each record is streamed and only the sections required for
+     * the MARC record are kept in memory.
+     *
+     * @param records
+     * @param totalHits
+     * @param firstRow
+     * @param numRows
+     * @param handler
+     * @param recordType "GetRecord" or "ListRecords"
+     * @param identifier Optional identifier of a specific logical element
+     * @param setSpecFields
+     * @param filterQuerySuffix Filter query suffix for the client's session
      * @return {@link Element}
-     * @should generate element correctly
+     * @throws SolrServerException
      */
-    static Element generateMarc(Element mets, String identifier, String recordType) {
-        logger.trace("generateMarc");
+    private static Element generateMarcRecords(List<SolrDocument> records, long totalHits, int firstRow, final int numRows, RequestHandler handler,
+            String recordType, String identifier, List<String> setSpecFields, String filterQuerySuffix) throws SolrServerException {
+        logger.trace("generateMarcRecords");
+
+        List<Element> marcRecords;
+        try {
+            marcRecords = renderRecords(records, doc -> renderMarcRecord(doc, handler, identifier, setSpecFields, filterQuerySuffix));
+        } catch (IOException e) {
+            logger.error("Could not render MARC records: {}", e.getMessage());
+            marcRecords = Collections.emptyList();
+        }
+        if (marcRecords.isEmpty()) {
+            return getRenderError(recordType);
+        }
         Element xmlListRecords = new Element(recordType, NAMESPACE_XML);
-        Element token = mets.getChild("resumptionToken", NAMESPACE_XML);
-        List<Element> records = mets.getChildren(XmlConstants.ELE_NAME_RECORD, NAMESPACE_XML);
-
-        for (Element rec : records) {
-            Element header = rec.getChild(XmlConstants.ELE_NAME_HEADER, NAMESPACE_XML);
-            Element rootMets = rec.getChild(XmlConstants.ELE_NAME_METADATA, null).getChild("mets", NAMESPACE_METS);
-            Element rootMarc = null;
-            Element rootMods = null;
-            Element subMods = null;
-            if (identifier != null) {
-                // Look up DMDID via CONTENTIDS, then look up MODS element
-                List<Element> eleListDmdid = XmlTools.evaluateToElements(
-                        "mets:structMap[@TYPE='LOGICAL']/mets:div/mets:div[@CONTENTIDS='" + identifier + "']", rootMets,
-                        Arrays.asList(NAMESPACE_METS));
-                if (!eleListDmdid.isEmpty()) {
-                    String dmdid = eleListDmdid.get(0).getAttributeValue("DMDID");
-                    List<Element> eleListMods =
-                            XmlTools.evaluateToElements("mets:dmdSec[@ID='" + dmdid + "']/mets:mdWrap[@MDTYPE='MODS']/mets:xmlData/mods:mods",
-                                    rootMets, Arrays.asList(NAMESPACE_METS, NAMESPACE_MODS));
-                    if (eleListMods != null && !eleListMods.isEmpty()) {
-                        subMods = eleListMods.get(0);
+        xmlListRecords.addContent(marcRecords);
+
+        // Create resumption token
+        int useNumRows = numRows;
+        if (records.size() < useNumRows) {
+            useNumRows = records.size();
+        }
+        if (totalHits > firstRow + useNumRows) {
+            Element resumption = createResumptionTokenAndElement(totalHits, firstRow + useNumRows, firstRow, handler);
+            xmlListRecords.addContent(resumption);
+        }
+
+        return xmlListRecords;
+    }
+
+    /**
+     * Returns the MARCXML record of the given record from the record store or renders it. Records of specific logical elements are always rendered.
+     *
+     * @param doc Solr document of the record
+     * @param handler
+     * @param identifier Optional identifier of a specific logical element
+     * @param setSpecFields
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @return {@link Element}; null if the METS document could not be retrieved or parsed or contains no MARC or MODS section
+     * @throws IOException
+     * @throws SolrServerException
+     */
+    private static Element renderMarcRecord(SolrDocument doc, RequestHandler handler, String identifier, List<String> setSpecFields,
+            String filterQuerySuffix) throws IOException, SolrServerException {
+        if (identifier != null) {
+            return generateMarcRecord(doc, handler, identifier, setSpecFields, filterQuerySuffix);
+        }
+        return DataManager.getInstance()
+                .getRecordStore()
+                .getOrRender(doc, handler, filterQuerySuffix, () -> generateMarcRecord(doc, handler, null, setSpecFields, filterQuerySuffix));
+    }
+
+    /**
+     * Retrieves the METS document of the given record and creates its MARCXML record.
+     *
+     * @param doc Solr document of the record
+     * @param handler
+     * @param identifier Optional identifier of a specific logical element
+     * @param setSpecFields
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @return {@link Element}; null if the METS document could not be retrieved or parsed or contains no MARC or MODS section
+     */
+    private static Element generateMarcRecord(SolrDocument doc, RequestHandler handler, String identifier, List<String> setSpecFields,
+            String filterQuerySuffix) {
+        String pi = (String) doc.getFieldValue(SolrConstants.PI_TOPSTRUCT);
+        if (pi == null) {
+            pi = (String) doc.getFieldValue(SolrConstants.PI);
+        }
+        if (pi == null) {
+            return null;
+        }
+        String url = new StringBuilder(DataManager.getInstance().getConfiguration().getDocumentResolverUrl()).append(pi).toString();
+        try {
+            return Utils.getWebContentGET(url, in -> generateMarcRecord(in, doc, handler, identifier, setSpecFields, filterQuerySuffix));
+        } catch (IOException e) {
+            logger.error("Could not retrieve METS: {}", url);
+        } catch (JDOMException | XMLStreamException e) {
+            logger.error("Could not parse METS: {} - {}", url, e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates a MARCXML record from the given METS stream. The OAI header is only created if the METS contains a usable MARC or MODS section.
+     *
+     * @param metsStream METS document stream
+     * @param doc Solr document of the record
+     * @param handler
+     * @param identifier Optional identifier of a specific logical element
+     * @param setSpecFields
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @return {@link Element}; null if the METS contains no MARC or MODS section
+     * @throws XMLStreamException
+     * @throws JDOMException
+     * @throws IOException
+     * @should generate element correctly
+     * @should use element specific mods if identifier matches contentids
+     */
+    static Element generateMarcRecord(InputStream metsStream, SolrDocument doc, RequestHandler handler, String identifier,
+            List<String> setSpecFields, String filterQuerySuffix) throws XMLStreamException, JDOMException, IOException {
+        Element rootMets = readMarcSourceSections(metsStream, identifier);
+        if (rootMets == null) {
+            return null;
+        }
+        Element rootMarc = null;
+        Element rootMods = null;
+        Element subMods = null;
+        if (identifier != null) {
+            // Look up DMDID via CONTENTIDS, then look up MODS element
+            Element eleDiv = XPATH_LOGICAL_DIV_BY_CONTENTIDS.evaluateFirst(rootMets, identifier);
+            if (eleDiv != null) {
+                subMods = XPATH_MODS_BY_DMDID.evaluateFirst(rootMets, eleDiv.getAttributeValue("DMDID"));
+            }
+        }
+        if (subMods == null) {
+            // Look up native MARC for the main record
+            rootMarc = XPATH_MARC.evaluateFirst(rootMets, null);
+            // Alternative MARCXML embedding
+            if (rootMarc == null) {
+                rootMarc = XPATH_MARC_BIB_RECORD.evaluateFirst(rootMets, null);
+            }
+            if (rootMarc == null) {
+                // MODS for conversion
+                rootMods = XPATH_MODS.evaluateFirst(rootMets, null);
+            }
+        }
+        if (subMods == null && rootMarc == null && rootMods == null) {
+            return null;
+        }
+
+        Element header;
+        try {
+            header = getHeader(doc, null, handler, null, setSpecFields, filterQuerySuffix);
+        } catch (SolrServerException e) {
+            throw new IOException(e);
+        }
+        if (subMods != null) {
+            // Element-specific MODS for the main record, convert to MARC
+            logger.trace("subelement MODS");
+            return convertModsToMarc(subMods, header);
+        }
+        if (rootMods != null) {
+            // Root MODS to MARC
+            logger.trace("root MODS");
+            return convertModsToMarc(rootMods, header);
+        }
+
+        // Native root MARC
+        logger.trace("root MARC");
+        Element eleRecord = new Element(XmlConstants.ELE_NAME_RECORD, NAMESPACE_XML);
+        Element newheader = new Element(XmlConstants.ELE_NAME_HEADER, NAMESPACE_XML);
+        newheader.addContent(header.cloneContent());
+        eleRecord.addContent(newheader);
+        Element metadata = new Element(XmlConstants.ELE_NAME_METADATA, NAMESPACE_XML);
+        Element answer = new Element(XmlConstants.ELE_NAME_RECORD, NAMESPACE_MARC);
+        answer.addNamespaceDeclaration(XSI_NS);
+        answer.setAttribute("schemaLocation", "http://www.loc.gov/MARC21/slim http://www.loc.gov/standards/marcxml/schema/MARC21slim.xsd", XSI_NS);
+        answer.addContent(rootMarc.cloneContent());
+        metadata.addContent(answer);
+        eleRecord.addContent(metadata);
+
+        return eleRecord;
+    }
+
+    /**
+     * Streams through the given METS document and builds a reduced METS root element that only contains the sections relevant for MARCXML: the
+     * first MARC <code>dmdSec</code>, the MODS <code>dmdSec</code> elements and, if an identifier is given, the logical <code>div</code> whose
+     * CONTENTIDS match the identifier. All other sections (fileSec, physical structMap, etc.) are skipped without building any objects. Without
+     * an identifier, only the first MODS section is kept and reading stops once a MARC section has been found.
+     *
+     * @param metsStream METS document stream
+     * @param identifier Optional identifier of a specific logical element
+     * @return Reduced METS root {@link Element}; null if the stream contains no METS document
+     * @throws XMLStreamException
+     * @throws JDOMException
+     * @should skip irrelevant sections
+     */
+    static Element readMarcSourceSections(InputStream metsStream, String identifier) throws XMLStreamException, JDOMException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(metsStream);
+        try {
+            StAXStreamBuilder builder = new StAXStreamBuilder();
+            Element ret = null;
+            Element eleLogicalTopDiv = null;
+            boolean marcFound = false;
+            boolean modsFound = false;
+            boolean inLogicalStructMap = false;
+            int depth = 0;
+            boolean advance = true;
+            while (!advance || reader.hasNext()) {
+                int event = advance ? reader.next() : reader.getEventType();
+                advance = true;
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == 2) {
+                        inLogicalStructMap = false;
                     }
+                    depth--;
+                    continue;
                 }
-            }
-            if (subMods == null) {
-                // Look up native MARC for the main record
-                List<Element> eleListMarc = XmlTools.evaluateToElements("mets:dmdSec/mets:mdWrap[@MDTYPE='MARC']/mets:xmlData/marc:marc", rootMets,
-                        Arrays.asList(NAMESPACE_METS, NAMESPACE_MARC));
-                // Alternative MARCXML embedding
-                if (eleListMarc == null || eleListMarc.isEmpty()) {
-                    eleListMarc = XmlTools.evaluateToElements("mets:dmdSec/mets:mdWrap[@MDTYPE='MARC']/mets:xmlData/bib/record", rootMets,
-                            Arrays.asList(NAMESPACE_METS, NAMESPACE_MARC));
+                if (event != XMLStreamConstants.START_ELEMENT) {
+                    continue;
                 }
-                if (eleListMarc != null && !eleListMarc.isEmpty()) {
-                    rootMarc = eleListMarc.get(0);
-                } else {
-                    // MODS for conversion
-                    List<Element> eleListMods = XmlTools.evaluateToElements("mets:dmdSec/mets:mdWrap[@MDTYPE='MODS']/mets:xmlData/mods:mods",
-                            rootMets, Arrays.asList(NAMESPACE_METS, NAMESPACE_MODS));
-                    if (eleListMods != null && !eleListMods.isEmpty()) {
-                        rootMods = eleListMods.get(0);
+                depth++;
+                boolean metsElement = NAMESPACE_METS.getURI().equals(reader.getNamespaceURI());
+                if (depth == 1) {
+                    if (!metsElement || !"mets".equals(reader.getLocalName())) {
+                        return null;
+                    }
+                    ret = new Element("mets", NAMESPACE_METS);
+                } else if (depth == 2 && metsElement && "dmdSec".equals(reader.getLocalName())) {
+                    // Builds the entire section; depending on the implementation, the reader is then left at the section's end element or at
+                    // the event following it, which must not be skipped
+                    Element eleDmdSec = (Element) builder.fragment(reader);
+                    depth--;
+                    advance = reader.getEventType() == XMLStreamConstants.END_ELEMENT && "dmdSec".equals(reader.getLocalName());
+                    Element eleMdWrap = eleDmdSec.getChild("mdWrap", NAMESPACE_METS);
+                    String mdType = eleMdWrap != null ? eleMdWrap.getAttributeValue("MDTYPE") : null;
+                    if ("MARC".equals(mdType) && !marcFound) {
+                        ret.addContent(eleDmdSec);
+                        marcFound = true;
+                        if (identifier == null) {
+                            // MARC takes precedence over MODS for the main record
+                            break;
+                        }
+                    } else if ("MODS".equals(mdType) && (identifier != null || !modsFound)) {
+                        ret.addContent(eleDmdSec);
+                        modsFound = true;
+                    }
+                } else if (identifier != null && depth == 2 && metsElement && "structMap".equals(reader.getLocalName())
+                        && "LOGICAL".equals(reader.getAttributeValue(null, "TYPE"))) {
+                    inLogicalStructMap = true;
+                    Element eleStructMap = new Element("structMap", NAMESPACE_METS);
+                    eleStructMap.setAttribute("TYPE", "LOGICAL");
+                    ret.addContent(eleStructMap);
+                    eleLogicalTopDiv = new Element("div", NAMESPACE_METS);
+                    eleStructMap.addContent(eleLogicalTopDiv);
+                } else if (inLogicalStructMap && depth == 4 && metsElement && "div".equals(reader.getLocalName())
+                        && identifier.equals(reader.getAttributeValue(null, "CONTENTIDS"))) {
+                    Element eleDiv = new Element("div", NAMESPACE_METS);
+                    eleDiv.setAttribute("CONTENTIDS", identifier);
+                    String dmdid = reader.getAttributeValue(null, "DMDID");
+                    if (dmdid != null) {
+                        eleDiv.setAttribute("DMDID", dmdid);
                     }
+                    eleLogicalTopDiv.addContent(eleDiv);
                 }
             }
 
-            if (subMods != null) {
-                // Element-specific MODS for the main record, convert to MARC
-                logger.trace("subelement MODS");
-                xmlListRecords.addContent(convertModsToMarc(subMods, header));
-            } else if (rootMarc != null) {
-                // Native root MARC
-                logger.trace("root MARC");
-                Element eleRecord = new Element(XmlConstants.ELE_NAME_RECORD, NAMESPACE_XML);
-                Element newheader = new Element(XmlConstants.ELE_NAME_HEADER, NAMESPACE_XML);
-                newheader.addContent(header.cloneContent());
-                eleRecord.addContent(newheader);
-
-                Element metadata = new Element(XmlConstants.ELE_NAME_METADATA, NAMESPACE_XML);
-                Element answer = new Element(XmlConstants.ELE_NAME_RECORD, NAMESPACE_MARC);
-                answer.addNamespaceDeclaration(XSI_NS);
-                answer.setAttribute("schemaLocation", "http://www.loc.gov/MARC21/slim http://www.loc.gov/standards/marcxml/schema/MARC21slim.xsd",
-                        XSI_NS);
-                answer.addContent(rootMarc.cloneContent());
-                metadata.addContent(answer);
-                eleRecord.addContent(metadata);
-                xmlListRecords.addContent(eleRecord);
-            } else if (rootMods != null) {
-                // Root MODS to MARC
-                logger.trace("root MODS");
-                xmlListRecords.addContent(convertModsToMarc(rootMods, header));
-            }
-        }
-        if (token != null) {
-            Element resumption = new Element("resumptionToken", NAMESPACE_XML);
-            resumption.setAttribute("expirationDate", token.getAttribute("expirationDate").getValue());
-            resumption.setAttribute("completeListSize", token.getAttribute("completeListSize").getValue());
-            resumption.setAttribute("cursor", token.getAttribute("cursor").getValue());
-            resumption.setText(token.getValue());
-            xmlListRecords.addContent(resumption);
+            return ret;
+        } finally {
+            reader.close();
         }
-
-        return xmlListRecords;
     }
 
     /**
@@ -206,4 +432,65 @@ public class MARCXMLFormat extends METSFormat {
             return new ErrorCode().getCannotDisseminateFormat();
         }
     }
+
+    /**
+     * XPath expression that is compiled once and shared by all threads. Compiled expressions keep their variable values as state and are not
+     * thread-safe, so each evaluation borrows a compiled instance from a pool and returns it afterwards. The pool only grows to the number of
+     * concurrent evaluations and does not depend on thread identity, so records rendered on short-lived virtual threads reuse the same instances.
+     */
+    private static final class CompiledXPath {
+
+        private final String expression;
+        /** Name of the variable used in the expression; null if none */
+        private final String variable;
+        private final Namespace[] namespaces;
+        private final Queue<XPathExpression<Element>> pool = new ConcurrentLinkedQueue<>();
+
+        /**
+         * 
+         * @param expression XPath expression
+         * @param variable Optional name of the variable used in the expression
+         * @param namespaces Namespaces used in the expression
+         */
+        private CompiledXPath(String expression, String variable, Namespace... namespaces) {
+            this.expression = expression;
+            this.variable = variable;
+            this.namespaces = namespaces;
+            pool.add(compile());
+        }
+
+        /**
+         * 
+         * @return Newly compiled {@link XPathExpression}
+         */
+        private XPathExpression<Element> compile() {
+            Map<String, Object> variables = variable != null ? Collections.singletonMap(variable, "") : Collections.emptyMap();
+            return XPathFactory.instance().compile(expression, Filters.element(), variables, namespaces);
+        }
+
+        /**
+         * Evaluates the expression with the given variable value against the given context element.
+         *
+         * @param context Context element
+         * @param value Variable value; ignored if the expression uses no variable
+         * @return First matching {@link Element}; null if none found or if the expression uses a variable and value is null
+         */
+        private Element evaluateFirst(Element context, String value) {
+            if (variable != null && value == null) {
+                return null;
+            }
+            XPathExpression<Element> xpath = pool.poll();
+            if (xpath == null) {
+                xpath = compile();
+            }
+            try {
+                if (variable != null) {
+                    xpath.setVariable(variable, value);
+                }
+                return xpath.evaluateFirst(context);
+            } finally {
+                pool.offer(xpath);
+            }
+        }
+    }
 }
@@ -16,12 +16,25 @@
 package io.goobi.viewer.connector.oai.model.formats;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -38,30 +51,41 @@ import io.goobi.viewer.connector.DataManager;
 import io.goobi.viewer.connector.oai.RequestHandler;
 import io.goobi.viewer.connector.oai.enums.Metadata;
 import io.goobi.viewer.connector.oai.model.ErrorCode;
+import io.goobi.viewer.connector.utils.RecordRenderer;
+import io.goobi.viewer.connector.utils.RecordRenderer.RecordTask;
+import io.goobi.viewer.connector.utils.SpooledElement;
 import io.goobi.viewer.connector.utils.Utils;
 import io.goobi.viewer.connector.utils.XmlConstants;
-import io.goobi.viewer.controller.NetTools;
-import io.goobi.viewer.controller.XmlTools;
-import io.goobi.viewer.exceptions.HTTPException;
 import io.goobi.viewer.solr.SolrConstants;
 
 /**
  * METS
  */
-public class METSFormat extends Format {
+public class METSFormat extends Format implements DumpableFormat {
 
     private static final Logger logger = LogManager.getLogger(METSFormat.class);
 
-    private static final String METS_FILTER_QUERY = " +(+" + SolrConstants.SOURCEDOCFORMAT + ":METS " + "-" + SolrConstants.DATEDELETED + ":*)";
+    static final String METS_FILTER_QUERY = " +(+" + SolrConstants.SOURCEDOCFORMAT + ":METS " + "-" + SolrConstants.DATEDELETED + ":*)";
 
     static final Namespace METS_NS = Namespace.getNamespace(Metadata.METS.getMetadataNamespacePrefix(), Metadata.METS.getMetadataNamespaceUri());
     static final Namespace MODS_NS = Namespace.getNamespace("mods", "http://www.loc.gov/mods/v3");
     static final Namespace DV_NS = Namespace.getNamespace("dv", "http://dfg-viewer.de/");
     static final Namespace XLINK_NS = Namespace.getNamespace("xlink", "http://www.w3.org/1999/xlink");
 
-    private List<String> setSpecFields =
+    static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+    static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    protected final List<String> setSpecFields =
             DataManager.getInstance().getConfiguration().getSetSpecFieldsForMetadataFormat(Metadata.METS.getMetadataPrefix());
 
+    /** Solr fields to return for records */
+    protected final List<String> fieldList = getFieldList(setSpecFields);
+
     /** {@inheritDoc} */
     @Override
     public Element createListIdentifiers(RequestHandler handler, int firstVirtualRow, int firstRawRow, int numRows, String versionDiscriminatorField,
@@ -70,9 +94,6 @@ public class METSFormat extends Format {
 
         Element xmlListIdentifiers = new Element("ListIdentifiers", OAI_NS);
 
-        List<String> fieldList = new ArrayList<>(Arrays.asList(IDENTIFIER_FIELDS));
-        fieldList.addAll(Arrays.asList(DATE_FIELDS));
-        fieldList.addAll(setSpecFields);
 
         QueryResponse qr;
         long totalVirtualHits;
@@ -108,9 +129,6 @@ public class METSFormat extends Format {
     @Override
     public Element createListRecords(RequestHandler handler, int firstVirtualRow, int firstRawRow, int numRows, String versionDiscriminatorField,
             String filterQuerySuffix) throws IOException, SolrServerException {
-        List<String> fieldList = new ArrayList<>(Arrays.asList(IDENTIFIER_FIELDS));
-        fieldList.addAll(Arrays.asList(DATE_FIELDS));
-        fieldList.addAll(setSpecFields);
         QueryResponse qr =
                 solr.getListRecords(Utils.filterDatestampFromRequest(handler), firstRawRow, numRows, false, METS_FILTER_QUERY, filterQuerySuffix,
                         fieldList, null);
@@ -122,6 +140,24 @@ public class METSFormat extends Format {
                 filterQuerySuffix);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public String getDumpQuery() {
+        return METS_FILTER_QUERY;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<String> getDumpFieldList() {
+        return fieldList;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Element createDumpRecords(List<SolrDocument> records, RequestHandler handler, String filterQuerySuffix) throws SolrServerException {
+        return generateMetsRecords(records, records.size(), 0, records.size(), handler, "ListRecords", setSpecFields, filterQuerySuffix);
+    }
+
     /** {@inheritDoc} */
     @Override
     public Element createGetRecord(RequestHandler handler, String filterQuerySuffix) {
@@ -129,9 +165,6 @@ public class METSFormat extends Format {
         if (handler.getIdentifier() == null) {
             return new ErrorCode().getBadArgument();
         }
-        List<String> fieldList = new ArrayList<>(Arrays.asList(IDENTIFIER_FIELDS));
-        fieldList.addAll(Arrays.asList(DATE_FIELDS));
-        fieldList.addAll(setSpecFields);
         try {
             SolrDocument doc = solr.getListRecord(handler.getIdentifier(), fieldList, filterQuerySuffix);
             if (doc == null) {
@@ -164,39 +197,20 @@ public class METSFormat extends Format {
             String recordType, List<String> setSpecFields, String filterQuerySuffix) throws SolrServerException {
         logger.trace("generateMetsRecords");
 
-        Element xmlListRecords = new Element(recordType, OAI_NS);
-        for (SolrDocument doc : records) {
-            String pi = (String) doc.getFieldValue(SolrConstants.PI_TOPSTRUCT);
-            if (pi == null) {
-                pi = (String) doc.getFieldValue(SolrConstants.PI);
-            }
-            if (pi == null) {
-                xmlListRecords.addContent(new ErrorCode().getIdDoesNotExist());
-                continue;
-            }
-            String url = new StringBuilder(DataManager.getInstance().getConfiguration().getDocumentResolverUrl()).append(pi).toString();
-            String xml = null;
-            try {
-                xml = NetTools.getWebContentGET(url);
-            } catch (HTTPException | IOException e) {
-                logger.error("Could not retrieve METS: {}", url);
-                xmlListRecords.addContent(new ErrorCode().getIdDoesNotExist());
-                continue;
-            }
-
-            if (StringUtils.isEmpty(xml)) {
-                logger.error("METS document is empty: {}", url);
-                xmlListRecords.addContent(new ErrorCode().getIdDoesNotExist());
-                continue;
-            }
-
-            Element eleRecord = generateMetsRecord(xml, doc, handler, setSpecFields, filterQuerySuffix);
-            if (eleRecord != null) {
-                xmlListRecords.addContent(eleRecord);
-            } else {
-                xmlListRecords.addContent(new ErrorCode().getIdDoesNotExist());
-            }
+        List<Element> eleRecords;
+        try {
+            eleRecords = renderRecords(records, doc -> DataManager.getInstance()
+                    .getRecordStore()
+                    .getOrRender(doc, handler, filterQuerySuffix, () -> generateMetsRecord(doc, handler, setSpecFields, filterQuerySuffix)));
+        } catch (IOException e) {
+            logger.error("Could not render METS records: {}", e.getMessage());
+            eleRecords = Collections.emptyList();
         }
+        if (eleRecords.isEmpty()) {
+            return getRenderError(recordType);
+        }
+        Element xmlListRecords = new Element(recordType, OAI_NS);
+        xmlListRecords.addContent(eleRecords);
 
         // Create resumption token
         int useNumRows = numRows;
@@ -211,6 +225,82 @@ public class METSFormat extends Format {
         return xmlListRecords;
     }
 
+    /**
+     * Renders the given records via the {@link RecordRenderer}. Records that fail or yield no OAI record (e.g. because the METS document could
+     * not be retrieved) are left out, so that a single broken record does not cost the whole page.
+     * 
+     * @param records Solr documents of the records
+     * @param task Rendering logic for a single record
+     * @return Rendered OAI records in input order, without failed records
+     * @throws IOException if rendering was interrupted
+     * @throws SolrServerException
+     * @should leave out failed records
+     */
+    static List<Element> renderRecords(List<SolrDocument> records, RecordTask<SolrDocument, Element> task) throws IOException, SolrServerException {
+        List<Element> rendered = DataManager.getInstance().getRecordRenderer().renderAll(records, doc -> {
+            try {
+                return task.render(doc);
+            } catch (IOException e) {
+                logger.error("Could not render record {}: {}", doc.getFieldValue(SolrConstants.PI_TOPSTRUCT), e.getMessage());
+                return null;
+            }
+        });
+        List<Element> ret = new ArrayList<>(rendered.size());
+        for (Element eleRecord : rendered) {
+            // OAI errors are only allowed instead of a whole response
+            if (eleRecord != null && XmlConstants.ELE_NAME_RECORD.equals(eleRecord.getName())) {
+                ret.add(eleRecord);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * 
+     * @param recordType "GetRecord" or "ListRecords"
+     * @return OAI error for a response in which no record could be rendered
+     * @should return id does not exist for GetRecord
+     * @should return cannot disseminate format for ListRecords
+     */
+    static Element getRenderError(String recordType) {
+        if ("GetRecord".equals(recordType)) {
+            return new ErrorCode().getIdDoesNotExist();
+        }
+        return new ErrorCode().getCannotDisseminateFormat();
+    }
+
+    /**
+     * Retrieves the METS document of the given record and creates its OAI record.
+     * 
+     * @param doc Solr document of the record
+     * @param handler
+     * @param setSpecFields
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @return OAI record; null if the METS document could not be retrieved or parsed
+     * @throws SolrServerException
+     */
+    private static Element generateMetsRecord(SolrDocument doc, RequestHandler handler, List<String> setSpecFields, String filterQuerySuffix)
+            throws SolrServerException {
+        String pi = (String) doc.getFieldValue(SolrConstants.PI_TOPSTRUCT);
+        if (pi == null) {
+            pi = (String) doc.getFieldValue(SolrConstants.PI);
+        }
+        if (pi == null) {
+            return null;
+        }
+        String url = new StringBuilder(DataManager.getInstance().getConfiguration().getDocumentResolverUrl()).append(pi).toString();
+        try {
+            return Utils.getWebContentGET(url, in -> generateMetsRecord(in, doc, handler, setSpecFields, filterQuerySuffix));
+        } catch (IOException e) {
+            logger.error("Could not retrieve METS: {}", url);
+        } catch (JDOMException | XMLStreamException e) {
+            logger.error("Could not parse METS: {} - {}", url, e.getMessage());
+        }
+
+        return null;
+    }
+
     /**
      * 
      * @param xml
@@ -231,33 +321,227 @@ public class METSFormat extends Format {
         }
 
         try {
-            org.jdom2.Document metsFile = XmlTools.getDocumentFromString(xml, null);
-            Element metsRoot = metsFile.getRootElement();
-            Element newMetsRoot = new Element(Metadata.METS.getMetadataPrefix(), METS_NS);
-            newMetsRoot.addNamespaceDeclaration(XSI_NS);
-            newMetsRoot.addNamespaceDeclaration(MODS_NS);
-            newMetsRoot.addNamespaceDeclaration(DV_NS);
-            newMetsRoot.addNamespaceDeclaration(XLINK_NS);
-            newMetsRoot.setAttribute("schemaLocation",
-                    "http://www.loc.gov/mods/v3 http://www.loc.gov/standards/mods/v3/mods-3-3.xsd http://www.loc.gov/METS/ http://www.loc.gov/standards/mets/version17/mets.v1-7.xsd",
-                    XSI_NS);
-            if (metsRoot.getAttributeValue(XmlConstants.ATT_NAME_OBJID) != null) {
-                newMetsRoot.setAttribute(XmlConstants.ATT_NAME_OBJID, metsRoot.getAttributeValue(XmlConstants.ATT_NAME_OBJID));
+            return generateMetsRecord(XML_INPUT_FACTORY.createXMLStreamReader(new StringReader(xml)), doc, handler, setSpecFields,
+                    filterQuerySuffix);
+        } catch (IOException | XMLStreamException e) {
+            logger.error("{}", e.getMessage());
+            logger.trace(xml);
+            return null;
+        }
+    }
+
+    /**
+     * Creates a METS record by passing the given METS stream through to a spool file, which is written into the OAI <code>metadata</code>
+     * element as is when the response is serialized (see {@link SpooledElement}). Only the root element is replaced (namespace declarations and
+     * schemaLocation); all other content is copied event by event, so the METS content is never held in memory as a String or JDOM tree, neither
+     * here nor in a stored record. Malformed documents are detected here, not during serialization.
+     * 
+     * @param metsStream METS document stream
+     * @param doc
+     * @param handler
+     * @param setSpecFields
+     * @param filterQuerySuffix
+     * @return {@link Element}; null if the stream contains no root element
+     * @throws XMLStreamException
+     * @throws IOException
+     * @should pass content through under replaced root element
+     * @should keep namespace declarations of source root
+     */
+    static Element generateMetsRecord(InputStream metsStream, SolrDocument doc, RequestHandler handler, List<String> setSpecFields,
+            String filterQuerySuffix) throws XMLStreamException, IOException {
+        try {
+            return generateMetsRecord(XML_INPUT_FACTORY.createXMLStreamReader(metsStream), doc, handler, setSpecFields, filterQuerySuffix);
+        } catch (SolrServerException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * 
+     * @param reader
+     * @param doc
+     * @param handler
+     * @param setSpecFields
+     * @param filterQuerySuffix
+     * @return {@link Element}; null if the stream contains no root element
+     * @throws XMLStreamException
+     * @throws IOException
+     * @throws SolrServerException
+     */
+    private static Element generateMetsRecord(XMLStreamReader reader, SolrDocument doc, RequestHandler handler, List<String> setSpecFields,
+            String filterQuerySuffix) throws XMLStreamException, IOException, SolrServerException {
+        Path file = SpooledElement.createFile();
+        SpooledElement eleMets = null;
+        try {
+            boolean found;
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                XMLStreamWriter writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(out);
+                try {
+                    found = copyMets(reader, writer);
+                    writer.flush();
+                } finally {
+                    writer.close();
+                    reader.close();
+                }
+            }
+            if (!found) {
+                return null;
             }
-            newMetsRoot.addContent(metsRoot.cloneContent());
 
             Element eleRecord = new Element(XmlConstants.ELE_NAME_RECORD, OAI_NS);
             Element header = getHeader(doc, null, handler, null, setSpecFields, filterQuerySuffix);
             eleRecord.addContent(header);
             Element metadata = new Element(XmlConstants.ELE_NAME_METADATA, OAI_NS);
-            metadata.addContent(newMetsRoot);
+            eleMets = new SpooledElement(Metadata.METS.getMetadataPrefix(), METS_NS, file);
+            metadata.addContent(eleMets);
             eleRecord.addContent(metadata);
 
             return eleRecord;
-        } catch (IOException | JDOMException e) {
-            logger.error("{}", e.getMessage());
-            logger.trace(xml);
-            return null;
+        } finally {
+            if (eleMets == null) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Copies the METS document from reader to writer, replacing the root element.
+     * 
+     * @param reader
+     * @param writer
+     * @return true if a root element was copied; false if the stream contains none
+     * @throws XMLStreamException
+     */
+    private static boolean copyMets(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+        // Source root declarations that conflict with those of the new root are repeated on each of its children instead
+        Map<String, String> childNamespaces = new LinkedHashMap<>();
+        int depth = 0;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (depth == 0 && event != XMLStreamConstants.START_ELEMENT) {
+                // Prolog and epilog
+                continue;
+            }
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    if (depth == 0) {
+                        writeMetsRoot(reader, writer, childNamespaces);
+                    } else {
+                        writeStartElement(reader, writer, depth == 1 ? childNamespaces : Collections.emptyMap());
+                    }
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    writer.writeEndElement();
+                    depth--;
+                    if (depth == 0) {
+                        return true;
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    writer.writeCharacters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    break;
+                case XMLStreamConstants.CDATA:
+                    writer.writeCData(reader.getText());
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    writer.writeComment(reader.getText());
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+                    break;
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    writer.writeEntityRef(reader.getLocalName());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // Incomplete document
+        return false;
+    }
+
+    /**
+     * Writes the new METS root with the namespace declarations and schemaLocation for OAI and the OBJID of the source root.
+     * 
+     * @param reader Reader positioned at the source root
+     * @param writer
+     * @param childNamespaces Receives source root declarations that cannot be made on the new root
+     * @throws XMLStreamException
+     */
+    private static void writeMetsRoot(XMLStreamReader reader, XMLStreamWriter writer, Map<String, String> childNamespaces)
+            throws XMLStreamException {
+        Map<String, String> namespaces = new LinkedHashMap<>();
+        for (Namespace ns : new Namespace[] { METS_NS, XSI_NS, MODS_NS, DV_NS, XLINK_NS }) {
+            namespaces.put(ns.getPrefix(), ns.getURI());
+        }
+        for (int i = 0; i < reader.getNamespaceCount(); ++i) {
+            String prefix = StringUtils.defaultString(reader.getNamespacePrefix(i));
+            String uri = StringUtils.defaultString(reader.getNamespaceURI(i));
+            String existing = namespaces.putIfAbsent(prefix, uri);
+            if (existing != null && !existing.equals(uri)) {
+                childNamespaces.put(prefix, uri);
+            }
+        }
+
+        writer.writeStartElement(METS_NS.getPrefix(), Metadata.METS.getMetadataPrefix(), METS_NS.getURI());
+        writeNamespaces(writer, namespaces);
+        writer.writeAttribute(XSI_NS.getPrefix(), XSI_NS.getURI(), "schemaLocation",
+                "http://www.loc.gov/mods/v3 http://www.loc.gov/standards/mods/v3/mods-3-3.xsd http://www.loc.gov/METS/ http://www.loc.gov/standards/mets/version17/mets.v1-7.xsd");
+        String objId = reader.getAttributeValue(null, XmlConstants.ATT_NAME_OBJID);
+        if (objId != null) {
+            writer.writeAttribute(XmlConstants.ATT_NAME_OBJID, objId);
+        }
+    }
+
+    /**
+     * Copies the start element at the current reader position, including its namespace declarations and attributes.
+     * 
+     * @param reader
+     * @param writer
+     * @param inheritedNamespaces Additional declarations for this element, unless it declares the same prefixes itself
+     * @throws XMLStreamException
+     */
+    private static void writeStartElement(XMLStreamReader reader, XMLStreamWriter writer, Map<String, String> inheritedNamespaces)
+            throws XMLStreamException {
+        Map<String, String> namespaces = new LinkedHashMap<>(inheritedNamespaces);
+        for (int i = 0; i < reader.getNamespaceCount(); ++i) {
+            namespaces.put(StringUtils.defaultString(reader.getNamespacePrefix(i)), StringUtils.defaultString(reader.getNamespaceURI(i)));
+        }
+        String prefix = StringUtils.defaultString(reader.getPrefix());
+        String uri = StringUtils.defaultString(reader.getNamespaceURI());
+        if (prefix.isEmpty() && uri.isEmpty()) {
+            // Unqualified element: make sure it does not end up in the default namespace of the OAI response
+            namespaces.putIfAbsent("", "");
+        }
+
+        writer.writeStartElement(prefix, reader.getLocalName(), uri);
+        writeNamespaces(writer, namespaces);
+        for (int i = 0; i < reader.getAttributeCount(); ++i) {
+            String attPrefix = reader.getAttributePrefix(i);
+            if (StringUtils.isEmpty(attPrefix)) {
+                writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            } else {
+                writer.writeAttribute(attPrefix, reader.getAttributeNamespace(i), reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            }
+        }
+    }
+
+    /**
+     * 
+     * @param writer
+     * @param namespaces Namespace URIs by prefix; the empty prefix stands for the default namespace
+     * @throws XMLStreamException
+     */
+    private static void writeNamespaces(XMLStreamWriter writer, Map<String, String> namespaces) throws XMLStreamException {
+        for (Map.Entry<String, String> entry : namespaces.entrySet()) {
+            if (entry.getKey().isEmpty()) {
+                writer.writeDefaultNamespace(entry.getValue());
+            } else {
+                writer.writeNamespace(entry.getKey(), entry.getValue());
+            }
         }
     }
 
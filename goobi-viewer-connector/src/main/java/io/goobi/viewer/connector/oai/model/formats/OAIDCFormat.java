@@ -22,7 +22,6 @@ import static io.goobi.viewer.api.rest.v1.ApiUrls.RECORDS_FILES_PLAINTEXT;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -46,27 +45,24 @@ import io.goobi.viewer.connector.oai.RequestHandler;
 import io.goobi.viewer.connector.oai.enums.Metadata;
 import io.goobi.viewer.connector.oai.enums.Verb;
 import io.goobi.viewer.connector.oai.model.ErrorCode;
-import io.goobi.viewer.connector.oai.model.metadata.MetadataParameter;
-import io.goobi.viewer.connector.oai.model.metadata.MetadataParameter.MetadataParameterType;
+import io.goobi.viewer.connector.oai.model.metadata.MetadataTemplate;
 import io.goobi.viewer.connector.utils.SolrSearchTools;
+import io.goobi.viewer.connector.utils.TocCache;
 import io.goobi.viewer.connector.utils.Utils;
 import io.goobi.viewer.controller.FileTools;
-import io.goobi.viewer.controller.NetTools;
 import io.goobi.viewer.exceptions.HTTPException;
-import io.goobi.viewer.messages.ViewerResourceBundle;
 import io.goobi.viewer.model.translations.language.Language;
 import io.goobi.viewer.solr.SolrConstants;
 
 /**
  * oai_dc
  */
-public class OAIDCFormat extends Format {
+public class OAIDCFormat extends Format implements DumpableFormat {
 
     private static final Logger logger = LogManager.getLogger(OAIDCFormat.class);
 
-    protected static Map<String, String> anchorTitles = new HashMap<>();
 
-    private List<String> setSpecFields =
+    private final List<String> setSpecFields =
             DataManager.getInstance().getConfiguration().getSetSpecFieldsForMetadataFormat(Metadata.OAI_DC.getMetadataPrefix());
 
     /** {@inheritDoc} */
@@ -102,6 +98,23 @@ public class OAIDCFormat extends Format {
                 versionDiscriminatorField, null, filterQuerySuffix);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Bulk dumps contain one record for each record proper, regardless of a configured version discriminator field.
+     */
+    @Override
+    public String getDumpQuery() {
+        return SolrSearchTools.getAdditionalDocstructsQuerySuffix(DataManager.getInstance().getConfiguration().getAdditionalDocstructTypes());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Element createDumpRecords(List<SolrDocument> records, RequestHandler handler, String filterQuerySuffix)
+            throws IOException, SolrServerException {
+        return generateDC(records, records.size(), records.size(), 0, 0, records.size(), handler, "ListRecords", null, null, filterQuerySuffix);
+    }
+
     /** {@inheritDoc} */
     @Override
     public Element createGetRecord(RequestHandler handler, String filterQuerySuffix) {
@@ -181,10 +194,13 @@ public class OAIDCFormat extends Format {
                 }
             }
         } else {
-            for (SolrDocument doc : records) {
-                xmlListRecords.addContent(generateSingleDCRecord(doc, handler, null, OAI_NS, nsOaiDoc, setSpecFields, filterQuerySuffix));
-                virtualHitCount++;
-            }
+            xmlListRecords.addContent(DataManager.getInstance()
+                    .getRecordRenderer()
+                    .renderAll(records, doc -> DataManager.getInstance()
+                            .getRecordStore()
+                            .getOrRender(doc, handler, filterQuerySuffix,
+                                    () -> generateSingleDCRecord(doc, handler, null, OAI_NS, nsOaiDoc, setSpecFields, filterQuerySuffix))));
+            virtualHitCount += records.size();
         }
 
         // Create resumption token
@@ -276,11 +292,9 @@ public class OAIDCFormat extends Format {
         eleOaiDc.setAttribute("schemaLocation", "http://www.openarchives.org/OAI/2.0/oai_dc/ http://www.openarchives.org/OAI/2.0/oai_dc.xsd", XSI_NS);
 
         // Configured fields
-        List<io.goobi.viewer.connector.oai.model.metadata.Metadata> metadataList =
-                DataManager.getInstance().getConfiguration().getMetadataConfiguration(Metadata.OAI_DC.getMetadataPrefix(), docstruct);
-        if (metadataList != null && !metadataList.isEmpty()) {
-            for (io.goobi.viewer.connector.oai.model.metadata.Metadata md : metadataList) {
-                boolean restrictedContent = false;
+        List<MetadataTemplate> templates = getMetadataTemplates(Metadata.OAI_DC.getMetadataPrefix(), docstruct);
+        if (!templates.isEmpty()) {
+            for (MetadataTemplate md : templates) {
                 List<String> finishedValues = new ArrayList<>();
 
                 // Alternative 1: get value from source
@@ -341,87 +355,30 @@ public class OAIDCFormat extends Format {
                     }
                 } else if ("#TOC#".equals(md.getMasterValue())) {
                     // Generated TOC as plain text
-                    String url = DataManager.getInstance().getConfiguration().getRestApiUrl() + "records/"
-                            + (String) doc.getFieldValue(SolrConstants.PI) + "/toc/";
+                    String pi = (String) doc.getFieldValue(SolrConstants.PI);
                     try {
-                        String val = null;
-                        try {
-                            val = NetTools.getWebContentGET(url);
-                        } catch (HTTPException e) {
-                            // If the API end point was not found, try the fallback, otherwise re-throw the exception
-                            if (e.getCode() != 404) {
-                                throw e;
-                            }
-                        }
-                        if (StringUtils.isEmpty(val)) {
-                            // Old API fallback
-                            url = DataManager.getInstance().getConfiguration().getRestApiUrl() + "records/toc/"
-                                    + (String) doc.getFieldValue(SolrConstants.PI) + "/";
-                            val = NetTools.getWebContentGET(url);
-                        }
-
-                        if (StringUtils.isNotEmpty(val)) {
-                            finishedValues.add(val);
+                        TocCache.Toc toc =
+                                DataManager.getInstance().getTocCache().getToc(pi, SolrSearchTools.getLatestValidDateUpdated(doc, Long.MAX_VALUE));
+                        if (toc != null) {
+                            finishedValues.add(toc.getText());
                         }
                     } catch (IOException e) {
-                        logger.error("Could not retrieve TOC for '{}': {}", doc.getFieldValue(SolrConstants.PI), e.getMessage());
+                        logger.error("Could not retrieve TOC for '{}': {}", pi, e.getMessage());
                     } catch (HTTPException e) {
-                        logger.error("Could not retrieve TOC for '{}' (code {}) {}", doc.getFieldValue(SolrConstants.PI), e.getCode(), url);
+                        logger.error("Could not retrieve TOC for '{}' (code {}) {}", pi, e.getCode(), e.getMessage());
                     }
-                } else if (!md.getParams().isEmpty()) {
+                } else if (md.isHasParams()) {
                     // Parameter configuration
-                    String firstField = md.getParams().get(0).getKey();
-                    int numValues = SolrSearchTools.getMetadataValues(doc, firstField).size();
-                    // for each instance of the first field value
-                    for (int i = 0; i < numValues; ++i) {
-                        String val = md.getMasterValue();
-                        int paramIndex = 0;
-                        // for each parameter
-                        for (MetadataParameter param : md.getParams()) {
-                            if (SolrConstants.THUMBNAIL.equals(param.getKey())) {
-                                restrictedContent = true;
-                            }
-                            String paramVal = "";
-                            List<String> values = SolrSearchTools.getMetadataValues(doc, param.getKey());
-                            if (values.isEmpty() && !param.isDontUseTopstructValue()) {
-                                values = SolrSearchTools.getMetadataValues(topstructDoc, param.getKey());
-                            }
-                            if (!values.isEmpty()) {
-                                paramVal = values.size() > i ? values.get(i) : "";
-                                if (StringUtils.isNotEmpty(paramVal)) {
-                                    if (MetadataParameterType.TRANSLATEDFIELD.equals(param.getType())) {
-                                        paramVal = ViewerResourceBundle.getTranslation(paramVal, null);
-                                    }
-                                    if (StringUtils.isNotEmpty(param.getPrefix())) {
-                                        String prefix = ViewerResourceBundle.getTranslation(param.getPrefix(), null);
-                                        paramVal = prefix + paramVal;
-                                    }
-                                    if (StringUtils.isNotEmpty(param.getSuffix())) {
-                                        String suffix = ViewerResourceBundle.getTranslation(param.getSuffix(), null);
-                                        paramVal += suffix;
-                                    }
-                                }
-                            }
-                            val = val.replace("{" + paramIndex + '}', paramVal);
-                            paramIndex++;
-                        }
-                        if (openAccess || !restrictedContent) {
-                            finishedValues.add(val);
-                        }
-                    }
+                    finishedValues.addAll(md.renderParameterValues(doc, topstructDoc, openAccess));
                 } else if (StringUtils.isNotEmpty(md.getMasterValue())) {
                     // Default value
                     String val = md.getMasterValue();
                     if ("title".equals(md.getLabel()) && isWork && doc.getFieldValue(SolrConstants.IDDOC_PARENT) != null) {
                         // If this is a volume, add anchor title in front
                         String iddocParent = (String) doc.getFieldValue(SolrConstants.IDDOC_PARENT);
-                        String anchorTitle = anchorTitles.get(iddocParent);
-                        if (anchorTitle == null) {
-                            anchorTitle = getAnchorTitle(iddocParent, filterQuerySuffix);
-                            if (anchorTitle != null) {
-                                val = anchorTitle + "; " + val;
-                                anchorTitles.put(iddocParent, anchorTitle);
-                            }
+                        String anchorTitle = getAnchorTitle(iddocParent, filterQuerySuffix);
+                        if (anchorTitle != null) {
+                            val = anchorTitle + "; " + val;
                         }
                     }
                     finishedValues.add(val);
@@ -454,11 +411,7 @@ public class OAIDCFormat extends Format {
      */
     protected String getAnchorTitle(String iddocParent, String filterQuerySuffix) {
         try {
-            logger.trace("anchor title query: {}:{}", SolrConstants.IDDOC, iddocParent);
-            SolrDocumentList hits = solr.search("+" + SolrConstants.IDDOC + ":" + iddocParent, filterQuerySuffix);
-            if (hits != null && !hits.isEmpty()) {
-                return (String) hits.get(0).getFirstValue(SolrConstants.TITLE);
-            }
+            return DataManager.getInstance().getAnchorTitleCache().getTitle(iddocParent, SolrConstants.TITLE, filterQuerySuffix);
         } catch (IOException | SolrServerException e) {
             logger.error(e.getMessage(), e);
         }
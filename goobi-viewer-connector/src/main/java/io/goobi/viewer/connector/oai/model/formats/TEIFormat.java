@@ -37,6 +37,7 @@ import io.goobi.viewer.connector.DataManager;
 import io.goobi.viewer.connector.oai.RequestHandler;
 import io.goobi.viewer.connector.oai.model.ErrorCode;
 import io.goobi.viewer.connector.utils.SolrSearchTools;
+import io.goobi.viewer.connector.utils.SourceDocumentCache.DocumentRequest;
 import io.goobi.viewer.connector.utils.Utils;
 import io.goobi.viewer.controller.NetTools;
 import io.goobi.viewer.controller.XmlTools;
@@ -54,6 +55,9 @@ public class TEIFormat extends Format {
     static final Namespace CMDI = Namespace.getNamespace("cmd", "http://www.clarin.eu/cmd/1");
     static final Namespace COMPONENTS = Namespace.getNamespace("cmdp", "http://www.clarin.eu/cmd/1/profiles/clarin.eu:cr1:p_1380106710826");
 
+    /** Time until which the current API end point is considered unavailable */
+    private static volatile long currentApiUnavailableUntil = 0;
+
     /** {@inheritDoc} */
     @Override
     public Element createListRecords(RequestHandler handler, int firstVirtualRow, int firstRawRow, int numRows, String versionDiscriminatorField,
@@ -170,84 +174,77 @@ public class TEIFormat extends Format {
                 DataManager.getInstance().getConfiguration().getSetSpecFieldsForMetadataFormat(handler.getMetadataPrefix().getMetadataPrefix());
         int virtualHitCount = 0;
         if (StringUtils.isNotEmpty(versionDiscriminatorField)) {
+            // Collect all record versions on this page and retrieve their documents in parallel (or from the cache)
+            String metadataPrefix = handler.getMetadataPrefix().getMetadataPrefix();
+            List<SolrDocument> versionDocs = new ArrayList<>();
+            List<String> versionValues = new ArrayList<>();
+            List<DocumentRequest> requests = new ArrayList<>();
             List<String> versions = Collections.singletonList(requestedVersion);
             for (SolrDocument doc : records) {
                 if (requestedVersion == null) {
                     versions = SolrSearchTools.getMetadataValues(doc, versionDiscriminatorField);
                 }
+                String pi = (String) doc.getFieldValue(SolrConstants.PI_TOPSTRUCT);
+                long dateUpdated = SolrSearchTools.getLatestValidDateUpdated(doc, Long.MAX_VALUE);
                 for (String version : versions) {
-                    virtualHitCount++; // Count hit even if the XML file is ultimately unavailable
-                    String url = new StringBuilder(DataManager.getInstance().getConfiguration().getRestApiUrl())
-                            .append("records/")
-                            .append(doc.getFieldValue(SolrConstants.PI_TOPSTRUCT))
-                            .append('/')
-                            .append(handler.getMetadataPrefix().getMetadataPrefix())
-                            .append('/')
-                            .append(version)
-                            .append('/')
-                            .toString();
-                    logger.trace("api url: {}", url);
-                    String xml = NetTools.getWebContentGET(url);
-                    if (StringUtils.isEmpty(xml)) {
-                        // Old API fallback
-                        url = new StringBuilder(DataManager.getInstance().getConfiguration().getRestApiUrl())
-                                .append("content/")
-                                .append(handler.getMetadataPrefix().getMetadataPrefix())
-                                .append('/')
-                                .append(doc.getFieldValue(SolrConstants.PI_TOPSTRUCT))
-                                .append('/')
-                                .append(version)
-                                .append('/')
-                                .toString();
-                        logger.trace("old url: {}", url);
-                        xml = NetTools.getWebContentGET(url);
-                    }
-                    if (StringUtils.isEmpty(xml)) {
+                    versionDocs.add(doc);
+                    versionValues.add(version);
+                    requests.add(new DocumentRequest(metadataPrefix + ':' + pi + ':' + version, dateUpdated,
+                            () -> fetchTeiCmdi(pi, metadataPrefix, version)));
+                }
+            }
+            List<String> xmls = DataManager.getInstance().getSourceDocumentCache().getDocuments(requests);
+
+            for (int i = 0; i < xmls.size(); ++i) {
+                SolrDocument doc = versionDocs.get(i);
+                String version = versionValues.get(i);
+                String xml = xmls.get(i);
+                virtualHitCount++; // Count hit even if the XML file is ultimately unavailable
+                if (StringUtils.isEmpty(xml)) {
+                    xmlListRecords.addContent(new ErrorCode().getCannotDisseminateFormat());
+                    continue;
+                }
+
+                org.jdom2.Document xmlDoc = XmlTools.getDocumentFromString(xml, null);
+                Element teiRoot = xmlDoc.getRootElement();
+                Element newDoc;
+                switch (handler.getMetadataPrefix()) {
+                    case TEI:
+                        newDoc = new Element("tei", namespace);
+                        newDoc.addNamespaceDeclaration(XSI_NS);
+                        newDoc.setAttribute(new Attribute("schemaLocation", handler.getMetadataPrefix().getSchema(), XSI_NS));
+                        break;
+                    case CMDI:
+                        newDoc = new Element("CMD", CMDI);
+                        newDoc.addNamespaceDeclaration(XSI_NS);
+                        newDoc.addNamespaceDeclaration(COMPONENTS);
+                        newDoc.setAttribute("CMDVersion", "1.2");
+                        newDoc.setAttribute(new Attribute("schemaLocation",
+                                "http://www.clarin.eu/cmd/1 https://infra.clarin.eu/CMDI/1.x/xsd/cmd-envelop.xsd http://www.clarin.eu/cmd/1/profiles/clarin.eu:cr1:p_1380106710826 https://catalog.clarin.eu/ds/ComponentRegistry/rest/registry/1.x/profiles/clarin.eu:cr1:p_1380106710826/xsd",
+                                XSI_NS));
+                        break;
+                    default:
                         xmlListRecords.addContent(new ErrorCode().getCannotDisseminateFormat());
                         continue;
-                    }
-
-                    org.jdom2.Document xmlDoc = XmlTools.getDocumentFromString(xml, null);
-                    Element teiRoot = xmlDoc.getRootElement();
-                    Element newDoc;
-                    switch (handler.getMetadataPrefix()) {
-                        case TEI:
-                            newDoc = new Element("tei", namespace);
-                            newDoc.addNamespaceDeclaration(XSI_NS);
-                            newDoc.setAttribute(new Attribute("schemaLocation", handler.getMetadataPrefix().getSchema(), XSI_NS));
-                            break;
-                        case CMDI:
-                            newDoc = new Element("CMD", CMDI);
-                            newDoc.addNamespaceDeclaration(XSI_NS);
-                            newDoc.addNamespaceDeclaration(COMPONENTS);
-                            newDoc.setAttribute("CMDVersion", "1.2");
-                            newDoc.setAttribute(new Attribute("schemaLocation",
-                                    "http://www.clarin.eu/cmd/1 https://infra.clarin.eu/CMDI/1.x/xsd/cmd-envelop.xsd http://www.clarin.eu/cmd/1/profiles/clarin.eu:cr1:p_1380106710826 https://catalog.clarin.eu/ds/ComponentRegistry/rest/registry/1.x/profiles/clarin.eu:cr1:p_1380106710826/xsd",
-                                    XSI_NS));
-                            break;
-                        default:
-                            xmlListRecords.addContent(new ErrorCode().getCannotDisseminateFormat());
-                            continue;
-                    }
+                }
 
-                    newDoc.addContent(teiRoot.cloneContent());
+                newDoc.addContent(teiRoot.cloneContent());
 
-                    String iso3code = version;
-                    // Make sure to add the ISO-3 language code
-                    if (iso3code.length() == 2) {
-                        Language lang = DataManager.getInstance().getLanguageHelper().getLanguage(version);
-                        if (lang != null) {
-                            iso3code = lang.getIsoCode();
-                        }
+                String iso3code = version;
+                // Make sure to add the ISO-3 language code
+                if (iso3code.length() == 2) {
+                    Language lang = DataManager.getInstance().getLanguageHelper().getLanguage(version);
+                    if (lang != null) {
+                        iso3code = lang.getIsoCode();
                     }
-                    Element rec = new Element("record", OAI_NS);
-                    Element header = getHeader(doc, null, handler, iso3code, setSpecFields, filterQuerySuffix);
-                    rec.addContent(header);
-                    Element metadata = new Element("metadata", OAI_NS);
-                    metadata.addContent(newDoc);
-                    rec.addContent(metadata);
-                    xmlListRecords.addContent(rec);
                 }
+                Element rec = new Element("record", OAI_NS);
+                Element header = getHeader(doc, null, handler, iso3code, setSpecFields, filterQuerySuffix);
+                rec.addContent(header);
+                Element metadata = new Element("metadata", OAI_NS);
+                metadata.addContent(newDoc);
+                rec.addContent(metadata);
+                xmlListRecords.addContent(rec);
             }
         } else {
             logger.error("TEI/CMDI record output without languages is currently not supported.");
@@ -268,6 +265,52 @@ public class TEIFormat extends Format {
         return xmlListRecords;
     }
 
+    /**
+     * Retrieves the TEI or CMDI document for the given record version from the REST API. If the current API end point is not found, the old
+     * end point is queried instead and the current one is skipped for a while.
+     * 
+     * @param pi Record identifier
+     * @param metadataPrefix "tei" or "cmdi"
+     * @param version Record version (language)
+     * @return Document content; null if not found
+     * @throws IOException
+     * @throws HTTPException
+     */
+    private static String fetchTeiCmdi(String pi, String metadataPrefix, String version) throws IOException, HTTPException {
+        String restApiUrl = DataManager.getInstance().getConfiguration().getRestApiUrl();
+        boolean currentApiUnavailable = System.currentTimeMillis() < currentApiUnavailableUntil;
+        if (!currentApiUnavailable) {
+            String url = restApiUrl + "records/" + pi + '/' + metadataPrefix + '/' + version + '/';
+            logger.trace("api url: {}", url);
+            try {
+                String xml = NetTools.getWebContentGET(url);
+                if (StringUtils.isNotEmpty(xml)) {
+                    return xml;
+                }
+            } catch (HTTPException e) {
+                // If the API end point was not found, try the fallback, otherwise re-throw the exception
+                if (e.getCode() != 404) {
+                    throw e;
+                }
+                currentApiUnavailable = true;
+            }
+        }
+
+        // Old API fallback
+        String url = restApiUrl + "content/" + metadataPrefix + '/' + pi + '/' + version + '/';
+        logger.trace("old url: {}", url);
+        String xml = NetTools.getWebContentGET(url);
+        if (StringUtils.isNotEmpty(xml) && currentApiUnavailable) {
+            long notFoundTtl = DataManager.getInstance().getConfiguration().getSourceDocumentCacheNotFoundTtl() * 1000L;
+            if (notFoundTtl > 0) {
+                // Only the old end point works, so skip the current one for a while
+                currentApiUnavailableUntil = System.currentTimeMillis() + notFoundTtl;
+            }
+        }
+
+        return xml;
+    }
+
     /**
      * Modified header generation where identifiers also contain the language code.
      * 
@@ -0,0 +1,292 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.model.metadata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.solr.common.SolrDocument;
+
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.oai.model.metadata.MetadataParameter.MetadataParameterType;
+import io.goobi.viewer.connector.utils.SolrSearchTools;
+import io.goobi.viewer.connector.utils.TranslationCache;
+import io.goobi.viewer.solr.SolrConstants;
+
+/**
+ * Immutable, precompiled form of a configured {@link Metadata} field. The master value is split into literal segments and parameter slots once,
+ * so that rendering a record only needs to look up the parameter values and concatenate.
+ */
+public final class MetadataTemplate {
+
+    /** Placeholder indexes with more digits than this cannot refer to a configured parameter. */
+    private static final int MAX_PLACEHOLDER_DIGITS = 4;
+
+    private final Metadata metadata;
+    /** Literal parts of the master value; always one more than there are slots. */
+    private final String[] segments;
+    /** Parameter index for each placeholder between two segments. */
+    private final int[] slots;
+    private final ParameterAccessor[] accessors;
+    private final boolean restrictedContent;
+
+    /**
+     * Resolved access to the values of one configured parameter.
+     */
+    static final class ParameterAccessor {
+
+        private final String field;
+        private final boolean translated;
+        private final String prefix;
+        private final String suffix;
+        private final boolean useTopstructValue;
+
+        ParameterAccessor(MetadataParameter param) {
+            this.field = param.getKey();
+            this.translated = MetadataParameterType.TRANSLATEDFIELD.equals(param.getType());
+            this.prefix = StringUtils.isNotEmpty(param.getPrefix()) ? param.getPrefix() : null;
+            this.suffix = StringUtils.isNotEmpty(param.getSuffix()) ? param.getSuffix() : null;
+            this.useTopstructValue = !param.isDontUseTopstructValue();
+        }
+
+        /**
+         * 
+         * @param doc
+         * @param topstructDoc
+         * @return Values of this parameter's field in doc, or in topstructDoc if doc has none and topstruct values are allowed
+         */
+        List<String> getValues(SolrDocument doc, SolrDocument topstructDoc) {
+            List<String> values = SolrSearchTools.getMetadataValues(doc, field);
+            if (values.isEmpty() && useTopstructValue) {
+                values = SolrSearchTools.getMetadataValues(topstructDoc, field);
+            }
+            return values;
+        }
+
+        /**
+         * 
+         * @param values
+         * @param index
+         * @return Translated value at the given index, with prefix and suffix; empty string if no value exists
+         */
+        String resolve(List<String> values, int index) {
+            String value = values.size() > index ? values.get(index) : "";
+            if (StringUtils.isEmpty(value)) {
+                return "";
+            }
+            TranslationCache translations = DataManager.getInstance().getTranslationCache();
+            if (translated) {
+                value = translations.getTranslation(value, null);
+            }
+            if (prefix != null) {
+                value = translations.getTranslation(prefix, null) + value;
+            }
+            if (suffix != null) {
+                value += translations.getTranslation(suffix, null);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * 
+     * @param metadata
+     * @param segments
+     * @param slots
+     */
+    private MetadataTemplate(Metadata metadata, String[] segments, int[] slots) {
+        this.metadata = metadata;
+        this.segments = segments;
+        this.slots = slots;
+        List<MetadataParameter> params = metadata.getParams();
+        this.accessors = new ParameterAccessor[params.size()];
+        boolean restricted = false;
+        for (int i = 0; i < accessors.length; ++i) {
+            accessors[i] = new ParameterAccessor(params.get(i));
+            if (SolrConstants.THUMBNAIL.equals(params.get(i).getKey())) {
+                restricted = true;
+            }
+        }
+        this.restrictedContent = restricted;
+    }
+
+    /**
+     * Compiles the given metadata configuration into templates.
+     * 
+     * @param metadataList Configured metadata fields
+     * @return Unmodifiable list of templates in configuration order
+     * @should compile all metadata fields
+     * @should return empty list if metadataList null
+     */
+    public static List<MetadataTemplate> compile(List<Metadata> metadataList) {
+        if (metadataList == null || metadataList.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<MetadataTemplate> ret = new ArrayList<>(metadataList.size());
+        for (Metadata md : metadataList) {
+            ret.add(compile(md));
+        }
+
+        return Collections.unmodifiableList(ret);
+    }
+
+    /**
+     * Splits the master value of the given metadata field into literal segments and placeholders. Placeholders that do not refer to a configured
+     * parameter are kept as literal text.
+     * 
+     * @param metadata Configured metadata field
+     * @return Compiled template
+     * @should split master value into segments correctly
+     * @should keep placeholders without matching parameter as literal text
+     */
+    public static MetadataTemplate compile(Metadata metadata) {
+        if (metadata == null) {
+            throw new IllegalArgumentException("metadata may not be null");
+        }
+
+        String masterValue = metadata.getMasterValue();
+        int numParams = metadata.getParams().size();
+        List<String> segments = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        StringBuilder sbLiteral = new StringBuilder();
+        int pos = 0;
+        while (pos < masterValue.length()) {
+            char c = masterValue.charAt(pos);
+            if (c == '{') {
+                int end = pos + 1;
+                while (end < masterValue.length() && end - pos <= MAX_PLACEHOLDER_DIGITS && Character.isDigit(masterValue.charAt(end))) {
+                    end++;
+                }
+                if (end > pos + 1 && end < masterValue.length() && masterValue.charAt(end) == '}') {
+                    int index = Integer.parseInt(masterValue.substring(pos + 1, end));
+                    if (index < numParams) {
+                        segments.add(sbLiteral.toString());
+                        sbLiteral.setLength(0);
+                        slots.add(index);
+                        pos = end + 1;
+                        continue;
+                    }
+                }
+            }
+            sbLiteral.append(c);
+            pos++;
+        }
+        segments.add(sbLiteral.toString());
+
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; ++i) {
+            slotArray[i] = slots.get(i);
+        }
+
+        return new MetadataTemplate(metadata, segments.toArray(new String[segments.size()]), slotArray);
+    }
+
+    /**
+     * Renders one value per value of the first parameter field in the given document.
+     * 
+     * @param doc Solr document of the record
+     * @param topstructDoc Solr document of the record's topstruct, for parameter value fallback
+     * @param openAccess If false, templates with access restricted parameters produce no values
+     * @return List of rendered values; empty list if the template has no parameters
+     * @should render values correctly
+     * @should fall back to topstruct values
+     * @should return empty list if restricted and not open access
+     */
+    public List<String> renderParameterValues(SolrDocument doc, SolrDocument topstructDoc, boolean openAccess) {
+        if (accessors.length == 0) {
+            return Collections.emptyList();
+        }
+
+        int numValues = SolrSearchTools.getMetadataValues(doc, accessors[0].field).size();
+        if (numValues == 0 || (restrictedContent && !openAccess)) {
+            return Collections.emptyList();
+        }
+
+        List<List<String>> paramValues = new ArrayList<>(accessors.length);
+        for (ParameterAccessor accessor : accessors) {
+            paramValues.add(accessor.getValues(doc, topstructDoc));
+        }
+
+        List<String> ret = new ArrayList<>(numValues);
+        String[] resolved = new String[accessors.length];
+        for (int i = 0; i < numValues; ++i) {
+            for (int j = 0; j < accessors.length; ++j) {
+                resolved[j] = accessors[j].resolve(paramValues.get(j), i);
+            }
+            ret.add(render(resolved));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Joins the literal segments with the given parameter values.
+     * 
+     * @param paramValues Resolved values, indexed like the configured parameters
+     * @return Rendered value
+     * @should replace all occurrences of a placeholder
+     */
+    public String render(String[] paramValues) {
+        if (slots.length == 0) {
+            return segments[0];
+        }
+
+        StringBuilder sb = new StringBuilder(segments[0]);
+        for (int i = 0; i < slots.length; ++i) {
+            sb.append(paramValues[slots[i]]).append(segments[i + 1]);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * @return the metadata
+     */
+    public Metadata getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * @return the label
+     */
+    public String getLabel() {
+        return metadata.getLabel();
+    }
+
+    /**
+     * @return the masterValue
+     */
+    public String getMasterValue() {
+        return metadata.getMasterValue();
+    }
+
+    /**
+     * @return true if the template has parameters; false otherwise
+     */
+    public boolean isHasParams() {
+        return accessors.length > 0;
+    }
+
+    /**
+     * @return true if any parameter refers to access restricted content; false otherwise
+     */
+    public boolean isRestrictedContent() {
+        return restrictedContent;
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.servlets;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.Semaphore;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrServerException;
+
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.connector.oai.RequestHandler;
+import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.oai.model.RecordDump;
+import io.goobi.viewer.connector.oai.model.formats.Format;
+import io.goobi.viewer.connector.utils.AdmissionController;
+import io.goobi.viewer.connector.utils.Configuration;
+import io.goobi.viewer.connector.utils.RequestExecutor;
+import io.goobi.viewer.connector.utils.RequestExecutor.RequestClass;
+import io.goobi.viewer.connector.utils.SolrSearchTools;
+
+/**
+ * Bulk dump end point. Streams all records of the requested metadata format (optionally limited by set, from and until) as a single gzip
+ * compressed OAI-PMH document, or returns the latest scheduled snapshot if the <code>snapshot</code> parameter is set.
+ */
+public class DumpServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 4381705212386046391L;
+
+    private static final Logger logger = LogManager.getLogger(DumpServlet.class);
+
+    /** Verb name under which concurrency limits for dumps are configured */
+    static final String VERB_DUMP = "dump";
+
+    private static final String CONTENT_TYPE_GZIP = "application/gzip";
+
+    /** Limits the number of live dumps, so that dumps cannot occupy all threads of the pool for heavy requests */
+    private transient Semaphore dumpPermits;
+
+    /** {@inheritDoc} */
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        dumpPermits = new Semaphore(Math.max(1, DataManager.getInstance().getConfiguration().getDumpConcurrencyLimit()));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        Configuration config = DataManager.getInstance().getConfiguration();
+        if (!config.isDumpEnabled()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        RequestHandler handler = new RequestHandler(request);
+        Metadata md = handler.getMetadataPrefix();
+        Format format = md != null && config.isMetadataFormatEnabled(md.getMetadataPrefix()) ? Format.getFormatByMetadataPrefix(md) : null;
+        if (!RecordDump.isSupported(format)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "cannotDisseminateFormat");
+            return;
+        }
+        if (!OaiServlet.checkDatestamps(handler.getFrom(), handler.getUntil())) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "badArgument");
+            return;
+        }
+
+        if (request.getParameter("snapshot") != null) {
+            sendSnapshot(md, response);
+            return;
+        }
+
+        AdmissionController admission = DataManager.getInstance().getAdmissionController();
+        if (!admission.admit(request, response)) {
+            return;
+        }
+        DataManager.getInstance()
+                .getRequestExecutor()
+                .execute(request, response, RequestClass.HEAVY, admission.limit(RequestClass.HEAVY, VERB_DUMP, md.getMetadataPrefix(),
+                        (req, resp) -> {
+                            if (!dumpPermits.tryAcquire()) {
+                                int retryAfter = config.getRequestRetryAfter();
+                                RequestExecutor.sendUnavailable(resp, retryAfter,
+                                        "Too many concurrent dumps, please retry after " + retryAfter + " seconds.");
+                                return;
+                            }
+                            try {
+                                sendDump(new RecordDump(format, handler, SolrSearchTools.getAllSuffixes(req), config.getDumpRows()), md, resp);
+                            } finally {
+                                dumpPermits.release();
+                            }
+                        }));
+    }
+
+    /**
+     * Streams a live dump.
+     * 
+     * @param dump
+     * @param md
+     * @param response
+     * @throws IOException
+     */
+    private static void sendDump(RecordDump dump, Metadata md, HttpServletResponse response) throws IOException {
+        response.setContentType(CONTENT_TYPE_GZIP);
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + RecordDump.getSnapshotFileName(md.getMetadataPrefix()) + "\"");
+        try {
+            dump.write(response.getOutputStream());
+        } catch (SolrServerException e) {
+            logger.error("Bulk dump of {} failed: {}", md.getMetadataPrefix(), e.getMessage());
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Sends the latest snapshot of the given metadata format.
+     * 
+     * @param md
+     * @param response
+     * @throws IOException
+     */
+    private static void sendSnapshot(Metadata md, HttpServletResponse response) throws IOException {
+        String folder = DataManager.getInstance().getConfiguration().getDumpSnapshotFolder();
+        Path file = StringUtils.isNotEmpty(folder) ? Paths.get(folder, RecordDump.getSnapshotFileName(md.getMetadataPrefix())) : null;
+        if (file == null || !Files.isRegularFile(file)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "No snapshot available for " + md.getMetadataPrefix());
+            return;
+        }
+        response.setContentType(CONTENT_TYPE_GZIP);
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + file.getFileName() + "\"");
+        response.setContentLengthLong(Files.size(file));
+        response.setDateHeader("Last-Modified", Files.getLastModifiedTime(file).toMillis());
+        Files.copy(file, response.getOutputStream());
+    }
+}
@@ -16,16 +16,17 @@
 package io.goobi.viewer.connector.oai.servlets;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
 
 import javax.servlet.ServletException;
-import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -38,9 +39,15 @@ import org.jdom2.output.XMLOutputter;
 import io.goobi.viewer.connector.DataManager;
 import io.goobi.viewer.connector.oai.RequestHandler;
 import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.oai.enums.Verb;
 import io.goobi.viewer.connector.oai.model.ErrorCode;
 import io.goobi.viewer.connector.oai.model.formats.Format;
+import io.goobi.viewer.connector.utils.AdmissionController;
+import io.goobi.viewer.connector.utils.RequestCoalescer;
+import io.goobi.viewer.connector.utils.RequestExecutor.RequestClass;
+import io.goobi.viewer.connector.utils.RequestExecutor.RequestProcessor;
 import io.goobi.viewer.connector.utils.SolrSearchTools;
+import io.goobi.viewer.connector.utils.SpooledElement;
 import io.goobi.viewer.connector.utils.Utils;
 
 /**
@@ -58,6 +65,87 @@ public class OaiServlet extends HttpServlet {
     /** {@inheritDoc} */
     @Override
     public void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        AdmissionController admission = DataManager.getInstance().getAdmissionController();
+        if (!admission.admit(request, response)) {
+            return;
+        }
+        String verb = request.getParameter("verb");
+        boolean resumptionToken = request.getParameter("resumptionToken") != null;
+        RequestClass requestClass = getRequestClass(verb, resumptionToken);
+        RequestProcessor processor = admission.limit(requestClass, getLimitVerb(verb),
+                getLimitFormat(request.getParameter("metadataPrefix"), resumptionToken), this::processRequest);
+        RequestCoalescer coalescer = DataManager.getInstance().getRequestCoalescer();
+        if (coalescer.isEnabled()) {
+            processor = coalescer.coalesce(RequestCoalescer.getRequestKey(request.getRequestURL().toString(), request.getParameterMap(),
+                    SolrSearchTools.getAllSuffixes(request)), processor);
+        }
+        DataManager.getInstance().getRequestExecutor().execute(request, response, requestClass, processor);
+    }
+
+    /**
+     * Determines whether a request is processed on the pool for heavy or for light requests.
+     * 
+     * @param verb Value of the verb parameter
+     * @param resumptionToken true if the request contains a resumption token; false otherwise
+     * @return {@link RequestClass}
+     * @should return heavy for list verbs
+     * @should return heavy for resumption tokens
+     * @should return light for other verbs
+     */
+    public static RequestClass getRequestClass(String verb, boolean resumptionToken) {
+        if (resumptionToken) {
+            return RequestClass.HEAVY;
+        }
+        Verb v = Verb.getByTitle(verb);
+        if (v == Verb.LISTRECORDS || v == Verb.LISTIDENTIFIERS) {
+            return RequestClass.HEAVY;
+        }
+
+        return RequestClass.LIGHT;
+    }
+
+    /**
+     * Normalizes the verb parameter for concurrency limits, so that arbitrary parameter values cannot create new limits.
+     * 
+     * @param verb Value of the verb parameter
+     * @return Title of the matching {@link Verb}; null if the verb is unknown
+     * @should return title of known verb
+     * @should return null for unknown verb
+     */
+    public static String getLimitVerb(String verb) {
+        Verb v = Verb.getByTitle(verb);
+        return v != null ? v.getTitle() : null;
+    }
+
+    /**
+     * Normalizes the metadataPrefix parameter for concurrency limits. Resumed requests and unknown formats fall back to the limit of the verb
+     * (shared by all formats), so that arbitrary parameter values cannot create new limits.
+     * 
+     * @param metadataPrefix Value of the metadataPrefix parameter
+     * @param resumptionToken true if the request contains a resumption token; false otherwise
+     * @return Prefix of the matching {@link Metadata}; null if the format is unknown or the request contains a resumption token
+     * @should return prefix of known format
+     * @should return null for unknown format
+     * @should return null for resumption tokens
+     */
+    public static String getLimitFormat(String metadataPrefix, boolean resumptionToken) {
+        if (resumptionToken) {
+            return null;
+        }
+        Metadata md = Metadata.getByMetadataPrefix(metadataPrefix);
+        return md != null ? md.getMetadataPrefix() : null;
+    }
+
+    /**
+     * Processes an OAI-PMH request.
+     * 
+     * @param request
+     * @param response
+     * @throws ServletException
+     * @throws IOException
+     */
+    void processRequest(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        long start = System.currentTimeMillis();
     	RequestHandler handler = new RequestHandler(request);
     	
     	response.setContentType("text/xml;charset=UTF-8");
@@ -128,7 +216,7 @@ public class OaiServlet extends HttpServlet {
             if (request.getParameter("resumptionToken") != null) {
                 String resumptionToken = request.getParameterValues("resumptionToken")[0];
                 requestType.setAttribute("resumptionToken", resumptionToken);
-                root.addContent(Format.handleToken(resumptionToken, filterQuerySuffix));
+                root.addContent(Format.handleToken(resumptionToken, filterQuerySuffix, handler));
                 Format.removeExpiredTokens();
             } else {
                 switch (handler.getVerb()) {
@@ -196,10 +284,7 @@ public class OaiServlet extends HttpServlet {
                                 logger.debug("No 'until' parameter, setting 'now' ({})", until);
                             }
                             try {
-                                int hitsPerToken =
-                                        DataManager.getInstance()
-                                                .getConfiguration()
-                                                .getHitsPerTokenForMetadataFormat(handler.getMetadataPrefix().getMetadataPrefix());
+                                int hitsPerToken = DataManager.getInstance().getPageSizer().getRows(handler.getMetadataPrefix().getMetadataPrefix());
                                 String versionDiscriminatorField = DataManager.getInstance()
                                         .getConfiguration()
                                         .getVersionDisriminatorFieldForMetadataFormat(handler.getMetadataPrefix().getMetadataPrefix());
@@ -263,17 +348,23 @@ public class OaiServlet extends HttpServlet {
         doc.setRootElement(root);
         org.jdom2.output.Format format = org.jdom2.output.Format.getPrettyFormat();
         format.setEncoding("utf-8");
-        XMLOutputter xmlOut = new XMLOutputter(format);
+        // Spooled record content (e.g. METS) is copied into the response as is
+        XMLOutputter xmlOut = SpooledElement.getOutputter(format);
         try {
+            long bytes;
             if (handler.getMetadataPrefix() != null && handler.getMetadataPrefix().equals(Metadata.EPICUR)) {
                 String ueblerhack = xmlOut.outputString(doc);
                 ueblerhack = ueblerhack.replace("<epicur", "<epicur xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"");
                 response.setCharacterEncoding("utf-8");
-                ServletOutputStream out = response.getOutputStream();
-                out.print(ueblerhack);
+                byte[] data = ueblerhack.getBytes(StandardCharsets.UTF_8);
+                response.getOutputStream().write(data);
+                bytes = data.length;
             } else {
-                xmlOut.output(doc, response.getOutputStream());
+                CountingOutputStream out = new CountingOutputStream(response.getOutputStream());
+                xmlOut.output(doc, out);
+                bytes = out.getByteCount();
             }
+            addPageStatistics(handler, root, bytes, System.currentTimeMillis() - start);
         } catch (IOException e) {
             logger.error(e.getMessage(), e);
             try {
@@ -284,6 +375,36 @@ public class OaiServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Adds the size and creation time of a ListRecords page to the statistics used for adaptive page sizing.
+     * 
+     * @param handler
+     * @param root OAI-PMH root element of the response
+     * @param bytes Size of the response in bytes
+     * @param millis Time in milliseconds it took to create the response
+     */
+    private static void addPageStatistics(RequestHandler handler, Element root, long bytes, long millis) {
+        if (!Verb.LISTRECORDS.equals(handler.getVerb()) || handler.getMetadataPrefix() == null) {
+            return;
+        }
+        Element eleListRecords = root.getChild("ListRecords", Format.OAI_NS);
+        if (eleListRecords == null) {
+            return;
+        }
+        int records = 0;
+        if (handler.getConsumedRecords() != null) {
+            // Formats that render several records per Solr record report the advance of the cursor
+            records = handler.getConsumedRecords();
+        } else {
+            for (Element eleRecord : eleListRecords.getChildren()) {
+                if ("record".equals(eleRecord.getName())) {
+                    records++;
+                }
+            }
+        }
+        DataManager.getInstance().getPageSizer().addPage(handler.getMetadataPrefix().getMetadataPrefix(), records, bytes, millis);
+    }
+
     /**
      * <p>
      * checkDatestamps.
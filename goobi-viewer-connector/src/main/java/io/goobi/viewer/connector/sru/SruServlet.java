@@ -48,6 +48,10 @@ import org.jdom2.transform.XSLTransformer;
 import io.goobi.viewer.connector.DataManager;
 import io.goobi.viewer.connector.exceptions.MissingArgumentException;
 import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.utils.AdmissionController;
+import io.goobi.viewer.connector.utils.RequestCoalescer;
+import io.goobi.viewer.connector.utils.RequestExecutor.RequestClass;
+import io.goobi.viewer.connector.utils.RequestExecutor.RequestProcessor;
 import io.goobi.viewer.connector.utils.SolrSearchIndex;
 import io.goobi.viewer.connector.utils.SolrSearchTools;
 import io.goobi.viewer.controller.NetTools;
@@ -86,6 +90,60 @@ public class SruServlet extends HttpServlet {
     /** {@inheritDoc} */
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        AdmissionController admission = DataManager.getInstance().getAdmissionController();
+        if (!admission.admit(request, response)) {
+            return;
+        }
+        String operation = request.getParameter(SruRequestParameter.PARAM_OPERATION);
+        RequestClass requestClass = getRequestClass(operation);
+        RequestProcessor processor = admission.limit(requestClass, SruOperation.getByTitle(operation).getTitle(),
+                getLimitSchema(request.getParameter("recordSchema")), this::processRequest);
+        RequestCoalescer coalescer = DataManager.getInstance().getRequestCoalescer();
+        if (coalescer.isEnabled()) {
+            processor = coalescer.coalesce(RequestCoalescer.getRequestKey(request.getRequestURL().toString(), request.getParameterMap(),
+                    SolrSearchTools.getAllSuffixes(request)), processor);
+        }
+        DataManager.getInstance().getRequestExecutor().execute(request, response, requestClass, processor);
+    }
+
+    /**
+     * Determines whether a request is processed on the pool for heavy or for light requests.
+     * 
+     * @param operation Value of the operation parameter
+     * @return {@link RequestClass}
+     * @should return heavy for searchRetrieve
+     * @should return light for other operations
+     */
+    static RequestClass getRequestClass(String operation) {
+        if (SruOperation.SEARCHRETRIEVE.getTitle().equalsIgnoreCase(operation)) {
+            return RequestClass.HEAVY;
+        }
+
+        return RequestClass.LIGHT;
+    }
+
+    /**
+     * Normalizes the recordSchema parameter for concurrency limits, so that arbitrary parameter values cannot create new limits.
+     * 
+     * @param recordSchema Value of the recordSchema parameter
+     * @return Prefix of the matching {@link Metadata}; null if the schema is unknown
+     * @should return prefix of known schema
+     * @should return null for unknown schema
+     */
+    static String getLimitSchema(String recordSchema) {
+        Metadata md = Metadata.getByMetadataPrefix(recordSchema);
+        return md != null ? md.getMetadataPrefix() : null;
+    }
+
+    /**
+     * Processes an SRU request.
+     * 
+     * @param request
+     * @param response
+     * @throws ServletException
+     * @throws IOException
+     */
+    void processRequest(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         response.setContentType("text/xml;charset=UTF-8");
 
         SruRequestParameter parameter = null;
@@ -265,7 +323,7 @@ public class SruServlet extends HttpServlet {
         Element records = new Element("records", SRU_NAMESPACE);
         root.addContent(records);
 
-        generateRecords(records, solrDocuments, parameter, solr, filterQuerySuffix);
+        generateRecords(records, solrDocuments, parameter, filterQuerySuffix);
         generateEchoedSearchRetrieveRequest(root, parameter);
 
         return root;
@@ -491,13 +549,12 @@ public class SruServlet extends HttpServlet {
      * @param records
      * @param solrDocuments
      * @param parameter
-     * @param solr
      * @param filterQuerySuffix Filter query suffix for the client's session
      * @throws SolrServerException
      * @throws IOException
      */
     private static void generateRecords(Element records, List<SolrDocument> solrDocuments, SruRequestParameter parameter,
-            SolrSearchIndex solr, String filterQuerySuffix) throws SolrServerException, IOException {
+            String filterQuerySuffix) throws SolrServerException, IOException {
         if (solrDocuments == null || solrDocuments.isEmpty()) {
             return;
         }
@@ -537,7 +594,7 @@ public class SruServlet extends HttpServlet {
                     generateMarcxmlRecord(document, recordData);
                     break;
                 case DC:
-                    generateDcRecord(document, recordData, solr, filterQuerySuffix);
+                    generateDcRecord(document, recordData, filterQuerySuffix);
                     break;
                 case LIDO:
                     generateLidoRecord(document, recordData);
@@ -580,12 +637,11 @@ public class SruServlet extends HttpServlet {
     /**
      * @param doc
      * @param recordData
-     * @param solr
      * @param filterQuerySuffix Filter query suffix for the client's session
      * @throws SolrServerException
      * @throws IOException
      */
-    private static void generateDcRecord(SolrDocument doc, Element recordData, SolrSearchIndex solr, String filterQuerySuffix)
+    private static void generateDcRecord(SolrDocument doc, Element recordData, String filterQuerySuffix)
             throws SolrServerException, IOException {
         Element dc = new Element("record", DC_NAMEPSACE);
 
@@ -604,7 +660,7 @@ public class SruServlet extends HttpServlet {
         }
         if (doc.getFieldValue("IDDOC_PARENT") != null) {
             // If this is a volume, add anchor title in front
-            String anchorTitle = getAnchorTitle(doc, solr, filterQuerySuffix);
+            String anchorTitle = getAnchorTitle(doc, filterQuerySuffix);
             if (anchorTitle != null) {
                 title = anchorTitle + "; " + title;
             }
@@ -720,20 +776,14 @@ public class SruServlet extends HttpServlet {
     /**
      * 
      * @param doc
-     * @param solr
      * @param filterQuerySuffix
      * @return {@link String}
      * @throws SolrServerException
      * @throws IOException
      */
-    private static String getAnchorTitle(SolrDocument doc, SolrSearchIndex solr, String filterQuerySuffix) throws SolrServerException, IOException {
+    private static String getAnchorTitle(SolrDocument doc, String filterQuerySuffix) throws SolrServerException, IOException {
         String iddocParent = (String) doc.getFieldValue(SolrConstants.IDDOC_PARENT);
-        SolrDocumentList hits = solr.search(SolrConstants.IDDOC + ":" + iddocParent, filterQuerySuffix);
-        if (hits != null && !hits.isEmpty()) {
-            return (String) hits.get(0).getFirstValue("MD_TITLE");
-        }
-
-        return null;
+        return DataManager.getInstance().getAnchorTitleCache().getTitle(iddocParent, "MD_TITLE", filterQuerySuffix);
     }
 
     /**
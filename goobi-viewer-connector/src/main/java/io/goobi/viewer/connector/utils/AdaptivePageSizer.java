@@ -0,0 +1,138 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.goobi.viewer.connector.DataManager;
+
+/**
+ * Computes the number of records per ListRecords page from the observed size and rendering time of previous pages, so that the cost of a page
+ * stays within the byte and time budgets configured for its metadata format. Formats without budgets always use the configured number of hits per
+ * token, which is also the upper limit for formats with budgets.
+ */
+public class AdaptivePageSizer {
+
+    private static final Logger logger = LogManager.getLogger(AdaptivePageSizer.class);
+
+    /** Weight of the latest page in the moving averages */
+    static final double SMOOTHING = 0.3;
+
+    private final Map<String, PageStatistics> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * Moving averages of the size and rendering time of a single record of one metadata format.
+     */
+    static final class PageStatistics {
+
+        private double bytesPerRecord = -1;
+        private double millisPerRecord = -1;
+
+        /**
+         * 
+         * @param records Number of records on the page
+         * @param bytes Size of the page in bytes
+         * @param millis Time in milliseconds it took to create the page
+         */
+        synchronized void add(int records, long bytes, long millis) {
+            double bytesPerRecordOnPage = (double) bytes / records;
+            double millisPerRecordOnPage = (double) millis / records;
+            if (bytesPerRecord < 0) {
+                bytesPerRecord = bytesPerRecordOnPage;
+                millisPerRecord = millisPerRecordOnPage;
+            } else {
+                bytesPerRecord += SMOOTHING * (bytesPerRecordOnPage - bytesPerRecord);
+                millisPerRecord += SMOOTHING * (millisPerRecordOnPage - millisPerRecord);
+            }
+        }
+
+        /**
+         * 
+         * @param maxRows Upper limit
+         * @param sizeBudget Maximum page size in bytes; 0 for no limit
+         * @param timeBudget Maximum time in milliseconds to create a page; 0 for no limit
+         * @return Number of records that fit into the budgets; between 1 and maxRows
+         */
+        synchronized int getRows(int maxRows, long sizeBudget, long timeBudget) {
+            double ret = maxRows;
+            if (sizeBudget > 0 && bytesPerRecord > 0) {
+                ret = Math.min(ret, sizeBudget / bytesPerRecord);
+            }
+            if (timeBudget > 0 && millisPerRecord > 0) {
+                ret = Math.min(ret, timeBudget / millisPerRecord);
+            }
+            return (int) Math.max(1, Math.floor(ret));
+        }
+    }
+
+    /**
+     * Returns the number of records for the next ListRecords page of the given metadata format, based on the configured budgets.
+     * 
+     * @param metadataPrefix
+     * @return Number of records per page
+     */
+    public int getRows(String metadataPrefix) {
+        Configuration config = DataManager.getInstance().getConfiguration();
+        return getRows(metadataPrefix, config.getHitsPerTokenForMetadataFormat(metadataPrefix),
+                config.getPageSizeBudgetForMetadataFormat(metadataPrefix) * 1024L, config.getPageTimeBudgetForMetadataFormat(metadataPrefix));
+    }
+
+    /**
+     * 
+     * @param metadataPrefix
+     * @param maxRows Configured number of hits per token
+     * @param sizeBudget Maximum page size in bytes; 0 for no limit
+     * @param timeBudget Maximum time in milliseconds to create a page; 0 for no limit
+     * @return Number of records per page
+     * @should return max rows if no budgets configured
+     * @should return max rows if nothing observed
+     * @should limit rows to size budget
+     * @should limit rows to time budget
+     * @should return at least one row
+     */
+    int getRows(String metadataPrefix, int maxRows, long sizeBudget, long timeBudget) {
+        if (sizeBudget <= 0 && timeBudget <= 0) {
+            return maxRows;
+        }
+        PageStatistics stats = statistics.get(metadataPrefix);
+        if (stats == null) {
+            return maxRows;
+        }
+        int ret = stats.getRows(maxRows, sizeBudget, timeBudget);
+        logger.trace("Rows for the next {} page: {}", metadataPrefix, ret);
+        return ret;
+    }
+
+    /**
+     * Adds the size and rendering time of a page to the statistics of its metadata format.
+     * 
+     * @param metadataPrefix
+     * @param records Number of records on the page
+     * @param bytes Size of the page in bytes
+     * @param millis Time in milliseconds it took to create the page
+     * @should ignore empty pages
+     */
+    public void addPage(String metadataPrefix, int records, long bytes, long millis) {
+        if (metadataPrefix == null || records <= 0) {
+            return;
+        }
+        statistics.computeIfAbsent(metadataPrefix, k -> new PageStatistics()).add(records, bytes, millis);
+    }
+}
@@ -0,0 +1,385 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.goobi.viewer.connector.utils.RequestExecutor.RequestClass;
+import io.goobi.viewer.connector.utils.RequestExecutor.RequestProcessor;
+import io.goobi.viewer.controller.NetTools;
+
+/**
+ * Decides whether requests are admitted. Each client (identified by IP address or user agent) has a token bucket that limits its request rate.
+ * Heavy requests are additionally limited by a global number of concurrently processed requests per verb (or SRU operation) and metadata format;
+ * light requests such as GetRecord or Identify are never held back by these limits. Rejected requests are answered with HTTP 503 and a
+ * <code>Retry-After</code> header, as recommended by the OAI-PMH specification for flow control.
+ * <p>
+ * The controller is kept across configuration reloads: {@link #configure(boolean, ClientKeyType, int, int, int, Map, int)} replaces the limits,
+ * while the token buckets of all clients and the permits held by running requests are carried over.
+ */
+public class AdmissionController {
+
+    private static final Logger logger = LogManager.getLogger(AdmissionController.class);
+
+    /**
+     * Request properties by which clients are told apart.
+     */
+    public enum ClientKeyType {
+        IP,
+        USER_AGENT;
+
+        /**
+         * 
+         * @param name Configured name ("ip" or "userAgent")
+         * @return Matching {@link ClientKeyType}; IP if name is unknown
+         * @should return correct type
+         */
+        public static ClientKeyType getByName(String name) {
+            if ("userAgent".equalsIgnoreCase(name) || "user_agent".equalsIgnoreCase(name)) {
+                return USER_AGENT;
+            }
+            return IP;
+        }
+    }
+
+    /**
+     * Concurrency permit of an admitted heavy request. Closing the permit releases it; further calls have no effect.
+     */
+    public static final class Permit implements AutoCloseable {
+
+        private final Semaphore semaphore;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore semaphore) {
+            this.semaphore = semaphore;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void close() {
+            if (semaphore != null && released.compareAndSet(false, true)) {
+                semaphore.release();
+            }
+        }
+    }
+
+    /**
+     * Semaphore whose number of permits can be adjusted to a new limit while permits are held.
+     */
+    private static final class LimitSemaphore extends Semaphore {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Current limit; guarded by this */
+        private int limit;
+
+        private LimitSemaphore(int limit) {
+            super(limit);
+            this.limit = limit;
+        }
+
+        /**
+         * Changes the number of permits to the given limit. Permits held by running requests stay valid; if the limit is lowered, new permits
+         * are only granted once enough of them have been released.
+         * 
+         * @param newLimit
+         */
+        private synchronized void setLimit(int newLimit) {
+            if (newLimit > limit) {
+                release(newLimit - limit);
+            } else if (newLimit < limit) {
+                reducePermits(limit - newLimit);
+            }
+            limit = newLimit;
+        }
+    }
+
+    /**
+     * Configured limits, replaced as a whole on reconfiguration.
+     */
+    private static final class Settings {
+
+        private final boolean enabled;
+        private final ClientKeyType clientKeyType;
+        /** Maximum number of tokens per client; 0 or less for no rate limit */
+        private final int capacity;
+        /** Tokens added per millisecond */
+        private final double refillRate;
+        /** Default number of concurrent heavy requests per verb and format; 0 or less for no limit */
+        private final int defaultConcurrency;
+        /** Configured concurrency limits by key (see {@link AdmissionController#getLimitKey(String, String)}) */
+        private final Map<String, Integer> concurrencyLimits;
+        /** Number of seconds clients that exceed a concurrency limit are asked to wait */
+        private final int retryAfter;
+
+        private Settings(boolean enabled, ClientKeyType clientKeyType, int capacity, int requestsPerMinute, int defaultConcurrency,
+                Map<String, Integer> concurrencyLimits, int retryAfter) {
+            this.enabled = enabled;
+            this.clientKeyType = clientKeyType != null ? clientKeyType : ClientKeyType.IP;
+            this.capacity = capacity;
+            this.refillRate = Math.max(1, requestsPerMinute) / 60000.0;
+            this.defaultConcurrency = defaultConcurrency;
+            this.concurrencyLimits = concurrencyLimits != null ? new HashMap<>(concurrencyLimits) : Collections.emptyMap();
+            this.retryAfter = retryAfter;
+        }
+    }
+
+    /**
+     * Token bucket of a single client.
+     */
+    private static final class TokenBucket {
+
+        private double tokens;
+        private long lastRefill;
+
+        private TokenBucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.lastRefill = now;
+        }
+    }
+
+    private volatile Settings settings;
+    private final BoundedCache<String, TokenBucket> buckets;
+    /** Semaphores by limit key; guarded by itself */
+    private final Map<String, LimitSemaphore> semaphores = new HashMap<>();
+
+    /**
+     * 
+     * @param enabled If false, all requests are admitted
+     * @param clientKeyType Request property by which clients are told apart
+     * @param capacity Maximum number of tokens (burst size) per client; 0 or less for no rate limit
+     * @param requestsPerMinute Number of tokens added to each bucket per minute
+     * @param maxClients Maximum number of clients whose buckets are kept
+     * @param defaultConcurrency Default number of concurrent heavy requests per verb and format; 0 or less for no limit
+     * @param concurrencyLimits Concurrency limits by key (see {@link #getLimitKey(String, String)})
+     * @param retryAfter Number of seconds clients that exceed a concurrency limit are asked to wait
+     */
+    public AdmissionController(boolean enabled, ClientKeyType clientKeyType, int capacity, int requestsPerMinute, int maxClients,
+            int defaultConcurrency, Map<String, Integer> concurrencyLimits, int retryAfter) {
+        this.buckets = new BoundedCache<>(maxClients, 0);
+        this.settings = new Settings(enabled, clientKeyType, capacity, requestsPerMinute, defaultConcurrency, concurrencyLimits, retryAfter);
+    }
+
+    /**
+     * Replaces the configured limits. Token buckets are kept (with their tokens capped to the new capacity on their next use), and the
+     * concurrency limits of existing keys are adjusted without invalidating permits held by running requests. The maximum number of clients is
+     * fixed when the controller is created.
+     * 
+     * @param enabled If false, all requests are admitted
+     * @param clientKeyType Request property by which clients are told apart
+     * @param capacity Maximum number of tokens (burst size) per client; 0 or less for no rate limit
+     * @param requestsPerMinute Number of tokens added to each bucket per minute
+     * @param defaultConcurrency Default number of concurrent heavy requests per verb and format; 0 or less for no limit
+     * @param concurrencyLimits Concurrency limits by key (see {@link #getLimitKey(String, String)})
+     * @param retryAfter Number of seconds clients that exceed a concurrency limit are asked to wait
+     * @should keep token buckets
+     * @should keep held permits
+     */
+    public void configure(boolean enabled, ClientKeyType clientKeyType, int capacity, int requestsPerMinute, int defaultConcurrency,
+            Map<String, Integer> concurrencyLimits, int retryAfter) {
+        Settings newSettings = new Settings(enabled, clientKeyType, capacity, requestsPerMinute, defaultConcurrency, concurrencyLimits, retryAfter);
+        synchronized (semaphores) {
+            settings = newSettings;
+            for (Map.Entry<String, LimitSemaphore> entry : semaphores.entrySet()) {
+                int limit = getLimit(newSettings, entry.getKey());
+                // Keys without a limit stay at their last limit, permits are no longer requested from them
+                if (limit > 0) {
+                    entry.getValue().setLimit(limit);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the key under which a concurrency limit is configured.
+     * 
+     * @param verb OAI verb or SRU operation
+     * @param format Metadata prefix or record schema; null or empty for a limit that applies to all formats
+     * @return Limit key
+     * @should build key correctly
+     */
+    public static String getLimitKey(String verb, String format) {
+        return StringUtils.defaultString(verb).toLowerCase() + '/' + StringUtils.defaultString(format).toLowerCase();
+    }
+
+    /**
+     * Checks the rate limit of the requesting client. If the limit is exceeded, the request is answered with HTTP 503.
+     * 
+     * @param request
+     * @param response
+     * @return true if the request is admitted; false if it has been rejected
+     */
+    public boolean admit(HttpServletRequest request, HttpServletResponse response) {
+        if (!settings.enabled) {
+            return true;
+        }
+        String clientKey = getClientKey(request);
+        int wait = tryAcquireToken(clientKey, System.currentTimeMillis());
+        if (wait > 0) {
+            logger.debug("Rate limit exceeded for client {}", clientKey);
+            RequestExecutor.sendUnavailable(response, wait, "Request rate limit exceeded, please retry after " + wait + " seconds.");
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Wraps the given request processor so that heavy requests are only processed while the concurrency limit for their verb and format is not
+     * exceeded. Light requests are processed without limits. Callers must pass normalized values (known verbs and formats, null otherwise), since
+     * each distinct key holds a semaphore for the lifetime of the controller.
+     * 
+     * @param requestClass Request class
+     * @param verb Normalized OAI verb or SRU operation
+     * @param format Normalized metadata prefix or record schema; null for the limit of the verb
+     * @param processor Request processor
+     * @return Limited request processor
+     */
+    public RequestProcessor limit(RequestClass requestClass, String verb, String format, RequestProcessor processor) {
+        if (!settings.enabled || requestClass != RequestClass.HEAVY) {
+            return processor;
+        }
+
+        return (request, response) -> {
+            Permit permit = tryAcquirePermit(verb, format);
+            if (permit == null) {
+                logger.debug("Concurrency limit reached for {} ({})", verb, format);
+                int retryAfter = settings.retryAfter;
+                RequestExecutor.sendUnavailable(response, retryAfter, "Too many concurrent requests, please retry after " + retryAfter + " seconds.");
+                return;
+            }
+            try (permit) {
+                processor.process(request, response);
+            }
+        };
+    }
+
+    /**
+     * 
+     * @param request
+     * @return Key identifying the requesting client
+     */
+    String getClientKey(HttpServletRequest request) {
+        if (settings.clientKeyType == ClientKeyType.USER_AGENT) {
+            String userAgent = request.getHeader("User-Agent");
+            if (StringUtils.isNotBlank(userAgent)) {
+                return userAgent;
+            }
+        }
+
+        return NetTools.getIpAddress(request);
+    }
+
+    /**
+     * Takes a token from the bucket of the given client.
+     * 
+     * @param clientKey Client key
+     * @param now Current time in milliseconds
+     * @return 0 if a token was available; otherwise the number of seconds until the next token becomes available
+     * @should admit requests up to capacity
+     * @should refill tokens over time
+     * @should keep separate buckets per client
+     */
+    int tryAcquireToken(String clientKey, long now) {
+        Settings current = settings;
+        int capacity = current.capacity;
+        double refillRate = current.refillRate;
+        if (capacity <= 0 || clientKey == null) {
+            return 0;
+        }
+        TokenBucket bucket;
+        synchronized (buckets) {
+            bucket = buckets.get(clientKey);
+            if (bucket == null) {
+                bucket = new TokenBucket(capacity, now);
+                buckets.put(clientKey, bucket);
+            }
+        }
+        synchronized (bucket) {
+            if (now > bucket.lastRefill) {
+                bucket.tokens = bucket.tokens + (now - bucket.lastRefill) * refillRate;
+                bucket.lastRefill = now;
+            }
+            // Also applies a lowered capacity to existing buckets
+            bucket.tokens = Math.min(capacity, bucket.tokens);
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return (int) Math.max(1, Math.ceil((1 - bucket.tokens) / refillRate / 1000));
+        }
+    }
+
+    /**
+     * Acquires a concurrency permit for the given verb and format. The most specific configured limit applies: verb and format, then verb only
+     * (shared by all formats), then the default limit (per verb and format).
+     * 
+     * @param verb OAI verb or SRU operation
+     * @param format Metadata prefix or record schema
+     * @return {@link Permit}; null if the concurrency limit has been reached
+     * @should return null if limit reached
+     * @should release permit on close
+     * @should prefer format specific limit
+     */
+    Permit tryAcquirePermit(String verb, String format) {
+        LimitSemaphore semaphore;
+        // Synchronized with reconfiguration, so that new semaphores are always created with the current limit
+        synchronized (semaphores) {
+            Settings current = settings;
+            String key = getLimitKey(verb, format);
+            if (!current.concurrencyLimits.containsKey(key) && current.concurrencyLimits.containsKey(getLimitKey(verb, null))) {
+                // Verb limit is shared by all formats
+                key = getLimitKey(verb, null);
+            }
+            final int limit = getLimit(current, key);
+            if (limit <= 0) {
+                return new Permit(null);
+            }
+            semaphore = semaphores.computeIfAbsent(key, k -> new LimitSemaphore(limit));
+        }
+
+        return semaphore.tryAcquire() ? new Permit(semaphore) : null;
+    }
+
+    /**
+     * 
+     * @param settings
+     * @param key Limit key
+     * @return Concurrency limit for key; 0 or less for no limit
+     */
+    private static int getLimit(Settings settings, String key) {
+        Integer limit = settings.concurrencyLimits.get(key);
+        return limit != null ? limit : settings.defaultConcurrency;
+    }
+
+    /**
+     * @return true if admission control is enabled; false otherwise
+     */
+    public boolean isEnabled() {
+        return settings.enabled;
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.IOException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrDocumentList;
+
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.solr.SolrConstants;
+
+/**
+ * Shared cache for titles of anchor and parent records, which are prepended to volume titles. Entries expire after a configurable time and the
+ * whole cache is cleared when the index changes. Titles are cached per filter query suffix, so that sessions with different access rights do
+ * not see each other's results.
+ */
+public class AnchorTitleCache {
+
+    private static final Logger logger = LogManager.getLogger(AnchorTitleCache.class);
+
+    /** Marker for parents without a title */
+    private static final String NOT_FOUND = "";
+
+    private final BoundedCache<String, String> cache;
+    /** Time in milliseconds between checks for index changes */
+    private final long indexCheckInterval;
+    private volatile long nextIndexCheck = 0;
+    private String indexVersion;
+
+    /**
+     * 
+     * @param maxSize Maximum number of cached titles
+     * @param ttl Time in milliseconds after which a cached title expires; 0 for no expiration
+     * @param indexCheckInterval Time in milliseconds between checks for index changes; 0 to disable
+     */
+    public AnchorTitleCache(int maxSize, long ttl, long indexCheckInterval) {
+        this.cache = new BoundedCache<>(maxSize, ttl);
+        this.indexCheckInterval = indexCheckInterval;
+    }
+
+    /**
+     * Returns the value of the given field of the parent document with the given IDDOC.
+     * 
+     * @param iddocParent IDDOC of the parent document
+     * @param field Title field name
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @return Title; null if not found
+     * @throws SolrServerException
+     * @throws IOException
+     * @should cache not found results
+     */
+    public String getTitle(String iddocParent, String field, String filterQuerySuffix) throws SolrServerException, IOException {
+        if (iddocParent == null) {
+            return null;
+        }
+        checkIndexVersion();
+
+        String key = iddocParent + '|' + field + '|' + (filterQuerySuffix != null ? filterQuerySuffix : "");
+        String title = cache.get(key);
+        if (title == null) {
+            logger.trace("anchor title query: {}:{}", SolrConstants.IDDOC, iddocParent);
+            SolrDocumentList hits =
+                    DataManager.getInstance().getSearchIndex().search("+" + SolrConstants.IDDOC + ":" + iddocParent, filterQuerySuffix);
+            if (hits != null && !hits.isEmpty() && hits.get(0).getFirstValue(field) != null) {
+                title = (String) hits.get(0).getFirstValue(field);
+            } else {
+                title = NOT_FOUND;
+            }
+            cache.put(key, title);
+        }
+
+        return NOT_FOUND.equals(title) ? null : title;
+    }
+
+    /**
+     * Clears the cache if the index has changed since the last check.
+     */
+    private void checkIndexVersion() {
+        if (indexCheckInterval <= 0 || System.currentTimeMillis() < nextIndexCheck) {
+            return;
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (now < nextIndexCheck) {
+                return;
+            }
+            nextIndexCheck = now + indexCheckInterval;
+            try {
+                String currentVersion = DataManager.getInstance().getSearchIndex().getIndexVersion();
+                if (indexVersion != null && !indexVersion.equals(currentVersion)) {
+                    logger.debug("Index has changed, clearing {} anchor titles (hits: {}, misses: {}).", cache.size(), cache.getHitCount(),
+                            cache.getMissCount());
+                    cache.clear();
+                }
+                indexVersion = currentVersion;
+            } catch (SolrServerException | IOException e) {
+                logger.warn("Could not check index version: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Removes all cached titles.
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * @return Number of cached titles
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return Number of lookups answered from the cache
+     */
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    /**
+     * @return Number of lookups that required a query
+     */
+    public long getMissCount() {
+        return cache.getMissCount();
+    }
+}
@@ -0,0 +1,270 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe, size-bounded in-memory cache with least-recently-used eviction and an optional time to live for entries. Optionally, the total
+ * weight of all entries (e.g. their approximate size in bytes) is bounded as well.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxSize;
+    private final long ttl;
+    /** Maximum total weight of all entries; 0 or less for no limit */
+    private final long maxWeight;
+    /** Determines the weight of a value; null if entries are not weighed */
+    private final ToLongFunction<V> weigher;
+    /** Total weight of all entries; guarded by this */
+    private long totalWeight;
+    private final LinkedHashMap<K, CacheEntry<V>> map;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    /** Optional listener that is notified when an entry is evicted due to the size or weight limit */
+    private volatile BiConsumer<K, V> evictionListener;
+    /** Entries evicted by the current put, passed to the listener once the lock has been released */
+    private final List<Map.Entry<K, V>> evicted = new ArrayList<>();
+
+    /**
+     * Cached value with its creation time.
+     *
+     * @param <V> Value type
+     */
+    private static final class CacheEntry<V> {
+
+        private final V value;
+        private final long weight;
+        private final long created = System.currentTimeMillis();
+
+        private CacheEntry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 
+     * @param maxSize Maximum number of entries; the least recently used entry is evicted when exceeded
+     * @param ttl Time to live in milliseconds; 0 or less for no expiration
+     * @should evict least recently used entry
+     * @should count hits and misses
+     */
+    public BoundedCache(int maxSize, long ttl) {
+        this(maxSize, ttl, 0, null);
+    }
+
+    /**
+     * 
+     * @param maxSize Maximum number of entries; the least recently used entry is evicted when exceeded
+     * @param ttl Time to live in milliseconds; 0 or less for no expiration
+     * @param maxWeight Maximum total weight of all entries; least recently used entries are evicted when exceeded; 0 or less for no limit
+     * @param weigher Determines the weight of a value; null if entries are not weighed
+     * @should evict least recently used entries if max weight exceeded
+     */
+    public BoundedCache(int maxSize, long ttl, long maxWeight, ToLongFunction<V> weigher) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be 1 or larger");
+        }
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.maxWeight = weigher != null ? maxWeight : 0;
+        this.weigher = weigher;
+        this.map = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                if (size() > BoundedCache.this.maxSize) {
+                    evicted(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 
+     * @param key
+     * @return Cached value; null if not cached or expired
+     */
+    public synchronized V get(K key) {
+        CacheEntry<V> entry = map.get(key);
+        if (entry != null && isExpired(entry)) {
+            map.remove(key);
+            totalWeight -= entry.weight;
+            entry = null;
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    /**
+     * Caches the given value. If this evicts an entry, the eviction listener is notified after the lock on this cache has been released, so that
+     * slow listeners do not block other threads.
+     * 
+     * @param key
+     * @param value Value to cache; null values are not cached
+     * @should notify eviction listener outside lock
+     */
+    public void put(K key, V value) {
+        if (value == null) {
+            return;
+        }
+        List<Map.Entry<K, V>> evictedEntries;
+        synchronized (this) {
+            CacheEntry<V> entry = new CacheEntry<>(value, weigher != null ? weigher.applyAsLong(value) : 0);
+            CacheEntry<V> old = map.put(key, entry);
+            if (old != null) {
+                totalWeight -= old.weight;
+            }
+            totalWeight += entry.weight;
+            if (maxWeight > 0 && totalWeight > maxWeight) {
+                // Evict least recently used entries, but always keep the new one
+                Iterator<Map.Entry<K, CacheEntry<V>>> it = map.entrySet().iterator();
+                while (totalWeight > maxWeight && map.size() > 1) {
+                    Map.Entry<K, CacheEntry<V>> eldest = it.next();
+                    it.remove();
+                    evicted(eldest.getKey(), eldest.getValue());
+                }
+            }
+            if (evicted.isEmpty()) {
+                return;
+            }
+            evictedEntries = new ArrayList<>(evicted);
+            evicted.clear();
+        }
+        BiConsumer<K, V> listener = evictionListener;
+        if (listener != null) {
+            for (Map.Entry<K, V> evictedEntry : evictedEntries) {
+                listener.accept(evictedEntry.getKey(), evictedEntry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Accounts for an entry evicted due to the size or weight limit. Must be called while holding the lock on this cache.
+     * 
+     * @param key
+     * @param entry
+     */
+    private void evicted(K key, CacheEntry<V> entry) {
+        evictions.incrementAndGet();
+        totalWeight -= entry.weight;
+        if (evictionListener != null) {
+            evicted.add(new AbstractMap.SimpleImmutableEntry<>(key, entry.value));
+        }
+    }
+
+    /**
+     * Removes the entry for the given key.
+     * 
+     * @param key
+     */
+    public synchronized void invalidate(K key) {
+        CacheEntry<V> entry = map.remove(key);
+        if (entry != null) {
+            totalWeight -= entry.weight;
+        }
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public synchronized void clear() {
+        map.clear();
+        totalWeight = 0;
+    }
+
+    /**
+     * 
+     * @return Number of cached entries (including expired entries that have not been accessed since)
+     */
+    public synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * 
+     * @param entry
+     * @return true if entry has outlived the time to live; false otherwise
+     */
+    private boolean isExpired(CacheEntry<V> entry) {
+        return ttl > 0 && System.currentTimeMillis() - entry.created > ttl;
+    }
+
+    /**
+     * @param evictionListener the evictionListener to set; called without holding the lock on this cache
+     * @return this
+     */
+    public BoundedCache<K, V> setEvictionListener(BiConsumer<K, V> evictionListener) {
+        this.evictionListener = evictionListener;
+        return this;
+    }
+
+    /**
+     * @return the maxSize
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return Total weight of all entries (including expired entries that have not been accessed since)
+     */
+    public synchronized long getWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * @return Number of lookups that returned a value
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return Number of lookups that returned no value
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return Number of entries evicted due to the size or weight limit
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+}
@@ -22,17 +22,18 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.configuration2.HierarchicalConfiguration;
 import org.apache.commons.configuration2.XMLConfiguration;
-import org.apache.commons.configuration2.builder.ConfigurationBuilderEvent;
 import org.apache.commons.configuration2.builder.ReloadingFileBasedConfigurationBuilder;
 import org.apache.commons.configuration2.builder.fluent.Parameters;
 import org.apache.commons.configuration2.convert.DefaultListDelimiterHandler;
-import org.apache.commons.configuration2.event.Event;
-import org.apache.commons.configuration2.event.EventListener;
 import org.apache.commons.configuration2.ex.ConfigurationException;
-import org.apache.commons.configuration2.ex.ConversionException;
 import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
@@ -60,9 +61,21 @@ public final class Configuration {
 
     private static final String XML_PATH_ATTRIBUTE_NAME = "[@name]";
 
+    /** Default number of seconds between checks whether one of the configuration files has changed */
+    private static final int DEFAULT_RELOAD_CHECK_INTERVAL = 10;
+
     protected ReloadingFileBasedConfigurationBuilder<XMLConfiguration> builder;
     protected ReloadingFileBasedConfigurationBuilder<XMLConfiguration> builderLocal;
 
+    /** Incremented whenever a new snapshot of the configuration files has been loaded; shared so that replaced instances never reuse a value */
+    private static final AtomicLong generation = new AtomicLong();
+    /** Current state of both configuration files */
+    private final AtomicReference<ConfigurationSnapshot> snapshot = new AtomicReference<>();
+    /** Checks the configuration files for changes in the background */
+    private ScheduledExecutorService reloadChecker;
+    /** True once the local config file has been read successfully */
+    private volatile boolean localFileLoaded = false;
+
     /**
      * <p>
      * Constructor for Configuration.
@@ -70,7 +83,6 @@ public final class Configuration {
      *
      * @param configPath a {@link java.lang.String} object.
      */
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     public Configuration(String configPath) {
         // Load default configuration
         builder =
@@ -80,26 +92,21 @@ public final class Configuration {
                                 .setFileName(configPath)
                                 .setListDelimiterHandler(new DefaultListDelimiterHandler(';'))
                                 .setThrowExceptionOnMissing(false));
+        XMLConfiguration config = new XMLConfiguration();
         if (builder.getFileHandler().getFile().exists()) {
             try {
-                builder.getConfiguration();
+                config = builder.getConfiguration();
                 logger.info("Default Connector configuration file '{}' loaded.", builder.getFileHandler().getFile().getAbsolutePath());
             } catch (ConfigurationException e) {
                 logger.error(e.getMessage(), e);
             }
-            builder.addEventListener(ConfigurationBuilderEvent.CONFIGURATION_REQUEST,
-                    new EventListener() {
-
-                        @Override
-                        public void onEvent(Event event) {
-                            builder.getReloadingController().checkForReloading(null);
-                        }
-                    });
         } else {
             logger.error("Default Connector configuration file not found: {}; Base path is {}",
                     builder.getFileHandler().getFile().getAbsoluteFile(),
                     builder.getFileHandler().getBasePath());
         }
+        // The local config file location is configured in the default config file
+        snapshot.set(new ConfigurationSnapshot(generation.incrementAndGet(), config, new XMLConfiguration()));
 
         // Load local config file
         File fileLocal = new File(getViewerConfigFolder() + DEFAULT_CONFIG_FILE);
@@ -109,52 +116,126 @@ public final class Configuration {
                                 .setFileName(fileLocal.getAbsolutePath())
                                 .setListDelimiterHandler(new DefaultListDelimiterHandler(';'))
                                 .setThrowExceptionOnMissing(false));
+        XMLConfiguration configLocal = loadLocalConfiguration();
+        if (builderLocal.getFileHandler().getFile().exists()) {
+            logger.info("Local Connector configuration file '{}' loaded.", fileLocal.getAbsolutePath());
+        }
+        snapshot.set(new ConfigurationSnapshot(generation.incrementAndGet(), config, configLocal));
+
+        int reloadCheckInterval = getReloadCheckInterval();
+        if (reloadCheckInterval > 0) {
+            reloadChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "config-reload-checker");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reloadChecker.scheduleWithFixedDelay(this::checkForReloading, reloadCheckInterval, reloadCheckInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 
+     * @return Local configuration; empty configuration if the local file does not exist or cannot be read
+     */
+    private XMLConfiguration loadLocalConfiguration() {
         if (builderLocal.getFileHandler().getFile().exists()) {
             try {
-                builderLocal.getConfiguration();
-                logger.info("Local Connector configuration file '{}' loaded.", fileLocal.getAbsolutePath());
+                XMLConfiguration ret = builderLocal.getConfiguration();
+                localFileLoaded = true;
+                return ret;
             } catch (ConfigurationException e) {
-                logger.error("{} ({})", e.getMessage(), fileLocal.getAbsolutePath(), e);
+                logger.error("{} ({})", e.getMessage(), builderLocal.getFileHandler().getFile().getAbsolutePath(), e);
             }
-            builderLocal.addEventListener(ConfigurationBuilderEvent.CONFIGURATION_REQUEST,
-                    new EventListener() {
-
-                        @Override
-                        public void onEvent(Event event) {
-                            builderLocal.getReloadingController().checkForReloading(null);
-                        }
-                    });
         }
+
+        return new XMLConfiguration();
     }
 
     /**
+     * Checks both configuration files for changes and replaces the current snapshot if any of them has changed.
      * 
-     * @return {@link XMLConfiguration} that is synced with the current state of the config file
+     * @return true if a new snapshot has been loaded; false otherwise
      */
-    protected XMLConfiguration getConfig() {
+    boolean checkForReloading() {
         try {
-            return builder.getConfiguration();
+            boolean changed = builder.getReloadingController().checkForReloading(null);
+            changed |= builderLocal.getReloadingController().checkForReloading(null);
+            // A local config file created after startup is not detected as modified
+            changed |= !localFileLoaded && builderLocal.getFileHandler().getFile().exists();
+            if (!changed) {
+                return false;
+            }
+
+            XMLConfiguration config = getConfig();
+            if (builder.getFileHandler().getFile().exists()) {
+                config = builder.getConfiguration();
+            }
+            ConfigurationSnapshot newSnapshot = new ConfigurationSnapshot(generation.incrementAndGet(), config, loadLocalConfiguration());
+            snapshot.set(newSnapshot);
+            logger.info("Connector configuration reloaded (generation {}).", newSnapshot.getGeneration());
+            return true;
         } catch (ConfigurationException e) {
-            logger.error(e.getMessage());
+            logger.error("Could not reload configuration: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            // Do not let the checker thread die
+            logger.error(e.getMessage(), e);
         }
 
-        return new XMLConfiguration();
+        return false;
     }
 
     /**
-     * 
-     * @return {@link XMLConfiguration} that is synced with the current state of the config file
+     * Stops the background check for configuration file changes.
      */
-    protected XMLConfiguration getConfigLocal() {
-        if (builderLocal != null) {
-            try {
-                return builderLocal.getConfiguration();
-            } catch (ConfigurationException e) {
-                // logger.error(e.getMessage()); //NOSONAR Debug
-            }
+    public void shutdown() {
+        if (reloadChecker != null) {
+            reloadChecker.shutdownNow();
         }
+    }
 
-        return new XMLConfiguration();
+    /**
+     * Returns a value that changes whenever one of the configuration files has been (re-)loaded. Components that precompute state from the
+     * configuration can compare this value to decide whether to rebuild.
+     * 
+     * @return Configuration generation
+     */
+    public long getGeneration() {
+        return snapshot.get().getGeneration();
+    }
+
+    /**
+     * Returns a digest of all configured values. In contrast to {@link #getGeneration()}, the digest is the same after a restart, so it can be
+     * persisted to detect data that was derived from a different configuration.
+     * 
+     * @return Configuration content hash
+     * @should return same hash for same content
+     */
+    public String getContentHash() {
+        return snapshot.get().getContentHash();
+    }
+
+    /**
+     * 
+     * @return Current configuration snapshot
+     */
+    private ConfigurationSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * 
+     * @return {@link XMLConfiguration} of the default config file, as of the last check for changes
+     */
+    protected XMLConfiguration getConfig() {
+        return getSnapshot().getConfig();
+    }
+
+    /**
+     * 
+     * @return {@link XMLConfiguration} of the local config file, as of the last check for changes
+     */
+    protected XMLConfiguration getConfigLocal() {
+        return getSnapshot().getConfigLocal();
     }
 
     /**
@@ -164,8 +245,7 @@ public final class Configuration {
      * @return the Standard Namespace for the xml response
      */
     public Namespace getStandardNameSpace() {
-        String namespace = getOaiIdentifier().get("xmlns");
-        return Namespace.getNamespace(namespace);
+        return getSnapshot().getStandardNameSpace();
     }
 
     /**
@@ -174,12 +254,7 @@ public final class Configuration {
      * @return List<HierarchicalConfiguration<ImmutableNode>>
      */
     private List<HierarchicalConfiguration<ImmutableNode>> getLocalConfigurationsAt(String inPath) {
-        List<HierarchicalConfiguration<ImmutableNode>> ret = getConfigLocal().configurationsAt(inPath);
-        if (ret == null || ret.isEmpty()) {
-            ret = getConfig().configurationsAt(inPath);
-        }
-
-        return ret;
+        return getSnapshot().configurationsAt(inPath);
     }
 
     /**
@@ -189,7 +264,7 @@ public final class Configuration {
      * @return List<String>
      */
     private List<String> getLocalList(String inPath, List<String> defaultList) {
-        return getLocalList(getConfigLocal(), getConfig(), inPath, defaultList);
+        return getSnapshot().getList(inPath, defaultList);
     }
 
     /**
@@ -199,12 +274,7 @@ public final class Configuration {
      * @return a boolean
      */
     private boolean getLocalBoolean(String inPath, boolean inDefault) {
-        try {
-            return getConfigLocal().getBoolean(inPath, getConfig().getBoolean(inPath, inDefault));
-        } catch (Exception e) {
-            logger.error(e.getMessage(), e);
-            return inDefault;
-        }
+        return getSnapshot().getBoolean(inPath, inDefault);
     }
 
     /**
@@ -214,15 +284,7 @@ public final class Configuration {
      * @return an int
      */
     private int getLocalInt(String inPath, int inDefault) {
-        try {
-            return getConfigLocal().getInt(inPath, getConfig().getInt(inPath, inDefault));
-        } catch (ConversionException e) {
-            logger.error("{}. Using default value {} instead.", e.getMessage(), inDefault);
-            return inDefault;
-        } catch (Exception e) {
-            logger.error(e.getMessage(), e);
-            return inDefault;
-        }
+        return getSnapshot().getInt(inPath, inDefault);
     }
 
     /**
@@ -232,70 +294,40 @@ public final class Configuration {
      * @return {@link String}
      */
     private String getLocalString(String inPath, String inDefault) {
-        try {
-            return getConfigLocal().getString(inPath, getConfig().getString(inPath, inDefault));
-        } catch (Exception e) {
-            logger.error(e.getMessage(), e);
-            return inDefault;
-        }
-    }
-
-    /**
-     * 
-     * @param config Preferred configuration
-     * @param altConfig Alternative configuration
-     * @param inPath XML path
-     * @param defaultList List of default values to return if none found in config
-     * @return List<String>
-     */
-    private static List<String> getLocalList(HierarchicalConfiguration<ImmutableNode> config, HierarchicalConfiguration<ImmutableNode> altConfig,
-            String inPath,
-            List<String> defaultList) {
-        if (config == null) {
-            throw new IllegalArgumentException("config may not be null");
-        }
-        List<Object> objects = config.getList(inPath, altConfig == null ? null : altConfig.getList(inPath, defaultList));
-        if (objects != null && !objects.isEmpty()) {
-            List<String> ret = new ArrayList<>(objects.size());
-            for (Object obj : objects) {
-                ret.add((String) obj);
-            }
-            return ret;
-        }
-
-        return new ArrayList<>(0);
+        return getSnapshot().getString(inPath, inDefault);
     }
 
     /**
      * This method returns a HashMap with information for the OAI header and identify verb.
      *
-     * @return {@link java.util.HashMap}
+     * @return Unmodifiable {@link java.util.Map}
      */
     public Map<String, String> getIdentifyTags() {
-        Map<String, String> identifyTags = new HashMap<>();
-
-        identifyTags.put("repositoryName", getLocalString("identifyTags.repositoryName", null));
-        identifyTags.put("baseURL", getLocalString("identifyTags.baseURL", null));
-        identifyTags.put("protocolVersion", getLocalString("identifyTags.protocolVersion", null));
-        identifyTags.put("adminEmail", getLocalString("identifyTags.adminEmail", null));
-        identifyTags.put("deletedRecord", getLocalString("identifyTags.deletedRecord", null));
-        identifyTags.put("granularity", getLocalString("identifyTags.granularity", null));
-
-        return identifyTags;
+        return getSnapshot().getIdentifyTags();
     }
 
     /**
      * This method generates a HashMap with information for OAI header.
      *
-     * @return {@link java.util.HashMap}
+     * @return Unmodifiable {@link java.util.Map}
      * @should read config values correctly
      */
     public Map<String, String> getOaiIdentifier() {
-        Map<String, String> oaiIdentifier = new HashMap<>();
-        oaiIdentifier.put("xmlns", getLocalString("oai-identifier.namespace", "http://www.openarchives.org/OAI/2.0/"));
-        oaiIdentifier.put("repositoryIdentifier", getLocalString("oai-identifier.repositoryIdentifier", null));
+        return getSnapshot().getOaiIdentifier();
+    }
 
-        return oaiIdentifier;
+    /**
+     * <p>
+     * getReloadCheckInterval.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Number of seconds between checks whether one of the configuration files has changed; 0 disables reloading
+     * @should return correct value
+     */
+    public int getReloadCheckInterval() {
+        return getLocalInt("reloadCheckInterval", DEFAULT_RELOAD_CHECK_INTERVAL);
     }
 
     /**
@@ -331,7 +363,7 @@ public final class Configuration {
      * @return a {@link java.lang.String} object.
      */
     public String getOaiFolder() {
-        return getLocalString("oaiFolder", "/opt/digiverso/viewer/oai/");
+        return getSnapshot().getOaiFolder();
     }
 
     /**
@@ -343,7 +375,7 @@ public final class Configuration {
      * @should return correct value
      */
     public String getResumptionTokenFolder() {
-        return getLocalString("resumptionTokenFolder", "/opt/digiverso/viewer/oai/token/");
+        return getSnapshot().getResumptionTokenFolder();
     }
 
     /**
@@ -367,7 +399,7 @@ public final class Configuration {
      * @should return correct value
      */
     public int getHitsPerToken() {
-        return getLocalInt("solr.hitsPerToken", 20);
+        return getSnapshot().getHitsPerToken();
     }
 
     /**
@@ -384,6 +416,33 @@ public final class Configuration {
         return getLocalInt(metadataFormat + ".hitsPerToken", getHitsPerToken());
     }
 
+    /**
+     * <p>
+     * getPageSizeBudgetForMetadataFormat.
+     * </p>
+     *
+     * @param metadataFormat a {@link java.lang.String} object.
+     * @return Target size of a ListRecords page in kilobytes; 0 if the page size does not depend on the response size
+     * @should return correct value
+     * @should return zero for unknown formats
+     */
+    public int getPageSizeBudgetForMetadataFormat(String metadataFormat) {
+        return getLocalInt(metadataFormat + ".pageSizeBudget", 0);
+    }
+
+    /**
+     * <p>
+     * getPageTimeBudgetForMetadataFormat.
+     * </p>
+     *
+     * @param metadataFormat a {@link java.lang.String} object.
+     * @return Target time in milliseconds to create a ListRecords page; 0 if the page size does not depend on the rendering time
+     * @should return correct value
+     */
+    public int getPageTimeBudgetForMetadataFormat(String metadataFormat) {
+        return getLocalInt(metadataFormat + ".pageTimeBudget", 0);
+    }
+
     /**
      * <p>
      * getVersionDisriminatorFieldForMetadataFormat.
@@ -469,7 +528,7 @@ public final class Configuration {
      * @should return correct value
      */
     public String getHarvestUrl() {
-        return getLocalString("harvestUrl", "http://localhost:8080/viewer/harvest");
+        return getSnapshot().getHarvestUrl();
     }
 
     /**
@@ -481,7 +540,7 @@ public final class Configuration {
      * @should return correct value
      */
     public String getRestApiUrl() {
-        return getLocalString("restApiUrl", "http://localhost:8080/viewer/rest/");
+        return getSnapshot().getRestApiUrl();
     }
 
     /**
@@ -526,7 +585,7 @@ public final class Configuration {
      * @should return correct value
      */
     public String getUrnResolverUrl() {
-        return getLocalString("urnResolverUrl", "http://localhost:8080/viewer/resolver?urn=");
+        return getSnapshot().getUrnResolverUrl();
     }
 
     /**
@@ -538,7 +597,7 @@ public final class Configuration {
      * @should return correct value
      */
     public String getPiResolverUrl() {
-        return getLocalString("piResolverUrl", "http://localhost:8080/viewer/piresolver?id=");
+        return getSnapshot().getPiResolverUrl();
     }
 
     /**
@@ -550,7 +609,7 @@ public final class Configuration {
      * @should return correct value
      */
     public String getDocumentResolverUrl() {
-        return getLocalString("documentResolverUrl", "http://localhost:8080/viewer/metsresolver?id=");
+        return getSnapshot().getDocumentResolverUrl();
     }
 
     /**
@@ -559,20 +618,8 @@ public final class Configuration {
      * @should return all values
      * @return a {@link java.util.List} object.
      */
-    @SuppressWarnings("rawtypes")
     public List<String> getAdditionalDocstructTypes() {
-        List<String> ret = new ArrayList<>();
-
-        List<HierarchicalConfiguration<ImmutableNode>> docstructs = getLocalConfigurationsAt("epicur.additionalDocstructTypes.docstruct");
-        if (docstructs != null) {
-            for (Iterator it = docstructs.iterator(); it.hasNext();) {
-                HierarchicalConfiguration sub = (HierarchicalConfiguration) it.next();
-                ret.add(sub.getString("."));
-                logger.trace("loaded additional docstruct type: {}", sub.getString("."));
-            }
-        }
-
-        return ret;
+        return getSnapshot().getAdditionalDocstructTypes();
     }
 
     /**
@@ -584,7 +631,17 @@ public final class Configuration {
      * @return a {@link java.util.List} object.
      */
     public List<String> getUrnPrefixBlacklist() {
-        return getLocalList("epicur.blacklist.urnPrefix", new ArrayList<>(0));
+        return getSnapshot().getUrnPrefixBlacklist();
+    }
+
+    /**
+     * Returns the maximum number of page records to load for a single Epicur ListRecords response.
+     *
+     * @return Configured value; 10000 if none found
+     * @should return correct value
+     */
+    public int getEpicurMaxPageRecords() {
+        return getLocalInt("epicur.maxPageRecords", 10000);
     }
 
     /**
@@ -701,7 +758,7 @@ public final class Configuration {
      * @return a {@link java.lang.String} object.
      */
     public String getBaseURL() {
-        return getLocalString("identifyTags.baseURL", null);
+        return getSnapshot().getBaseURL();
     }
 
     /**
@@ -713,7 +770,7 @@ public final class Configuration {
      * @return a boolean.
      */
     public boolean isBaseUrlUseInRequestElement() {
-        return getLocalBoolean("identifyTags.baseURL[@useInRequestElement]", false);
+        return getSnapshot().isBaseUrlUseInRequestElement();
     }
 
     /**
@@ -737,13 +794,609 @@ public final class Configuration {
      * @return a {@link java.util.Locale} object.
      */
     public Locale getDefaultLocale() {
-        String language = getLocalString("defaultLocale", "en");
-        Locale locale = Locale.forLanguageTag(language);
-        if (locale == null) {
-            locale = Locale.ENGLISH;
+        return getSnapshot().getDefaultLocale();
+    }
+
+    /**
+     * <p>
+     * getTocCacheSize.
+     * </p>
+     *
+     * @return Maximum number of generated TOCs kept in memory
+     * @should return correct value
+     */
+    public int getTocCacheSize() {
+        return getLocalInt("caches.toc.maxSize", 1000);
+    }
+
+    /**
+     * <p>
+     * getTocCacheSpillFolder.
+     * </p>
+     *
+     * @return Folder for generated TOCs evicted from memory; null if disabled
+     * @should return correct value
+     */
+    public String getTocCacheSpillFolder() {
+        return getLocalString("caches.toc.spillFolder", null);
+    }
+
+    /**
+     * <p>
+     * getTocCacheNotFoundTtl.
+     * </p>
+     *
+     * @return Number of seconds during which a TOC API end point that returned 404 is not queried again
+     * @should return correct value
+     */
+    public int getTocCacheNotFoundTtl() {
+        return getLocalInt("caches.toc.notFoundTtl", 3600);
+    }
+
+    /**
+     * <p>
+     * getFulltextCacheSize.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Maximum number of ALTO files whose extracted text is kept in memory
+     * @should return correct value
+     */
+    public int getFulltextCacheSize() {
+        return getLocalInt("caches.fulltext.maxSize", 5000);
+    }
+
+    /**
+     * <p>
+     * getFulltextCacheMaxMemory.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Maximum number of megabytes of extracted text kept in memory
+     * @should return correct value
+     */
+    public int getFulltextCacheMaxMemory() {
+        return getLocalInt("caches.fulltext.maxMemory", 64);
+    }
+
+    /**
+     * <p>
+     * getFulltextParserThreads.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Number of threads used for parsing ALTO files
+     * @should return correct value
+     */
+    public int getFulltextParserThreads() {
+        return getLocalInt("caches.fulltext.threads", 4);
+    }
+
+    /**
+     * <p>
+     * getSourceDocumentCacheSize.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Maximum number of source documents (LIDO, TEI, CMDI) kept in memory
+     * @should return correct value
+     */
+    public int getSourceDocumentCacheSize() {
+        return getLocalInt("caches.sourceDocuments.maxSize", 1000);
+    }
+
+    /**
+     * <p>
+     * getSourceDocumentCacheMaxMemory.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Maximum number of megabytes of source documents kept in memory
+     * @should return correct value
+     */
+    public int getSourceDocumentCacheMaxMemory() {
+        return getLocalInt("caches.sourceDocuments.maxMemory", 64);
+    }
+
+    /**
+     * <p>
+     * getSourceDocumentFetcherThreads.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Number of threads used for retrieving source documents
+     * @should return correct value
+     */
+    public int getSourceDocumentFetcherThreads() {
+        return getLocalInt("caches.sourceDocuments.threads", 4);
+    }
+
+    /**
+     * <p>
+     * getSourceDocumentCacheNotFoundTtl.
+     * </p>
+     *
+     * @return Number of seconds during which a source document API end point that returned 404 is not queried again
+     * @should return correct value
+     */
+    public int getSourceDocumentCacheNotFoundTtl() {
+        return getLocalInt("caches.sourceDocuments.notFoundTtl", 3600);
+    }
+
+    /**
+     * <p>
+     * getAnchorTitleCacheSize.
+     * </p>
+     *
+     * @return Maximum number of anchor and parent titles kept in memory
+     * @should return correct value
+     */
+    public int getAnchorTitleCacheSize() {
+        return getLocalInt("caches.anchorTitles.maxSize", 10000);
+    }
+
+    /**
+     * <p>
+     * getAnchorTitleCacheTtl.
+     * </p>
+     *
+     * @return Number of seconds after which a cached anchor title expires
+     * @should return correct value
+     */
+    public int getAnchorTitleCacheTtl() {
+        return getLocalInt("caches.anchorTitles.ttl", 3600);
+    }
+
+    /**
+     * <p>
+     * getAnchorTitleCacheIndexCheckInterval.
+     * </p>
+     *
+     * @return Number of seconds between checks whether the index has changed, which clears the anchor title cache
+     * @should return correct value
+     */
+    public int getAnchorTitleCacheIndexCheckInterval() {
+        return getLocalInt("caches.anchorTitles.indexCheckInterval", 60);
+    }
+
+    /**
+     * <p>
+     * getTranslationCacheSize.
+     * </p>
+     *
+     * @return Maximum number of translations kept in memory per locale
+     * @should return correct value
+     */
+    public int getTranslationCacheSize() {
+        return getLocalInt("caches.translations.maxSize", 5000);
+    }
+
+    /**
+     * <p>
+     * getTranslationCacheCheckInterval.
+     * </p>
+     *
+     * @return Number of seconds between checks whether the message files have changed, which clears the translation cache
+     * @should return correct value
+     */
+    public int getTranslationCacheCheckInterval() {
+        return getLocalInt("caches.translations.checkInterval", 60);
+    }
+
+    /**
+     * <p>
+     * getSetValuesCacheTtl.
+     * </p>
+     *
+     * @return Number of seconds for which the values of all-values sets found in the index are cached
+     * @should return correct value
+     */
+    public int getSetValuesCacheTtl() {
+        return getLocalInt("caches.setValues.ttl", 300);
+    }
+
+    /**
+     * <p>
+     * getFilterSuffixCacheSize.
+     * </p>
+     *
+     * @return Maximum number of clients for which the access condition filter suffix is kept in memory
+     * @should return correct value
+     */
+    public int getFilterSuffixCacheSize() {
+        return getLocalInt("caches.filterSuffixes.maxSize", 1000);
+    }
+
+    /**
+     * <p>
+     * getFilterSuffixCacheTtl.
+     * </p>
+     *
+     * @return Number of seconds after which a client's access condition filter suffix is computed again
+     * @should return correct value
+     */
+    public int getFilterSuffixCacheTtl() {
+        return getLocalInt("caches.filterSuffixes.ttl", 300);
+    }
+
+    /**
+     * <p>
+     * isRequestProcessingAsync.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return true if requests are processed asynchronously on the connector's own thread pools; false otherwise (default)
+     * @should return correct value
+     */
+    public boolean isRequestProcessingAsync() {
+        return getLocalBoolean("requestProcessing.async", false);
+    }
+
+    /**
+     * <p>
+     * getHeavyRequestThreads.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Number of threads processing heavy requests (list verbs, SRU searches)
+     * @should return correct value
+     */
+    public int getHeavyRequestThreads() {
+        return getLocalInt("requestProcessing.heavy.threads", 4);
+    }
+
+    /**
+     * <p>
+     * getHeavyRequestQueueSize.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Maximum number of heavy requests waiting for a thread
+     * @should return correct value
+     */
+    public int getHeavyRequestQueueSize() {
+        return getLocalInt("requestProcessing.heavy.queueSize", 20);
+    }
+
+    /**
+     * <p>
+     * getLightRequestThreads.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Number of threads processing light requests
+     * @should return correct value
+     */
+    public int getLightRequestThreads() {
+        return getLocalInt("requestProcessing.light.threads", 8);
+    }
+
+    /**
+     * <p>
+     * getLightRequestQueueSize.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Maximum number of light requests waiting for a thread
+     * @should return correct value
+     */
+    public int getLightRequestQueueSize() {
+        return getLocalInt("requestProcessing.light.queueSize", 100);
+    }
+
+    /**
+     * <p>
+     * getRequestRetryAfter.
+     * </p>
+     *
+     * @return Number of seconds rejected clients are asked to wait before retrying
+     * @should return correct value
+     */
+    public int getRequestRetryAfter() {
+        return getLocalInt("requestProcessing.retryAfter", 30);
+    }
+
+    /**
+     * <p>
+     * getRequestTimeout.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Number of seconds after which an async request is aborted; 0 for no timeout
+     * @should return correct value
+     */
+    public int getRequestTimeout() {
+        return getLocalInt("requestProcessing.timeout", 0);
+    }
+
+    /**
+     * <p>
+     * isRecordRenderingVirtualThreads.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return true if list records should be rendered on virtual threads (Java 21+); false otherwise
+     * @should return correct value
+     */
+    public boolean isRecordRenderingVirtualThreads() {
+        return getLocalBoolean("requestProcessing.recordRendering.virtualThreads", false);
+    }
+
+    /**
+     * <p>
+     * getRecordRenderingMaxConcurrentCalls.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Maximum number of records rendered at the same time across all requests
+     * @should return correct value
+     */
+    public int getRecordRenderingMaxConcurrentCalls() {
+        return getLocalInt("requestProcessing.recordRendering.maxConcurrentCalls", 16);
+    }
+
+    /**
+     * <p>
+     * isRequestCoalescing.
+     * </p>
+     *
+     * @return true if concurrent identical requests should share one computation; false otherwise
+     * @should return correct value
+     */
+    public boolean isRequestCoalescing() {
+        return getLocalBoolean("requestProcessing.coalesce", false);
+    }
+
+    /**
+     * <p>
+     * getRequestCoalescingTimeout.
+     * </p>
+     *
+     * @return Number of seconds a request waits for an identical running request before it is processed separately
+     * @should return correct value
+     */
+    public int getRequestCoalescingTimeout() {
+        return getLocalInt("requestProcessing.coalesceTimeout", 60);
+    }
+
+    /**
+     * <p>
+     * isAdmissionControlEnabled.
+     * </p>
+     *
+     * @return true if request rate and concurrency limits are enforced; false otherwise
+     * @should return correct value
+     */
+    public boolean isAdmissionControlEnabled() {
+        return getLocalBoolean("admission.enabled", false);
+    }
+
+    /**
+     * <p>
+     * getAdmissionClientKey.
+     * </p>
+     *
+     * @return Request property by which clients are told apart ("ip" or "userAgent")
+     * @should return correct value
+     */
+    public String getAdmissionClientKey() {
+        return getLocalString("admission.clientKey", "ip");
+    }
+
+    /**
+     * <p>
+     * getRateLimitCapacity.
+     * </p>
+     *
+     * @return Maximum number of requests a client may send in a burst; 0 for no rate limit
+     * @should return correct value
+     */
+    public int getRateLimitCapacity() {
+        return getLocalInt("admission.rateLimit.capacity", 60);
+    }
+
+    /**
+     * <p>
+     * getRateLimitRequestsPerMinute.
+     * </p>
+     *
+     * @return Number of requests per minute a client may send on average
+     * @should return correct value
+     */
+    public int getRateLimitRequestsPerMinute() {
+        return getLocalInt("admission.rateLimit.requestsPerMinute", 120);
+    }
+
+    /**
+     * <p>
+     * getRateLimitMaxClients.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Maximum number of clients whose rate limit state is kept in memory
+     * @should return correct value
+     */
+    public int getRateLimitMaxClients() {
+        return getLocalInt("admission.rateLimit.maxClients", 10000);
+    }
+
+    /**
+     * <p>
+     * getDefaultConcurrencyLimit.
+     * </p>
+     *
+     * @return Default number of concurrently processed heavy requests per verb and format; 0 for no limit
+     * @should return correct value
+     */
+    public int getDefaultConcurrencyLimit() {
+        return getLocalInt("admission.concurrency.default", 4);
+    }
+
+    /**
+     * <p>
+     * getConcurrencyLimits.
+     * </p>
+     *
+     * @return Configured concurrency limits, keyed by {@link AdmissionController#getLimitKey(String, String)}
+     * @should return all configured limits
+     */
+    public Map<String, Integer> getConcurrencyLimits() {
+        List<HierarchicalConfiguration<ImmutableNode>> limits = getLocalConfigurationsAt("admission.concurrency.limit");
+        if (limits == null) {
+            return new HashMap<>(0);
         }
+        Map<String, Integer> ret = new HashMap<>(limits.size());
+        for (HierarchicalConfiguration<ImmutableNode> sub : limits) {
+            String verb = sub.getString("[@verb]");
+            if (StringUtils.isEmpty(verb)) {
+                continue;
+            }
+            ret.put(AdmissionController.getLimitKey(verb, sub.getString("[@metadataPrefix]")), sub.getInt(".", 0));
+        }
+        return ret;
+    }
+
+    /**
+     * <p>
+     * isDumpEnabled.
+     * </p>
+     *
+     * @return true if the bulk dump end point is enabled; false otherwise
+     * @should return correct value
+     */
+    public boolean isDumpEnabled() {
+        return getLocalBoolean("dump.enabled", false);
+    }
+
+    /**
+     * <p>
+     * getDumpRows.
+     * </p>
+     *
+     * @return Number of records retrieved from Solr per page while writing a bulk dump
+     * @should return correct value
+     */
+    public int getDumpRows() {
+        return getLocalInt("dump.rows", 200);
+    }
+
+    /**
+     * <p>
+     * getDumpConcurrencyLimit.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Maximum number of live bulk dumps that are written at the same time
+     * @should return correct value
+     */
+    public int getDumpConcurrencyLimit() {
+        return getLocalInt("dump.maxConcurrent", 1);
+    }
+
+    /**
+     * <p>
+     * getDumpSnapshotFolder.
+     * </p>
+     *
+     * @return Folder in which bulk dump snapshots are stored
+     * @should return correct value
+     */
+    public String getDumpSnapshotFolder() {
+        return getLocalString("dump.snapshots.folder", null);
+    }
+
+    /**
+     * <p>
+     * getDumpSnapshotInterval.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Number of hours between bulk dump snapshots; 0 if no snapshots are written
+     * @should return correct value
+     */
+    public int getDumpSnapshotInterval() {
+        return getLocalInt("dump.snapshots.interval", 0);
+    }
+
+    /**
+     * <p>
+     * getDumpSnapshotMetadataPrefixes.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Metadata prefixes for which bulk dump snapshots are written
+     * @should return all values
+     */
+    public List<String> getDumpSnapshotMetadataPrefixes() {
+        return getLocalList("dump.snapshots.metadataPrefix", new ArrayList<>(0));
+    }
 
-        return locale;
+    /**
+     * <p>
+     * isRecordStoreEnabled.
+     * </p>
+     *
+     * @return true if rendered records are stored for later requests; false otherwise
+     * @should return correct value
+     */
+    public boolean isRecordStoreEnabled() {
+        return getLocalBoolean("recordStore.enabled", false);
+    }
+
+    /**
+     * <p>
+     * getRecordStoreFolder.
+     * </p>
+     *
+     * @return Folder in which rendered records are stored
+     * @should return correct value
+     */
+    public String getRecordStoreFolder() {
+        return getLocalString("recordStore.folder", null);
+    }
+
+    /**
+     * <p>
+     * getRecordStoreRefreshInterval.
+     * </p>
+     *
+     * Read once at startup; changes require a restart.
+     *
+     * @return Number of minutes between refreshes of the stored records; 0 if stored records are only refreshed on request
+     * @should return correct value
+     */
+    public int getRecordStoreRefreshInterval() {
+        return getLocalInt("recordStore.refreshInterval", 0);
+    }
+
+    /**
+     * <p>
+     * getRecordStoreMetadataPrefixes.
+     * </p>
+     *
+     * @return Metadata prefixes whose rendered records are stored
+     * @should return all values
+     */
+    public List<String> getRecordStoreMetadataPrefixes() {
+        return getLocalList("recordStore.metadataPrefix", new ArrayList<>(0));
     }
 
     /**
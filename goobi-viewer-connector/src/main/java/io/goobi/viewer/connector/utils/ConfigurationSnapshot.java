@@ -0,0 +1,321 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.configuration2.HierarchicalConfiguration;
+import org.apache.commons.configuration2.XMLConfiguration;
+import org.apache.commons.configuration2.ex.ConversionException;
+import org.apache.commons.configuration2.tree.ImmutableNode;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jdom2.Namespace;
+
+/**
+ * Immutable state of the default and local configuration files at the time they were loaded. Frequently used values are resolved into plain
+ * fields on construction; all other values are looked up in the in-memory configurations without checking the files for changes.
+ */
+final class ConfigurationSnapshot {
+
+    private static final Logger logger = LogManager.getLogger(ConfigurationSnapshot.class);
+
+    private final long generation;
+    private final XMLConfiguration config;
+    private final XMLConfiguration configLocal;
+
+    private final String oaiFolder;
+    private final String resumptionTokenFolder;
+    private final int hitsPerToken;
+    private final String harvestUrl;
+    private final String restApiUrl;
+    private final String urnResolverUrl;
+    private final String piResolverUrl;
+    private final String documentResolverUrl;
+    private final List<String> additionalDocstructTypes;
+    private final List<String> urnPrefixBlacklist;
+    private final String baseURL;
+    private final boolean baseUrlUseInRequestElement;
+    private final Locale defaultLocale;
+    private final Map<String, String> identifyTags;
+    private final Map<String, String> oaiIdentifier;
+    private final Namespace standardNameSpace;
+    /** Digest of all configured values; computed on first use */
+    private volatile String contentHash;
+
+    /**
+     * 
+     * @param generation Configuration generation of this snapshot
+     * @param config Default configuration
+     * @param configLocal Local configuration, which overrides the default configuration
+     */
+    ConfigurationSnapshot(long generation, XMLConfiguration config, XMLConfiguration configLocal) {
+        this.generation = generation;
+        this.config = config;
+        this.configLocal = configLocal;
+
+        this.oaiFolder = getString("oaiFolder", "/opt/digiverso/viewer/oai/");
+        this.resumptionTokenFolder = getString("resumptionTokenFolder", "/opt/digiverso/viewer/oai/token/");
+        this.hitsPerToken = getInt("solr.hitsPerToken", 20);
+        this.harvestUrl = getString("harvestUrl", "http://localhost:8080/viewer/harvest");
+        this.restApiUrl = getString("restApiUrl", "http://localhost:8080/viewer/rest/");
+        this.urnResolverUrl = getString("urnResolverUrl", "http://localhost:8080/viewer/resolver?urn=");
+        this.piResolverUrl = getString("piResolverUrl", "http://localhost:8080/viewer/piresolver?id=");
+        this.documentResolverUrl = getString("documentResolverUrl", "http://localhost:8080/viewer/metsresolver?id=");
+        this.urnPrefixBlacklist = Collections.unmodifiableList(getList("epicur.blacklist.urnPrefix", new ArrayList<>(0)));
+        this.baseURL = getString("identifyTags.baseURL", null);
+        this.baseUrlUseInRequestElement = getBoolean("identifyTags.baseURL[@useInRequestElement]", false);
+
+        List<String> docstructTypes = new ArrayList<>();
+        for (HierarchicalConfiguration<ImmutableNode> sub : configurationsAt("epicur.additionalDocstructTypes.docstruct")) {
+            docstructTypes.add(sub.getString("."));
+            logger.trace("loaded additional docstruct type: {}", sub.getString("."));
+        }
+        this.additionalDocstructTypes = Collections.unmodifiableList(docstructTypes);
+
+        Locale locale = Locale.forLanguageTag(getString("defaultLocale", "en"));
+        this.defaultLocale = locale != null ? locale : Locale.ENGLISH;
+
+        Map<String, String> tags = new HashMap<>();
+        tags.put("repositoryName", getString("identifyTags.repositoryName", null));
+        tags.put("baseURL", getString("identifyTags.baseURL", null));
+        tags.put("protocolVersion", getString("identifyTags.protocolVersion", null));
+        tags.put("adminEmail", getString("identifyTags.adminEmail", null));
+        tags.put("deletedRecord", getString("identifyTags.deletedRecord", null));
+        tags.put("granularity", getString("identifyTags.granularity", null));
+        this.identifyTags = Collections.unmodifiableMap(tags);
+
+        Map<String, String> identifier = new HashMap<>();
+        identifier.put("xmlns", getString("oai-identifier.namespace", "http://www.openarchives.org/OAI/2.0/"));
+        identifier.put("repositoryIdentifier", getString("oai-identifier.repositoryIdentifier", null));
+        this.oaiIdentifier = Collections.unmodifiableMap(identifier);
+        this.standardNameSpace = Namespace.getNamespace(identifier.get("xmlns"));
+    }
+
+    /**
+     * 
+     * @param inPath
+     * @return List<HierarchicalConfiguration<ImmutableNode>>
+     */
+    List<HierarchicalConfiguration<ImmutableNode>> configurationsAt(String inPath) {
+        List<HierarchicalConfiguration<ImmutableNode>> ret = configLocal.configurationsAt(inPath);
+        if (ret == null || ret.isEmpty()) {
+            ret = config.configurationsAt(inPath);
+        }
+
+        return ret != null ? ret : Collections.emptyList();
+    }
+
+    /**
+     * 
+     * @param inPath
+     * @param defaultList
+     * @return List<String>
+     */
+    List<String> getList(String inPath, List<String> defaultList) {
+        List<Object> objects = configLocal.getList(inPath, config.getList(inPath, defaultList));
+        if (objects != null && !objects.isEmpty()) {
+            List<String> ret = new ArrayList<>(objects.size());
+            for (Object obj : objects) {
+                ret.add((String) obj);
+            }
+            return ret;
+        }
+
+        return new ArrayList<>(0);
+    }
+
+    /**
+     * 
+     * @param inPath
+     * @param inDefault
+     * @return a boolean
+     */
+    boolean getBoolean(String inPath, boolean inDefault) {
+        try {
+            return configLocal.getBoolean(inPath, config.getBoolean(inPath, inDefault));
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+            return inDefault;
+        }
+    }
+
+    /**
+     * 
+     * @param inPath
+     * @param inDefault
+     * @return an int
+     */
+    int getInt(String inPath, int inDefault) {
+        try {
+            return configLocal.getInt(inPath, config.getInt(inPath, inDefault));
+        } catch (ConversionException e) {
+            logger.error("{}. Using default value {} instead.", e.getMessage(), inDefault);
+            return inDefault;
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+            return inDefault;
+        }
+    }
+
+    /**
+     * 
+     * @param inPath
+     * @param inDefault
+     * @return {@link String}
+     */
+    String getString(String inPath, String inDefault) {
+        try {
+            return configLocal.getString(inPath, config.getString(inPath, inDefault));
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+            return inDefault;
+        }
+    }
+
+    /**
+     * @return the generation
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns a digest of all keys and values of both configurations. Unlike the generation, the digest only changes if the configured values
+     * change and is the same after a restart, so it can be persisted alongside data derived from the configuration.
+     * 
+     * @return Hex encoded SHA-1 digest of the configuration content
+     */
+    String getContentHash() {
+        String ret = contentHash;
+        if (ret == null) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-1");
+                updateDigest(digest, config);
+                digest.update((byte) 0);
+                updateDigest(digest, configLocal);
+                ret = HexFormat.of().formatHex(digest.digest());
+            } catch (NoSuchAlgorithmException e) {
+                // SHA-1 is available on every Java platform
+                throw new IllegalStateException(e);
+            }
+            contentHash = ret;
+        }
+
+        return ret;
+    }
+
+    /**
+     * 
+     * @param digest
+     * @param conf
+     */
+    private static void updateDigest(MessageDigest digest, XMLConfiguration conf) {
+        Iterator<String> keys = conf.getKeys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            digest.update((key + '=' + conf.getList(key) + '\n').getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * @return the default configuration
+     */
+    XMLConfiguration getConfig() {
+        return config;
+    }
+
+    /**
+     * @return the local configuration
+     */
+    XMLConfiguration getConfigLocal() {
+        return configLocal;
+    }
+
+    String getOaiFolder() {
+        return oaiFolder;
+    }
+
+    String getResumptionTokenFolder() {
+        return resumptionTokenFolder;
+    }
+
+    int getHitsPerToken() {
+        return hitsPerToken;
+    }
+
+    String getHarvestUrl() {
+        return harvestUrl;
+    }
+
+    String getRestApiUrl() {
+        return restApiUrl;
+    }
+
+    String getUrnResolverUrl() {
+        return urnResolverUrl;
+    }
+
+    String getPiResolverUrl() {
+        return piResolverUrl;
+    }
+
+    String getDocumentResolverUrl() {
+        return documentResolverUrl;
+    }
+
+    List<String> getAdditionalDocstructTypes() {
+        return additionalDocstructTypes;
+    }
+
+    List<String> getUrnPrefixBlacklist() {
+        return urnPrefixBlacklist;
+    }
+
+    String getBaseURL() {
+        return baseURL;
+    }
+
+    boolean isBaseUrlUseInRequestElement() {
+        return baseUrlUseInRequestElement;
+    }
+
+    Locale getDefaultLocale() {
+        return defaultLocale;
+    }
+
+    Map<String, String> getIdentifyTags() {
+        return identifyTags;
+    }
+
+    Map<String, String> getOaiIdentifier() {
+        return oaiIdentifier;
+    }
+
+    Namespace getStandardNameSpace() {
+        return standardNameSpace;
+    }
+}
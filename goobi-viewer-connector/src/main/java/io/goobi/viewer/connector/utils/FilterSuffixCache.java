@@ -0,0 +1,128 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Caches the access condition filter query suffix per client. The suffix depends on the licence types and on the privileges of the client's IP
+ * address, which are evaluated by viewer-core for each request otherwise. Entries expire after a configurable time so that changes to licence
+ * types made in the viewer are picked up.
+ */
+public class FilterSuffixCache {
+
+    private static final Logger logger = LogManager.getLogger(FilterSuffixCache.class);
+
+    private final BoundedCache<String, String> cache;
+    /** Number of suffix computations */
+    private final AtomicLong computeCount = new AtomicLong();
+    /** Total time spent computing suffixes, in nanoseconds */
+    private final AtomicLong computeTime = new AtomicLong();
+
+    /**
+     * 
+     * @param maxSize Maximum number of cached clients
+     * @param ttl Time in milliseconds after which a suffix is computed again; 0 for no expiration
+     */
+    public FilterSuffixCache(int maxSize, long ttl) {
+        this.cache = new BoundedCache<>(maxSize, ttl);
+    }
+
+    /**
+     * Returns the cached suffix for the given client, computing it with the given loader if necessary.
+     * 
+     * @param clientKey Key identifying the client's privilege context (e.g. IP address)
+     * @param loader Computes the suffix for the client
+     * @return Filter query suffix
+     * @should compute suffix only once per client
+     * @should not cache if clientKey null
+     */
+    public String getSuffix(String clientKey, Supplier<String> loader) {
+        if (clientKey == null) {
+            return compute(null, loader);
+        }
+
+        String ret = cache.get(clientKey);
+        if (ret == null) {
+            ret = compute(clientKey, loader);
+            if (ret != null) {
+                cache.put(clientKey, ret);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * 
+     * @param clientKey
+     * @param loader
+     * @return Suffix returned by loader
+     */
+    private String compute(String clientKey, Supplier<String> loader) {
+        long start = System.nanoTime();
+        try {
+            return loader.get();
+        } finally {
+            long duration = System.nanoTime() - start;
+            computeCount.incrementAndGet();
+            computeTime.addAndGet(duration);
+            logger.debug("Filter query suffix for client '{}' computed in {} ms (average {} ms over {} computations, {} cache hits).", clientKey,
+                    TimeUnit.NANOSECONDS.toMillis(duration), getAverageComputeTime(), computeCount.get(), cache.getHitCount());
+        }
+    }
+
+    /**
+     * Removes all cached suffixes.
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    /**
+     * @return Number of cached clients
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return Number of lookups answered from the cache
+     */
+    public long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    /**
+     * @return Number of suffix computations
+     */
+    public long getComputeCount() {
+        return computeCount.get();
+    }
+
+    /**
+     * @return Average time in milliseconds spent computing one suffix
+     */
+    public long getAverageComputeTime() {
+        long count = computeCount.get();
+        return count > 0 ? TimeUnit.NANOSECONDS.toMillis(computeTime.get() / count) : 0;
+    }
+}
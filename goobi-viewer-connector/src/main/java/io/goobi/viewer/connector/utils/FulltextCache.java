@@ -0,0 +1,237 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.goobi.viewer.controller.ALTOTools;
+import io.goobi.viewer.controller.StringTools;
+
+/**
+ * Cache for plain text extracted from ALTO files. Entries are validated against the file's modification time, so changed files are parsed
+ * again. Memory use is bounded by the number of files and by the total size of the cached texts. Files that are not cached are parsed in
+ * parallel by a small, fixed pool of worker threads; if its queue is full, files are parsed on the calling thread.
+ */
+public class FulltextCache {
+
+    private static final Logger logger = LogManager.getLogger(FulltextCache.class);
+
+    /** Number of parse tasks that may wait for each worker thread */
+    private static final int QUEUE_SIZE_PER_THREAD = 16;
+
+    private final BoundedCache<Path, CachedText> cache;
+    /** Worker pool for parsing; null if files are parsed on the calling thread */
+    private final ExecutorService executor;
+
+    /**
+     * Extracted text and the modification time of the file it was extracted from.
+     */
+    private static final class CachedText {
+
+        private final long lastModified;
+        private final String text;
+
+        private CachedText(long lastModified, String text) {
+            this.lastModified = lastModified;
+            this.text = text;
+        }
+
+        /**
+         * @return Approximate size in bytes (two bytes per char, which is the upper bound for Java strings)
+         */
+        private long getSize() {
+            return 2L * text.length();
+        }
+    }
+
+    /**
+     * 
+     * @param maxSize Maximum number of cached files
+     * @param maxBytes Maximum approximate size in bytes of all cached texts; 0 or less for no limit
+     * @param threads Number of parser threads; 1 or less to parse on the calling thread
+     */
+    public FulltextCache(int maxSize, long maxBytes, int threads) {
+        this.cache = new BoundedCache<>(maxSize, 0, maxBytes, CachedText::getSize);
+        if (threads > 1) {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(threads * QUEUE_SIZE_PER_THREAD), r -> {
+                        Thread t = new Thread(r, "fulltext-parser-" + threadCount.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Returns the plain text of the given ALTO file.
+     * 
+     * @param path ALTO file path
+     * @return Plain text
+     * @throws IOException
+     * @should return cached text if file unchanged
+     */
+    public String getFulltext(Path path) throws IOException {
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        String ret = getCached(path, lastModified);
+        return ret != null ? ret : parse(path, lastModified);
+    }
+
+    /**
+     * Returns the plain texts of the given ALTO files in the same order. Cached texts are returned directly; only files that are not cached are
+     * parsed in parallel.
+     * 
+     * @param paths ALTO file paths
+     * @return List of plain texts
+     * @throws IOException
+     * @should return texts in order of paths
+     */
+    public List<String> getFulltexts(List<Path> paths) throws IOException {
+        if (executor == null || paths.size() < 2) {
+            List<String> ret = new ArrayList<>(paths.size());
+            for (Path path : paths) {
+                ret.add(getFulltext(path));
+            }
+            return ret;
+        }
+
+        String[] texts = new String[paths.size()];
+        long[] lastModified = new long[paths.size()];
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < paths.size(); ++i) {
+            lastModified[i] = Files.getLastModifiedTime(paths.get(i)).toMillis();
+            texts[i] = getCached(paths.get(i), lastModified[i]);
+            if (texts[i] == null) {
+                misses.add(i);
+            }
+        }
+        if (misses.size() == 1) {
+            int i = misses.get(0);
+            texts[i] = parse(paths.get(i), lastModified[i]);
+        } else if (!misses.isEmpty()) {
+            List<Future<String>> futures = new ArrayList<>(misses.size());
+            try {
+                for (int i : misses) {
+                    Path path = paths.get(i);
+                    long modified = lastModified[i];
+                    futures.add(submit(() -> parse(path, modified)));
+                }
+                for (int j = 0; j < misses.size(); ++j) {
+                    texts[misses.get(j)] = futures.get(j).get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            } finally {
+                for (Future<String> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+
+        return Arrays.asList(texts);
+    }
+
+    /**
+     * Submits the given task to the worker pool. If the pool's queue is full, the task is run on the calling thread instead.
+     * 
+     * @param task
+     * @return {@link Future} of the task
+     */
+    private Future<String> submit(Callable<String> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            FutureTask<String> ret = new FutureTask<>(task);
+            ret.run();
+            return ret;
+        }
+    }
+
+    /**
+     * 
+     * @param path ALTO file path
+     * @param lastModified Current modification time of the file
+     * @return Cached text; null if not cached or outdated
+     */
+    private String getCached(Path path, long lastModified) {
+        CachedText cached = cache.get(path);
+        if (cached != null && cached.lastModified == lastModified) {
+            return cached.text;
+        }
+
+        return null;
+    }
+
+    /**
+     * Parses the given ALTO file and caches its text.
+     * 
+     * @param path ALTO file path
+     * @param lastModified Modification time of the file
+     * @return Plain text
+     * @throws IOException
+     */
+    private String parse(Path path, long lastModified) throws IOException {
+        String text = ALTOTools.getFulltext(path, StringTools.DEFAULT_ENCODING);
+        if (text == null) {
+            text = "";
+        }
+        cache.put(path, new CachedText(lastModified, text));
+        return text;
+    }
+
+    /**
+     * Stops the parser threads.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            logger.debug("Shutting down full-text parser threads.");
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return Number of cached files
+     */
+    public int size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrServerException;
+
+/**
+ * Renders the records of a list response. By default, records are rendered one after another on the calling thread. If virtual threads are
+ * enabled and the JVM provides them (Java 21+), each record is rendered on its own virtual thread, while a semaphore shared by all requests limits
+ * the number of records (and thus Solr queries and viewer requests) that are rendered at the same time. Results are always returned in the order
+ * of the input.
+ */
+public class RecordRenderer {
+
+    private static final Logger logger = LogManager.getLogger(RecordRenderer.class);
+
+    /**
+     * Renders a single record.
+     *
+     * @param <T> Input type
+     * @param <R> Result type
+     */
+    @FunctionalInterface
+    public interface RecordTask<T, R> {
+
+        /**
+         * 
+         * @param item
+         * @return Rendered record
+         * @throws IOException
+         * @throws SolrServerException
+         */
+        R render(T item) throws IOException, SolrServerException;
+    }
+
+    /** Virtual thread per task executor; null if records are rendered on the calling thread */
+    private final ExecutorService executor;
+    /** Limits the number of records rendered concurrently */
+    private final Semaphore permits;
+
+    /**
+     * 
+     * @param virtualThreads If true, records are rendered on virtual threads if the JVM supports them
+     * @param maxConcurrentCalls Maximum number of records rendered at the same time
+     */
+    public RecordRenderer(boolean virtualThreads, int maxConcurrentCalls) {
+        this.executor = virtualThreads ? createVirtualThreadExecutor() : null;
+        this.permits = new Semaphore(Math.max(1, maxConcurrentCalls));
+    }
+
+    /**
+     * Creates a virtual thread per task executor via reflection, so that the connector still runs on Java 17.
+     * 
+     * @return {@link ExecutorService}; null if virtual threads are not available
+     */
+    static ExecutorService createVirtualThreadExecutor() {
+        try {
+            ExecutorService ret = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            logger.info("Records are rendered on virtual threads.");
+            return ret;
+        } catch (ReflectiveOperationException | SecurityException e) {
+            logger.warn("Virtual threads are not available in this JVM ({}), records are rendered sequentially.", System.getProperty("java.version"));
+            return null;
+        }
+    }
+
+    /**
+     * Renders all given items and returns the results in the same order.
+     * 
+     * @param items Items to render
+     * @param task Rendering logic for a single item
+     * @return List of results
+     * @throws IOException
+     * @throws SolrServerException
+     * @should return results in input order
+     * @should not exceed max concurrent calls
+     * @should rethrow task exceptions
+     */
+    public <T, R> List<R> renderAll(List<T> items, RecordTask<T, R> task) throws IOException, SolrServerException {
+        List<R> ret = new ArrayList<>(items.size());
+        if (executor == null || items.size() < 2) {
+            for (T item : items) {
+                ret.add(task.render(item));
+            }
+            return ret;
+        }
+
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            futures.add(executor.submit(() -> renderWithPermit(item, task)));
+        }
+        try {
+            for (Future<R> future : futures) {
+                ret.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioe) {
+                throw ioe;
+            }
+            if (cause instanceof SolrServerException sse) {
+                throw sse;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw new IOException(cause);
+        } finally {
+            for (Future<R> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * 
+     * @param item
+     * @param task
+     * @return Rendered record
+     * @throws IOException
+     * @throws SolrServerException
+     * @throws InterruptedException
+     */
+    private <T, R> R renderWithPermit(T item, RecordTask<T, R> task) throws IOException, SolrServerException, InterruptedException {
+        permits.acquire();
+        try {
+            return task.render(item);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * @return true if records are rendered on virtual threads; false otherwise
+     */
+    public boolean isVirtualThreads() {
+        return executor != null;
+    }
+
+    /**
+     * Stops the rendering threads.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            logger.debug("Shutting down record rendering threads.");
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,366 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrDocument;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+
+import io.goobi.viewer.connector.oai.RequestHandler;
+import io.goobi.viewer.solr.SolrConstants;
+
+/**
+ * Store of pre-rendered OAI records on disk, one gzip compressed file per metadata format, filter query suffix and record. Each file contains the
+ * DATEUPDATED value of the record version and the hash of the configuration it was rendered with, so outdated entries are never served, even if
+ * the incremental refresh has not caught up with the index or the configuration has changed since. Only records whose output depends on nothing
+ * but the record itself are stored (no set, no deleted records, no anchors, no until date before the latest update). Only top-level records
+ * are stored, since child documents such as articles share PI_TOPSTRUCT with their parent and would otherwise share its store file. Stored records
+ * are served as {@link SpooledElement}s and written to the response without being parsed again.
+ */
+public class RecordStore {
+
+    private static final Logger logger = LogManager.getLogger(RecordStore.class);
+
+    private static final String FILE_EXTENSION = ".xml.gz";
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final boolean enabled;
+    private final Path folder;
+    private final List<String> metadataPrefixes;
+    /** Supplies the hash of the current configuration (see {@link Configuration#getContentHash()}) */
+    private final Supplier<String> configHash;
+
+    /**
+     * Renders a record live if it is not in the store.
+     */
+    @FunctionalInterface
+    public interface RecordSource {
+
+        /**
+         * @return Rendered OAI record; error element or null if the record could not be rendered
+         * @throws IOException
+         * @throws SolrServerException
+         */
+        Element render() throws IOException, SolrServerException;
+    }
+
+    /**
+     * 
+     * @param enabled If false, all records are rendered live
+     * @param folder Store folder
+     * @param metadataPrefixes Metadata prefixes whose records are stored
+     * @param configHash Supplies the hash of the current configuration; stored records rendered with a different configuration are rendered again
+     */
+    public RecordStore(boolean enabled, Path folder, List<String> metadataPrefixes, Supplier<String> configHash) {
+        this.enabled = enabled && folder != null && !metadataPrefixes.isEmpty();
+        this.folder = folder;
+        this.metadataPrefixes = List.copyOf(metadataPrefixes);
+        this.configHash = configHash;
+    }
+
+    /**
+     * Returns the stored record for the given Solr document, if it is up to date. Otherwise, the record is rendered and stored for later requests.
+     * 
+     * @param doc Solr document of the record
+     * @param handler
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @param source Live rendering of the record
+     * @return Stored or rendered record
+     * @throws IOException
+     * @throws SolrServerException
+     * @should render and store record on miss
+     * @should return stored record on hit
+     * @should render record again if outdated
+     * @should render record again if configuration changed
+     * @should not store error elements
+     * @should not serve topstruct record for child doc
+     * @should return stored record as spooled element
+     */
+    public Element getOrRender(SolrDocument doc, RequestHandler handler, String filterQuerySuffix, RecordSource source)
+            throws IOException, SolrServerException {
+        if (!enabled || handler.getMetadataPrefix() == null || !metadataPrefixes.contains(handler.getMetadataPrefix().getMetadataPrefix())
+                || !isStorable(doc, handler)) {
+            return source.render();
+        }
+
+        String version = getVersion(SolrSearchTools.getLatestValidDateUpdated(doc, 0));
+        Path file = getFile(handler.getMetadataPrefix().getMetadataPrefix(), getPi(doc), filterQuerySuffix);
+        Element ret = read(file, version);
+        if (ret != null) {
+            return ret;
+        }
+        ret = source.render();
+        // Only store actual records, not error elements
+        if (ret != null && XmlConstants.ELE_NAME_RECORD.equals(ret.getName())) {
+            write(file, version, ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Checks whether the OAI record of the given Solr document depends on the record alone, rather than on request parameters or other records.
+     * 
+     * @param doc Solr document of the record
+     * @param handler
+     * @return true if the rendered record may be stored; false otherwise
+     * @should return true for plain record
+     * @should return false if set requested
+     * @should return false for deleted records
+     * @should return false for anchors
+     * @should return false if until before latest update
+     * @should return false for child docs
+     */
+    static boolean isStorable(SolrDocument doc, RequestHandler handler) {
+        if (StringUtils.isNotEmpty(handler.getSet()) || doc.getFieldValue(SolrConstants.DATEDELETED) != null
+                || Boolean.TRUE.equals(doc.getFieldValue(SolrConstants.ISANCHOR)) || getPi(doc) == null) {
+            return false;
+        }
+        long dateUpdated = SolrSearchTools.getLatestValidDateUpdated(doc, 0);
+        // The header datestamp must not depend on the until date
+        return dateUpdated > 0 && dateUpdated == SolrSearchTools.getLatestValidDateUpdated(doc, RequestHandler.getUntilTimestamp(handler.getUntil()));
+    }
+
+    /**
+     * Removes all stored versions of the given record.
+     * 
+     * @param pi Record identifier
+     * @return Number of deleted files
+     * @should delete record for all suffixes
+     */
+    public int invalidate(String pi) {
+        if (!enabled || pi == null) {
+            return 0;
+        }
+        int ret = 0;
+        String fileName = getFileName(pi);
+        for (String metadataPrefix : metadataPrefixes) {
+            Path prefixFolder = folder.resolve(metadataPrefix);
+            if (!Files.isDirectory(prefixFolder)) {
+                continue;
+            }
+            try (DirectoryStream<Path> suffixFolders = Files.newDirectoryStream(prefixFolder, Files::isDirectory)) {
+                for (Path suffixFolder : suffixFolders) {
+                    if (Files.deleteIfExists(suffixFolder.resolve(fileName))) {
+                        ret++;
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Could not remove stored records of '{}': {}", pi, e.getMessage());
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * 
+     * @param dateUpdated Latest DATEUPDATED value of the record
+     * @return Version line identifying the record version and the configuration it is rendered with
+     */
+    private String getVersion(long dateUpdated) {
+        return dateUpdated + " " + configHash.get();
+    }
+
+    /**
+     * Copies the stored record into a spool file, so that it is written to the response as is instead of being parsed into a JDOM tree.
+     * 
+     * @param file
+     * @param version Version line of the current record version and configuration
+     * @return Stored record as {@link SpooledElement}; null if not found or outdated
+     */
+    private static Element read(Path file, String version) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        Path spool = null;
+        try (BufferedReader reader =
+                new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            if (!version.equals(reader.readLine())) {
+                // Outdated version, will be replaced by the caller
+                return null;
+            }
+            spool = SpooledElement.createFile();
+            try (Writer writer = Files.newBufferedWriter(spool, StandardCharsets.UTF_8)) {
+                reader.transferTo(writer);
+            }
+            Element ret = new SpooledElement(XmlConstants.ELE_NAME_RECORD, getRootNamespace(spool), spool);
+            spool = null;
+            return ret;
+        } catch (IOException | XMLStreamException e) {
+            logger.warn("Could not read stored record {}: {}", file, e.getMessage());
+            return null;
+        } finally {
+            if (spool != null) {
+                try {
+                    Files.deleteIfExists(spool);
+                } catch (IOException e) {
+                    logger.warn(e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 
+     * @param file Serialized record
+     * @return {@link Namespace} of the root element in file
+     * @throws IOException
+     * @throws XMLStreamException if file contains no root element
+     */
+    private static Namespace getRootNamespace(Path file) throws IOException, XMLStreamException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+            try {
+                reader.nextTag();
+                return Namespace.getNamespace(StringUtils.defaultString(reader.getPrefix()), StringUtils.defaultString(reader.getNamespaceURI()));
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the given record to a temporary file first, so that concurrent requests never read an incomplete record.
+     * 
+     * @param file
+     * @param version Version line of the current record version and configuration
+     * @param eleRecord Rendered record
+     */
+    private static void write(Path file, String version, Element eleRecord) {
+        Path temp = null;
+        try {
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), "record", ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp);
+                    Writer writer = new OutputStreamWriter(new GZIPOutputStream(out), StandardCharsets.UTF_8)) {
+                writer.write(version);
+                writer.write('\n');
+                SpooledElement.getOutputter(org.jdom2.output.Format.getRawFormat()).output(eleRecord, writer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not store record {}: {}", file, e.getMessage());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    logger.warn(e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 
+     * @param metadataPrefix
+     * @param pi
+     * @param filterQuerySuffix
+     * @return {@link Path} of the store file for the given record
+     */
+    Path getFile(String metadataPrefix, String pi, String filterQuerySuffix) {
+        // Records may differ between clients with different access conditions
+        String suffixFolder = digest(StringUtils.defaultString(filterQuerySuffix)).substring(0, 16);
+        return folder.resolve(metadataPrefix).resolve(suffixFolder).resolve(getFileName(pi));
+    }
+
+    /**
+     * 
+     * @param pi
+     * @return File name for pi
+     */
+    private static String getFileName(String pi) {
+        return digest(pi) + FILE_EXTENSION;
+    }
+
+    /**
+     * 
+     * @param value
+     * @return Hex encoded SHA-1 digest of value
+     */
+    private static String digest(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 is available on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 
+     * @param doc
+     * @return Record identifier of doc; null if doc is not a top-level record
+     */
+    private static String getPi(SolrDocument doc) {
+        String pi = (String) doc.getFieldValue(SolrConstants.PI);
+        String piTopstruct = (String) doc.getFieldValue(SolrConstants.PI_TOPSTRUCT);
+        // Child docs carry the PI_TOPSTRUCT of their parent and no PI of their own
+        if (pi == null || (piTopstruct != null && !piTopstruct.equals(pi))) {
+            return null;
+        }
+        return pi;
+    }
+
+    /**
+     * @return true if records are stored; false otherwise
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Metadata prefixes whose records are stored
+     */
+    public List<String> getMetadataPrefixes() {
+        return metadataPrefixes;
+    }
+}
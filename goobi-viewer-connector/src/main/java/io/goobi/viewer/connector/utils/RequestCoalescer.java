@@ -0,0 +1,395 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.goobi.viewer.connector.utils.RequestExecutor.RequestProcessor;
+
+/**
+ * Lets concurrent identical requests share a single computation ("single flight"). The first request with a given key is processed into a
+ * buffer; requests with the same key that arrive while it is being processed wait for it and receive a copy of the same response. Requests that
+ * wait longer than the configured timeout are processed separately. Nothing is kept once the computation has finished, so later requests are
+ * always processed again.
+ */
+public class RequestCoalescer {
+
+    private static final Logger logger = LogManager.getLogger(RequestCoalescer.class);
+
+    /**
+     * Computation whose result may be shared.
+     *
+     * @param <T> Result type
+     */
+    @FunctionalInterface
+    public interface SharedComputation<T> {
+
+        /**
+         * 
+         * @return Result
+         * @throws ServletException
+         * @throws IOException
+         */
+        T compute() throws ServletException, IOException;
+    }
+
+    private final boolean enabled;
+    /** Number of milliseconds a request waits for an identical running request */
+    private final long waitTimeout;
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * 
+     * @param enabled If false, every request is processed separately
+     * @param waitTimeout Number of milliseconds a request waits for an identical running request before it is processed separately
+     */
+    public RequestCoalescer(boolean enabled, long waitTimeout) {
+        this.enabled = enabled;
+        this.waitTimeout = waitTimeout;
+    }
+
+    /**
+     * Builds a normalized request key from the request URL, the request parameters (in alphabetical order) and the client's access condition
+     * filter suffix.
+     * 
+     * @param url Request URL without query string
+     * @param parameters Request parameters
+     * @param filterQuerySuffix Filter query suffix for the client
+     * @return Request key
+     * @should ignore parameter order
+     * @should distinguish filter query suffixes
+     */
+    public static String getRequestKey(String url, Map<String, String[]> parameters, String filterQuerySuffix) {
+        StringBuilder sb = new StringBuilder(url);
+        sb.append('?');
+        if (parameters != null) {
+            for (Map.Entry<String, String[]> entry : new TreeMap<>(parameters).entrySet()) {
+                for (String value : entry.getValue()) {
+                    sb.append(entry.getKey()).append('=').append(value).append('&');
+                }
+            }
+        }
+        sb.append('#').append(filterQuerySuffix != null ? filterQuerySuffix : "");
+
+        return sb.toString();
+    }
+
+    /**
+     * Wraps the given request processor so that concurrent requests with the same key share its response.
+     * 
+     * @param key Normalized request key; null to process the request separately
+     * @param processor Request processor
+     * @return Coalescing request processor
+     */
+    public RequestProcessor coalesce(String key, RequestProcessor processor) {
+        if (!enabled || key == null) {
+            return processor;
+        }
+
+        return (request, response) -> share(key, () -> {
+            BufferedResponse buffer = new BufferedResponse(response);
+            processor.process(request, buffer);
+            return buffer;
+        }).writeTo(response);
+    }
+
+    /**
+     * Runs the given computation, unless a computation with the same key is already running, in which case its result is returned instead. If
+     * the running computation fails or does not finish within the wait timeout, the computation is run again for this caller.
+     * 
+     * @param key Computation key
+     * @param computation Computation
+     * @return Result of this or the running computation
+     * @throws ServletException
+     * @throws IOException
+     * @should share result of concurrent computation
+     * @should compute again after completion
+     * @should compute separately if running computation fails
+     * @should compute separately if running computation exceeds wait timeout
+     */
+    @SuppressWarnings("unchecked")
+    <T> T share(String key, SharedComputation<T> computation) throws ServletException, IOException {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            coalescedCount.incrementAndGet();
+            logger.trace("Waiting for identical request: {}", key);
+            try {
+                return (T) running.get(waitTimeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                logger.debug("Identical request failed, processing separately: {}", key);
+                return computation.compute();
+            } catch (TimeoutException e) {
+                logger.debug("Identical request takes too long, processing separately: {}", key);
+                return computation.compute();
+            }
+        }
+
+        try {
+            T ret = computation.compute();
+            future.complete(ret);
+            return ret;
+        } catch (ServletException | IOException | RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * @return true if identical requests are coalesced; false otherwise
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Number of requests that were answered with the response of an identical concurrent request
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Response wrapper that records status, headers and body instead of sending them, so that they can be sent to several clients.
+     */
+    static class BufferedResponse extends HttpServletResponseWrapper {
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        /** Header names and values in the order they were set */
+        private final List<String[]> headers = new ArrayList<>();
+        private int status = SC_OK;
+        private String errorMessage;
+        private boolean error = false;
+        private String contentType;
+        private String characterEncoding;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        /**
+         * 
+         * @param response Wrapped response
+         */
+        BufferedResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        /**
+         * Sends the recorded response to the given client.
+         * 
+         * @param response
+         * @throws IOException
+         */
+        void writeTo(HttpServletResponse response) throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            for (String[] header : headers) {
+                response.addHeader(header[0], header[1]);
+            }
+            if (error) {
+                response.sendError(status, errorMessage);
+                return;
+            }
+            response.setStatus(status);
+            if (contentType != null) {
+                response.setContentType(contentType);
+            }
+            if (characterEncoding != null) {
+                response.setCharacterEncoding(characterEncoding);
+            }
+            response.setContentLength(body.size());
+            body.writeTo(response.getOutputStream());
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new ServletOutputStream() {
+
+                    @Override
+                    public void write(int b) {
+                        body.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                        body.write(b, off, len);
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        // Writes never block
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                Charset charset = characterEncoding != null ? Charset.forName(characterEncoding) : StandardCharsets.ISO_8859_1;
+                writer = new PrintWriter(new OutputStreamWriter(body, charset));
+            }
+            return writer;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setContentType(String type) {
+            this.contentType = type;
+            if (type != null && type.toLowerCase().contains("charset=")) {
+                this.characterEncoding = type.substring(type.toLowerCase().indexOf("charset=") + 8).trim();
+            }
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setCharacterEncoding(String charset) {
+            this.characterEncoding = charset;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public String getCharacterEncoding() {
+            return characterEncoding != null ? characterEncoding : StandardCharsets.ISO_8859_1.name();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setContentLength(int len) {
+            // Set from the buffer size
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setHeader(String name, String value) {
+            headers.removeIf(h -> h[0].equalsIgnoreCase(name));
+            headers.add(new String[] { name, value });
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void addHeader(String name, String value) {
+            headers.add(new String[] { name, value });
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setIntHeader(String name, int value) {
+            setHeader(name, String.valueOf(value));
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void setStatus(int sc) {
+            this.status = sc;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void sendError(int sc) {
+            sendError(sc, null);
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void sendError(int sc, String msg) {
+            this.status = sc;
+            this.errorMessage = msg;
+            this.error = true;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public boolean isCommitted() {
+            return error;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void flushBuffer() {
+            // Nothing is sent before the response is complete
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void resetBuffer() {
+            body.reset();
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void reset() {
+            body.reset();
+            headers.clear();
+            status = SC_OK;
+            error = false;
+            errorMessage = null;
+            contentType = null;
+            characterEncoding = null;
+        }
+    }
+}
@@ -0,0 +1,578 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Processes servlet requests asynchronously on bounded thread pools, so that slow requests cannot exhaust the container's request threads. Heavy
+ * requests (list verbs, searches) and light requests (single records, descriptions) use separate pools. Requests that do not fit into the queue of
+ * their pool are rejected with HTTP 503 and a <code>Retry-After</code> header.
+ */
+public class RequestExecutor {
+
+    private static final Logger logger = LogManager.getLogger(RequestExecutor.class);
+
+    /** HTTP header telling rejected clients when to try again */
+    static final String HEADER_RETRY_AFTER = "Retry-After";
+
+    /**
+     * Request classes with separate thread pools.
+     */
+    public enum RequestClass {
+        /** Requests that may run for a long time, e.g. ListRecords */
+        HEAVY,
+        /** Requests that are expected to finish quickly, e.g. Identify or GetRecord */
+        LIGHT;
+    }
+
+    /**
+     * Request processing logic of a servlet.
+     */
+    @FunctionalInterface
+    public interface RequestProcessor {
+
+        /**
+         * 
+         * @param request
+         * @param response
+         * @throws ServletException
+         * @throws IOException
+         */
+        void process(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException;
+    }
+
+    private final boolean async;
+    private final ThreadPoolExecutor heavyExecutor;
+    private final ThreadPoolExecutor lightExecutor;
+    /** Number of seconds rejected clients are asked to wait */
+    private final int retryAfter;
+    /** Async timeout in milliseconds; 0 for no timeout */
+    private final long timeout;
+
+    /**
+     * 
+     * @param async If false, all requests are processed synchronously on the container thread
+     * @param heavyThreads Number of threads for heavy requests
+     * @param heavyQueueSize Maximum number of waiting heavy requests
+     * @param lightThreads Number of threads for light requests
+     * @param lightQueueSize Maximum number of waiting light requests
+     * @param retryAfter Number of seconds rejected clients are asked to wait
+     * @param timeout Async timeout in milliseconds; 0 for no timeout
+     */
+    public RequestExecutor(boolean async, int heavyThreads, int heavyQueueSize, int lightThreads, int lightQueueSize, int retryAfter, long timeout) {
+        this.async = async;
+        this.heavyExecutor = createExecutor("request-heavy", heavyThreads, heavyQueueSize);
+        this.lightExecutor = createExecutor("request-light", lightThreads, lightQueueSize);
+        this.retryAfter = retryAfter;
+        this.timeout = timeout;
+    }
+
+    /**
+     * 
+     * @param name Thread name prefix
+     * @param threads Number of threads
+     * @param queueSize Maximum number of waiting tasks; 0 to reject tasks when all threads are busy
+     * @return Bounded {@link ThreadPoolExecutor}
+     */
+    private static ThreadPoolExecutor createExecutor(String name, int threads, int queueSize) {
+        BlockingQueue<Runnable> queue = queueSize > 0 ? new ArrayBlockingQueue<>(queueSize) : new SynchronousQueue<>();
+        AtomicInteger threadCount = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        return new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, queue, r -> {
+            Thread thread = new Thread(r, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Processes the given request on the pool for its request class. Falls back to synchronous processing if async processing is disabled or not
+     * supported by the request (e.g. because a filter in the chain does not support it).
+     * 
+     * @param request Servlet request
+     * @param response Servlet response
+     * @param requestClass Request class
+     * @param processor Request processing logic
+     * @throws ServletException
+     * @throws IOException
+     */
+    public void execute(HttpServletRequest request, HttpServletResponse response, RequestClass requestClass, RequestProcessor processor)
+            throws ServletException, IOException {
+        if (!async || !request.isAsyncSupported()) {
+            processor.process(request, response);
+            return;
+        }
+
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(timeout);
+        AsyncTask task = new AsyncTask(asyncContext, processor);
+        asyncContext.addListener(task);
+        try {
+            getExecutor(requestClass).execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Too many {} requests, rejecting request from {}.", requestClass, request.getRemoteAddr());
+            task.reject();
+        }
+    }
+
+    /**
+     * 
+     * @param requestClass
+     * @return Executor for the given request class
+     */
+    private ThreadPoolExecutor getExecutor(RequestClass requestClass) {
+        return requestClass == RequestClass.HEAVY ? heavyExecutor : lightExecutor;
+    }
+
+    /**
+     * 
+     * @param requestClass
+     * @return Number of requests of the given class waiting for a thread
+     */
+    public int getQueueSize(RequestClass requestClass) {
+        return getExecutor(requestClass).getQueue().size();
+    }
+
+    /**
+     * 
+     * @param requestClass
+     * @return Number of requests of the given class currently being processed
+     */
+    public int getActiveCount(RequestClass requestClass) {
+        return getExecutor(requestClass).getActiveCount();
+    }
+
+    /**
+     * 
+     * @return Number of seconds rejected clients are asked to wait
+     */
+    public int getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Sends HTTP 503 with a <code>Retry-After</code> header, unless the response has already been committed.
+     * 
+     * @param response
+     * @param retryAfter Number of seconds the client is asked to wait
+     * @param message Error message
+     */
+    public static void sendUnavailable(HttpServletResponse response, int retryAfter, String message) {
+        if (response.isCommitted()) {
+            return;
+        }
+        response.setHeader(HEADER_RETRY_AFTER, String.valueOf(retryAfter));
+        try {
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, message);
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+        }
+    }
+
+    /**
+     * Stops all threads.
+     */
+    public void shutdown() {
+        heavyExecutor.shutdownNow();
+        lightExecutor.shutdownNow();
+    }
+
+    /**
+     * Runs the request processor for an async request and completes the request exactly once, whether it finishes, fails, times out or is
+     * rejected. The worker writes through a {@link GuardedResponse}, so that once the request has been completed by a timeout or by the container,
+     * any further output of the worker is dropped instead of reaching a response that may already be recycled.
+     */
+    private class AsyncTask implements Runnable, AsyncListener {
+
+        /** Waiting in the queue */
+        private static final int QUEUED = 0;
+        /** Being processed by a worker thread */
+        private static final int RUNNING = 1;
+        /** Finished, rejected, timed out or completed by the container */
+        private static final int DONE = 2;
+
+        private final AsyncContext asyncContext;
+        private final RequestProcessor processor;
+        /** Guarded by this task, so that no output reaches the response after it has been completed */
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private AsyncTask(AsyncContext asyncContext, RequestProcessor processor) {
+            this.asyncContext = asyncContext;
+            this.processor = processor;
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(QUEUED, RUNNING)) {
+                // Timed out or rejected while waiting in the queue
+                return;
+            }
+            HttpServletResponse response = new GuardedResponse((HttpServletResponse) asyncContext.getResponse());
+            try {
+                processor.process((HttpServletRequest) asyncContext.getRequest(), response);
+            } catch (ServletException | IOException | RuntimeException e) {
+                if (state.get() == DONE) {
+                    logger.debug("Output of timed out request dropped: {}", e.getMessage());
+                } else {
+                    logger.error(e.getMessage(), e);
+                }
+                if (!response.isCommitted()) {
+                    try {
+                        response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+                    } catch (IOException e1) {
+                        logger.error(e1.getMessage());
+                    }
+                }
+            } finally {
+                if (state.compareAndSet(RUNNING, DONE)) {
+                    complete();
+                }
+            }
+        }
+
+        /**
+         * Answers the request with HTTP 503, unless a worker has already started processing it.
+         * 
+         * @return true if the request was rejected; false if it is being processed or already done
+         */
+        boolean reject() {
+            if (!state.compareAndSet(QUEUED, DONE)) {
+                return false;
+            }
+            sendUnavailable((HttpServletResponse) asyncContext.getResponse(), retryAfter, "Too many requests, please try again later.");
+            complete();
+            return true;
+        }
+
+        /**
+         * Completes a request that is being processed, without waiting for the worker. Any further output of the worker is dropped.
+         * 
+         * @param message Error message sent if the response has not been committed yet
+         * @return true if the request was aborted; false if it was not being processed
+         */
+        synchronized boolean abort(String message) {
+            if (!state.compareAndSet(RUNNING, DONE)) {
+                return false;
+            }
+            sendUnavailable((HttpServletResponse) asyncContext.getResponse(), retryAfter, message);
+            complete();
+            return true;
+        }
+
+        private void complete() {
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException e) {
+                logger.debug("Async request already completed: {}", e.getMessage());
+            }
+        }
+
+        /**
+         * 
+         * @return true if the worker may still write to the response; false otherwise
+         */
+        private boolean isWritable() {
+            return state.get() == RUNNING;
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            if (reject()) {
+                logger.warn("Async request timed out while waiting for a thread.");
+            } else if (abort("Request timed out, please try again later.")) {
+                logger.warn("Async request timed out while being processed.");
+            }
+        }
+
+        @Override
+        public void onError(AsyncEvent event) throws IOException {
+            logger.warn("Async request failed: {}", event.getThrowable() != null ? event.getThrowable().getMessage() : "");
+            if (state.compareAndSet(QUEUED, DONE)) {
+                complete();
+            } else {
+                abort(null);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            synchronized (this) {
+                state.set(DONE);
+            }
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) throws IOException {
+            //
+        }
+
+        /**
+         * Response wrapper that passes output to the response only while the task is running. Writes after the request has been completed fail
+         * with an {@link IOException}, other modifications are ignored.
+         */
+        private class GuardedResponse extends HttpServletResponseWrapper {
+
+            private ServletOutputStream outputStream;
+            private PrintWriter writer;
+
+            /**
+             * 
+             * @param response Wrapped response
+             */
+            GuardedResponse(HttpServletResponse response) {
+                super(response);
+            }
+
+            /**
+             * 
+             * @throws IOException if the request has already been completed
+             */
+            private void checkWritable() throws IOException {
+                if (!isWritable()) {
+                    throw new IOException("Request already completed");
+                }
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public ServletOutputStream getOutputStream() throws IOException {
+                synchronized (AsyncTask.this) {
+                    checkWritable();
+                    if (outputStream == null) {
+                        ServletOutputStream out = super.getOutputStream();
+                        outputStream = new ServletOutputStream() {
+
+                            @Override
+                            public void write(int b) throws IOException {
+                                synchronized (AsyncTask.this) {
+                                    checkWritable();
+                                    out.write(b);
+                                }
+                            }
+
+                            @Override
+                            public void write(byte[] b, int off, int len) throws IOException {
+                                synchronized (AsyncTask.this) {
+                                    checkWritable();
+                                    out.write(b, off, len);
+                                }
+                            }
+
+                            @Override
+                            public void flush() throws IOException {
+                                synchronized (AsyncTask.this) {
+                                    checkWritable();
+                                    out.flush();
+                                }
+                            }
+
+                            @Override
+                            public boolean isReady() {
+                                return out.isReady();
+                            }
+
+                            @Override
+                            public void setWriteListener(WriteListener writeListener) {
+                                out.setWriteListener(writeListener);
+                            }
+                        };
+                    }
+                    return outputStream;
+                }
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public PrintWriter getWriter() throws IOException {
+                synchronized (AsyncTask.this) {
+                    checkWritable();
+                    if (writer == null) {
+                        PrintWriter out = super.getWriter();
+                        writer = new PrintWriter(new Writer() {
+
+                            @Override
+                            public void write(char[] cbuf, int off, int len) throws IOException {
+                                synchronized (AsyncTask.this) {
+                                    checkWritable();
+                                    out.write(cbuf, off, len);
+                                }
+                            }
+
+                            @Override
+                            public void flush() throws IOException {
+                                synchronized (AsyncTask.this) {
+                                    checkWritable();
+                                    out.flush();
+                                }
+                            }
+
+                            @Override
+                            public void close() throws IOException {
+                                flush();
+                            }
+                        });
+                    }
+                    return writer;
+                }
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public boolean isCommitted() {
+                synchronized (AsyncTask.this) {
+                    return !isWritable() || super.isCommitted();
+                }
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public void sendError(int sc, String msg) throws IOException {
+                synchronized (AsyncTask.this) {
+                    checkWritable();
+                    super.sendError(sc, msg);
+                }
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public void sendError(int sc) throws IOException {
+                sendError(sc, null);
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public void flushBuffer() throws IOException {
+                synchronized (AsyncTask.this) {
+                    checkWritable();
+                    super.flushBuffer();
+                }
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public void setStatus(int sc) {
+                synchronized (AsyncTask.this) {
+                    if (isWritable()) {
+                        super.setStatus(sc);
+                    }
+                }
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public void setHeader(String name, String value) {
+                synchronized (AsyncTask.this) {
+                    if (isWritable()) {
+                        super.setHeader(name, value);
+                    }
+                }
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public void addHeader(String name, String value) {
+                synchronized (AsyncTask.this) {
+                    if (isWritable()) {
+                        super.addHeader(name, value);
+                    }
+                }
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public void setIntHeader(String name, int value) {
+                synchronized (AsyncTask.this) {
+                    if (isWritable()) {
+                        super.setIntHeader(name, value);
+                    }
+                }
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public void setContentType(String type) {
+                synchronized (AsyncTask.this) {
+                    if (isWritable()) {
+                        super.setContentType(type);
+                    }
+                }
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public void setCharacterEncoding(String charset) {
+                synchronized (AsyncTask.this) {
+                    if (isWritable()) {
+                        super.setCharacterEncoding(charset);
+                    }
+                }
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public void reset() {
+                synchronized (AsyncTask.this) {
+                    if (isWritable()) {
+                        super.reset();
+                    }
+                }
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public void resetBuffer() {
+                synchronized (AsyncTask.this) {
+                    if (isWritable()) {
+                        super.resetBuffer();
+                    }
+                }
+            }
+
+            /** {@inheritDoc} */
+            @Override
+            public void setContentLength(int len) {
+                synchronized (AsyncTask.this) {
+                    if (isWritable()) {
+                        super.setContentLength(len);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -43,6 +44,7 @@ import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CursorMarkParams;
 
 import io.goobi.viewer.connector.DataManager;
 import io.goobi.viewer.controller.StringTools;
@@ -368,6 +370,42 @@ public class SolrSearchIndex {
         return null;
     }
 
+    /**
+     * Returns the next page of records for a bulk dump. Pages are retrieved with a cursor, so that deep pages are as cheap as the first one.
+     *
+     * @param params Request parameters (from, until, set, metadataPrefix)
+     * @param additionalQuery Additional query of the metadata format
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @param fieldList Optional list of fields to return
+     * @param cursorMark Cursor mark returned with the previous page; {@link CursorMarkParams#CURSOR_MARK_START} for the first page
+     * @param rows Number of records per page
+     * @return {@link QueryResponse} whose <code>nextCursorMark</code> equals <code>cursorMark</code> on the last page
+     * @throws SolrServerException
+     * @throws IOException
+     * @should return all records across pages
+     */
+    public QueryResponse getDumpRecords(Map<String, String> params, String additionalQuery, String filterQuerySuffix, List<String> fieldList,
+            String cursorMark, int rows) throws SolrServerException, IOException {
+        String query = SolrSearchTools.buildQueryString(params.get("from"), params.get("until"), params.get("set"), params.get("metadataPrefix"),
+                false, additionalQuery) + filterQuerySuffix;
+        logger.trace("Dump query: {}, cursor: {}", query, cursorMark);
+        SolrQuery solrQuery = new SolrQuery(query);
+        solrQuery.setRows(rows);
+        // Cursors require a sort on the unique key as the final tie breaker
+        solrQuery.addSort(SolrConstants.DATECREATED, ORDER.asc);
+        solrQuery.addSort(SolrConstants.IDDOC, ORDER.asc);
+        if (fieldList != null && !fieldList.isEmpty()) {
+            for (String field : fieldList) {
+                if (StringUtils.isNotEmpty(field)) {
+                    solrQuery.addField(field);
+                }
+            }
+        }
+        solrQuery.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
+
+        return querySolr(solrQuery, RETRY_ATTEMPTS);
+    }
+
     /**
      * Searches for identifier and return {@link org.apache.solr.common.SolrDocument} identifier can be PPN or URN (doc or page).
      *
@@ -559,6 +597,28 @@ public class SolrSearchIndex {
         return "";
     }
 
+    /**
+     * Returns a value that changes whenever records are indexed or removed, made up of the number of documents with a DATEUPDATED value and
+     * the latest DATEUPDATED value.
+     *
+     * @return Index version value
+     * @throws SolrServerException
+     * @throws IOException
+     * @should return non empty value
+     */
+    public String getIndexVersion() throws SolrServerException, IOException {
+        SolrQuery solrQuery = new SolrQuery("+" + SolrConstants.DATEUPDATED + ":*");
+        solrQuery.setRows(0);
+        solrQuery.setGetFieldStatistics(SolrConstants.DATEUPDATED);
+        QueryResponse resp = querySolr(solrQuery, RETRY_ATTEMPTS);
+        Object latest = null;
+        if (resp.getFieldStatsInfo() != null && resp.getFieldStatsInfo().get(SolrConstants.DATEUPDATED) != null) {
+            latest = resp.getFieldStatsInfo().get(SolrConstants.DATEUPDATED).getMax();
+        }
+
+        return resp.getResults().getNumFound() + ":" + latest;
+    }
+
     /**
      * If the given SolrDocument is an anchor, retrieve the latest DATEUPDATED timestamp value from its volumes.
      *
@@ -620,6 +680,84 @@ public class SolrSearchIndex {
         return null;
     }
 
+    /**
+     * Returns the first value of the given field for each of the given record identifiers, using a single query.
+     *
+     * @param pis Record identifiers
+     * @param field Field name
+     * @return Map with the first field value for each identifier that was found and has a value
+     * @throws SolrServerException
+     * @throws IOException
+     * @should return values for found identifiers
+     */
+    public Map<String, String> getFirstFieldValuesForPis(Collection<String> pis, String field) throws SolrServerException, IOException {
+        if (pis == null || pis.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        StringBuilder sbQuery = new StringBuilder();
+        sbQuery.append('+').append(SolrConstants.PI).append(":(");
+        for (String pi : pis) {
+            sbQuery.append('"').append(ClientUtils.escapeQueryChars(pi)).append("\" ");
+        }
+        sbQuery.append(')');
+
+        QueryResponse qr = search(sbQuery.toString(), 0, pis.size(), null, Arrays.asList(SolrConstants.PI, field), null);
+        Map<String, String> ret = new HashMap<>(qr.getResults().size());
+        for (SolrDocument doc : qr.getResults()) {
+            Object value = doc.getFirstValue(field);
+            if (value != null) {
+                ret.put((String) doc.getFieldValue(SolrConstants.PI), String.valueOf(value));
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Returns the page documents with an image URN for all given record identifiers using a single query, sorted by record identifier and page
+     * order. The total number of matching pages per record is returned as a facet on <code>PI_TOPSTRUCT</code>, so that callers can tell
+     * which records were only partially loaded when the number of rows is exceeded.
+     *
+     * @param pis Record identifiers
+     * @param first Index of the first page document to return
+     * @param rows Maximum number of page documents to return
+     * @param additionalQuery Optional additional query suffix
+     * @param filterQuerySuffix Filter query suffix for the client's session
+     * @return {@link QueryResponse}
+     * @throws SolrServerException
+     * @throws IOException
+     * @should return page documents sorted by record and page order
+     */
+    public QueryResponse getPageUrnsForPis(Collection<String> pis, int first, int rows, String additionalQuery, String filterQuerySuffix)
+            throws SolrServerException, IOException {
+        StringBuilder sbQuery = new StringBuilder();
+        sbQuery.append('+').append(SolrConstants.PI_TOPSTRUCT).append(":(");
+        for (String pi : pis) {
+            sbQuery.append('"').append(ClientUtils.escapeQueryChars(pi)).append("\" ");
+        }
+        sbQuery.append(") +")
+                .append(SolrConstants.DOCTYPE)
+                .append(":PAGE +")
+                .append(SolrConstants.IMAGEURN)
+                .append(":*");
+        if (StringUtils.isNotEmpty(additionalQuery)) {
+            sbQuery.append(additionalQuery);
+        }
+        if (StringUtils.isNotEmpty(filterQuerySuffix)) {
+            sbQuery.append(filterQuerySuffix);
+        }
+
+        Map<String, String> params = new HashMap<>(4);
+        params.put("facet", "true");
+        params.put("facet.field", SolrConstants.PI_TOPSTRUCT);
+        params.put("facet.limit", "-1");
+        params.put("facet.mincount", "1");
+
+        return search(sbQuery.toString(), first, first + rows, Arrays.asList(SolrConstants.PI_TOPSTRUCT, SolrConstants.ORDER),
+                Arrays.asList(SolrConstants.PI_TOPSTRUCT, SolrConstants.IMAGEURN, SolrConstants.ORDER), params);
+    }
+
     /**
      * <p>
      * getFulltextFileNames.
@@ -34,6 +34,8 @@ import io.goobi.viewer.connector.DataManager;
 import io.goobi.viewer.connector.oai.RequestHandler;
 import io.goobi.viewer.connector.oai.enums.Metadata;
 import io.goobi.viewer.connector.oai.model.Set;
+import io.goobi.viewer.connector.oai.model.SetRegistry;
+import io.goobi.viewer.controller.NetTools;
 import io.goobi.viewer.exceptions.IndexUnreachableException;
 import io.goobi.viewer.model.search.SearchHelper;
 import io.goobi.viewer.model.security.IPrivilegeHolder;
@@ -67,6 +69,7 @@ public final class SolrSearchTools {
      * @param additionalQuery
      * @return Generated query
      * @should add from until to setSpec queries
+     * @should use custom query for additional sets
      */
     static String buildQueryString(String from, String until, String setSpec, String metadataPrefix, boolean excludeAnchor, String additionalQuery) {
         StringBuilder sbQuery = new StringBuilder();
@@ -82,36 +85,15 @@ public final class SolrSearchTools {
 
         // setSpec
         if (setSpec != null) {
-            boolean defaultSet = true;
-            // Use DC as the set field by default 
-            String setQuery = SolrConstants.DC + ":" + setSpec;
-
-            // Check whether this is an additional set and if so, use its custom query
-
-            List<Set> additionalSetList = DataManager.getInstance().getConfiguration().getAdditionalSets();
-            for (Set s : additionalSetList) {
-                if (s.getSetSpec().equals(setSpec)) {
-                    defaultSet = false;
-                    sbQuery = new StringBuilder(); // Replace query
-                    setQuery = s.getSetQuery();
-                    break;
-                }
-            }
-
-            // Check whether this is an all-values set and if so, use its field
-            if (defaultSet && setSpec.contains(":")) {
-                List<Set> allValuesSetList = DataManager.getInstance().getConfiguration().getAllValuesSets();
-                for (Set s : allValuesSetList) {
-                    if (s.getSetName().equals(setSpec.substring(0, setSpec.indexOf(":")))) {
-                        setQuery = setSpec;
-                        break;
-                    }
-                }
-            }
-            if (sbQuery.length() > 0) {
-                sbQuery.append(" +");
+            SetRegistry setRegistry = DataManager.getInstance().getSetRegistry();
+            Set additionalSet = setRegistry.getAdditionalSet(setSpec);
+            if (additionalSet != null) {
+                // Additional sets use their custom query instead
+                sbQuery = new StringBuilder(additionalSet.getSetQuery());
+            } else {
+                // All-values sets use their field, all other sets use DC
+                sbQuery.append(" +").append(setRegistry.getSetQuery(setSpec));
             }
-            sbQuery.append(setQuery);
         }
 
         // Solr timestamp range is irrelevant for iv_* formats
@@ -140,11 +122,27 @@ public final class SolrSearchTools {
      * Returns the blacklist filter suffix (if enabled), followed by the user-agnostic access condition suffix. For the purposes of OAI, the privilege
      * to download metadata is checked rather than the privilege to list a record.
      *
+     * The result is cached per client IP address. Requests with a session are not cached, since the session may contain a logged in user with
+     * individual privileges.
+     *
      * @param request
      * @return a {@link java.lang.String} object.
      * @throws IndexUnreachableException
      */
     public static String getAllSuffixes(HttpServletRequest request) {
+        if (request == null || request.getSession(false) != null) {
+            return computeAllSuffixes(request);
+        }
+
+        return DataManager.getInstance().getFilterSuffixCache().getSuffix(NetTools.getIpAddress(request), () -> computeAllSuffixes(request));
+    }
+
+    /**
+     * 
+     * @param request
+     * @return Filter query suffix computed by viewer-core
+     */
+    private static String computeAllSuffixes(HttpServletRequest request) {
         return SearchHelper.getAllSuffixes(request, true, true, IPrivilegeHolder.PRIV_DOWNLOAD_METADATA);
     }
 
@@ -0,0 +1,264 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.goobi.viewer.exceptions.HTTPException;
+
+/**
+ * Cache for source documents (LIDO, TEI, CMDI, etc.) retrieved from the viewer. Entries are validated against the record's DATEUPDATED value,
+ * so re-indexed records are retrieved again. The cache is bounded by number of documents and by their approximate size in memory. Documents that
+ * are not cached are retrieved in parallel by a small, fixed pool of worker threads with a bounded queue; if the queue is full, documents are
+ * retrieved on the calling thread.
+ */
+public class SourceDocumentCache {
+
+    private static final Logger logger = LogManager.getLogger(SourceDocumentCache.class);
+
+    /** Number of retrieval tasks that may wait for each worker thread */
+    private static final int QUEUE_SIZE_PER_THREAD = 16;
+
+    private final BoundedCache<String, CachedDocument> cache;
+    /** Worker pool for retrieval; null if documents are retrieved on the calling thread */
+    private final ExecutorService executor;
+
+    /**
+     * Retrieves the source document for a cache miss.
+     */
+    @FunctionalInterface
+    public interface DocumentLoader {
+
+        /**
+         * @return Document content; null or empty if not available
+         * @throws IOException
+         * @throws HTTPException
+         */
+        String load() throws IOException, HTTPException;
+    }
+
+    /**
+     * Key, DATEUPDATED value and loader for a single source document.
+     */
+    public static class DocumentRequest {
+
+        private final String key;
+        private final long dateUpdated;
+        private final DocumentLoader loader;
+
+        /**
+         * 
+         * @param key Cache key (e.g. format, PI and language)
+         * @param dateUpdated DATEUPDATED value of the record
+         * @param loader Loader for cache misses
+         */
+        public DocumentRequest(String key, long dateUpdated, DocumentLoader loader) {
+            this.key = key;
+            this.dateUpdated = dateUpdated;
+            this.loader = loader;
+        }
+    }
+
+    /**
+     * Document content and the DATEUPDATED value of the record at retrieval time.
+     */
+    private static final class CachedDocument {
+
+        private final long dateUpdated;
+        private final String content;
+
+        private CachedDocument(long dateUpdated, String content) {
+            this.dateUpdated = dateUpdated;
+            this.content = content;
+        }
+
+        /**
+         * @return Approximate size in bytes (two bytes per char, which is the upper bound for Java strings)
+         */
+        private long getSize() {
+            return 2L * content.length();
+        }
+    }
+
+    /**
+     * 
+     * @param maxSize Maximum number of cached documents
+     * @param maxBytes Maximum approximate size in bytes of all cached documents; 0 or less for no limit
+     * @param threads Number of retrieval threads; 1 or less to retrieve on the calling thread
+     */
+    public SourceDocumentCache(int maxSize, long maxBytes, int threads) {
+        this.cache = new BoundedCache<>(maxSize, 0, maxBytes, CachedDocument::getSize);
+        if (threads > 1) {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(threads * QUEUE_SIZE_PER_THREAD), r -> {
+                        Thread t = new Thread(r, "source-document-fetcher-" + threadCount.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Returns the document for the given key, if cached for the given DATEUPDATED value; otherwise the document is loaded and cached.
+     * 
+     * @param key Cache key
+     * @param dateUpdated DATEUPDATED value of the record
+     * @param loader Loader for cache misses
+     * @return Document content; null if not available
+     * @throws IOException
+     * @throws HTTPException
+     * @should return cached document if date updated unchanged
+     * @should load document again if date updated changed
+     * @should not exceed max bytes
+     */
+    public String getDocument(String key, long dateUpdated, DocumentLoader loader) throws IOException, HTTPException {
+        CachedDocument cached = cache.get(key);
+        if (cached != null && cached.dateUpdated == dateUpdated) {
+            return cached.content;
+        }
+
+        String content = loader.load();
+        if (content != null && !content.isEmpty()) {
+            cache.put(key, new CachedDocument(dateUpdated, content));
+            return content;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the documents for the given requests in the same order. Documents that are not cached are loaded in parallel. Documents that
+     * could not be loaded are returned as null.
+     * 
+     * @param requests Document requests
+     * @return List of document contents
+     * @throws IOException If interrupted while waiting for retrieval
+     * @should return documents in request order
+     * @should return null for failed documents
+     * @should load documents on calling thread if queue full
+     */
+    public List<String> getDocuments(List<DocumentRequest> requests) throws IOException {
+        List<String> ret = new ArrayList<>(requests.size());
+        if (executor == null || requests.size() < 2) {
+            for (DocumentRequest request : requests) {
+                ret.add(getDocumentOrNull(request));
+            }
+            return ret;
+        }
+
+        List<Future<String>> futures = new ArrayList<>(requests.size());
+        for (DocumentRequest request : requests) {
+            futures.add(submit(() -> getDocumentOrNull(request)));
+        }
+        try {
+            for (Future<String> future : futures) {
+                ret.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            for (Future<String> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Submits the given task to the worker pool. If the pool's queue is full, the task is run on the calling thread instead.
+     * 
+     * @param task
+     * @return {@link Future} of the task
+     */
+    private Future<String> submit(Callable<String> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            FutureTask<String> ret = new FutureTask<>(task);
+            ret.run();
+            return ret;
+        }
+    }
+
+    /**
+     * 
+     * @param request
+     * @return Document content; null if not available or failed
+     */
+    private String getDocumentOrNull(DocumentRequest request) {
+        try {
+            return getDocument(request.key, request.dateUpdated, request.loader);
+        } catch (HTTPException | IOException e) {
+            logger.error("Could not retrieve source document {}: {}", request.key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Removes the document with the given key.
+     * 
+     * @param key Cache key
+     */
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    /**
+     * Stops the retrieval threads.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            logger.debug("Shutting down source document retrieval threads.");
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return Number of cached documents
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return Approximate size in bytes of all cached documents
+     */
+    public long getWeight() {
+        return cache.getWeight();
+    }
+}
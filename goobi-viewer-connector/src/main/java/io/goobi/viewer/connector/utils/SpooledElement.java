@@ -0,0 +1,141 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.ref.Cleaner;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import org.jdom2.output.support.AbstractXMLOutputProcessor;
+import org.jdom2.output.support.FormatStack;
+import org.jdom2.util.NamespaceStack;
+
+/**
+ * Placeholder element whose serialized form is spooled to a temporary file instead of being held in memory as a JDOM tree. The file contains the
+ * complete element including its start and end tag, with all namespace declarations it needs, and is copied as is into the output by the
+ * outputter from {@link #getOutputter(Format)}. The element itself has no content, so it must only be serialized, never inspected. The file is
+ * deleted once the element and all its clones are no longer reachable.
+ */
+public class SpooledElement extends Element {
+
+    private static final long serialVersionUID = 4412829431655021706L;
+
+    private static final Logger logger = LogManager.getLogger(SpooledElement.class);
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private static final SpooledOutputProcessor OUTPUT_PROCESSOR = new SpooledOutputProcessor();
+
+    /** Shared with clones, so that the file is kept as long as any of them is reachable */
+    private final transient Spool spool;
+
+    /**
+     *
+     * @param name Name of the serialized element
+     * @param namespace Namespace of the serialized element
+     * @param file Spool file created via {@link #createFile()}; owned and eventually deleted by this element
+     */
+    public SpooledElement(String name, Namespace namespace, Path file) {
+        super(name, namespace);
+        this.spool = new Spool(file);
+    }
+
+    /**
+     *
+     * @return New empty spool file
+     * @throws IOException
+     */
+    public static Path createFile() throws IOException {
+        return Files.createTempFile("connector-spool", ".xml");
+    }
+
+    /**
+     *
+     * @param format Output format; indentation is not applied to spooled content
+     * @return {@link XMLOutputter} that writes the content of {@link SpooledElement}s from their spool files
+     * @should write spooled content as is
+     * @should write regular elements unchanged
+     */
+    public static XMLOutputter getOutputter(Format format) {
+        return new XMLOutputter(format, OUTPUT_PROCESSOR);
+    }
+
+    /**
+     * Copies the serialized element to the given writer.
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void copyTo(Writer out) throws IOException {
+        try (Reader reader = Files.newBufferedReader(spool.file, StandardCharsets.UTF_8)) {
+            reader.transferTo(out);
+        }
+    }
+
+    /**
+     * @return the spool file
+     */
+    public Path getFile() {
+        return spool.file;
+    }
+
+    /**
+     * Output processor that replaces {@link SpooledElement}s with the content of their spool files.
+     */
+    private static final class SpooledOutputProcessor extends AbstractXMLOutputProcessor {
+
+        @Override
+        protected void printElement(Writer out, FormatStack fstack, NamespaceStack nstack, Element element) throws IOException {
+            if (element instanceof SpooledElement spooled) {
+                spooled.copyTo(out);
+                return;
+            }
+            super.printElement(out, fstack, nstack, element);
+        }
+    }
+
+    /**
+     * Spool file that is deleted when this object becomes unreachable.
+     */
+    private static final class Spool {
+
+        private final Path file;
+
+        Spool(Path file) {
+            this.file = file;
+            // The cleanup action must not refer to this object, or it would never become unreachable
+            CLEANER.register(this, () -> delete(file));
+        }
+
+        private static void delete(Path file) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Could not delete spool file {}: {}", file, e.getMessage());
+            }
+        }
+    }
+}
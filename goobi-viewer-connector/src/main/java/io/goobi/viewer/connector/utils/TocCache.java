@@ -0,0 +1,274 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.controller.NetTools;
+import io.goobi.viewer.exceptions.HTTPException;
+
+/**
+ * Cache for plain text tables of contents generated by the Goobi viewer REST API. Entries are keyed by record identifier and DATEUPDATED, so
+ * re-indexed records are fetched anew. Records without a TOC are cached as well, as is the unavailability of the current API end point (in which
+ * case the old end point is used directly until the configured interval has passed). Entries evicted from memory can optionally be written to a
+ * spill folder and are read from there on the next miss.
+ */
+public class TocCache {
+
+    private static final Logger logger = LogManager.getLogger(TocCache.class);
+
+    /** Marker for records that have no TOC */
+    private static final Toc NOT_FOUND = new Toc(null, null);
+
+    private final BoundedCache<String, Toc> cache;
+    private final Path spillFolder;
+    private final long notFoundTtl;
+    /** Time until which the current API end point is considered unavailable */
+    private volatile long currentApiUnavailableUntil = 0;
+
+    /**
+     * Generated TOC and the URL it was retrieved from.
+     */
+    public static final class Toc {
+
+        private final String url;
+        private final String text;
+
+        Toc(String url, String text) {
+            this.url = url;
+            this.text = text;
+        }
+
+        /**
+         * @return the url
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * @return the text
+         */
+        public String getText() {
+            return text;
+        }
+    }
+
+    /**
+     * 
+     * @param maxSize Maximum number of TOCs kept in memory
+     * @param spillFolder Optional folder for TOCs evicted from memory; blank to disable
+     * @param notFoundTtl Time in milliseconds for which an unavailable API end point is not queried again
+     */
+    public TocCache(int maxSize, String spillFolder, long notFoundTtl) {
+        this.cache = new BoundedCache<>(maxSize, 0);
+        this.notFoundTtl = notFoundTtl;
+        if (StringUtils.isNotBlank(spillFolder)) {
+            this.spillFolder = Paths.get(spillFolder);
+            this.cache.setEvictionListener(this::spill);
+        } else {
+            this.spillFolder = null;
+        }
+    }
+
+    /**
+     * Returns the TOC for the given record, either from the cache or from the REST API.
+     * 
+     * @param pi Record identifier
+     * @param dateUpdated Latest DATEUPDATED value of the record
+     * @return {@link Toc}; null if the record has no TOC
+     * @throws IOException
+     * @throws HTTPException if the TOC could not be retrieved for reasons other than a missing TOC
+     * @should return cached toc
+     * @should return null for cached missing toc
+     * @should read evicted toc from spill folder
+     */
+    public Toc getToc(String pi, long dateUpdated) throws IOException, HTTPException {
+        if (pi == null) {
+            return null;
+        }
+        String key = pi + '_' + dateUpdated;
+        Toc ret = cache.get(key);
+        if (ret == null) {
+            ret = readSpilled(pi, dateUpdated);
+            if (ret == null) {
+                ret = fetch(pi);
+            }
+            cache.put(key, ret);
+        }
+
+        return ret == NOT_FOUND ? null : ret;
+    }
+
+    /**
+     * Puts the given TOC into the cache (used for unit testing).
+     * 
+     * @param pi
+     * @param dateUpdated
+     * @param url
+     * @param text TOC text; null to record a missing TOC
+     */
+    void put(String pi, long dateUpdated, String url, String text) {
+        cache.put(pi + '_' + dateUpdated, text != null ? new Toc(url, text) : NOT_FOUND);
+    }
+
+    /**
+     * 
+     * @param pi
+     * @return {@link Toc}; NOT_FOUND if neither API end point has a TOC for pi
+     * @throws IOException
+     * @throws HTTPException
+     */
+    private Toc fetch(String pi) throws IOException, HTTPException {
+        String restApiUrl = DataManager.getInstance().getConfiguration().getRestApiUrl();
+        boolean currentApiUnavailable = System.currentTimeMillis() < currentApiUnavailableUntil;
+        if (!currentApiUnavailable) {
+            String url = restApiUrl + "records/" + pi + "/toc/";
+            try {
+                String val = NetTools.getWebContentGET(url);
+                if (StringUtils.isNotEmpty(val)) {
+                    return new Toc(url, val);
+                }
+            } catch (HTTPException e) {
+                // If the API end point was not found, try the fallback, otherwise re-throw the exception
+                if (e.getCode() != 404) {
+                    throw e;
+                }
+                currentApiUnavailable = true;
+            }
+        }
+
+        // Old API fallback
+        String url = restApiUrl + "records/toc/" + pi + "/";
+        try {
+            String val = NetTools.getWebContentGET(url);
+            if (StringUtils.isNotEmpty(val)) {
+                if (currentApiUnavailable && notFoundTtl > 0) {
+                    // Only the old end point works, so skip the current one for a while
+                    currentApiUnavailableUntil = System.currentTimeMillis() + notFoundTtl;
+                }
+                return new Toc(url, val);
+            }
+        } catch (HTTPException e) {
+            if (e.getCode() != 404) {
+                throw e;
+            }
+        }
+        logger.debug("No TOC found for '{}'", pi);
+        return NOT_FOUND;
+    }
+
+    /**
+     * Writes the given evicted entry to the spill folder. The file name is derived from the PI only, so older versions are overwritten.
+     * 
+     * @param key
+     * @param toc
+     */
+    private void spill(String key, Toc toc) {
+        if (toc == NOT_FOUND) {
+            return;
+        }
+        int index = key.lastIndexOf('_');
+        String pi = key.substring(0, index);
+        String dateUpdated = key.substring(index + 1);
+        try {
+            Files.createDirectories(spillFolder);
+            // Evictions are spilled concurrently, so write to a temporary file first to avoid torn files
+            Path temp = Files.createTempFile(spillFolder, "toc", ".tmp");
+            try {
+                Files.writeString(temp, dateUpdated + '\n' + toc.getUrl() + '\n' + toc.getText(), StandardCharsets.UTF_8);
+                Files.move(temp, getSpillFile(pi), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write TOC for '{}' to {}: {}", pi, spillFolder, e.getMessage());
+        }
+    }
+
+    /**
+     * 
+     * @param pi
+     * @param dateUpdated
+     * @return Spilled {@link Toc} for the given version of the record; null if none found
+     * @should return spilled toc
+     * @should reject and delete outdated version
+     */
+    Toc readSpilled(String pi, long dateUpdated) {
+        if (spillFolder == null) {
+            return null;
+        }
+        Path file = getSpillFile(pi);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            String content = Files.readString(file, StandardCharsets.UTF_8);
+            String[] parts = content.split("\n", 3);
+            if (parts.length == 3 && parts[0].equals(String.valueOf(dateUpdated))) {
+                return new Toc(parts[1], parts[2]);
+            }
+            // Outdated version
+            Files.delete(file);
+        } catch (IOException e) {
+            logger.warn("Could not read spilled TOC for '{}': {}", pi, e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * 
+     * @param pi
+     * @return {@link Path} of the spill file for pi
+     */
+    private Path getSpillFile(String pi) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(pi.getBytes(StandardCharsets.UTF_8));
+            return spillFolder.resolve(HexFormat.of().formatHex(digest) + ".txt");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 is available on every Java platform
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return Number of TOCs kept in memory
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Removes all TOCs from memory.
+     */
+    public void clear() {
+        cache.clear();
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.goobi.viewer.connector.DataManager;
+import io.goobi.viewer.messages.ViewerResourceBundle;
+
+/**
+ * Per-locale cache for {@link ViewerResourceBundle} translations used while rendering records. The cache is cleared whenever the local message
+ * files or the connector configuration have changed.
+ */
+public class TranslationCache {
+
+    private static final Logger logger = LogManager.getLogger(TranslationCache.class);
+
+    /** Cache key for lookups without an explicit locale */
+    private static final String DEFAULT_LOCALE_KEY = "";
+
+    private final Map<String, BoundedCache<String, String>> caches = new ConcurrentHashMap<>();
+    private final int maxSize;
+    /** Time in milliseconds between checks for changed message files */
+    private final long checkInterval;
+    private volatile long nextCheck = 0;
+    private String bundleVersion;
+
+    /**
+     * 
+     * @param maxSize Maximum number of cached translations per locale
+     * @param checkInterval Time in milliseconds between checks for changed message files; 0 to disable
+     */
+    public TranslationCache(int maxSize, long checkInterval) {
+        this.maxSize = maxSize;
+        this.checkInterval = checkInterval;
+    }
+
+    /**
+     * Returns the translation of the given key for the given locale.
+     * 
+     * @param key Message key
+     * @param locale Locale; null for the default locale
+     * @return Translation; key itself if no translation exists
+     * @should cache translations per locale
+     * @should return null if key null
+     */
+    public String getTranslation(String key, Locale locale) {
+        if (key == null) {
+            return null;
+        }
+        checkBundleVersion();
+
+        BoundedCache<String, String> cache =
+                caches.computeIfAbsent(locale != null ? locale.toLanguageTag() : DEFAULT_LOCALE_KEY, k -> new BoundedCache<>(maxSize, 0));
+        String translation = cache.get(key);
+        if (translation == null) {
+            translation = ViewerResourceBundle.getTranslation(key, locale);
+            if (translation != null) {
+                cache.put(key, translation);
+            }
+        }
+
+        return translation;
+    }
+
+    /**
+     * Clears all locales if the message files or the configuration have changed since the last check.
+     */
+    private void checkBundleVersion() {
+        if (checkInterval <= 0 || System.currentTimeMillis() < nextCheck) {
+            return;
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (now < nextCheck) {
+                return;
+            }
+            nextCheck = now + checkInterval;
+            String currentVersion = getBundleVersion();
+            if (bundleVersion != null && !bundleVersion.equals(currentVersion)) {
+                logger.debug("Message files or configuration have changed, clearing {} cached translations.", size());
+                invalidateAll();
+            }
+            bundleVersion = currentVersion;
+        }
+    }
+
+    /**
+     * 
+     * @return String combining the configuration generation and the modification dates of all local message files
+     */
+    static String getBundleVersion() {
+        Configuration config = DataManager.getInstance().getConfiguration();
+        StringBuilder sb = new StringBuilder().append(config.getGeneration());
+        File[] files =
+                new File(config.getViewerConfigFolder()).listFiles((dir, name) -> name.startsWith("messages_") && name.endsWith(".properties"));
+        if (files != null) {
+            Arrays.sort(files);
+            for (File file : files) {
+                sb.append('|').append(file.getName()).append(':').append(file.lastModified());
+            }
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Removes all cached translations.
+     */
+    public void invalidateAll() {
+        caches.clear();
+    }
+
+    /**
+     * @return Number of cached translations across all locales
+     */
+    public int size() {
+        int ret = 0;
+        for (BoundedCache<String, String> cache : caches.values()) {
+            ret += cache.size();
+        }
+        return ret;
+    }
+}
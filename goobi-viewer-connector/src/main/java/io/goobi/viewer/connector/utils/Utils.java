@@ -16,6 +16,7 @@
 package io.goobi.viewer.connector.utils;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
@@ -24,7 +25,11 @@ import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
@@ -32,6 +37,7 @@ import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jdom2.JDOMException;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -121,6 +127,65 @@ public final class Utils {
         }
     }
 
+    /**
+     * Handler for an HTTP response body that is consumed as a stream.
+     *
+     * @param <T> Result type
+     */
+    @FunctionalInterface
+    public interface ResponseBodyHandler<T> {
+
+        /**
+         * @param in Response body stream; closed by the caller
+         * @return Result
+         * @throws IOException
+         * @throws JDOMException
+         * @throws XMLStreamException
+         */
+        T handle(InputStream in) throws IOException, JDOMException, XMLStreamException;
+    }
+
+    /**
+     * Executes a GET request to the given URL and passes the response body to the given handler as a stream, so that large responses never
+     * have to be held in memory as a whole.
+     *
+     * @param <T> Result type
+     * @param url Request URL
+     * @param handler Handler for the response body
+     * @return Value returned by the handler
+     * @throws IOException if the request fails or the response status is not 200
+     * @throws JDOMException
+     * @throws XMLStreamException
+     */
+    public static <T> T getWebContentGET(String url, ResponseBodyHandler<T> handler) throws IOException, JDOMException, XMLStreamException {
+        RequestConfig defaultRequestConfig = RequestConfig.custom()
+                .setSocketTimeout(HTTP_TIMEOUT)
+                .setConnectTimeout(HTTP_TIMEOUT)
+                .setConnectionRequestTimeout(HTTP_TIMEOUT)
+                .build();
+        try (CloseableHttpClient httpClient = HttpClients.custom().setDefaultRequestConfig(defaultRequestConfig).build()) {
+            HttpGet get = new HttpGet(url);
+            try (CloseableHttpResponse response = httpClient.execute(get)) {
+                int code = response.getStatusLine().getStatusCode();
+                if (code != HttpStatus.SC_OK) {
+                    throw new IOException(code + ": " + url);
+                }
+                HttpEntity entity = response.getEntity();
+                if (entity == null) {
+                    throw new IOException("Empty response: " + url);
+                }
+                try (InputStream in = entity.getContent()) {
+                    try {
+                        return handler.handle(in);
+                    } finally {
+                        // Handlers may stop reading early; abort the connection so that closing the stream does not download the rest of the body
+                        get.abort();
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Returns the application version number.
      *
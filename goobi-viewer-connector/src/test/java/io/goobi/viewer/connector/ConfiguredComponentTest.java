@@ -0,0 +1,43 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class ConfiguredComponentTest {
+
+    /**
+     * @see ConfiguredComponent#get(long)
+     * @verifies return same instance for same generation
+     */
+    @Test
+    void get_shouldReturnSameInstanceForSameGeneration() throws Exception {
+        ConfiguredComponent<Object> component = new ConfiguredComponent<>(Object::new);
+        Assertions.assertSame(component.get(1), component.get(1));
+    }
+
+    /**
+     * @see ConfiguredComponent#get(long)
+     * @verifies create new instance for new generation
+     */
+    @Test
+    void get_shouldCreateNewInstanceForNewGeneration() throws Exception {
+        ConfiguredComponent<Object> component = new ConfiguredComponent<>(Object::new);
+        Object first = component.get(1);
+        Assertions.assertNotSame(first, component.get(2));
+    }
+}
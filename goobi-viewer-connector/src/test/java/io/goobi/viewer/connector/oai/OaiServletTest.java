@@ -20,6 +20,7 @@ import org.junit.jupiter.api.Test;
 
 import io.goobi.viewer.connector.AbstractTest;
 import io.goobi.viewer.connector.oai.servlets.OaiServlet;
+import io.goobi.viewer.connector.utils.RequestExecutor.RequestClass;
 
 class OaiServletTest extends AbstractTest {
     /**
@@ -81,4 +82,81 @@ class OaiServletTest extends AbstractTest {
         Assertions.assertTrue(OaiServlet.checkDatestamps("2015-09-30T15:00:00Z", null));
         Assertions.assertTrue(OaiServlet.checkDatestamps(null, "2015-09-30"));
     }
-}
\ No newline at end of file
+
+    /**
+     * @see OaiServlet#getRequestClass(String,boolean)
+     * @verifies return heavy for list verbs
+     */
+    @Test
+    void getRequestClass_shouldReturnHeavyForListVerbs() throws Exception {
+        Assertions.assertEquals(RequestClass.HEAVY, OaiServlet.getRequestClass("ListRecords", false));
+        Assertions.assertEquals(RequestClass.HEAVY, OaiServlet.getRequestClass("ListIdentifiers", false));
+    }
+
+    /**
+     * @see OaiServlet#getRequestClass(String,boolean)
+     * @verifies return heavy for resumption tokens
+     */
+    @Test
+    void getRequestClass_shouldReturnHeavyForResumptionTokens() throws Exception {
+        Assertions.assertEquals(RequestClass.HEAVY, OaiServlet.getRequestClass(null, true));
+    }
+
+    /**
+     * @see OaiServlet#getRequestClass(String,boolean)
+     * @verifies return light for other verbs
+     */
+    @Test
+    void getRequestClass_shouldReturnLightForOtherVerbs() throws Exception {
+        Assertions.assertEquals(RequestClass.LIGHT, OaiServlet.getRequestClass("GetRecord", false));
+        Assertions.assertEquals(RequestClass.LIGHT, OaiServlet.getRequestClass("Identify", false));
+        Assertions.assertEquals(RequestClass.LIGHT, OaiServlet.getRequestClass(null, false));
+    }
+
+    /**
+     * @see OaiServlet#getLimitVerb(String)
+     * @verifies return title of known verb
+     */
+    @Test
+    void getLimitVerb_shouldReturnTitleOfKnownVerb() throws Exception {
+        Assertions.assertEquals("ListRecords", OaiServlet.getLimitVerb("ListRecords"));
+    }
+
+    /**
+     * @see OaiServlet#getLimitVerb(String)
+     * @verifies return null for unknown verb
+     */
+    @Test
+    void getLimitVerb_shouldReturnNullForUnknownVerb() throws Exception {
+        Assertions.assertNull(OaiServlet.getLimitVerb("ListRecords123"));
+        Assertions.assertNull(OaiServlet.getLimitVerb(null));
+    }
+
+    /**
+     * @see OaiServlet#getLimitFormat(String,boolean)
+     * @verifies return prefix of known format
+     */
+    @Test
+    void getLimitFormat_shouldReturnPrefixOfKnownFormat() throws Exception {
+        Assertions.assertEquals("oai_dc", OaiServlet.getLimitFormat("oai_dc", false));
+    }
+
+    /**
+     * @see OaiServlet#getLimitFormat(String,boolean)
+     * @verifies return null for unknown format
+     */
+    @Test
+    void getLimitFormat_shouldReturnNullForUnknownFormat() throws Exception {
+        Assertions.assertNull(OaiServlet.getLimitFormat("foo", false));
+        Assertions.assertNull(OaiServlet.getLimitFormat(null, false));
+    }
+
+    /**
+     * @see OaiServlet#getLimitFormat(String,boolean)
+     * @verifies return null for resumption tokens
+     */
+    @Test
+    void getLimitFormat_shouldReturnNullForResumptionTokens() throws Exception {
+        Assertions.assertNull(OaiServlet.getLimitFormat("oai_dc", true));
+    }
+}
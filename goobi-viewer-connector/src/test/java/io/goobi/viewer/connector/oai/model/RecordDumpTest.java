@@ -0,0 +1,73 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.input.SAXBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractSolrEnabledTest;
+import io.goobi.viewer.connector.oai.RequestHandler;
+import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.oai.model.formats.Format;
+
+class RecordDumpTest extends AbstractSolrEnabledTest {
+
+    /**
+     * @see RecordDump#getFrame()
+     * @verifies contain request attributes
+     */
+    @Test
+    void getFrame_shouldContainRequestAttributes() throws Exception {
+        RequestHandler handler = new RequestHandler();
+        handler.setMetadataPrefix(Metadata.OAI_DC);
+        handler.setFrom("2015-01-01");
+        RecordDump dump = new RecordDump(Format.getFormatByMetadataPrefix(Metadata.OAI_DC), handler, "", 10);
+        String[] frame = dump.getFrame();
+        Assertions.assertEquals(2, frame.length);
+        Assertions.assertTrue(frame[0].contains("verb=\"ListRecords\""));
+        Assertions.assertTrue(frame[0].contains("metadataPrefix=\"oai_dc\""));
+        Assertions.assertTrue(frame[0].contains("from=\"2015-01-01\""));
+        Assertions.assertTrue(frame[0].trim().endsWith("<ListRecords>"));
+        Assertions.assertTrue(frame[1].trim().startsWith("</ListRecords>"));
+    }
+
+    /**
+     * @see RecordDump#write(java.io.OutputStream)
+     * @verifies write all records as compressed document
+     */
+    @Test
+    void write_shouldWriteAllRecordsAsCompressedDocument() throws Exception {
+        RequestHandler handler = new RequestHandler();
+        handler.setMetadataPrefix(Metadata.OAI_DC);
+        RecordDump dump = new RecordDump(Format.getFormatByMetadataPrefix(Metadata.OAI_DC), handler, "", 10);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = dump.write(out);
+        Assertions.assertTrue(count > 10);
+
+        Document doc = new SAXBuilder().build(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())));
+        Element eleListRecords = doc.getRootElement().getChild("ListRecords", Format.OAI_NS);
+        Assertions.assertNotNull(eleListRecords);
+        Assertions.assertEquals(count, eleListRecords.getChildren("record", Format.OAI_NS).size());
+        Assertions.assertNull(eleListRecords.getChild("resumptionToken", Format.OAI_NS));
+    }
+}
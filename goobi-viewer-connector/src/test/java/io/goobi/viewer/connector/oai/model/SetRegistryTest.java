@@ -0,0 +1,81 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.model;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractSolrEnabledTest;
+import io.goobi.viewer.connector.DataManager;
+
+class SetRegistryTest extends AbstractSolrEnabledTest {
+
+    /**
+     * @see SetRegistry#getSetValues(Set)
+     * @verifies cache values
+     */
+    @Test
+    void getSetValues_shouldCacheValues() throws Exception {
+        SetRegistry setRegistry = new SetRegistry();
+        Set set = setRegistry.getAllValuesSets().get(0);
+        Assertions.assertEquals("DC", set.getSetName());
+        List<String> values = setRegistry.getSetValues(set);
+        Assertions.assertFalse(values.isEmpty());
+        Assertions.assertSame(values, setRegistry.getSetValues(set));
+    }
+
+    /**
+     * @see SetRegistry#getAdditionalSet(String)
+     * @verifies return additional set
+     */
+    @Test
+    void getAdditionalSet_shouldReturnAdditionalSet() throws Exception {
+        Set set = DataManager.getInstance().getSetRegistry().getAdditionalSet("testspec");
+        Assertions.assertNotNull(set);
+        Assertions.assertEquals("DC:a.b.c.d", set.getSetQuery());
+    }
+
+    /**
+     * @see SetRegistry#getAdditionalSet(String)
+     * @verifies return null if setSpec not configured
+     */
+    @Test
+    void getAdditionalSet_shouldReturnNullIfSetSpecNotConfigured() throws Exception {
+        Assertions.assertNull(DataManager.getInstance().getSetRegistry().getAdditionalSet("notconfigured"));
+        Assertions.assertNull(DataManager.getInstance().getSetRegistry().getAdditionalSet(null));
+    }
+
+    /**
+     * @see SetRegistry#getSetQuery(String)
+     * @verifies return setSpec for all values sets
+     */
+    @Test
+    void getSetQuery_shouldReturnSetSpecForAllValuesSets() throws Exception {
+        Assertions.assertEquals("MD_WISSENSGEBIET:foo", DataManager.getInstance().getSetRegistry().getSetQuery("MD_WISSENSGEBIET:foo"));
+    }
+
+    /**
+     * @see SetRegistry#getSetQuery(String)
+     * @verifies return dc query for other sets
+     */
+    @Test
+    void getSetQuery_shouldReturnDcQueryForOtherSets() throws Exception {
+        Assertions.assertEquals("DC:goobi", DataManager.getInstance().getSetRegistry().getSetQuery("goobi"));
+        Assertions.assertEquals("DC:MD_OTHER:foo", DataManager.getInstance().getSetRegistry().getSetQuery("MD_OTHER:foo"));
+    }
+}
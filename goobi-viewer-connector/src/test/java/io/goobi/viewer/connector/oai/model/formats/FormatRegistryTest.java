@@ -0,0 +1,46 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.model.formats;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractTest;
+import io.goobi.viewer.connector.oai.enums.Metadata;
+
+class FormatRegistryTest extends AbstractTest {
+
+    /**
+     * @see FormatRegistry#getFormat(Metadata)
+     * @verifies return same instance for same prefix
+     */
+    @Test
+    void getFormat_shouldReturnSameInstanceForSamePrefix() throws Exception {
+        FormatRegistry registry = new FormatRegistry();
+        Format format = registry.getFormat(Metadata.OAI_DC);
+        Assertions.assertTrue(format instanceof OAIDCFormat);
+        Assertions.assertSame(format, registry.getFormat(Metadata.OAI_DC));
+    }
+
+    /**
+     * @see FormatRegistry#getFormat(Metadata)
+     * @verifies return null if prefix null
+     */
+    @Test
+    void getFormat_shouldReturnNullIfPrefixNull() throws Exception {
+        Assertions.assertNull(new FormatRegistry().getFormat(null));
+    }
+}
@@ -28,7 +28,10 @@ import org.junit.jupiter.api.Test;
 import io.goobi.viewer.connector.AbstractSolrEnabledTest;
 import io.goobi.viewer.connector.DataManager;
 import io.goobi.viewer.connector.oai.RequestHandler;
+import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.oai.enums.Verb;
 import io.goobi.viewer.connector.oai.model.ResumptionToken;
+import io.goobi.viewer.connector.oai.model.metadata.MetadataTemplate;
 
 class FormatTest extends AbstractSolrEnabledTest {
 
@@ -120,6 +123,54 @@ class FormatTest extends AbstractSolrEnabledTest {
         }
     }
 
+    /**
+     * @see Format#createResumptionTokenAndElement(long,long,int,int,int,int,RequestHandler)
+     * @verifies store page cursor in token
+     */
+    @Test
+    void createResumptionTokenAndElement_shouldStorePageCursorInToken() throws Exception {
+        File tokenFolder = new File(DataManager.getInstance().getConfiguration().getResumptionTokenFolder());
+        try {
+            if (!tokenFolder.exists()) {
+                tokenFolder.mkdirs();
+            }
+            Element ele = Format.createResumptionTokenAndElement(100, 100, 10, 10, 250, 0, new RequestHandler());
+            Assertions.assertNotNull(ele);
+            ResumptionToken token = Format.deserializeResumptionToken(new File(tokenFolder, ele.getText()));
+            Assertions.assertEquals(10, token.getRawCursor());
+            Assertions.assertEquals(250, token.getPageCursor());
+        } finally {
+            if (tokenFolder.isDirectory()) {
+                FileUtils.deleteDirectory(tokenFolder);
+            }
+        }
+    }
+
+    /**
+     * @see Format#createResumptionTokenAndElement(long,long,int,int,int,int,RequestHandler)
+     * @verifies store rows of next page in token
+     */
+    @Test
+    void createResumptionTokenAndElement_shouldStoreRowsOfNextPageInToken() throws Exception {
+        File tokenFolder = new File(DataManager.getInstance().getConfiguration().getResumptionTokenFolder());
+        try {
+            if (!tokenFolder.exists()) {
+                tokenFolder.mkdirs();
+            }
+            RequestHandler handler = new RequestHandler();
+            handler.setVerb(Verb.LISTRECORDS);
+            handler.setMetadataPrefix(Metadata.METS);
+            Element ele = Format.createResumptionTokenAndElement(100, 100, 10, 10, 0, 0, handler);
+            Assertions.assertNotNull(ele);
+            ResumptionToken token = Format.deserializeResumptionToken(new File(tokenFolder, ele.getText()));
+            Assertions.assertEquals(DataManager.getInstance().getPageSizer().getRows(Metadata.METS.getMetadataPrefix()), token.getRows());
+        } finally {
+            if (tokenFolder.isDirectory()) {
+                FileUtils.deleteDirectory(tokenFolder);
+            }
+        }
+    }
+
     /**
      * @see Format#handleToken(String)
      * @verifies return error if resumption token name illegal
@@ -142,5 +193,19 @@ class FormatTest extends AbstractSolrEnabledTest {
 
         ResumptionToken token = Format.deserializeResumptionToken(f);
         Assertions.assertNotNull(token);
+        // Tokens created before adaptive page sizing use the configured number of hits per token
+        Assertions.assertEquals(0, token.getRows());
+    }
+
+    /**
+     * @see Format#getMetadataTemplates(String,String)
+     * @verifies return same templates for same docstruct
+     */
+    @Test
+    void getMetadataTemplates_shouldReturnSameTemplatesForSameDocstruct() throws Exception {
+        Format format = new OAIDCFormat();
+        List<MetadataTemplate> templates = format.getMetadataTemplates(Metadata.OAI_DC.getMetadataPrefix(), "monograph");
+        Assertions.assertEquals(14, templates.size());
+        Assertions.assertSame(templates, format.getMetadataTemplates(Metadata.OAI_DC.getMetadataPrefix(), "monograph"));
     }
-}
\ No newline at end of file
+}
@@ -15,7 +15,11 @@
  */
 package io.goobi.viewer.connector.oai.model.formats;
 
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import org.apache.solr.common.SolrDocument;
 import org.jdom2.Document;
@@ -31,32 +35,21 @@ import io.goobi.viewer.solr.SolrConstants;
 
 class MARCXMLFormatTest extends AbstractSolrEnabledTest {
 
+    private static final String METS_FILE = "src/test/resources/viewer/indexed_mets/PPN517154005.xml";
+
     /**
-     * @see MARCXMLFormat#generateMarc(Element,String,String)
+     * @see MARCXMLFormat#generateMarcRecord(InputStream,SolrDocument,RequestHandler,String,List,String)
      * @verifies generate element correctly
      */
     @Test
-    void createGetRecord_shouldGenerateElementCorrectly() throws Exception {
-        Document metsDoc = XmlTools.readXmlFile("src/test/resources/viewer/indexed_mets/PPN517154005.xml");
-        Assertions.assertNotNull(metsDoc);
-        Element eleMets = metsDoc.getRootElement();
-        Assertions.assertEquals("mets", eleMets.getName());
-
+    void generateMarcRecord_shouldGenerateElementCorrectly() throws Exception {
         SolrDocument doc = new SolrDocument();
         doc.setField(SolrConstants.PI_TOPSTRUCT, "PPN517154005");
 
-        Element eleRecordMets =
-                METSFormat.generateMetsRecord(XmlTools.getStringFromElement(metsDoc, StandardCharsets.UTF_8.name()), doc, new RequestHandler(),
-                        null, null);
-        Assertions.assertNotNull(eleRecordMets);
-
-        Element eleGetRecordWrapper = new Element("GetRecord", Format.OAI_NS);
-        eleGetRecordWrapper.addContent(eleRecordMets);
-
-        Element eleGetRecordMarc = MARCXMLFormat.generateMarc(eleGetRecordWrapper, "PPN517154005", "GetRecord");
-        Assertions.assertNotNull(eleGetRecordMarc);
-
-        Element eleRecord = eleGetRecordMarc.getChild(XmlConstants.ELE_NAME_RECORD, Format.OAI_NS);
+        Element eleRecord;
+        try (InputStream is = new FileInputStream(METS_FILE)) {
+            eleRecord = MARCXMLFormat.generateMarcRecord(is, doc, new RequestHandler(), "PPN517154005", null, null);
+        }
         Assertions.assertNotNull(eleRecord);
         Assertions.assertEquals(XmlConstants.ELE_NAME_RECORD, eleRecord.getName());
         Assertions.assertNotNull(eleRecord.getChild(XmlConstants.ELE_NAME_HEADER, Format.OAI_NS));
@@ -67,4 +60,54 @@ class MARCXMLFormatTest extends AbstractSolrEnabledTest {
         Assertions.assertNotNull(eleMarcRecord);
         Assertions.assertEquals(XmlConstants.ELE_NAME_RECORD, eleMarcRecord.getName());
     }
-}
\ No newline at end of file
+
+    /**
+     * @see MARCXMLFormat#generateMarcRecord(InputStream,SolrDocument,RequestHandler,String,List,String)
+     * @verifies use element specific mods if identifier matches contentids
+     */
+    @Test
+    void generateMarcRecord_shouldUseElementSpecificModsIfIdentifierMatchesContentids() throws Exception {
+        Document metsDoc = XmlTools.readXmlFile(METS_FILE);
+        Assertions.assertNotNull(metsDoc);
+        // Assign a CONTENTIDS value to the chapter with its own dmdSec
+        for (Element eleStructMap : metsDoc.getRootElement().getChildren("structMap", MARCXMLFormat.NAMESPACE_METS)) {
+            if ("LOGICAL".equals(eleStructMap.getAttributeValue("TYPE"))) {
+                for (Element eleDiv : eleStructMap.getChild("div", MARCXMLFormat.NAMESPACE_METS).getChildren("div", MARCXMLFormat.NAMESPACE_METS)) {
+                    if ("DMDLOG_0001".equals(eleDiv.getAttributeValue("DMDID"))) {
+                        eleDiv.setAttribute("CONTENTIDS", "urn:test:chapter");
+                    }
+                }
+            }
+        }
+        byte[] metsBytes = XmlTools.getStringFromElement(metsDoc, StandardCharsets.UTF_8.name()).getBytes(StandardCharsets.UTF_8);
+
+        SolrDocument doc = new SolrDocument();
+        doc.setField(SolrConstants.PI_TOPSTRUCT, "PPN517154005");
+
+        Element eleRecord =
+                MARCXMLFormat.generateMarcRecord(new ByteArrayInputStream(metsBytes), doc, new RequestHandler(), "urn:test:chapter", null, null);
+        Assertions.assertNotNull(eleRecord);
+        Element eleMarcRecord = eleRecord.getChild(XmlConstants.ELE_NAME_METADATA, Format.OAI_NS)
+                .getChild(XmlConstants.ELE_NAME_RECORD, MARCXMLFormat.NAMESPACE_MARC);
+        Assertions.assertNotNull(eleMarcRecord);
+        Assertions.assertTrue(XmlTools.getStringFromElement(eleMarcRecord, StandardCharsets.UTF_8.name()).contains("Hochgeehrte Anwesende"));
+    }
+
+    /**
+     * @see MARCXMLFormat#readMarcSourceSections(InputStream,String)
+     * @verifies skip irrelevant sections
+     */
+    @Test
+    void readMarcSourceSections_shouldSkipIrrelevantSections() throws Exception {
+        Element eleMets;
+        try (InputStream is = new FileInputStream(METS_FILE)) {
+            eleMets = MARCXMLFormat.readMarcSourceSections(is, null);
+        }
+        Assertions.assertNotNull(eleMets);
+        Assertions.assertEquals("mets", eleMets.getName());
+        List<Element> children = eleMets.getChildren();
+        Assertions.assertEquals(1, children.size());
+        Assertions.assertEquals("dmdSec", children.get(0).getName());
+        Assertions.assertEquals("DMDLOG_0000", children.get(0).getAttributeValue("ID"));
+    }
+}
@@ -15,17 +15,27 @@
  */
 package io.goobi.viewer.connector.oai.model.formats;
 
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.solr.common.SolrDocument;
 import org.jdom2.Document;
 import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.input.SAXBuilder;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import io.goobi.viewer.connector.AbstractTest;
 import io.goobi.viewer.connector.oai.RequestHandler;
+import io.goobi.viewer.connector.oai.model.ErrorCode;
+import io.goobi.viewer.connector.utils.SpooledElement;
 import io.goobi.viewer.controller.XmlTools;
 import io.goobi.viewer.solr.SolrConstants;
 
@@ -66,4 +76,116 @@ class METSFormatTest extends AbstractTest {
         Assertions.assertNull(METSFormat.generateMetsRecord(XmlTools.getStringFromElement("", StandardCharsets.UTF_8.name()), doc, new RequestHandler(),
                 null, null));
     }
-}
\ No newline at end of file
+
+    /**
+     * Serializes the given record with its spooled METS content and returns the parsed METS root.
+     * 
+     * @param eleRecord
+     * @return METS root element
+     */
+    private static Element getMets(Element eleRecord) throws Exception {
+        String xml = SpooledElement.getOutputter(org.jdom2.output.Format.getRawFormat()).outputString(eleRecord);
+        return new SAXBuilder().build(new StringReader(xml))
+                .getRootElement()
+                .getChild("metadata", Format.OAI_NS)
+                .getChild("mets", METSFormat.METS_NS);
+    }
+
+    /**
+     * @see METSFormat#generateMetsRecord(InputStream,SolrDocument,RequestHandler,List,String)
+     * @verifies pass content through under replaced root element
+     */
+    @Test
+    void generateMetsRecord_shouldPassContentThroughUnderReplacedRootElement() throws Exception {
+        SolrDocument doc = new SolrDocument();
+        doc.setField(SolrConstants.PI_TOPSTRUCT, "PPN517154005");
+
+        Element eleRecord;
+        try (InputStream is = new FileInputStream("src/test/resources/viewer/indexed_mets/PPN517154005.xml")) {
+            eleRecord = METSFormat.generateMetsRecord(is, doc, new RequestHandler(), null, null);
+        }
+        Assertions.assertNotNull(eleRecord);
+        // METS content is not held as a JDOM tree
+        Element eleSpooled = eleRecord.getChild("metadata", Format.OAI_NS).getChild("mets", METSFormat.METS_NS);
+        Assertions.assertTrue(eleSpooled instanceof SpooledElement);
+        Assertions.assertTrue(eleSpooled.getChildren().isEmpty());
+
+        Element eleMets = getMets(eleRecord);
+        Assertions.assertNotNull(eleMets);
+        Assertions.assertTrue(eleMets.getAttributeValue("schemaLocation", Format.XSI_NS).contains("mets.v1-7.xsd"));
+        Assertions.assertEquals(2, eleMets.getChildren("dmdSec", METSFormat.METS_NS).size());
+        Assertions.assertNotNull(eleMets.getChild("fileSec", METSFormat.METS_NS));
+        Assertions.assertEquals(2, eleMets.getChildren("structMap", METSFormat.METS_NS).size());
+    }
+
+    /**
+     * @see METSFormat#generateMetsRecord(InputStream,SolrDocument,RequestHandler,List,String)
+     * @verifies keep namespace declarations of source root
+     */
+    @Test
+    void generateMetsRecord_shouldKeepNamespaceDeclarationsOfSourceRoot() throws Exception {
+        SolrDocument doc = new SolrDocument();
+        doc.setField(SolrConstants.PI_TOPSTRUCT, "PPN123");
+        String xml = "<mets:mets xmlns:mets=\"http://www.loc.gov/METS/\" xmlns:mods=\"urn:other\" xmlns:foo=\"urn:foo\" OBJID=\"PPN123\">"
+                + "<mets:dmdSec><mods:title>a</mods:title><foo:bar/><plain/></mets:dmdSec></mets:mets>";
+
+        Element eleRecord;
+        try (InputStream is = new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))) {
+            eleRecord = METSFormat.generateMetsRecord(is, doc, new RequestHandler(), null, null);
+        }
+        Element eleMets = getMets(eleRecord);
+        Assertions.assertEquals("PPN123", eleMets.getAttributeValue("OBJID"));
+        // The mods prefix of the new root must not change the namespace of the source content
+        Element eleDmdSec = eleMets.getChild("dmdSec", METSFormat.METS_NS);
+        Assertions.assertEquals("a", eleDmdSec.getChildText("title", Namespace.getNamespace("urn:other")));
+        Assertions.assertNotNull(eleDmdSec.getChild("bar", Namespace.getNamespace("urn:foo")));
+        // Unqualified content must not end up in the OAI namespace
+        Assertions.assertNotNull(eleDmdSec.getChild("plain", Namespace.NO_NAMESPACE));
+    }
+
+    /**
+     * @see METSFormat#renderRecords(List,io.goobi.viewer.connector.utils.RecordRenderer.RecordTask)
+     * @verifies leave out failed records
+     */
+    @Test
+    void renderRecords_shouldLeaveOutFailedRecords() throws Exception {
+        List<SolrDocument> records = new ArrayList<>();
+        for (String pi : new String[] { "PPN1", "PPN2", "PPN3", "PPN4" }) {
+            SolrDocument doc = new SolrDocument();
+            doc.setField(SolrConstants.PI_TOPSTRUCT, pi);
+            records.add(doc);
+        }
+        List<Element> result = METSFormat.renderRecords(records, doc -> {
+            switch ((String) doc.getFieldValue(SolrConstants.PI_TOPSTRUCT)) {
+                case "PPN2":
+                    throw new IOException("foo");
+                case "PPN3":
+                    return new ErrorCode().getIdDoesNotExist();
+                case "PPN4":
+                    return null;
+                default:
+                    return new Element("record", Format.OAI_NS);
+            }
+        });
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals("record", result.get(0).getName());
+    }
+
+    /**
+     * @see METSFormat#getRenderError(String)
+     * @verifies return id does not exist for GetRecord
+     */
+    @Test
+    void getRenderError_shouldReturnIdDoesNotExistForGetRecord() throws Exception {
+        Assertions.assertEquals("idDoesNotExist", METSFormat.getRenderError("GetRecord").getAttributeValue("code"));
+    }
+
+    /**
+     * @see METSFormat#getRenderError(String)
+     * @verifies return cannot disseminate format for ListRecords
+     */
+    @Test
+    void getRenderError_shouldReturnCannotDisseminateFormatForListRecords() throws Exception {
+        Assertions.assertEquals("cannotDisseminateFormat", METSFormat.getRenderError("ListRecords").getAttributeValue("code"));
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.oai.model.metadata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.solr.common.SolrDocument;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractTest;
+import io.goobi.viewer.connector.oai.model.metadata.MetadataParameter.MetadataParameterType;
+import io.goobi.viewer.solr.SolrConstants;
+
+class MetadataTemplateTest extends AbstractTest {
+
+    private static MetadataParameter createParam(String key, boolean dontUseTopstructValue) {
+        return new MetadataParameter(MetadataParameterType.FIELD, null, key, null, null, "", "", false, dontUseTopstructValue);
+    }
+
+    /**
+     * @see MetadataTemplate#compile(List)
+     * @verifies compile all metadata fields
+     */
+    @Test
+    void compile_shouldCompileAllMetadataFields() throws Exception {
+        List<Metadata> metadataList = Arrays.asList(
+                new Metadata("title", "{0}", 0, Collections.singletonList(createParam("MD_TITLE", false)), false, -1, false),
+                new Metadata("identifier", "#AUTO#", 0, Collections.emptyList(), false, -1, false));
+        List<MetadataTemplate> templates = MetadataTemplate.compile(metadataList);
+        Assertions.assertEquals(2, templates.size());
+        Assertions.assertEquals("title", templates.get(0).getLabel());
+        Assertions.assertTrue(templates.get(0).isHasParams());
+        Assertions.assertEquals("#AUTO#", templates.get(1).getMasterValue());
+        Assertions.assertFalse(templates.get(1).isHasParams());
+    }
+
+    /**
+     * @see MetadataTemplate#compile(List)
+     * @verifies return empty list if metadataList null
+     */
+    @Test
+    void compile_shouldReturnEmptyListIfMetadataListNull() throws Exception {
+        Assertions.assertTrue(MetadataTemplate.compile((List<Metadata>) null).isEmpty());
+    }
+
+    /**
+     * @see MetadataTemplate#compile(Metadata)
+     * @verifies split master value into segments correctly
+     */
+    @Test
+    void compile_shouldSplitMasterValueIntoSegmentsCorrectly() throws Exception {
+        MetadataTemplate template = MetadataTemplate.compile(
+                new Metadata("creator", "{1}, {0} (creator)", 0, Arrays.asList(createParam("MD_FIRSTNAME", false), createParam("MD_LASTNAME", false)),
+                        false, -1, false));
+        Assertions.assertEquals("Doe, John (creator)", template.render(new String[] { "John", "Doe" }));
+    }
+
+    /**
+     * @see MetadataTemplate#compile(Metadata)
+     * @verifies keep placeholders without matching parameter as literal text
+     */
+    @Test
+    void compile_shouldKeepPlaceholdersWithoutMatchingParameterAsLiteralText() throws Exception {
+        MetadataTemplate template = MetadataTemplate
+                .compile(new Metadata("title", "{0} {1} {x} {", 0, Collections.singletonList(createParam("MD_TITLE", false)), false, -1, false));
+        Assertions.assertEquals("foo {1} {x} {", template.render(new String[] { "foo" }));
+    }
+
+    /**
+     * @see MetadataTemplate#render(String[])
+     * @verifies replace all occurrences of a placeholder
+     */
+    @Test
+    void render_shouldReplaceAllOccurrencesOfAPlaceholder() throws Exception {
+        MetadataTemplate template = MetadataTemplate
+                .compile(new Metadata("title", "{0}/{0}", 0, Collections.singletonList(createParam("MD_TITLE", false)), false, -1, false));
+        Assertions.assertEquals("foo/foo", template.render(new String[] { "foo" }));
+    }
+
+    /**
+     * @see MetadataTemplate#renderParameterValues(SolrDocument,SolrDocument,boolean)
+     * @verifies render values correctly
+     */
+    @Test
+    void renderParameterValues_shouldRenderValuesCorrectly() throws Exception {
+        MetadataTemplate template = MetadataTemplate.compile(new Metadata("subject", "{0} ({1})", 0,
+                Arrays.asList(createParam("MD_SUBJECT", false), createParam("MD_SUBJECT_TYPE", false)), false, -1, false));
+        SolrDocument doc = new SolrDocument();
+        doc.addField("MD_SUBJECT", "one");
+        doc.addField("MD_SUBJECT", "two");
+        doc.addField("MD_SUBJECT_TYPE", "topic");
+
+        List<String> values = template.renderParameterValues(doc, null, true);
+        Assertions.assertEquals(2, values.size());
+        Assertions.assertEquals("one (topic)", values.get(0));
+        Assertions.assertEquals("two ()", values.get(1));
+    }
+
+    /**
+     * @see MetadataTemplate#renderParameterValues(SolrDocument,SolrDocument,boolean)
+     * @verifies fall back to topstruct values
+     */
+    @Test
+    void renderParameterValues_shouldFallBackToTopstructValues() throws Exception {
+        List<MetadataParameter> params = new ArrayList<>();
+        params.add(createParam("MD_TITLE", false));
+        params.add(createParam("MD_PUBLISHER", false));
+        params.add(createParam("MD_PLACEPUBLISH", true));
+        MetadataTemplate template = MetadataTemplate.compile(new Metadata("title", "{0}: {1}{2}", 0, params, false, -1, false));
+        SolrDocument doc = new SolrDocument();
+        doc.addField("MD_TITLE", "Chapter");
+        SolrDocument topstructDoc = new SolrDocument();
+        topstructDoc.addField("MD_PUBLISHER", "Publisher");
+        topstructDoc.addField("MD_PLACEPUBLISH", "Place");
+
+        List<String> values = template.renderParameterValues(doc, topstructDoc, true);
+        Assertions.assertEquals(1, values.size());
+        Assertions.assertEquals("Chapter: Publisher", values.get(0));
+    }
+
+    /**
+     * @see MetadataTemplate#renderParameterValues(SolrDocument,SolrDocument,boolean)
+     * @verifies return empty list if restricted and not open access
+     */
+    @Test
+    void renderParameterValues_shouldReturnEmptyListIfRestrictedAndNotOpenAccess() throws Exception {
+        MetadataTemplate template = MetadataTemplate.compile(
+                new Metadata("relation", "{0}", 0, Collections.singletonList(createParam(SolrConstants.THUMBNAIL, false)), false, -1, false));
+        SolrDocument doc = new SolrDocument();
+        doc.addField(SolrConstants.THUMBNAIL, "00000001.tif");
+
+        Assertions.assertTrue(template.isRestrictedContent());
+        Assertions.assertTrue(template.renderParameterValues(doc, null, false).isEmpty());
+        Assertions.assertEquals(1, template.renderParameterValues(doc, null, true).size());
+    }
+}
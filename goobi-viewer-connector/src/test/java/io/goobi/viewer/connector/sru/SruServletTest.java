@@ -12,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import io.goobi.viewer.connector.AbstractSolrEnabledTest;
 import io.goobi.viewer.connector.DataManager;
 import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.connector.utils.RequestExecutor.RequestClass;
 import io.goobi.viewer.connector.utils.SolrSearchIndex;
 import io.goobi.viewer.solr.SolrConstants;
 
@@ -202,4 +203,42 @@ class SruServletTest extends AbstractSolrEnabledTest {
         Assertions.assertEquals("one", eleListArrStr.get(0).getText());
         Assertions.assertEquals("two", eleListArrStr.get(1).getText());
     }
-}
\ No newline at end of file
+
+    /**
+     * @see SruServlet#getRequestClass(String)
+     * @verifies return heavy for searchRetrieve
+     */
+    @Test
+    void getRequestClass_shouldReturnHeavyForSearchRetrieve() throws Exception {
+        Assertions.assertEquals(RequestClass.HEAVY, SruServlet.getRequestClass("searchRetrieve"));
+    }
+
+    /**
+     * @see SruServlet#getRequestClass(String)
+     * @verifies return light for other operations
+     */
+    @Test
+    void getRequestClass_shouldReturnLightForOtherOperations() throws Exception {
+        Assertions.assertEquals(RequestClass.LIGHT, SruServlet.getRequestClass("explain"));
+        Assertions.assertEquals(RequestClass.LIGHT, SruServlet.getRequestClass(null));
+    }
+
+    /**
+     * @see SruServlet#getLimitSchema(String)
+     * @verifies return prefix of known schema
+     */
+    @Test
+    void getLimitSchema_shouldReturnPrefixOfKnownSchema() throws Exception {
+        Assertions.assertEquals("mets", SruServlet.getLimitSchema("mets"));
+    }
+
+    /**
+     * @see SruServlet#getLimitSchema(String)
+     * @verifies return null for unknown schema
+     */
+    @Test
+    void getLimitSchema_shouldReturnNullForUnknownSchema() throws Exception {
+        Assertions.assertNull(SruServlet.getLimitSchema("foo"));
+        Assertions.assertNull(SruServlet.getLimitSchema(null));
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class AdaptivePageSizerTest {
+
+    /**
+     * @see AdaptivePageSizer#getRows(String,int,long,long)
+     * @verifies return max rows if no budgets configured
+     */
+    @Test
+    void getRows_shouldReturnMaxRowsIfNoBudgetsConfigured() throws Exception {
+        AdaptivePageSizer sizer = new AdaptivePageSizer();
+        sizer.addPage("mets", 10, 100_000_000L, 60_000L);
+        Assertions.assertEquals(100, sizer.getRows("mets", 100, 0, 0));
+    }
+
+    /**
+     * @see AdaptivePageSizer#getRows(String,int,long,long)
+     * @verifies return max rows if nothing observed
+     */
+    @Test
+    void getRows_shouldReturnMaxRowsIfNothingObserved() throws Exception {
+        AdaptivePageSizer sizer = new AdaptivePageSizer();
+        sizer.addPage("oai_dc", 10, 100_000_000L, 60_000L);
+        Assertions.assertEquals(100, sizer.getRows("mets", 100, 1_000_000L, 1000L));
+    }
+
+    /**
+     * @see AdaptivePageSizer#getRows(String,int,long,long)
+     * @verifies limit rows to size budget
+     */
+    @Test
+    void getRows_shouldLimitRowsToSizeBudget() throws Exception {
+        AdaptivePageSizer sizer = new AdaptivePageSizer();
+        // 1 MB per record
+        sizer.addPage("mets", 10, 10_000_000L, 100L);
+        Assertions.assertEquals(5, sizer.getRows("mets", 100, 5_000_000L, 0));
+        // Smaller records allow more rows, but not more than the maximum
+        sizer.addPage("mets", 10, 1000L, 100L);
+        Assertions.assertEquals(7, sizer.getRows("mets", 100, 5_000_000L, 0));
+        Assertions.assertEquals(6, sizer.getRows("mets", 6, 5_000_000L, 0));
+    }
+
+    /**
+     * @see AdaptivePageSizer#getRows(String,int,long,long)
+     * @verifies limit rows to time budget
+     */
+    @Test
+    void getRows_shouldLimitRowsToTimeBudget() throws Exception {
+        AdaptivePageSizer sizer = new AdaptivePageSizer();
+        // 2 seconds per record
+        sizer.addPage("mets", 10, 1000L, 20_000L);
+        Assertions.assertEquals(15, sizer.getRows("mets", 100, 1_000_000L, 30_000L));
+    }
+
+    /**
+     * @see AdaptivePageSizer#getRows(String,int,long,long)
+     * @verifies return at least one row
+     */
+    @Test
+    void getRows_shouldReturnAtLeastOneRow() throws Exception {
+        AdaptivePageSizer sizer = new AdaptivePageSizer();
+        sizer.addPage("mets", 1, 500_000_000L, 100L);
+        Assertions.assertEquals(1, sizer.getRows("mets", 100, 1_000_000L, 0));
+    }
+
+    /**
+     * @see AdaptivePageSizer#addPage(String,int,long,long)
+     * @verifies ignore empty pages
+     */
+    @Test
+    void addPage_shouldIgnoreEmptyPages() throws Exception {
+        AdaptivePageSizer sizer = new AdaptivePageSizer();
+        sizer.addPage("mets", 0, 1000L, 100L);
+        Assertions.assertEquals(100, sizer.getRows("mets", 100, 1L, 1L));
+    }
+}
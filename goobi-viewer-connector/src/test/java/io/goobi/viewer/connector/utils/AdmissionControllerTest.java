@@ -0,0 +1,187 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.utils.AdmissionController.ClientKeyType;
+import io.goobi.viewer.connector.utils.AdmissionController.Permit;
+
+class AdmissionControllerTest {
+
+    /**
+     * @see AdmissionController.ClientKeyType#getByName(String)
+     * @verifies return correct type
+     */
+    @Test
+    void getByName_shouldReturnCorrectType() throws Exception {
+        Assertions.assertEquals(ClientKeyType.USER_AGENT, ClientKeyType.getByName("userAgent"));
+        Assertions.assertEquals(ClientKeyType.IP, ClientKeyType.getByName("ip"));
+        Assertions.assertEquals(ClientKeyType.IP, ClientKeyType.getByName(null));
+    }
+
+    /**
+     * @see AdmissionController#getLimitKey(String,String)
+     * @verifies build key correctly
+     */
+    @Test
+    void getLimitKey_shouldBuildKeyCorrectly() throws Exception {
+        Assertions.assertEquals("listrecords/mets", AdmissionController.getLimitKey("ListRecords", "METS"));
+        Assertions.assertEquals("listrecords/", AdmissionController.getLimitKey("ListRecords", null));
+    }
+
+    /**
+     * @see AdmissionController#tryAcquireToken(String,long)
+     * @verifies admit requests up to capacity
+     */
+    @Test
+    void tryAcquireToken_shouldAdmitRequestsUpToCapacity() throws Exception {
+        AdmissionController admission = new AdmissionController(true, ClientKeyType.IP, 3, 60, 10, 0, null, 10);
+        Assertions.assertEquals(0, admission.tryAcquireToken("client", 1000));
+        Assertions.assertEquals(0, admission.tryAcquireToken("client", 1000));
+        Assertions.assertEquals(0, admission.tryAcquireToken("client", 1000));
+        // One token per second
+        Assertions.assertEquals(1, admission.tryAcquireToken("client", 1000));
+    }
+
+    /**
+     * @see AdmissionController#tryAcquireToken(String,long)
+     * @verifies refill tokens over time
+     */
+    @Test
+    void tryAcquireToken_shouldRefillTokensOverTime() throws Exception {
+        AdmissionController admission = new AdmissionController(true, ClientKeyType.IP, 1, 60, 10, 0, null, 10);
+        Assertions.assertEquals(0, admission.tryAcquireToken("client", 1000));
+        Assertions.assertTrue(admission.tryAcquireToken("client", 1500) > 0);
+        Assertions.assertEquals(0, admission.tryAcquireToken("client", 2500));
+    }
+
+    /**
+     * @see AdmissionController#tryAcquireToken(String,long)
+     * @verifies keep separate buckets per client
+     */
+    @Test
+    void tryAcquireToken_shouldKeepSeparateBucketsPerClient() throws Exception {
+        AdmissionController admission = new AdmissionController(true, ClientKeyType.IP, 1, 60, 10, 0, null, 10);
+        Assertions.assertEquals(0, admission.tryAcquireToken("client1", 1000));
+        Assertions.assertTrue(admission.tryAcquireToken("client1", 1000) > 0);
+        Assertions.assertEquals(0, admission.tryAcquireToken("client2", 1000));
+    }
+
+    /**
+     * @see AdmissionController#tryAcquirePermit(String,String)
+     * @verifies return null if limit reached
+     */
+    @Test
+    void tryAcquirePermit_shouldReturnNullIfLimitReached() throws Exception {
+        AdmissionController admission = new AdmissionController(true, ClientKeyType.IP, 0, 60, 10, 2, Collections.emptyMap(), 10);
+        Assertions.assertNotNull(admission.tryAcquirePermit("ListRecords", "oai_dc"));
+        Assertions.assertNotNull(admission.tryAcquirePermit("ListRecords", "oai_dc"));
+        Assertions.assertNull(admission.tryAcquirePermit("ListRecords", "oai_dc"));
+        // Other formats have their own limit
+        Assertions.assertNotNull(admission.tryAcquirePermit("ListRecords", "mets"));
+    }
+
+    /**
+     * @see AdmissionController#tryAcquirePermit(String,String)
+     * @verifies release permit on close
+     */
+    @Test
+    void tryAcquirePermit_shouldReleasePermitOnClose() throws Exception {
+        AdmissionController admission = new AdmissionController(true, ClientKeyType.IP, 0, 60, 10, 1, Collections.emptyMap(), 10);
+        Permit permit = admission.tryAcquirePermit("ListRecords", "oai_dc");
+        Assertions.assertNotNull(permit);
+        Assertions.assertNull(admission.tryAcquirePermit("ListRecords", "oai_dc"));
+        permit.close();
+        // Closing twice must not release a second permit
+        permit.close();
+        Assertions.assertNotNull(admission.tryAcquirePermit("ListRecords", "oai_dc"));
+        Assertions.assertNull(admission.tryAcquirePermit("ListRecords", "oai_dc"));
+    }
+
+    /**
+     * @see AdmissionController#tryAcquirePermit(String,String)
+     * @verifies prefer format specific limit
+     */
+    @Test
+    void tryAcquirePermit_shouldPreferFormatSpecificLimit() throws Exception {
+        Map<String, Integer> limits = new HashMap<>();
+        limits.put(AdmissionController.getLimitKey("ListRecords", "mets"), 1);
+        limits.put(AdmissionController.getLimitKey("ListIdentifiers", null), 1);
+        AdmissionController admission = new AdmissionController(true, ClientKeyType.IP, 0, 60, 10, 5, limits, 10);
+        Assertions.assertNotNull(admission.tryAcquirePermit("ListRecords", "mets"));
+        Assertions.assertNull(admission.tryAcquirePermit("ListRecords", "mets"));
+        Assertions.assertNotNull(admission.tryAcquirePermit("ListRecords", "oai_dc"));
+        // Verb limit is shared by all formats
+        Assertions.assertNotNull(admission.tryAcquirePermit("ListIdentifiers", "mets"));
+        Assertions.assertNull(admission.tryAcquirePermit("ListIdentifiers", "oai_dc"));
+    }
+
+    /**
+     * @see AdmissionController#configure(boolean,ClientKeyType,int,int,int,Map,int)
+     * @verifies keep token buckets
+     */
+    @Test
+    void configure_shouldKeepTokenBuckets() throws Exception {
+        AdmissionController admission = new AdmissionController(true, ClientKeyType.IP, 2, 60, 10, 0, null, 10);
+        Assertions.assertEquals(0, admission.tryAcquireToken("client", 1000));
+        Assertions.assertEquals(0, admission.tryAcquireToken("client", 1000));
+        admission.configure(true, ClientKeyType.IP, 5, 60, 0, null, 10);
+        // No new burst after reconfiguration
+        Assertions.assertEquals(1, admission.tryAcquireToken("client", 1000));
+        // Lowered capacity applies to existing buckets
+        admission.configure(true, ClientKeyType.IP, 1, 60, 0, null, 10);
+        Assertions.assertEquals(0, admission.tryAcquireToken("client", 60000));
+        Assertions.assertEquals(1, admission.tryAcquireToken("client", 60000));
+    }
+
+    /**
+     * @see AdmissionController#configure(boolean,ClientKeyType,int,int,int,Map,int)
+     * @verifies keep held permits
+     */
+    @Test
+    void configure_shouldKeepHeldPermits() throws Exception {
+        AdmissionController admission = new AdmissionController(true, ClientKeyType.IP, 0, 60, 10, 2, Collections.emptyMap(), 10);
+        Permit permit1 = admission.tryAcquirePermit("ListRecords", "oai_dc");
+        Permit permit2 = admission.tryAcquirePermit("ListRecords", "oai_dc");
+        Assertions.assertNotNull(permit1);
+        Assertions.assertNotNull(permit2);
+
+        // Same limit: the running requests still count
+        admission.configure(true, ClientKeyType.IP, 0, 60, 2, Collections.emptyMap(), 10);
+        Assertions.assertNull(admission.tryAcquirePermit("ListRecords", "oai_dc"));
+
+        // Raised limit: one more request is admitted
+        admission.configure(true, ClientKeyType.IP, 0, 60, 3, Collections.emptyMap(), 10);
+        Permit permit3 = admission.tryAcquirePermit("ListRecords", "oai_dc");
+        Assertions.assertNotNull(permit3);
+        Assertions.assertNull(admission.tryAcquirePermit("ListRecords", "oai_dc"));
+
+        // Lowered limit: new requests are admitted only once enough running requests have finished
+        admission.configure(true, ClientKeyType.IP, 0, 60, 1, Collections.emptyMap(), 10);
+        permit1.close();
+        permit2.close();
+        Assertions.assertNull(admission.tryAcquirePermit("ListRecords", "oai_dc"));
+        permit3.close();
+        Assertions.assertNotNull(admission.tryAcquirePermit("ListRecords", "oai_dc"));
+        Assertions.assertNull(admission.tryAcquirePermit("ListRecords", "oai_dc"));
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractSolrEnabledTest;
+import io.goobi.viewer.solr.SolrConstants;
+
+class AnchorTitleCacheTest extends AbstractSolrEnabledTest {
+
+    /**
+     * @see AnchorTitleCache#getTitle(String,String,String)
+     * @verifies cache not found results
+     */
+    @Test
+    void getTitle_shouldCacheNotFoundResults() throws Exception {
+        AnchorTitleCache cache = new AnchorTitleCache(10, 60000, 0);
+        Assertions.assertNull(cache.getTitle("-1", SolrConstants.TITLE, ""));
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(1, cache.getMissCount());
+
+        Assertions.assertNull(cache.getTitle("-1", SolrConstants.TITLE, ""));
+        Assertions.assertEquals(1, cache.getHitCount());
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BoundedCacheTest {
+
+    /**
+     * @see BoundedCache#BoundedCache(int,long)
+     * @verifies evict least recently used entry
+     */
+    @Test
+    void BoundedCache_shouldEvictLeastRecentlyUsedEntry() throws Exception {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, 0);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        // Access "a" so that "b" becomes the least recently used entry
+        Assertions.assertEquals("A", cache.get("a"));
+        cache.put("c", "C");
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertEquals("A", cache.get("a"));
+        Assertions.assertEquals("C", cache.get("c"));
+        Assertions.assertEquals(1, cache.getEvictionCount());
+    }
+
+    /**
+     * @see BoundedCache#BoundedCache(int,long)
+     * @verifies count hits and misses
+     */
+    @Test
+    void BoundedCache_shouldCountHitsAndMisses() throws Exception {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 0);
+        cache.put("a", "A");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        Assertions.assertEquals(2, cache.getHitCount());
+        Assertions.assertEquals(1, cache.getMissCount());
+    }
+
+    /**
+     * @see BoundedCache#BoundedCache(int,long,long,ToLongFunction)
+     * @verifies evict least recently used entries if max weight exceeded
+     */
+    @Test
+    void BoundedCache_shouldEvictLeastRecentlyUsedEntriesIfMaxWeightExceeded() throws Exception {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 0, 10, String::length);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        Assertions.assertEquals(8, cache.getWeight());
+        cache.put("c", "cccccccc");
+        Assertions.assertNull(cache.get("a"));
+        Assertions.assertNull(cache.get("b"));
+        Assertions.assertEquals("cccccccc", cache.get("c"));
+        Assertions.assertEquals(8, cache.getWeight());
+        Assertions.assertEquals(2, cache.getEvictionCount());
+        // An entry heavier than the limit is kept until the next put
+        cache.put("d", "dddddddddddd");
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(12, cache.getWeight());
+    }
+
+    /**
+     * @see BoundedCache#put(Object,Object)
+     * @verifies notify eviction listener outside lock
+     */
+    @Test
+    void put_shouldNotifyEvictionListenerOutsideLock() throws Exception {
+        BoundedCache<String, String> cache = new BoundedCache<>(1, 0);
+        List<String> evicted = new ArrayList<>();
+        cache.setEvictionListener((k, v) -> {
+            Assertions.assertFalse(Thread.holdsLock(cache));
+            evicted.add(k + "=" + v);
+        });
+        cache.put("a", "A");
+        cache.put("b", "B");
+        Assertions.assertEquals(List.of("a=A"), evicted);
+    }
+}
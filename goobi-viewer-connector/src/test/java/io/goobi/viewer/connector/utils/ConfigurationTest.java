@@ -216,6 +216,15 @@ class ConfigurationTest extends AbstractTest {
         Assertions.assertEquals("urn:nbn:de:hidden_", values.get(1));
     }
 
+    /**
+     * @see Configuration#getEpicurMaxPageRecords()
+     * @verifies return correct value
+     */
+    @Test
+    void getEpicurMaxPageRecords_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(500, DataManager.getInstance().getConfiguration().getEpicurMaxPageRecords());
+    }
+
     /**
      * @see Configuration#getHitsPerToken()
      * @verifies return correct value
@@ -252,6 +261,35 @@ class ConfigurationTest extends AbstractTest {
         Assertions.assertEquals(23, DataManager.getInstance().getConfiguration().getHitsPerTokenForMetadataFormat("notfound"));
     }
 
+    /**
+     * @see Configuration#getPageSizeBudgetForMetadataFormat(String)
+     * @verifies return correct value
+     */
+    @Test
+    void getPageSizeBudgetForMetadataFormat_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(10240,
+                DataManager.getInstance().getConfiguration().getPageSizeBudgetForMetadataFormat(Metadata.METS.getMetadataPrefix()));
+    }
+
+    /**
+     * @see Configuration#getPageSizeBudgetForMetadataFormat(String)
+     * @verifies return zero for unknown formats
+     */
+    @Test
+    void getPageSizeBudgetForMetadataFormat_shouldReturnZeroForUnknownFormats() throws Exception {
+        Assertions.assertEquals(0, DataManager.getInstance().getConfiguration().getPageSizeBudgetForMetadataFormat("notfound"));
+    }
+
+    /**
+     * @see Configuration#getPageTimeBudgetForMetadataFormat(String)
+     * @verifies return correct value
+     */
+    @Test
+    void getPageTimeBudgetForMetadataFormat_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(20000,
+                DataManager.getInstance().getConfiguration().getPageTimeBudgetForMetadataFormat(Metadata.METS.getMetadataPrefix()));
+    }
+
     /**
      * @see Configuration#getVersionDisriminatorFieldForMetadataFormat(String)
      * @verifies return correct value
@@ -398,4 +436,452 @@ class ConfigurationTest extends AbstractTest {
         Assertions.assertEquals("http://www.openarchives.org/OAI/2.0/", map.get("xmlns"));
         Assertions.assertEquals("repo", map.get("repositoryIdentifier"));
     }
+
+    /**
+     * @see Configuration#getTocCacheSize()
+     * @verifies return correct value
+     */
+    @Test
+    void getTocCacheSize_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(50, DataManager.getInstance().getConfiguration().getTocCacheSize());
+    }
+
+    /**
+     * @see Configuration#getTocCacheSpillFolder()
+     * @verifies return correct value
+     */
+    @Test
+    void getTocCacheSpillFolder_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals("target/toc/", DataManager.getInstance().getConfiguration().getTocCacheSpillFolder());
+    }
+
+    /**
+     * @see Configuration#getTocCacheNotFoundTtl()
+     * @verifies return correct value
+     */
+    @Test
+    void getTocCacheNotFoundTtl_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(600, DataManager.getInstance().getConfiguration().getTocCacheNotFoundTtl());
+    }
+
+    /**
+     * @see Configuration#getFulltextCacheSize()
+     * @verifies return correct value
+     */
+    @Test
+    void getFulltextCacheSize_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(100, DataManager.getInstance().getConfiguration().getFulltextCacheSize());
+    }
+
+    /**
+     * @see Configuration#getFulltextCacheMaxMemory()
+     * @verifies return correct value
+     */
+    @Test
+    void getFulltextCacheMaxMemory_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(32, DataManager.getInstance().getConfiguration().getFulltextCacheMaxMemory());
+    }
+
+    /**
+     * @see Configuration#getFulltextParserThreads()
+     * @verifies return correct value
+     */
+    @Test
+    void getFulltextParserThreads_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(2, DataManager.getInstance().getConfiguration().getFulltextParserThreads());
+    }
+
+    /**
+     * @see Configuration#getSourceDocumentCacheSize()
+     * @verifies return correct value
+     */
+    @Test
+    void getSourceDocumentCacheSize_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(200, DataManager.getInstance().getConfiguration().getSourceDocumentCacheSize());
+    }
+
+    /**
+     * @see Configuration#getSourceDocumentCacheMaxMemory()
+     * @verifies return correct value
+     */
+    @Test
+    void getSourceDocumentCacheMaxMemory_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(16, DataManager.getInstance().getConfiguration().getSourceDocumentCacheMaxMemory());
+    }
+
+    /**
+     * @see Configuration#getSourceDocumentFetcherThreads()
+     * @verifies return correct value
+     */
+    @Test
+    void getSourceDocumentFetcherThreads_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(3, DataManager.getInstance().getConfiguration().getSourceDocumentFetcherThreads());
+    }
+
+    /**
+     * @see Configuration#getSourceDocumentCacheNotFoundTtl()
+     * @verifies return correct value
+     */
+    @Test
+    void getSourceDocumentCacheNotFoundTtl_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(900, DataManager.getInstance().getConfiguration().getSourceDocumentCacheNotFoundTtl());
+    }
+
+    /**
+     * @see Configuration#getAnchorTitleCacheSize()
+     * @verifies return correct value
+     */
+    @Test
+    void getAnchorTitleCacheSize_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(500, DataManager.getInstance().getConfiguration().getAnchorTitleCacheSize());
+    }
+
+    /**
+     * @see Configuration#getAnchorTitleCacheTtl()
+     * @verifies return correct value
+     */
+    @Test
+    void getAnchorTitleCacheTtl_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(600, DataManager.getInstance().getConfiguration().getAnchorTitleCacheTtl());
+    }
+
+    /**
+     * @see Configuration#getAnchorTitleCacheIndexCheckInterval()
+     * @verifies return correct value
+     */
+    @Test
+    void getAnchorTitleCacheIndexCheckInterval_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(30, DataManager.getInstance().getConfiguration().getAnchorTitleCacheIndexCheckInterval());
+    }
+
+    /**
+     * @see Configuration#getTranslationCacheSize()
+     * @verifies return correct value
+     */
+    @Test
+    void getTranslationCacheSize_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(2000, DataManager.getInstance().getConfiguration().getTranslationCacheSize());
+    }
+
+    /**
+     * @see Configuration#getTranslationCacheCheckInterval()
+     * @verifies return correct value
+     */
+    @Test
+    void getTranslationCacheCheckInterval_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(45, DataManager.getInstance().getConfiguration().getTranslationCacheCheckInterval());
+    }
+
+    /**
+     * @see Configuration#getReloadCheckInterval()
+     * @verifies return correct value
+     */
+    @Test
+    void getReloadCheckInterval_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(5, DataManager.getInstance().getConfiguration().getReloadCheckInterval());
+    }
+
+    /**
+     * @see Configuration#getSetValuesCacheTtl()
+     * @verifies return correct value
+     */
+    @Test
+    void getSetValuesCacheTtl_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(120, DataManager.getInstance().getConfiguration().getSetValuesCacheTtl());
+    }
+
+    /**
+     * @see Configuration#getFilterSuffixCacheSize()
+     * @verifies return correct value
+     */
+    @Test
+    void getFilterSuffixCacheSize_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(250, DataManager.getInstance().getConfiguration().getFilterSuffixCacheSize());
+    }
+
+    /**
+     * @see Configuration#getFilterSuffixCacheTtl()
+     * @verifies return correct value
+     */
+    @Test
+    void getFilterSuffixCacheTtl_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(90, DataManager.getInstance().getConfiguration().getFilterSuffixCacheTtl());
+    }
+
+    /**
+     * @see Configuration#isRequestProcessingAsync()
+     * @verifies return correct value
+     */
+    @Test
+    void isRequestProcessingAsync_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertFalse(DataManager.getInstance().getConfiguration().isRequestProcessingAsync());
+    }
+
+    /**
+     * @see Configuration#getHeavyRequestThreads()
+     * @verifies return correct value
+     */
+    @Test
+    void getHeavyRequestThreads_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(3, DataManager.getInstance().getConfiguration().getHeavyRequestThreads());
+    }
+
+    /**
+     * @see Configuration#getHeavyRequestQueueSize()
+     * @verifies return correct value
+     */
+    @Test
+    void getHeavyRequestQueueSize_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(12, DataManager.getInstance().getConfiguration().getHeavyRequestQueueSize());
+    }
+
+    /**
+     * @see Configuration#getLightRequestThreads()
+     * @verifies return correct value
+     */
+    @Test
+    void getLightRequestThreads_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(6, DataManager.getInstance().getConfiguration().getLightRequestThreads());
+    }
+
+    /**
+     * @see Configuration#getLightRequestQueueSize()
+     * @verifies return correct value
+     */
+    @Test
+    void getLightRequestQueueSize_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(50, DataManager.getInstance().getConfiguration().getLightRequestQueueSize());
+    }
+
+    /**
+     * @see Configuration#getRequestRetryAfter()
+     * @verifies return correct value
+     */
+    @Test
+    void getRequestRetryAfter_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(15, DataManager.getInstance().getConfiguration().getRequestRetryAfter());
+    }
+
+    /**
+     * @see Configuration#getRequestTimeout()
+     * @verifies return correct value
+     */
+    @Test
+    void getRequestTimeout_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(600, DataManager.getInstance().getConfiguration().getRequestTimeout());
+    }
+
+    /**
+     * @see Configuration#isRecordRenderingVirtualThreads()
+     * @verifies return correct value
+     */
+    @Test
+    void isRecordRenderingVirtualThreads_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertTrue(DataManager.getInstance().getConfiguration().isRecordRenderingVirtualThreads());
+    }
+
+    /**
+     * @see Configuration#getRecordRenderingMaxConcurrentCalls()
+     * @verifies return correct value
+     */
+    @Test
+    void getRecordRenderingMaxConcurrentCalls_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(8, DataManager.getInstance().getConfiguration().getRecordRenderingMaxConcurrentCalls());
+    }
+
+    /**
+     * @see Configuration#isAdmissionControlEnabled()
+     * @verifies return correct value
+     */
+    @Test
+    void isAdmissionControlEnabled_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertTrue(DataManager.getInstance().getConfiguration().isAdmissionControlEnabled());
+    }
+
+    /**
+     * @see Configuration#getAdmissionClientKey()
+     * @verifies return correct value
+     */
+    @Test
+    void getAdmissionClientKey_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals("userAgent", DataManager.getInstance().getConfiguration().getAdmissionClientKey());
+    }
+
+    /**
+     * @see Configuration#getRateLimitCapacity()
+     * @verifies return correct value
+     */
+    @Test
+    void getRateLimitCapacity_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(40, DataManager.getInstance().getConfiguration().getRateLimitCapacity());
+    }
+
+    /**
+     * @see Configuration#getRateLimitRequestsPerMinute()
+     * @verifies return correct value
+     */
+    @Test
+    void getRateLimitRequestsPerMinute_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(90, DataManager.getInstance().getConfiguration().getRateLimitRequestsPerMinute());
+    }
+
+    /**
+     * @see Configuration#getRateLimitMaxClients()
+     * @verifies return correct value
+     */
+    @Test
+    void getRateLimitMaxClients_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(500, DataManager.getInstance().getConfiguration().getRateLimitMaxClients());
+    }
+
+    /**
+     * @see Configuration#getDefaultConcurrencyLimit()
+     * @verifies return correct value
+     */
+    @Test
+    void getDefaultConcurrencyLimit_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(3, DataManager.getInstance().getConfiguration().getDefaultConcurrencyLimit());
+    }
+
+    /**
+     * @see Configuration#getConcurrencyLimits()
+     * @verifies return all configured limits
+     */
+    @Test
+    void getConcurrencyLimits_shouldReturnAllConfiguredLimits() throws Exception {
+        Map<String, Integer> limits = DataManager.getInstance().getConfiguration().getConcurrencyLimits();
+        Assertions.assertEquals(2, limits.size());
+        Assertions.assertEquals(2, limits.get(AdmissionController.getLimitKey("ListRecords", "mets")));
+        Assertions.assertEquals(5, limits.get(AdmissionController.getLimitKey("searchRetrieve", null)));
+    }
+
+    /**
+     * @see Configuration#isRequestCoalescing()
+     * @verifies return correct value
+     */
+    @Test
+    void isRequestCoalescing_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertFalse(DataManager.getInstance().getConfiguration().isRequestCoalescing());
+    }
+
+    /**
+     * @see Configuration#getRequestCoalescingTimeout()
+     * @verifies return correct value
+     */
+    @Test
+    void getRequestCoalescingTimeout_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(30, DataManager.getInstance().getConfiguration().getRequestCoalescingTimeout());
+    }
+
+    /**
+     * @see Configuration#isDumpEnabled()
+     * @verifies return correct value
+     */
+    @Test
+    void isDumpEnabled_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertTrue(DataManager.getInstance().getConfiguration().isDumpEnabled());
+    }
+
+    /**
+     * @see Configuration#getContentHash()
+     * @verifies return same hash for same content
+     */
+    @Test
+    void getContentHash_shouldReturnSameHashForSameContent() throws Exception {
+        String hash = DataManager.getInstance().getConfiguration().getContentHash();
+        Assertions.assertEquals(40, hash.length());
+        Configuration config = new Configuration(TEST_CONFIG_PATH);
+        try {
+            Assertions.assertEquals(hash, config.getContentHash());
+        } finally {
+            config.shutdown();
+        }
+    }
+
+    /**
+     * @see Configuration#getDumpRows()
+     * @verifies return correct value
+     */
+    @Test
+    void getDumpRows_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(100, DataManager.getInstance().getConfiguration().getDumpRows());
+    }
+
+    /**
+     * @see Configuration#getDumpConcurrencyLimit()
+     * @verifies return correct value
+     */
+    @Test
+    void getDumpConcurrencyLimit_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(2, DataManager.getInstance().getConfiguration().getDumpConcurrencyLimit());
+    }
+
+    /**
+     * @see Configuration#getDumpSnapshotFolder()
+     * @verifies return correct value
+     */
+    @Test
+    void getDumpSnapshotFolder_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals("target/dumps/", DataManager.getInstance().getConfiguration().getDumpSnapshotFolder());
+    }
+
+    /**
+     * @see Configuration#getDumpSnapshotInterval()
+     * @verifies return correct value
+     */
+    @Test
+    void getDumpSnapshotInterval_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(24, DataManager.getInstance().getConfiguration().getDumpSnapshotInterval());
+    }
+
+    /**
+     * @see Configuration#getDumpSnapshotMetadataPrefixes()
+     * @verifies return all values
+     */
+    @Test
+    void getDumpSnapshotMetadataPrefixes_shouldReturnAllValues() throws Exception {
+        List<String> result = DataManager.getInstance().getConfiguration().getDumpSnapshotMetadataPrefixes();
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals("oai_dc", result.get(0));
+        Assertions.assertEquals("mets", result.get(1));
+    }
+
+    /**
+     * @see Configuration#isRecordStoreEnabled()
+     * @verifies return correct value
+     */
+    @Test
+    void isRecordStoreEnabled_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertTrue(DataManager.getInstance().getConfiguration().isRecordStoreEnabled());
+    }
+
+    /**
+     * @see Configuration#getRecordStoreFolder()
+     * @verifies return correct value
+     */
+    @Test
+    void getRecordStoreFolder_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals("target/recordstore/", DataManager.getInstance().getConfiguration().getRecordStoreFolder());
+    }
+
+    /**
+     * @see Configuration#getRecordStoreRefreshInterval()
+     * @verifies return correct value
+     */
+    @Test
+    void getRecordStoreRefreshInterval_shouldReturnCorrectValue() throws Exception {
+        Assertions.assertEquals(30, DataManager.getInstance().getConfiguration().getRecordStoreRefreshInterval());
+    }
+
+    /**
+     * @see Configuration#getRecordStoreMetadataPrefixes()
+     * @verifies return all values
+     */
+    @Test
+    void getRecordStoreMetadataPrefixes_shouldReturnAllValues() throws Exception {
+        List<String> result = DataManager.getInstance().getConfiguration().getRecordStoreMetadataPrefixes();
+        Assertions.assertEquals(2, result.size());
+        Assertions.assertEquals("oai_dc", result.get(0));
+        Assertions.assertEquals("mets", result.get(1));
+    }
 }
@@ -0,0 +1,62 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class FilterSuffixCacheTest {
+
+    /**
+     * @see FilterSuffixCache#getSuffix(String,Supplier)
+     * @verifies compute suffix only once per client
+     */
+    @Test
+    void getSuffix_shouldComputeSuffixOnlyOncePerClient() throws Exception {
+        FilterSuffixCache cache = new FilterSuffixCache(10, 0);
+        AtomicInteger calls = new AtomicInteger();
+        Assertions.assertEquals(" -ACCESSCONDITION:restricted", cache.getSuffix("127.0.0.1", () -> {
+            calls.incrementAndGet();
+            return " -ACCESSCONDITION:restricted";
+        }));
+        Assertions.assertEquals(" -ACCESSCONDITION:restricted", cache.getSuffix("127.0.0.1", () -> {
+            calls.incrementAndGet();
+            return "";
+        }));
+        Assertions.assertEquals("", cache.getSuffix("10.0.0.1", () -> {
+            calls.incrementAndGet();
+            return "";
+        }));
+        Assertions.assertEquals(2, calls.get());
+        Assertions.assertEquals(2, cache.getComputeCount());
+        Assertions.assertEquals(1, cache.getHitCount());
+        Assertions.assertEquals(2, cache.size());
+    }
+
+    /**
+     * @see FilterSuffixCache#getSuffix(String,Supplier)
+     * @verifies not cache if clientKey null
+     */
+    @Test
+    void getSuffix_shouldNotCacheIfClientKeyNull() throws Exception {
+        FilterSuffixCache cache = new FilterSuffixCache(10, 0);
+        Assertions.assertEquals("foo", cache.getSuffix(null, () -> "foo"));
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals(1, cache.getComputeCount());
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.goobi.viewer.connector.AbstractTest;
+
+class FulltextCacheTest extends AbstractTest {
+
+    private static final String ALTO = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<alto xmlns=\"http://www.loc.gov/standards/alto/ns-v2#\"><Layout><Page ID=\"P1\" HEIGHT=\"100\" WIDTH=\"100\">"
+            + "<PrintSpace HEIGHT=\"100\" WIDTH=\"100\" HPOS=\"0\" VPOS=\"0\"><TextBlock ID=\"B1\" HEIGHT=\"10\" WIDTH=\"50\" HPOS=\"0\" VPOS=\"0\">"
+            + "<TextLine ID=\"L1\" HEIGHT=\"10\" WIDTH=\"50\" HPOS=\"0\" VPOS=\"0\">"
+            + "<String ID=\"S1\" CONTENT=\"Eventyr\" HEIGHT=\"10\" WIDTH=\"50\" HPOS=\"0\" VPOS=\"0\"/>"
+            + "</TextLine></TextBlock></PrintSpace></Page></Layout></alto>";
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * @see FulltextCache#getFulltext(Path)
+     * @verifies return cached text if file unchanged
+     */
+    @Test
+    void getFulltext_shouldReturnCachedTextIfFileUnchanged() throws Exception {
+        Path file = tempDir.resolve("00000001.xml");
+        Files.writeString(file, ALTO, StandardCharsets.UTF_8);
+        FileTime lastModified = Files.getLastModifiedTime(file);
+
+        FulltextCache cache = new FulltextCache(10, 0, 1);
+        String text = cache.getFulltext(file);
+        Assertions.assertEquals(1, cache.size());
+
+        // Replace the content but keep the modification time; the cached text must be returned without parsing the file again
+        Files.writeString(file, "not ALTO", StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(file, lastModified);
+        Assertions.assertEquals(text, cache.getFulltext(file));
+    }
+
+    /**
+     * @see FulltextCache#getFulltexts(List)
+     * @verifies return texts in order of paths
+     */
+    @Test
+    void getFulltexts_shouldReturnTextsInOrderOfPaths() throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (int i = 1; i <= 4; ++i) {
+            Path file = tempDir.resolve("0000000" + i + ".xml");
+            Files.writeString(file, ALTO.replace("Eventyr", "Eventyr" + i), StandardCharsets.UTF_8);
+            files.add(file);
+        }
+
+        FulltextCache cache = new FulltextCache(10, 0, 2);
+        try {
+            // Cache one of the files, so that hits and misses are mixed
+            String second = cache.getFulltext(files.get(1));
+            List<String> texts = cache.getFulltexts(files);
+            Assertions.assertEquals(4, texts.size());
+            Assertions.assertEquals(second, texts.get(1));
+            for (int i = 0; i < 4; ++i) {
+                Assertions.assertTrue(texts.get(i).contains("Eventyr" + (i + 1)));
+            }
+        } finally {
+            cache.shutdown();
+        }
+    }
+}
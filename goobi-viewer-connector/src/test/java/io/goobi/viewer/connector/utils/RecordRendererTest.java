@@ -0,0 +1,111 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RecordRendererTest {
+
+    /**
+     * @see RecordRenderer#renderAll(List,RecordRenderer.RecordTask)
+     * @verifies return results in input order
+     */
+    @Test
+    void renderAll_shouldReturnResultsInInputOrder() throws Exception {
+        RecordRenderer renderer = new RecordRenderer(true, 4);
+        try {
+            List<Integer> items = new ArrayList<>();
+            for (int i = 0; i < 50; ++i) {
+                items.add(i);
+            }
+            List<String> results = renderer.renderAll(items, i -> {
+                try {
+                    // Let earlier items finish later
+                    Thread.sleep(50L - i);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "record" + i;
+            });
+            Assertions.assertEquals(50, results.size());
+            for (int i = 0; i < 50; ++i) {
+                Assertions.assertEquals("record" + i, results.get(i));
+            }
+        } finally {
+            renderer.shutdown();
+        }
+    }
+
+    /**
+     * @see RecordRenderer#renderAll(List,RecordRenderer.RecordTask)
+     * @verifies not exceed max concurrent calls
+     */
+    @Test
+    void renderAll_shouldNotExceedMaxConcurrentCalls() throws Exception {
+        RecordRenderer renderer = new RecordRenderer(true, 3);
+        try {
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger maxRunning = new AtomicInteger();
+            List<Integer> items = new ArrayList<>();
+            for (int i = 0; i < 20; ++i) {
+                items.add(i);
+            }
+            renderer.renderAll(items, i -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+                return i;
+            });
+            Assertions.assertTrue(maxRunning.get() <= 3, "max running: " + maxRunning.get());
+        } finally {
+            renderer.shutdown();
+        }
+    }
+
+    /**
+     * @see RecordRenderer#renderAll(List,RecordRenderer.RecordTask)
+     * @verifies rethrow task exceptions
+     */
+    @Test
+    void renderAll_shouldRethrowTaskExceptions() throws Exception {
+        for (boolean virtualThreads : new boolean[] { false, true }) {
+            RecordRenderer renderer = new RecordRenderer(virtualThreads, 2);
+            try {
+                List<Integer> items = List.of(1, 2, 3);
+                IOException e = Assertions.assertThrows(IOException.class, () -> renderer.renderAll(items, i -> {
+                    if (i == 2) {
+                        throw new IOException("record " + i);
+                    }
+                    return i;
+                }));
+                Assertions.assertEquals("record 2", e.getMessage());
+            } finally {
+                renderer.shutdown();
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.solr.common.SolrDocument;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.input.SAXBuilder;
+import org.jdom2.output.Format;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.goobi.viewer.connector.oai.RequestHandler;
+import io.goobi.viewer.connector.oai.enums.Metadata;
+import io.goobi.viewer.solr.SolrConstants;
+
+class RecordStoreTest {
+
+    private static final Namespace OAI_NS = Namespace.getNamespace("http://www.openarchives.org/OAI/2.0/");
+
+    @TempDir
+    Path tempDir;
+
+    private static SolrDocument createDoc(long dateUpdated) {
+        SolrDocument doc = new SolrDocument();
+        doc.setField(SolrConstants.PI, "PPN123");
+        doc.setField(SolrConstants.DATEUPDATED, dateUpdated);
+        return doc;
+    }
+
+    private static RequestHandler createHandler() {
+        RequestHandler handler = new RequestHandler();
+        handler.setMetadataPrefix(Metadata.OAI_DC);
+        return handler;
+    }
+
+    private static Element createRecord(String title) {
+        Element eleRecord = new Element("record", OAI_NS);
+        eleRecord.addContent(new Element("title", OAI_NS).setText(title));
+        return eleRecord;
+    }
+
+    /**
+     * Stored records are spooled and must be serialized to inspect their content.
+     * 
+     * @param eleRecord
+     * @return Title of the record
+     */
+    private static String getTitle(Element eleRecord) throws Exception {
+        String xml = SpooledElement.getOutputter(Format.getRawFormat()).outputString(eleRecord);
+        return new SAXBuilder().build(new StringReader(xml)).getRootElement().getChildText("title", OAI_NS);
+    }
+
+    /**
+     * @see RecordStore#getOrRender(SolrDocument,RequestHandler,String,RecordStore.RecordSource)
+     * @verifies render and store record on miss
+     */
+    @Test
+    void getOrRender_shouldRenderAndStoreRecordOnMiss() throws Exception {
+        RecordStore store = new RecordStore(true, tempDir, List.of("oai_dc"), () -> "config");
+        Element result = store.getOrRender(createDoc(1000L), createHandler(), "", () -> createRecord("foo"));
+        Assertions.assertEquals("foo", getTitle(result));
+        Assertions.assertTrue(Files.isRegularFile(store.getFile("oai_dc", "PPN123", "")));
+    }
+
+    /**
+     * @see RecordStore#getOrRender(SolrDocument,RequestHandler,String,RecordStore.RecordSource)
+     * @verifies return stored record on hit
+     */
+    @Test
+    void getOrRender_shouldReturnStoredRecordOnHit() throws Exception {
+        RecordStore store = new RecordStore(true, tempDir, List.of("oai_dc"), () -> "config");
+        AtomicInteger renderings = new AtomicInteger();
+        store.getOrRender(createDoc(1000L), createHandler(), "", () -> {
+            renderings.incrementAndGet();
+            return createRecord("foo");
+        });
+        Element result = store.getOrRender(createDoc(1000L), createHandler(), "", () -> {
+            renderings.incrementAndGet();
+            return createRecord("bar");
+        });
+        Assertions.assertEquals(1, renderings.get());
+        Assertions.assertEquals("record", result.getName());
+        Assertions.assertEquals("foo", getTitle(result));
+    }
+
+    /**
+     * @see RecordStore#getOrRender(SolrDocument,RequestHandler,String,RecordStore.RecordSource)
+     * @verifies return stored record as spooled element
+     */
+    @Test
+    void getOrRender_shouldReturnStoredRecordAsSpooledElement() throws Exception {
+        RecordStore store = new RecordStore(true, tempDir, List.of("oai_dc"), () -> "config");
+        store.getOrRender(createDoc(1000L), createHandler(), "", () -> createRecord("foo"));
+        Element result = store.getOrRender(createDoc(1000L), createHandler(), "", () -> createRecord("bar"));
+        Assertions.assertTrue(result instanceof SpooledElement);
+        Assertions.assertEquals(OAI_NS, result.getNamespace());
+        Assertions.assertTrue(result.getChildren().isEmpty());
+        Assertions.assertTrue(Files.isRegularFile(((SpooledElement) result).getFile()));
+    }
+
+    /**
+     * @see RecordStore#getOrRender(SolrDocument,RequestHandler,String,RecordStore.RecordSource)
+     * @verifies render record again if outdated
+     */
+    @Test
+    void getOrRender_shouldRenderRecordAgainIfOutdated() throws Exception {
+        RecordStore store = new RecordStore(true, tempDir, List.of("oai_dc"), () -> "config");
+        store.getOrRender(createDoc(1000L), createHandler(), "", () -> createRecord("foo"));
+        Element result = store.getOrRender(createDoc(2000L), createHandler(), "", () -> createRecord("bar"));
+        Assertions.assertEquals("bar", getTitle(result));
+        result = store.getOrRender(createDoc(2000L), createHandler(), "", () -> createRecord("baz"));
+        Assertions.assertEquals("bar", getTitle(result));
+    }
+
+    /**
+     * @see RecordStore#getOrRender(SolrDocument,RequestHandler,String,RecordStore.RecordSource)
+     * @verifies render record again if configuration changed
+     */
+    @Test
+    void getOrRender_shouldRenderRecordAgainIfConfigurationChanged() throws Exception {
+        AtomicReference<String> configHash = new AtomicReference<>("config1");
+        RecordStore store = new RecordStore(true, tempDir, List.of("oai_dc"), configHash::get);
+        store.getOrRender(createDoc(1000L), createHandler(), "", () -> createRecord("foo"));
+        configHash.set("config2");
+        Element result = store.getOrRender(createDoc(1000L), createHandler(), "", () -> createRecord("bar"));
+        Assertions.assertEquals("bar", getTitle(result));
+    }
+
+    /**
+     * @see RecordStore#getOrRender(SolrDocument,RequestHandler,String,RecordStore.RecordSource)
+     * @verifies not store error elements
+     */
+    @Test
+    void getOrRender_shouldNotStoreErrorElements() throws Exception {
+        RecordStore store = new RecordStore(true, tempDir, List.of("oai_dc"), () -> "config");
+        Element result = store.getOrRender(createDoc(1000L), createHandler(), "", () -> new Element("error", OAI_NS));
+        Assertions.assertEquals("error", result.getName());
+        Assertions.assertFalse(Files.exists(store.getFile("oai_dc", "PPN123", "")));
+    }
+
+    /**
+     * @see RecordStore#isStorable(SolrDocument,RequestHandler)
+     * @verifies return true for plain record
+     */
+    @Test
+    void isStorable_shouldReturnTrueForPlainRecord() throws Exception {
+        Assertions.assertTrue(RecordStore.isStorable(createDoc(1000L), createHandler()));
+    }
+
+    /**
+     * @see RecordStore#isStorable(SolrDocument,RequestHandler)
+     * @verifies return false if set requested
+     */
+    @Test
+    void isStorable_shouldReturnFalseIfSetRequested() throws Exception {
+        RequestHandler handler = createHandler();
+        handler.setSet("DC:foo");
+        Assertions.assertFalse(RecordStore.isStorable(createDoc(1000L), handler));
+    }
+
+    /**
+     * @see RecordStore#isStorable(SolrDocument,RequestHandler)
+     * @verifies return false for deleted records
+     */
+    @Test
+    void isStorable_shouldReturnFalseForDeletedRecords() throws Exception {
+        SolrDocument doc = createDoc(1000L);
+        doc.setField(SolrConstants.DATEDELETED, 2000L);
+        Assertions.assertFalse(RecordStore.isStorable(doc, createHandler()));
+    }
+
+    /**
+     * @see RecordStore#isStorable(SolrDocument,RequestHandler)
+     * @verifies return false for anchors
+     */
+    @Test
+    void isStorable_shouldReturnFalseForAnchors() throws Exception {
+        SolrDocument doc = createDoc(1000L);
+        doc.setField(SolrConstants.ISANCHOR, true);
+        Assertions.assertFalse(RecordStore.isStorable(doc, createHandler()));
+    }
+
+    /**
+     * @see RecordStore#isStorable(SolrDocument,RequestHandler)
+     * @verifies return false if until before latest update
+     */
+    @Test
+    void isStorable_shouldReturnFalseIfUntilBeforeLatestUpdate() throws Exception {
+        SolrDocument doc = createDoc(1000L);
+        doc.addField(SolrConstants.DATEUPDATED, 1893456000000L); // 2030-01-01
+        RequestHandler handler = createHandler();
+        handler.setUntil("2020-01-01");
+        Assertions.assertFalse(RecordStore.isStorable(doc, handler));
+        handler.setUntil("2031-01-01");
+        Assertions.assertTrue(RecordStore.isStorable(doc, handler));
+    }
+
+    /**
+     * @see RecordStore#isStorable(SolrDocument,RequestHandler)
+     * @verifies return false for child docs
+     */
+    @Test
+    void isStorable_shouldReturnFalseForChildDocs() throws Exception {
+        SolrDocument doc = createDoc(1000L);
+        doc.setField(SolrConstants.PI_TOPSTRUCT, "PPN123");
+        Assertions.assertTrue(RecordStore.isStorable(doc, createHandler()));
+
+        SolrDocument childDoc = new SolrDocument();
+        childDoc.setField(SolrConstants.PI_TOPSTRUCT, "PPN123");
+        childDoc.setField(SolrConstants.DATEUPDATED, 1000L);
+        Assertions.assertFalse(RecordStore.isStorable(childDoc, createHandler()));
+    }
+
+    /**
+     * @see RecordStore#getOrRender(SolrDocument,RequestHandler,String,RecordStore.RecordSource)
+     * @verifies not serve topstruct record for child doc
+     */
+    @Test
+    void getOrRender_shouldNotServeTopstructRecordForChildDoc() throws Exception {
+        RecordStore store = new RecordStore(true, tempDir, List.of("oai_dc"), () -> "config");
+        SolrDocument doc = createDoc(1000L);
+        doc.setField(SolrConstants.PI_TOPSTRUCT, "PPN123");
+        SolrDocument childDoc = new SolrDocument();
+        childDoc.setField(SolrConstants.PI_TOPSTRUCT, "PPN123");
+        childDoc.setField(SolrConstants.DATEUPDATED, 1000L);
+
+        store.getOrRender(doc, createHandler(), "", () -> createRecord("foo"));
+        Element result = store.getOrRender(childDoc, createHandler(), "", () -> createRecord("bar"));
+        Assertions.assertEquals("bar", getTitle(result));
+        // The child's record must not replace the stored topstruct record
+        result = store.getOrRender(doc, createHandler(), "", () -> createRecord("baz"));
+        Assertions.assertEquals("foo", getTitle(result));
+    }
+
+    /**
+     * @see RecordStore#invalidate(String)
+     * @verifies delete record for all suffixes
+     */
+    @Test
+    void invalidate_shouldDeleteRecordForAllSuffixes() throws Exception {
+        RecordStore store = new RecordStore(true, tempDir, List.of("oai_dc"), () -> "config");
+        store.getOrRender(createDoc(1000L), createHandler(), "", () -> createRecord("foo"));
+        store.getOrRender(createDoc(1000L), createHandler(), " -ACCESSCONDITION:restricted", () -> createRecord("foo"));
+        Assertions.assertEquals(2, store.invalidate("PPN123"));
+        Assertions.assertFalse(Files.exists(store.getFile("oai_dc", "PPN123", "")));
+    }
+}
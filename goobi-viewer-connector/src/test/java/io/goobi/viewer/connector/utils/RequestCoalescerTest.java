@@ -0,0 +1,179 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class RequestCoalescerTest {
+
+    /**
+     * @see RequestCoalescer#getRequestKey(String,Map,String)
+     * @verifies ignore parameter order
+     */
+    @Test
+    void getRequestKey_shouldIgnoreParameterOrder() throws Exception {
+        Map<String, String[]> params1 = new LinkedHashMap<>();
+        params1.put("verb", new String[] { "ListRecords" });
+        params1.put("metadataPrefix", new String[] { "oai_dc" });
+        Map<String, String[]> params2 = new LinkedHashMap<>();
+        params2.put("metadataPrefix", new String[] { "oai_dc" });
+        params2.put("verb", new String[] { "ListRecords" });
+        Assertions.assertEquals(RequestCoalescer.getRequestKey("http://localhost/oai", params1, ""),
+                RequestCoalescer.getRequestKey("http://localhost/oai", params2, ""));
+    }
+
+    /**
+     * @see RequestCoalescer#getRequestKey(String,Map,String)
+     * @verifies distinguish filter query suffixes
+     */
+    @Test
+    void getRequestKey_shouldDistinguishFilterQuerySuffixes() throws Exception {
+        Map<String, String[]> params = new HashMap<>();
+        params.put("verb", new String[] { "Identify" });
+        Assertions.assertNotEquals(RequestCoalescer.getRequestKey("http://localhost/oai", params, ""),
+                RequestCoalescer.getRequestKey("http://localhost/oai", params, " -ACCESSCONDITION:restricted"));
+    }
+
+    /**
+     * @see RequestCoalescer#share(String,RequestCoalescer.SharedComputation)
+     * @verifies share result of concurrent computation
+     */
+    @Test
+    void share_shouldShareResultOfConcurrentComputation() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(true, 5000);
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> coalescer.share("key", () -> {
+                computations.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "result";
+            }));
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> follower = executor.submit(() -> coalescer.share("key", () -> {
+                computations.incrementAndGet();
+                return "other result";
+            }));
+            long timeout = System.currentTimeMillis() + 5000;
+            while (coalescer.getCoalescedCount() == 0 && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            Assertions.assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+            Assertions.assertEquals("result", follower.get(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(1, computations.get());
+            Assertions.assertEquals(1, coalescer.getCoalescedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @see RequestCoalescer#share(String,RequestCoalescer.SharedComputation)
+     * @verifies compute again after completion
+     */
+    @Test
+    void share_shouldComputeAgainAfterCompletion() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(true, 5000);
+        AtomicInteger computations = new AtomicInteger();
+        Assertions.assertEquals(1, (int) coalescer.share("key", computations::incrementAndGet));
+        Assertions.assertEquals(2, (int) coalescer.share("key", computations::incrementAndGet));
+        Assertions.assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    /**
+     * @see RequestCoalescer#share(String,RequestCoalescer.SharedComputation)
+     * @verifies compute separately if running computation fails
+     */
+    @Test
+    void share_shouldComputeSeparatelyIfRunningComputationFails() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(true, 5000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> coalescer.share("key", () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("failed");
+            }));
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> follower = executor.submit(() -> coalescer.share("key", () -> "own result"));
+            long timeout = System.currentTimeMillis() + 5000;
+            while (coalescer.getCoalescedCount() == 0 && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            Assertions.assertEquals("own result", follower.get(5, TimeUnit.SECONDS));
+            Assertions.assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @see RequestCoalescer#share(String,RequestCoalescer.SharedComputation)
+     * @verifies compute separately if running computation exceeds wait timeout
+     */
+    @Test
+    void share_shouldComputeSeparatelyIfRunningComputationExceedsWaitTimeout() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(true, 100);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            Future<String> leader = executor.submit(() -> coalescer.share("key", () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "result";
+            }));
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals("own result", coalescer.share("key", () -> "own result"));
+            Assertions.assertEquals(1, coalescer.getCoalescedCount());
+            release.countDown();
+            Assertions.assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.utils.RequestExecutor.RequestClass;
+import io.goobi.viewer.connector.utils.RequestExecutor.RequestProcessor;
+
+class RequestExecutorTest {
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private final AtomicInteger status = new AtomicInteger(HttpServletResponse.SC_OK);
+    private final AtomicInteger completions = new AtomicInteger();
+    private final List<AsyncListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a proxy of the given interface that handles the given methods and returns default values for all others.
+     * 
+     * @param type Interface
+     * @param methods Method implementations by method name
+     * @return Proxy
+     */
+    private static <T> T createProxy(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            Function<Object[], Object> impl = methods.get(method.getName());
+            if (impl != null) {
+                return impl.apply(args);
+            }
+            if (method.getReturnType() == boolean.class) {
+                return false;
+            }
+            if (method.getReturnType() == int.class) {
+                return 0;
+            }
+            if (method.getReturnType() == long.class) {
+                return 0L;
+            }
+            return null;
+        }));
+    }
+
+    private HttpServletRequest createRequest() {
+        ServletOutputStream out = new ServletOutputStream() {
+
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                //
+            }
+        };
+        HttpServletResponse response = createProxy(HttpServletResponse.class, Map.of(
+                "getOutputStream", args -> out,
+                "sendError", args -> {
+                    status.set((Integer) args[0]);
+                    return null;
+                }));
+        AsyncContext asyncContext = createProxy(AsyncContext.class, Map.of(
+                "getResponse", args -> response,
+                "addListener", args -> listeners.add((AsyncListener) args[0]),
+                "complete", args -> completions.incrementAndGet()));
+        HttpServletRequest request = createProxy(HttpServletRequest.class, Map.of(
+                "isAsyncSupported", args -> true,
+                "startAsync", args -> asyncContext,
+                "getRemoteAddr", args -> "127.0.0.1"));
+
+        return request;
+    }
+
+    /**
+     * 
+     * @param executor
+     * @throws InterruptedException
+     */
+    private static void awaitIdle(RequestExecutor executor) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getActiveCount(RequestClass.HEAVY) > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * @see RequestExecutor#execute(HttpServletRequest,HttpServletResponse,RequestClass,RequestProcessor)
+     * @verifies complete request once after processing
+     */
+    @Test
+    void execute_shouldCompleteRequestOnceAfterProcessing() throws Exception {
+        RequestExecutor executor = new RequestExecutor(true, 1, 1, 1, 1, 10, 1000);
+        CountDownLatch done = new CountDownLatch(1);
+        try {
+            executor.execute(createRequest(), null, RequestClass.HEAVY, (req, resp) -> {
+                resp.getOutputStream().write("foo".getBytes(StandardCharsets.UTF_8));
+                done.countDown();
+            });
+            Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+            awaitIdle(executor);
+            Assertions.assertEquals("foo", body.toString(StandardCharsets.UTF_8));
+            Assertions.assertEquals(1, completions.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @see RequestExecutor#execute(HttpServletRequest,HttpServletResponse,RequestClass,RequestProcessor)
+     * @verifies complete request and drop further output on timeout while running
+     */
+    @Test
+    void execute_shouldCompleteRequestAndDropFurtherOutputOnTimeoutWhileRunning() throws Exception {
+        RequestExecutor executor = new RequestExecutor(true, 1, 1, 1, 1, 10, 1000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            RequestProcessor processor = (req, resp) -> {
+                resp.getOutputStream().write("foo".getBytes(StandardCharsets.UTF_8));
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                resp.getOutputStream().write("bar".getBytes(StandardCharsets.UTF_8));
+            };
+            executor.execute(createRequest(), null, RequestClass.HEAVY, processor);
+            Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            listeners.get(0).onTimeout(null);
+            // The request is completed right away, without waiting for the worker
+            Assertions.assertEquals(1, completions.get());
+            Assertions.assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, status.get());
+
+            release.countDown();
+            awaitIdle(executor);
+            Assertions.assertEquals("foo", body.toString(StandardCharsets.UTF_8));
+            Assertions.assertEquals(1, completions.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
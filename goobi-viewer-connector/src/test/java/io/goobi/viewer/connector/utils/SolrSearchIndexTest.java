@@ -15,14 +15,20 @@
  */
 package io.goobi.viewer.connector.utils;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.solr.client.solrj.response.FacetField;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.params.CursorMarkParams;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -61,6 +67,56 @@ class SolrSearchIndexTest extends AbstractSolrEnabledTest {
         Assertions.assertEquals("PPN517154005", doc.getFieldValue(SolrConstants.PI));
     }
 
+    /**
+     * @see SolrSearchIndex#getFirstFieldValuesForPis(Collection,String)
+     * @verifies return values for found identifiers
+     */
+    @Test
+    void getFirstFieldValuesForPis_shouldReturnValuesForFoundIdentifiers() throws Exception {
+        Map<String, String> result = DataManager.getInstance()
+                .getSearchIndex()
+                .getFirstFieldValuesForPis(Arrays.asList("PPN517154005", "NOTFOUND"), SolrConstants.PI_TOPSTRUCT);
+        Assertions.assertEquals(1, result.size());
+        Assertions.assertEquals("PPN517154005", result.get("PPN517154005"));
+    }
+
+    /**
+     * @see SolrSearchIndex#getPageUrnsForPis(Collection,int,int,String,String)
+     * @verifies return page documents sorted by record and page order
+     */
+    @Test
+    void getPageUrnsForPis_shouldReturnPageDocumentsSortedByRecordAndPageOrder() throws Exception {
+        QueryResponse qr = DataManager.getInstance()
+                .getSearchIndex()
+                .getPageUrnsForPis(Arrays.asList("PPN517154005", "NOTFOUND"), 0, 100, null, "");
+        Assertions.assertNotNull(qr);
+        int previousOrder = 0;
+        for (SolrDocument doc : qr.getResults()) {
+            Assertions.assertEquals("PPN517154005", doc.getFieldValue(SolrConstants.PI_TOPSTRUCT));
+            Assertions.assertNotNull(doc.getFieldValue(SolrConstants.IMAGEURN));
+            int order = (Integer) doc.getFieldValue(SolrConstants.ORDER);
+            Assertions.assertTrue(order > previousOrder);
+            previousOrder = order;
+        }
+        if (!qr.getResults().isEmpty()) {
+            FacetField facetField = qr.getFacetField(SolrConstants.PI_TOPSTRUCT);
+            Assertions.assertNotNull(facetField);
+            Assertions.assertEquals(qr.getResults().getNumFound(), facetField.getValues().get(0).getCount());
+        }
+    }
+
+    /**
+     * @see SolrSearchIndex#getIndexVersion()
+     * @verifies return non empty value
+     */
+    @Test
+    void getIndexVersion_shouldReturnNonEmptyValue() throws Exception {
+        String version = DataManager.getInstance().getSearchIndex().getIndexVersion();
+        Assertions.assertNotNull(version);
+        Assertions.assertFalse(version.startsWith("0:"));
+        Assertions.assertEquals(version, DataManager.getInstance().getSearchIndex().getIndexVersion());
+    }
+
     /**
      * @see SolrSearchIndex#search(String,int,int,List,List,Map)
      * @verifies return correct number of rows
@@ -106,4 +162,35 @@ class SolrSearchIndexTest extends AbstractSolrEnabledTest {
         Assertions.assertEquals(14, result.size());
         Assertions.assertEquals("alto/PPN517154005/00000001.xml", result.get(1));
     }
-}
\ No newline at end of file
+
+    /**
+     * @see SolrSearchIndex#getDumpRecords(Map,String,String,List,String,int)
+     * @verifies return all records across pages
+     */
+    @Test
+    void getDumpRecords_shouldReturnAllRecordsAcrossPages() throws Exception {
+        Map<String, String> params = Collections.singletonMap("metadataPrefix", Metadata.OAI_DC.getMetadataPrefix());
+        long expected = DataManager.getInstance()
+                .getSearchIndex()
+                .getListRecords(params, 0, 1, false, null, "", null, null)
+                .getResults()
+                .getNumFound();
+        Assertions.assertTrue(expected > 10);
+
+        Set<Object> iddocs = new HashSet<>();
+        String cursorMark = CursorMarkParams.CURSOR_MARK_START;
+        while (true) {
+            QueryResponse qr = DataManager.getInstance()
+                    .getSearchIndex()
+                    .getDumpRecords(params, null, "", Collections.singletonList(SolrConstants.IDDOC), cursorMark, 10);
+            for (SolrDocument doc : qr.getResults()) {
+                iddocs.add(doc.getFieldValue(SolrConstants.IDDOC));
+            }
+            if (cursorMark.equals(qr.getNextCursorMark())) {
+                break;
+            }
+            cursorMark = qr.getNextCursorMark();
+        }
+        Assertions.assertEquals(expected, iddocs.size());
+    }
+}
@@ -171,4 +171,13 @@ class SolrSearchToolsTest {
         String query = SolrSearchTools.buildQueryString("2022-10-27T16:00:00Z", "2022-10-27T16:15:00Z", "goobi", "oai_dc", false, null);
         Assertions.assertTrue(query.contains(" +DATEUPDATED:[1666886400000 TO 1666887300999]"));
     }
-}
\ No newline at end of file
+
+    /**
+     * @see SolrSearchTools#buildQueryString(String,String,String,String,boolean,String)
+     * @verifies use custom query for additional sets
+     */
+    @Test
+    void buildQueryString_shouldUseCustomQueryForAdditionalSets() throws Exception {
+        Assertions.assertEquals("DC:a.b.c.d", SolrSearchTools.buildQueryString(null, null, "testspec", "oai_dc", false, null));
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractTest;
+import io.goobi.viewer.connector.utils.SourceDocumentCache.DocumentRequest;
+
+class SourceDocumentCacheTest extends AbstractTest {
+
+    /**
+     * @see SourceDocumentCache#getDocument(String,long,DocumentLoader)
+     * @verifies return cached document if date updated unchanged
+     */
+    @Test
+    void getDocument_shouldReturnCachedDocumentIfDateUpdatedUnchanged() throws Exception {
+        SourceDocumentCache cache = new SourceDocumentCache(10, 0, 1);
+        AtomicInteger loadCount = new AtomicInteger();
+        Assertions.assertEquals("<lido/>", cache.getDocument("lido:PPN123", 1L, () -> {
+            loadCount.incrementAndGet();
+            return "<lido/>";
+        }));
+        Assertions.assertEquals("<lido/>", cache.getDocument("lido:PPN123", 1L, () -> {
+            loadCount.incrementAndGet();
+            return "<other/>";
+        }));
+        Assertions.assertEquals(1, loadCount.get());
+    }
+
+    /**
+     * @see SourceDocumentCache#getDocument(String,long,DocumentLoader)
+     * @verifies load document again if date updated changed
+     */
+    @Test
+    void getDocument_shouldLoadDocumentAgainIfDateUpdatedChanged() throws Exception {
+        SourceDocumentCache cache = new SourceDocumentCache(10, 0, 1);
+        cache.getDocument("lido:PPN123", 1L, () -> "<lido/>");
+        Assertions.assertEquals("<other/>", cache.getDocument("lido:PPN123", 2L, () -> "<other/>"));
+    }
+
+    /**
+     * @see SourceDocumentCache#getDocument(String,long,DocumentLoader)
+     * @verifies not exceed max bytes
+     */
+    @Test
+    void getDocument_shouldNotExceedMaxBytes() throws Exception {
+        // Each document takes 10 bytes, so only two of them fit
+        SourceDocumentCache cache = new SourceDocumentCache(10, 20, 1);
+        cache.getDocument("a", 1L, () -> "<aa/>");
+        cache.getDocument("b", 1L, () -> "<bb/>");
+        Assertions.assertEquals(2, cache.size());
+        cache.getDocument("c", 1L, () -> "<cc/>");
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertTrue(cache.getWeight() <= 20);
+        AtomicInteger loadCount = new AtomicInteger();
+        cache.getDocument("a", 1L, () -> {
+            loadCount.incrementAndGet();
+            return "<aa/>";
+        });
+        Assertions.assertEquals(1, loadCount.get());
+    }
+
+    /**
+     * @see SourceDocumentCache#getDocuments(List)
+     * @verifies return documents in request order
+     */
+    @Test
+    void getDocuments_shouldReturnDocumentsInRequestOrder() throws Exception {
+        SourceDocumentCache cache = new SourceDocumentCache(10, 0, 3);
+        try {
+            List<String> result = cache.getDocuments(
+                    Arrays.asList(new DocumentRequest("a", 1L, () -> "A"), new DocumentRequest("b", 1L, () -> "B"),
+                            new DocumentRequest("c", 1L, () -> "C")));
+            Assertions.assertEquals(Arrays.asList("A", "B", "C"), result);
+            Assertions.assertEquals(3, cache.size());
+        } finally {
+            cache.shutdown();
+        }
+    }
+
+    /**
+     * @see SourceDocumentCache#getDocuments(List)
+     * @verifies return null for failed documents
+     */
+    @Test
+    void getDocuments_shouldReturnNullForFailedDocuments() throws Exception {
+        SourceDocumentCache cache = new SourceDocumentCache(10, 0, 2);
+        try {
+            List<String> result = cache.getDocuments(Arrays.asList(new DocumentRequest("a", 1L, () -> {
+                throw new IOException("not found");
+            }), new DocumentRequest("b", 1L, () -> "B")));
+            Assertions.assertEquals(2, result.size());
+            Assertions.assertNull(result.get(0));
+            Assertions.assertEquals("B", result.get(1));
+        } finally {
+            cache.shutdown();
+        }
+    }
+
+    /**
+     * @see SourceDocumentCache#getDocuments(List)
+     * @verifies load documents on calling thread if queue full
+     */
+    @Test
+    void getDocuments_shouldLoadDocumentsOnCallingThreadIfQueueFull() throws Exception {
+        SourceDocumentCache cache = new SourceDocumentCache(200, 0, 2);
+        try {
+            // More requests than the queue of two threads can hold
+            List<DocumentRequest> requests = new ArrayList<>();
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 100; ++i) {
+                String content = String.valueOf(i);
+                requests.add(new DocumentRequest("doc" + i, 1L, () -> content));
+                expected.add(content);
+            }
+            Assertions.assertEquals(expected, cache.getDocuments(requests));
+        } finally {
+            cache.shutdown();
+        }
+    }
+}
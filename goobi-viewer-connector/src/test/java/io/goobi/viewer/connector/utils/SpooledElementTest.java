@@ -0,0 +1,59 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.output.Format;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SpooledElementTest {
+
+    private static final Namespace OAI_NS = Namespace.getNamespace("http://www.openarchives.org/OAI/2.0/");
+
+    /**
+     * @see SpooledElement#getOutputter(Format)
+     * @verifies write spooled content as is
+     */
+    @Test
+    void getOutputter_shouldWriteSpooledContentAsIs() throws Exception {
+        Path file = SpooledElement.createFile();
+        Files.writeString(file, "<mets:mets xmlns:mets=\"http://www.loc.gov/METS/\"><mets:dmdSec ID=\"DMD1\"/></mets:mets>", StandardCharsets.UTF_8);
+        Element eleMetadata = new Element("metadata", OAI_NS);
+        eleMetadata.addContent(new SpooledElement("mets", Namespace.getNamespace("mets", "http://www.loc.gov/METS/"), file));
+
+        Assertions.assertEquals("<metadata xmlns=\"http://www.openarchives.org/OAI/2.0/\"><mets:mets xmlns:mets=\"http://www.loc.gov/METS/\">"
+                + "<mets:dmdSec ID=\"DMD1\"/></mets:mets></metadata>", SpooledElement.getOutputter(Format.getRawFormat()).outputString(eleMetadata));
+    }
+
+    /**
+     * @see SpooledElement#getOutputter(Format)
+     * @verifies write regular elements unchanged
+     */
+    @Test
+    void getOutputter_shouldWriteRegularElementsUnchanged() throws Exception {
+        Element eleRecord = new Element("record", OAI_NS);
+        eleRecord.addContent(new Element("title", OAI_NS).setText("foo & bar"));
+
+        Assertions.assertEquals("<record xmlns=\"http://www.openarchives.org/OAI/2.0/\"><title>foo &amp; bar</title></record>",
+                SpooledElement.getOutputter(Format.getRawFormat()).outputString(eleRecord));
+    }
+}
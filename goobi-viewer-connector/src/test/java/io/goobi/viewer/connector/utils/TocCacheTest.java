@@ -0,0 +1,114 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.goobi.viewer.connector.AbstractTest;
+
+class TocCacheTest extends AbstractTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * @see TocCache#getToc(String,long)
+     * @verifies return cached toc
+     */
+    @Test
+    void getToc_shouldReturnCachedToc() throws Exception {
+        TocCache cache = new TocCache(10, null, 0);
+        cache.put("PPN123", 1000L, "http://localhost/viewer/rest/records/PPN123/toc/", "Chapter 1");
+        TocCache.Toc toc = cache.getToc("PPN123", 1000L);
+        Assertions.assertNotNull(toc);
+        Assertions.assertEquals("Chapter 1", toc.getText());
+        Assertions.assertEquals("http://localhost/viewer/rest/records/PPN123/toc/", toc.getUrl());
+    }
+
+    /**
+     * @see TocCache#getToc(String,long)
+     * @verifies return null for cached missing toc
+     */
+    @Test
+    void getToc_shouldReturnNullForCachedMissingToc() throws Exception {
+        TocCache cache = new TocCache(10, null, 0);
+        cache.put("PPN123", 1000L, null, null);
+        Assertions.assertNull(cache.getToc("PPN123", 1000L));
+        Assertions.assertEquals(1, cache.size());
+    }
+
+    /**
+     * @see TocCache#getToc(String,long)
+     * @verifies read evicted toc from spill folder
+     */
+    @Test
+    void getToc_shouldReadEvictedTocFromSpillFolder() throws Exception {
+        TocCache cache = new TocCache(1, tempDir.toString(), 0);
+        cache.put("PPN123", 1000L, "http://localhost/viewer/rest/records/PPN123/toc/", "Chapter 1");
+        // Evicts PPN123 from memory
+        cache.put("PPN456", 1000L, "http://localhost/viewer/rest/records/PPN456/toc/", "Chapter 2");
+        Assertions.assertEquals(1, cache.size());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            Assertions.assertEquals(1, files.count());
+        }
+
+        // Read from the spill folder, not from the API
+        TocCache.Toc toc = cache.getToc("PPN123", 1000L);
+        Assertions.assertNotNull(toc);
+        Assertions.assertEquals("Chapter 1", toc.getText());
+        Assertions.assertEquals("http://localhost/viewer/rest/records/PPN123/toc/", toc.getUrl());
+    }
+
+    /**
+     * @see TocCache#readSpilled(String,long)
+     * @verifies return spilled toc
+     */
+    @Test
+    void readSpilled_shouldReturnSpilledToc() throws Exception {
+        TocCache cache = new TocCache(1, tempDir.toString(), 0);
+        cache.put("PPN123", 1000L, "http://localhost/viewer/rest/records/PPN123/toc/", "Chapter 1\nChapter 2");
+        cache.put("PPN456", 1000L, "http://localhost/viewer/rest/records/PPN456/toc/", "Chapter 3");
+
+        TocCache.Toc toc = cache.readSpilled("PPN123", 1000L);
+        Assertions.assertNotNull(toc);
+        Assertions.assertEquals("Chapter 1\nChapter 2", toc.getText());
+        Assertions.assertEquals("http://localhost/viewer/rest/records/PPN123/toc/", toc.getUrl());
+    }
+
+    /**
+     * @see TocCache#readSpilled(String,long)
+     * @verifies reject and delete outdated version
+     */
+    @Test
+    void readSpilled_shouldRejectAndDeleteOutdatedVersion() throws Exception {
+        TocCache cache = new TocCache(1, tempDir.toString(), 0);
+        cache.put("PPN123", 1000L, "http://localhost/viewer/rest/records/PPN123/toc/", "Chapter 1");
+        cache.put("PPN456", 1000L, "http://localhost/viewer/rest/records/PPN456/toc/", "Chapter 2");
+
+        // Record has been re-indexed since the TOC was spilled
+        Assertions.assertNull(cache.readSpilled("PPN123", 2000L));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            Assertions.assertEquals(0, files.count());
+        }
+        Assertions.assertNull(cache.readSpilled("PPN123", 1000L));
+    }
+}
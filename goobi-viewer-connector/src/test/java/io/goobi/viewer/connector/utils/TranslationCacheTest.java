@@ -0,0 +1,57 @@
+/**
+ * This file is part of the Goobi viewer Connector - OAI-PMH and SRU interfaces for digital objects.
+ *
+ * Visit these websites for more information.
+ *          - http://www.intranda.com
+ *          - http://digiverso.com
+ *
+ * This program is free software; you can redistribute it and/or modify it under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package io.goobi.viewer.connector.utils;
+
+import java.util.Locale;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import io.goobi.viewer.connector.AbstractTest;
+
+class TranslationCacheTest extends AbstractTest {
+
+    /**
+     * @see TranslationCache#getTranslation(String,Locale)
+     * @verifies cache translations per locale
+     */
+    @Test
+    void getTranslation_shouldCacheTranslationsPerLocale() throws Exception {
+        TranslationCache cache = new TranslationCache(10, 0);
+        String en = cache.getTranslation("MD_TITLE", Locale.ENGLISH);
+        Assertions.assertNotNull(en);
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(en, cache.getTranslation("MD_TITLE", Locale.ENGLISH));
+        Assertions.assertEquals(1, cache.size());
+
+        Assertions.assertNotNull(cache.getTranslation("MD_TITLE", Locale.GERMAN));
+        Assertions.assertEquals(2, cache.size());
+
+        cache.invalidateAll();
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    /**
+     * @see TranslationCache#getTranslation(String,Locale)
+     * @verifies return null if key null
+     */
+    @Test
+    void getTranslation_shouldReturnNullIfKeyNull() throws Exception {
+        TranslationCache cache = new TranslationCache(10, 0);
+        Assertions.assertNull(cache.getTranslation(null, Locale.ENGLISH));
+        Assertions.assertEquals(0, cache.size());
+    }
+}